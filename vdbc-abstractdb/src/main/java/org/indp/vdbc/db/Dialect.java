@@ -14,7 +14,41 @@ public interface Dialect {
 
     List<String> getDrivers();
 
+    /**
+     * @return delimiters which end a script statement when placed alone on a line, in addition to ';'
+     */
+    List<String> getScriptDelimiters();
+
+    /**
+     * @return fetch size which makes the driver stream rows of a forward-only cursor instead of reading all of them,
+     * e.g. {@code Integer.MIN_VALUE} for MySQL; null if a regular fetch size does
+     */
+    Integer getStreamingFetchSize();
+
     boolean supportsLimitedSelects();
 
     boolean supportsTableNameBuilder();
+
+    boolean supportsOrderedLimitedSelects();
+
+    boolean supportsEstimatedCount();
+
+    boolean supportsTableStatistics();
+
+    boolean supportsColumnStatistics();
+
+    /**
+     * @return true if columns, keys and indexes of a whole schema can be read in a few catalog queries
+     */
+    boolean supportsSchemaSnapshot();
+
+    boolean supportsSample();
+
+    boolean supportsRowValueComparison();
+
+    boolean supportsKeySampling();
+
+    boolean supportsExplain();
+
+    boolean supportsExplainAnalyze();
 }
@@ -1,12 +1,120 @@
 package org.indp.vdbc.db;
 
+import java.util.List;
+
 public interface Expressions {
 
     String buildTableName(String catalog, String schema, String table);
 
     String selectAllFromTable(String tableName, String filter);
 
+    /**
+     * @param columns comma separated list of quoted columns, null for all columns
+     */
+    String selectColumnsFromTable(String tableName, String columns, String filter);
+
     String selectAllFromTable(String tableName, String filter, int offset, int limit);
 
+    /**
+     * @param orderBy comma separated list of sort expressions
+     */
+    String selectAllFromTable(String tableName, String filter, String orderBy, int offset, int limit);
+
+    /**
+     * Same as {@link #selectAllFromTable(String, String, String, int, int)} but with parameter markers in place of
+     * the offset and limit, so the statement text is the same for every page.
+     *
+     * @param orderBy    comma separated list of sort expressions, null for unordered rows
+     * @param parameters list the paging parameter values are appended to, in marker order
+     */
+    String selectAllFromTable(String tableName, String filter, String orderBy, int offset, int limit, List<Object> parameters);
+
+    /**
+     * Same as {@link #selectAllFromTable(String, String, String, int, int, List)} but selects only the given columns.
+     *
+     * @param columns comma separated list of quoted columns, null for all columns
+     */
+    String selectColumnsFromTable(String tableName, String columns, String filter, String orderBy, int offset, int limit,
+                                  List<Object> parameters);
+
     String count(String tableName, String filter);
+
+    /**
+     * @param columns comma separated list of quoted columns, null for all columns
+     * @param percent approximate share of the table rows to pick, 0 to 100
+     * @return query returning at most {@code limit} randomly picked rows
+     */
+    String selectSample(String tableName, String columns, String filter, double percent, int limit);
+
+    /**
+     * @return query returning the number of rows of the table as estimated by the database statistics
+     */
+    String estimatedCount(String catalog, String schema, String table);
+
+    /**
+     * @return query returning a single row of table statistics such as estimated rows, last analyze time or sizes;
+     * columns with a {@code _BYTES} suffix hold sizes in bytes
+     */
+    String tableStatistics(String catalog, String schema, String table);
+
+    /**
+     * @return query returning a row of optimizer statistics per column, e.g. distinct values and null fraction,
+     * starting with the column name
+     */
+    String columnStatistics(String catalog, String schema, String table);
+
+    /**
+     * @return query returning TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, TYPE_NAME (including length and precision)
+     * and NULLABLE ('YES' or 'NO') of every column in the schema
+     */
+    String schemaColumns(String catalog, String schema);
+
+    /**
+     * @return query returning a row per column of every primary and foreign key in the schema: TABLE_NAME,
+     * CONSTRAINT_NAME, CONSTRAINT_TYPE ('P' or 'F'), COLUMN_NAME, POSITION, REFERENCED_SCHEMA, REFERENCED_TABLE and
+     * REFERENCED_COLUMN
+     */
+    String schemaKeys(String catalog, String schema);
+
+    /**
+     * @return query returning a row per column of every index in the schema: TABLE_NAME, INDEX_NAME, UNIQUE_INDEX,
+     * COLUMN_NAME and POSITION
+     */
+    String schemaIndexes(String catalog, String schema);
+
+    /**
+     * @param columns comma separated key columns
+     * @param params  matching comma separated parameter markers
+     * @return condition selecting rows with a key greater than the given one, comparing row values
+     */
+    String keyGreaterThan(String columns, String params);
+
+    /**
+     * @return condition matching the expression against a like pattern parameter, in which a backslash escapes
+     * {@code %}, {@code _} and itself
+     */
+    String likeEscaped(String expression);
+
+    /**
+     * @param columns comma separated key columns
+     * @return query returning the key of every {@code step}-th row in key order
+     */
+    String selectKeySample(String tableName, String filter, String columns, int step);
+
+    /**
+     * @return statements producing the execution plan of the query, separated by ';' if there are several; the last
+     * statement returns the plan as text, one or more lines per row
+     */
+    String explain(String sql);
+
+    /**
+     * Same as {@link #explain(String)} but actually runs the query and reports real timings and row counts.
+     */
+    String explainAnalyze(String sql);
+
+    /**
+     * @return format of the plan text: {@code tree} for indented operations (the default), {@code oracle} for
+     * DBMS_XPLAN tables
+     */
+    String explainFormat();
 }
@@ -43,6 +43,58 @@ public abstract class AbstractXmlDefinedDialect implements Dialect {
         return dialectDefinition.hasFeature("build.tableName");
     }
 
+    @Override
+    public boolean supportsOrderedLimitedSelects() {
+        return dialectDefinition.hasFeature("select.all.from.table.ordered.limit.offset");
+    }
+
+    @Override
+    public boolean supportsEstimatedCount() {
+        return dialectDefinition.hasFeature("estimated.count");
+    }
+
+    @Override
+    public boolean supportsTableStatistics() {
+        return dialectDefinition.hasFeature("table.statistics");
+    }
+
+    @Override
+    public boolean supportsColumnStatistics() {
+        return dialectDefinition.hasFeature("column.statistics");
+    }
+
+    @Override
+    public boolean supportsSchemaSnapshot() {
+        return dialectDefinition.hasFeature("schema.columns")
+                && dialectDefinition.hasFeature("schema.keys")
+                && dialectDefinition.hasFeature("schema.indexes");
+    }
+
+    @Override
+    public boolean supportsSample() {
+        return dialectDefinition.hasFeature("select.sample");
+    }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return dialectDefinition.hasFeature("keyset.greater");
+    }
+
+    @Override
+    public boolean supportsKeySampling() {
+        return dialectDefinition.hasFeature("select.keys.sample");
+    }
+
+    @Override
+    public boolean supportsExplain() {
+        return dialectDefinition.hasFeature("explain");
+    }
+
+    @Override
+    public boolean supportsExplainAnalyze() {
+        return dialectDefinition.hasFeature("explain.analyze");
+    }
+
     @Override
     public Expressions getExpressions() {
         if (expressions == null) {
@@ -55,4 +107,14 @@ public abstract class AbstractXmlDefinedDialect implements Dialect {
     public List<String> getDrivers() {
         return dialectDefinition.getDrivers();
     }
+
+    @Override
+    public List<String> getScriptDelimiters() {
+        return dialectDefinition.getScriptDelimiters();
+    }
+
+    @Override
+    public Integer getStreamingFetchSize() {
+        return dialectDefinition.getStreamingFetchSize();
+    }
 }
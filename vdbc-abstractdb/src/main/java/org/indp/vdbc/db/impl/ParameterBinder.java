@@ -0,0 +1,27 @@
+package org.indp.vdbc.db.impl;
+
+import java.util.List;
+
+/**
+ * Available to templates as {@code params}: {@code @{params.bind(limit)}} either prints the value itself or a
+ * parameter marker, collecting the value in marker order.
+ */
+public class ParameterBinder {
+
+    private final List<Object> parameters;
+
+    /**
+     * @param parameters list to collect values in, null to print values as literals
+     */
+    public ParameterBinder(List<Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    public String bind(Object value) {
+        if (parameters == null) {
+            return String.valueOf(value);
+        }
+        parameters.add(value);
+        return "?";
+    }
+}
@@ -6,8 +6,10 @@ import org.indp.vdbc.db.impl.model.DialectDefinition;
 import org.indp.vdbc.db.impl.model.DialectFeature;
 import org.mvel2.templates.TemplateRuntime;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class XmlExpressions implements Expressions {
@@ -33,13 +35,54 @@ public class XmlExpressions implements Expressions {
                 var("filter", filter));
     }
 
+    @Override
+    public String selectColumnsFromTable(String tableName, String columns, String filter) {
+        return eval("select.columns.from.table",
+                    var("tableName", tableName),
+                    var("columns", columns(columns)),
+                    var("filter", filter));
+    }
+
     @Override
     public String selectAllFromTable(String tableName, String filter, int offset, int limit) {
         return eval("select.all.from.table.limit.offset",
                     var("tableName", tableName),
+                    var("columns", columns(null)),
                     var("filter", filter),
                     var("offset", offset),
-                    var("limit", limit));
+                    var("limit", limit),
+                    var("params", new ParameterBinder(null)));
+    }
+
+    @Override
+    public String selectAllFromTable(String tableName, String filter, String orderBy, int offset, int limit) {
+        return eval("select.all.from.table.ordered.limit.offset",
+                    var("tableName", tableName),
+                    var("columns", columns(null)),
+                    var("filter", filter),
+                    var("orderBy", orderBy),
+                    var("offset", offset),
+                    var("limit", limit),
+                    var("params", new ParameterBinder(null)));
+    }
+
+    @Override
+    public String selectAllFromTable(String tableName, String filter, String orderBy, int offset, int limit,
+                                     List<Object> parameters) {
+        return selectColumnsFromTable(tableName, null, filter, orderBy, offset, limit, parameters);
+    }
+
+    @Override
+    public String selectColumnsFromTable(String tableName, String columns, String filter, String orderBy, int offset,
+                                         int limit, List<Object> parameters) {
+        return eval(orderBy == null ? "select.all.from.table.limit.offset" : "select.all.from.table.ordered.limit.offset",
+                    var("tableName", tableName),
+                    var("columns", columns(columns)),
+                    var("filter", filter),
+                    var("orderBy", orderBy),
+                    var("offset", offset),
+                    var("limit", limit),
+                    var("params", new ParameterBinder(parameters)));
     }
 
     @Override
@@ -49,6 +92,101 @@ public class XmlExpressions implements Expressions {
                 var("filter", filter));
     }
 
+    @Override
+    public String selectSample(String tableName, String columns, String filter, double percent, int limit) {
+        // plain notation, Double.toString would print small shares like 1.0E-4
+        BigDecimal value = BigDecimal.valueOf(percent).stripTrailingZeros();
+        return eval("select.sample",
+                    var("tableName", tableName),
+                    var("columns", columns(columns)),
+                    var("filter", filter),
+                    var("percent", value.toPlainString()),
+                    var("fraction", value.movePointLeft(2).toPlainString()),
+                    var("limit", limit));
+    }
+
+    @Override
+    public String estimatedCount(String catalog, String schema, String table) {
+        // names are passed as SQL string literals (or null), so templates don't need to quote them
+        return eval("estimated.count",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)),
+                    var("table", literal(table)));
+    }
+
+    @Override
+    public String tableStatistics(String catalog, String schema, String table) {
+        return eval("table.statistics",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)),
+                    var("table", literal(table)));
+    }
+
+    @Override
+    public String columnStatistics(String catalog, String schema, String table) {
+        return eval("column.statistics",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)),
+                    var("table", literal(table)));
+    }
+
+    @Override
+    public String schemaColumns(String catalog, String schema) {
+        return eval("schema.columns",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)));
+    }
+
+    @Override
+    public String schemaKeys(String catalog, String schema) {
+        return eval("schema.keys",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)));
+    }
+
+    @Override
+    public String schemaIndexes(String catalog, String schema) {
+        return eval("schema.indexes",
+                    var("catalog", literal(catalog)),
+                    var("schema", literal(schema)));
+    }
+
+    @Override
+    public String keyGreaterThan(String columns, String params) {
+        return eval("keyset.greater",
+                var("columns", columns),
+                var("params", params));
+    }
+
+    @Override
+    public String likeEscaped(String expression) {
+        return eval("like.escaped", var("expression", expression));
+    }
+
+    @Override
+    public String selectKeySample(String tableName, String filter, String columns, int step) {
+        return eval("select.keys.sample",
+                var("tableName", tableName),
+                var("filter", filter),
+                var("columns", columns),
+                var("step", step));
+    }
+
+    @Override
+    public String explain(String sql) {
+        return eval("explain", var("sql", sql));
+    }
+
+    @Override
+    public String explainAnalyze(String sql) {
+        return eval("explain.analyze", var("sql", sql));
+    }
+
+    @Override
+    public String explainFormat() {
+        return dialectDefinition.hasFeature("explain.format") ? this.<String>eval("explain.format") : "tree";
+    }
+
     private <T> T eval(String featureId, ContextVar... vars) {
         Map<String, Object> map;
         if (vars == null) {
@@ -69,6 +207,14 @@ public class XmlExpressions implements Expressions {
         return (T) TemplateRuntime.eval(template, map);
     }
 
+    private static String columns(String columns) {
+        return columns == null ? "*" : columns;
+    }
+
+    private static String literal(String value) {
+        return value == null ? "null" : "'" + value.replace("'", "''") + "'";
+    }
+
     private <T> ContextVar<T> var(String name, T value) {
         return new ContextVar<>(name, value);
     }
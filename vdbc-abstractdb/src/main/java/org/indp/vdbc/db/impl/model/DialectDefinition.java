@@ -11,6 +11,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,13 @@ public class DialectDefinition {
     @XmlElement(name = "driver")
     private List<String> drivers;
 
+    @XmlElementWrapper(name = "script-delimiters")
+    @XmlElement(name = "delimiter")
+    private List<String> scriptDelimiters;
+
+    @XmlElement(name = "streaming-fetch-size")
+    private Integer streamingFetchSize;
+
     @XmlElement(name = "features")
     @XmlJavaTypeAdapter(DialectFeatureMapAdapter.class)
     private Map<String, DialectFeature> features;
@@ -129,4 +137,29 @@ public class DialectDefinition {
     public void setDrivers(List<String> drivers) {
         this.drivers = drivers;
     }
+
+    /**
+     * @return delimiters which end a script statement when placed alone on a line, in addition to ';'
+     */
+    public List<String> getScriptDelimiters() {
+        if (scriptDelimiters == null) {
+            scriptDelimiters = new ArrayList<>();
+        }
+        return scriptDelimiters;
+    }
+
+    public void setScriptDelimiters(List<String> scriptDelimiters) {
+        this.scriptDelimiters = scriptDelimiters;
+    }
+
+    /**
+     * @return fetch size which makes the driver stream rows of a forward-only cursor, null if a regular fetch size does
+     */
+    public Integer getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    public void setStreamingFetchSize(Integer streamingFetchSize) {
+        this.streamingFetchSize = streamingFetchSize;
+    }
 }
@@ -59,6 +59,13 @@ public class SettingsManager {
         }
     }
 
+    /**
+     * @return directory holding the settings file and other per-user data
+     */
+    public File getSettingsDir() {
+        return SETTINGS_DIR;
+    }
+
     public boolean isSettingsEditorEnabled() {
         String settingsEditorEnabled = System.getProperty(VDBC_SETTINGS_EDITOR_ENABLED_PROPERTY);
         return settingsEditorEnabled == null || "true".equals(settingsEditorEnabled);
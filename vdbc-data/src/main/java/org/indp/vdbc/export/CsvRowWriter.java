@@ -0,0 +1,52 @@
+package org.indp.vdbc.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV with a header line. Nulls are written as empty fields.
+ */
+class CsvRowWriter extends RowWriter {
+
+    CsvRowWriter(Writer out, List<String> columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void writeHeader() throws IOException {
+        writeRow(columns.toArray());
+    }
+
+    @Override
+    void writeRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                writeField(value instanceof byte[] ? toHex((byte[]) value)
+                        : value instanceof BigDecimal ? ((BigDecimal) value).toPlainString()
+                        : value.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
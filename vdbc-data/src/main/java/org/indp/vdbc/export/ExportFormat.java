@@ -0,0 +1,53 @@
+package org.indp.vdbc.export;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Supported export formats.
+ */
+public enum ExportFormat {
+
+    CSV("CSV", "csv", "text/csv") {
+        @Override
+        RowWriter createWriter(Writer out, List<String> columns, String tableName) {
+            return new CsvRowWriter(out, columns);
+        }
+    },
+    JSON_LINES("JSON lines", "jsonl", "application/x-ndjson") {
+        @Override
+        RowWriter createWriter(Writer out, List<String> columns, String tableName) {
+            return new JsonLinesRowWriter(out, columns);
+        }
+    },
+    INSERT("SQL INSERT", "sql", "application/sql") {
+        @Override
+        RowWriter createWriter(Writer out, List<String> columns, String tableName) {
+            return new InsertRowWriter(out, columns, tableName);
+        }
+    };
+
+    private final String title;
+    private final String extension;
+    private final String mimeType;
+
+    ExportFormat(String title, String extension, String mimeType) {
+        this.title = title;
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    abstract RowWriter createWriter(Writer out, List<String> columns, String tableName);
+}
@@ -0,0 +1,255 @@
+package org.indp.vdbc.export;
+
+import org.indp.vdbc.result.ResultBuffer;
+import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.ExecutionRegistry;
+import org.indp.vdbc.util.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs a query on its own pooled connection and renders the rows in an export format as they are read.
+ * <p/>
+ * Rows are pulled from a forward-only, read-only cursor only when the consumer asks for more bytes, so memory use is
+ * bounded by the fetch size and the chunk size regardless of the number of rows. The connection is released once
+ * the cursor is exhausted or the stream is closed.
+ * <p/>
+ * Rows of a {@link ResultBuffer} can be exported the same way without running the query again.
+ */
+public class ExportInputStream extends InputStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportInputStream.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FETCH_SIZE = 1000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final ExecutionRegistry.Execution execution;
+    private final ResultBuffer buffer;
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE * 2);
+    private final Writer writer;
+    private final RowWriter rowWriter;
+    private final int[] sqlTypes;
+
+    private Connection connection;
+    private boolean autoCommit;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private boolean exhausted;
+    private int bufferRow;
+    private byte[] current = new byte[0];
+    private int position;
+    private long rowCount;
+
+    public ExportInputStream(DatabaseSession databaseSession, String sql, ExportFormat format, String tableName,
+                             boolean gzip) throws SQLException {
+        this(databaseSession, sql, Collections.emptyList(), format, tableName, gzip);
+    }
+
+    /**
+     * @param parameters values of the bind parameters of the query
+     */
+    public ExportInputStream(DatabaseSession databaseSession, String sql, List<?> parameters, ExportFormat format,
+                             String tableName, boolean gzip) throws SQLException {
+        buffer = null;
+        execution = databaseSession.getExecutionRegistry().start(sql);
+        try {
+            connection = databaseSession.getConnection();
+            autoCommit = connection.getAutoCommit();
+            // some drivers (e.g. PostgreSQL) only use server-side cursors outside of auto-commit mode
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            Integer streamingFetchSize = databaseSession.getDialect().getStreamingFetchSize();
+            statement.setFetchSize(streamingFetchSize != null ? streamingFetchSize : FETCH_SIZE);
+            databaseSession.configureStatement(statement);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            execution.setStatement(statement);
+            resultSet = statement.executeQuery();
+
+            ResultSetMetaData md = resultSet.getMetaData();
+            List<String> columns = new ArrayList<>();
+            sqlTypes = new int[md.getColumnCount()];
+            for (int i = 0; i < sqlTypes.length; i++) {
+                columns.add(md.getColumnLabel(i + 1));
+                sqlTypes[i] = md.getColumnType(i + 1);
+            }
+
+            OutputStream sink = gzip ? new GZIPOutputStream(chunk) : chunk;
+            writer = new OutputStreamWriter(sink, UTF8);
+            rowWriter = format.createWriter(writer, columns, tableName);
+            rowWriter.writeHeader();
+        } catch (SQLException | IOException | RuntimeException e) {
+            release();
+            if (e instanceof SQLException) {
+                throw (SQLException) e;
+            }
+            throw new SQLException("Failed to start export: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Exports the rows of a loaded buffer in its current sort order. The buffer is not closed by the stream.
+     */
+    public ExportInputStream(ResultBuffer buffer, ExportFormat format, String tableName, boolean gzip) throws IOException {
+        this.buffer = buffer;
+        execution = null;
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < buffer.getColumnCount(); i++) {
+            columns.add(buffer.getColumnLabel(i));
+        }
+        sqlTypes = new int[columns.size()];
+        OutputStream sink = gzip ? new GZIPOutputStream(chunk) : chunk;
+        writer = new OutputStreamWriter(sink, UTF8);
+        rowWriter = format.createWriter(writer, columns, tableName);
+        rowWriter.writeHeader();
+    }
+
+    /**
+     * @return number of rows exported so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while (position >= current.length) {
+            if (exhausted) {
+                return false;
+            }
+            fill();
+        }
+        return true;
+    }
+
+    /**
+     * Renders rows until at least one chunk of output is available or the cursor is exhausted.
+     */
+    private void fill() throws IOException {
+        try {
+            Object[] row = new Object[sqlTypes.length];
+            while (chunk.size() < CHUNK_SIZE) {
+                if (!nextRow(row)) {
+                    writer.close();
+                    release();
+                    break;
+                }
+                rowWriter.writeRow(row);
+                writer.flush();
+                rowCount++;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // a buffer throws IllegalStateException when it's closed during the export
+            release();
+            throw new IOException("Export failed after " + rowCount + " rows: " + e.getMessage(), e);
+        }
+        current = chunk.toByteArray();
+        position = 0;
+        chunk.reset();
+    }
+
+    private boolean nextRow(Object[] row) throws SQLException {
+        if (buffer != null) {
+            if (bufferRow >= buffer.getRowCount()) {
+                return false;
+            }
+            Object[] values = buffer.getRow(bufferRow++);
+            System.arraycopy(values, 0, row, 0, row.length);
+            return true;
+        }
+        if (!resultSet.next()) {
+            return false;
+        }
+        for (int i = 0; i < row.length; i++) {
+            row[i] = readValue(i);
+        }
+        return true;
+    }
+
+    private Object readValue(int column) throws SQLException {
+        switch (sqlTypes[column]) {
+            case Types.CLOB:
+            case Types.NCLOB:
+                return resultSet.getString(column + 1);
+            case Types.BLOB:
+                return resultSet.getBytes(column + 1);
+            default:
+                return resultSet.getObject(column + 1);
+        }
+    }
+
+    private void release() {
+        exhausted = true;
+        if (resultSet != null) {
+            JdbcUtils.close(resultSet);
+            resultSet = null;
+        }
+        if (statement != null) {
+            JdbcUtils.close(statement);
+            statement = null;
+        }
+        if (connection != null) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                LOG.debug("failed to reset export connection", e);
+            }
+            JdbcUtils.close(connection);
+            connection = null;
+        }
+        if (execution != null) {
+            execution.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.indp.vdbc.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * One INSERT statement per row using ANSI literals.
+ */
+class InsertRowWriter extends RowWriter {
+
+    private final String prefix;
+
+    InsertRowWriter(Writer out, List<String> columns, String tableName) {
+        super(out, columns);
+        StringBuilder sb = new StringBuilder("insert into ").append(tableName).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns.get(i));
+        }
+        prefix = sb.append(") values (").toString();
+    }
+
+    @Override
+    void writeRow(Object[] values) throws IOException {
+        out.write(prefix);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(", ");
+            }
+            writeLiteral(values[i]);
+        }
+        out.write(");\n");
+    }
+
+    private void writeLiteral(Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof BigDecimal) {
+            out.write(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof Timestamp) {
+            out.write("timestamp '" + value + "'");
+        } else if (value instanceof Time) {
+            out.write("time '" + value + "'");
+        } else if (value instanceof java.sql.Date) {
+            out.write("date '" + value + "'");
+        } else if (value instanceof byte[]) {
+            out.write("X'" + toHex((byte[]) value) + "'");
+        } else {
+            out.write('\'');
+            out.write(value.toString().replace("'", "''"));
+            out.write('\'');
+        }
+    }
+}
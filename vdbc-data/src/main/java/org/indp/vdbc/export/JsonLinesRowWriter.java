@@ -0,0 +1,82 @@
+package org.indp.vdbc.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One JSON object per row and line.
+ */
+class JsonLinesRowWriter extends RowWriter {
+
+    JsonLinesRowWriter(Writer out, List<String> columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void writeRow(Object[] values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeString(columns.get(i));
+            out.write(':');
+            writeValue(values[i]);
+        }
+        out.write("}\n");
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.write(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number && isFinite((Number) value)) {
+            out.write(value.toString());
+        } else if (value instanceof byte[]) {
+            writeString(toHex((byte[]) value));
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private static boolean isFinite(Number value) {
+        double d = value.doubleValue();
+        return !Double.isNaN(d) && !Double.isInfinite(d);
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
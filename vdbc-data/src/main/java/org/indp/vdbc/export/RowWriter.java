@@ -0,0 +1,35 @@
+package org.indp.vdbc.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes rows in a particular export format.
+ */
+abstract class RowWriter {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    protected final Writer out;
+    protected final List<String> columns;
+
+    protected RowWriter(Writer out, List<String> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    void writeHeader() throws IOException {
+    }
+
+    abstract void writeRow(Object[] values) throws IOException;
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,53 @@
+package org.indp.vdbc.history;
+
+import java.io.Serializable;
+
+/**
+ * A statement executed in the query editor.
+ */
+public class HistoryEntry implements Serializable {
+
+    private final String sql;
+    private final long timestamp;
+    private final long duration;
+    private final long rows;
+    private final String error;
+
+    /**
+     * @param timestamp start time in milliseconds
+     * @param duration  execution time in milliseconds
+     * @param rows      number of fetched or updated rows, -1 if unknown
+     * @param error     error message, null if the statement succeeded
+     */
+    public HistoryEntry(String sql, long timestamp, long duration, long rows, String error) {
+        this.sql = sql;
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.rows = rows;
+        this.error = error;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,198 @@
+package org.indp.vdbc.history;
+
+import com.google.common.io.Files;
+import org.indp.vdbc.SettingsManager;
+import org.indp.vdbc.util.TrigramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent history of the statements executed with a connection profile.
+ * <p/>
+ * Entries are appended to a log file in the settings directory, one tab separated line per entry, and kept in memory
+ * together with a trigram index for searching as you type. All sessions of a profile share one instance.
+ */
+public class QueryHistory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryHistory.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final ConcurrentMap<String, QueryHistory> HISTORIES = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final List<HistoryEntry> entries = new ArrayList<>();
+    private final TrigramIndex index = new TrigramIndex();
+    private boolean loaded;
+
+    public static QueryHistory forProfile(String profileName) {
+        QueryHistory history = HISTORIES.get(profileName);
+        if (history == null) {
+            String fileName = profileName.replaceAll("[^A-Za-z0-9_-]+", "_") + "-" + Integer.toHexString(profileName.hashCode()) + ".log";
+            File file = new File(new File(SettingsManager.get().getSettingsDir(), "history"), fileName);
+            QueryHistory created = new QueryHistory(file);
+            history = HISTORIES.putIfAbsent(profileName, created);
+            if (history == null) {
+                history = created;
+            }
+        }
+        return history;
+    }
+
+    public QueryHistory(File file) {
+        this.file = file;
+    }
+
+    public synchronized void add(HistoryEntry entry) {
+        ensureLoaded();
+        addToMemory(entry);
+        try {
+            Files.createParentDirs(file);
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), UTF8);
+            try {
+                writer.write(format(entry));
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("failed to write query history to " + file, e);
+        }
+    }
+
+    /**
+     * @param text text the statements must contain, ignoring case and differences in whitespace; null or empty
+     *             for the latest entries
+     * @return matching entries, newest first
+     */
+    public synchronized List<HistoryEntry> search(String text, int limit) {
+        ensureLoaded();
+        String query = text == null ? "" : TrigramIndex.normalize(text);
+        List<HistoryEntry> result = new ArrayList<>();
+        int[] candidates = index.candidates(query);
+        if (candidates == null) {
+            for (int i = entries.size() - 1; i >= 0 && result.size() < limit; i--) {
+                addIfMatches(result, entries.get(i), query);
+            }
+        } else {
+            for (int i = candidates.length - 1; i >= 0 && result.size() < limit; i--) {
+                addIfMatches(result, entries.get(candidates[i]), query);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    private static void addIfMatches(List<HistoryEntry> result, HistoryEntry entry, String query) {
+        if (query.isEmpty() || TrigramIndex.normalize(entry.getSql()).contains(query)) {
+            result.add(entry);
+        }
+    }
+
+    private void addToMemory(HistoryEntry entry) {
+        index.add(entries.size(), entry.getSql());
+        entries.add(entry);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    HistoryEntry entry = parse(line);
+                    if (entry != null) {
+                        addToMemory(entry);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("failed to read query history from " + file, e);
+        }
+    }
+
+    private static String format(HistoryEntry entry) {
+        return entry.getTimestamp() + "\t" + entry.getDuration() + "\t" + entry.getRows() + "\t"
+                + (entry.getError() == null ? "" : escape(entry.getError())) + "\t" + escape(entry.getSql()) + "\n";
+    }
+
+    private static HistoryEntry parse(String line) {
+        String[] fields = line.split("\t", 5);
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            return new HistoryEntry(
+                    unescape(fields[4]),
+                    Long.parseLong(fields[0]),
+                    Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]),
+                    fields[3].isEmpty() ? null : unescape(fields[3]));
+        } catch (NumberFormatException e) {
+            LOG.debug("skipping malformed history line", e);
+            return null;
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
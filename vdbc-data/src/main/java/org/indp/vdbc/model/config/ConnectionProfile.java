@@ -22,6 +22,30 @@ public abstract class ConnectionProfile implements Serializable {
     @XmlAttribute
     private String color;
 
+    @XmlAttribute
+    private Integer fetchSize;
+
+    @XmlAttribute
+    private Integer queryTimeout;
+
+    @XmlAttribute
+    private Integer maxConcurrentQueries;
+
+    @XmlAttribute
+    private Integer resultCacheSize;
+
+    @XmlAttribute
+    private Integer resultCacheTtl;
+
+    @XmlAttribute
+    private Integer metadataCacheTtl;
+
+    @XmlAttribute
+    private Integer metadataPrefetchBudget;
+
+    @XmlAttribute
+    private String metadataPrefetchSchemas;
+
     public abstract String getConnectionPresentationString();
 
     public abstract DataSourceAdapter createDataSourceAdapter();
@@ -49,4 +73,89 @@ public abstract class ConnectionProfile implements Serializable {
     public void setColor(String color) {
         this.color = color;
     }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return query timeout in seconds, null or 0 means no timeout
+     */
+    public Integer getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setQueryTimeout(Integer queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * @return max number of statements running concurrently for this profile across all sessions, null for the default
+     */
+    public Integer getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    public void setMaxConcurrentQueries(Integer maxConcurrentQueries) {
+        this.maxConcurrentQueries = maxConcurrentQueries;
+    }
+
+    /**
+     * @return size of the query result cache in megabytes, null or 0 disables the cache
+     */
+    public Integer getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(Integer resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    /**
+     * @return time in seconds a cached query result stays valid, null for the default
+     */
+    public Integer getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    public void setResultCacheTtl(Integer resultCacheTtl) {
+        this.resultCacheTtl = resultCacheTtl;
+    }
+
+    /**
+     * @return time in seconds cached catalog metadata stays valid, null for the default
+     */
+    public Integer getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    public void setMetadataCacheTtl(Integer metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    /**
+     * @return time in seconds the metadata warm-up after connecting may take, null or 0 disables the warm-up
+     */
+    public Integer getMetadataPrefetchBudget() {
+        return metadataPrefetchBudget;
+    }
+
+    public void setMetadataPrefetchBudget(Integer metadataPrefetchBudget) {
+        this.metadataPrefetchBudget = metadataPrefetchBudget;
+    }
+
+    /**
+     * @return comma separated schemas whose tables and columns are prefetched, empty for the default schema
+     */
+    public String getMetadataPrefetchSchemas() {
+        return metadataPrefetchSchemas;
+    }
+
+    public void setMetadataPrefetchSchemas(String metadataPrefetchSchemas) {
+        this.metadataPrefetchSchemas = metadataPrefetchSchemas;
+    }
 }
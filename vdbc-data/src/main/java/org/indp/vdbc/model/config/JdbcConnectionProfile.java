@@ -121,7 +121,9 @@ public class JdbcConnectionProfile extends ConnectionProfile {
                 dataSource.setMaxActive(32);
                 dataSource.setMaxIdle(4);
                 dataSource.setMaxWait(20 * 1000);
-                dataSource.setMaxOpenPreparedStatements(8);
+                // table data pages bind offset and limit, so scrolling a view reuses its pooled statements
+                dataSource.setPoolPreparedStatements(true);
+                dataSource.setMaxOpenPreparedStatements(32);
             }
             return dataSource;
         }
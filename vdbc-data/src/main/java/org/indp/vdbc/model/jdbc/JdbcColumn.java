@@ -0,0 +1,46 @@
+package org.indp.vdbc.model.jdbc;
+
+/**
+ * Column of a {@link SnapshotTable}.
+ */
+public final class JdbcColumn {
+
+    private final String name;
+    private final int position;
+    private final String typeName;
+    private final boolean nullable;
+
+    public JdbcColumn(String name, int position, String typeName, boolean nullable) {
+        this.name = name;
+        this.position = position;
+        this.typeName = typeName;
+        this.nullable = nullable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 1-based position in the table
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return type as the database spells it, including length and precision, e.g. "varchar(10)"
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + typeName;
+    }
+}
@@ -0,0 +1,51 @@
+package org.indp.vdbc.model.jdbc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Foreign key of a {@link SnapshotTable}.
+ */
+public final class JdbcForeignKey {
+
+    private final String name;
+    private final List<String> columns;
+    private final String referencedSchema;
+    private final String referencedTable;
+    private final List<String> referencedColumns;
+
+    public JdbcForeignKey(String name, List<String> columns, String referencedSchema, String referencedTable,
+                          List<String> referencedColumns) {
+        this.name = name;
+        this.columns = Collections.unmodifiableList(columns);
+        this.referencedSchema = referencedSchema;
+        this.referencedTable = referencedTable;
+        this.referencedColumns = Collections.unmodifiableList(referencedColumns);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return referencing columns in key order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public String getReferencedSchema() {
+        return referencedSchema;
+    }
+
+    public String getReferencedTable() {
+        return referencedTable;
+    }
+
+    /**
+     * @return referenced columns matching {@link #getColumns()}
+     */
+    public List<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+}
@@ -0,0 +1,35 @@
+package org.indp.vdbc.model.jdbc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of a {@link SnapshotTable}.
+ */
+public final class JdbcIndex {
+
+    private final String name;
+    private final boolean unique;
+    private final List<String> columns;
+
+    public JdbcIndex(String name, boolean unique, List<String> columns) {
+        this.name = name;
+        this.unique = unique;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * @return indexed columns in index order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+}
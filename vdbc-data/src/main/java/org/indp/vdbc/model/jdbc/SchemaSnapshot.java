@@ -0,0 +1,56 @@
+package org.indp.vdbc.model.jdbc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tables, columns, keys and indexes of a whole schema as read at one point in time.
+ */
+public final class SchemaSnapshot {
+
+    private final String catalog;
+    private final String schema;
+    private final Map<String, SnapshotTable> tables;
+    private final long timestamp = System.currentTimeMillis();
+
+    /**
+     * @param tables tables in name order
+     */
+    public SchemaSnapshot(String catalog, String schema, Collection<SnapshotTable> tables) {
+        this.catalog = catalog;
+        this.schema = schema;
+        Map<String, SnapshotTable> byName = new LinkedHashMap<>();
+        for (SnapshotTable table : tables) {
+            byName.put(table.getName(), table);
+        }
+        this.tables = Collections.unmodifiableMap(byName);
+    }
+
+    public String getCatalog() {
+        return catalog;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return tables in name order
+     */
+    public Collection<SnapshotTable> getTables() {
+        return tables.values();
+    }
+
+    /**
+     * @return the table or null if the schema had no such table when the snapshot was read
+     */
+    public SnapshotTable getTable(String name) {
+        return tables.get(name);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,74 @@
+package org.indp.vdbc.model.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Table of a {@link SchemaSnapshot} together with its columns, keys and indexes. Instances are immutable and shared
+ * by all sessions of a profile, the setters inherited from {@link JdbcTable} throw.
+ */
+public final class SnapshotTable extends JdbcTable {
+
+    private final List<JdbcColumn> columns;
+    private final List<String> primaryKey;
+    private final List<JdbcForeignKey> foreignKeys;
+    private final List<JdbcIndex> indexes;
+
+    public SnapshotTable(String catalog, String schema, String name, List<JdbcColumn> columns, List<String> primaryKey,
+                         List<JdbcForeignKey> foreignKeys, List<JdbcIndex> indexes) {
+        super(catalog, schema, name);
+        this.columns = Collections.unmodifiableList(columns);
+        this.primaryKey = Collections.unmodifiableList(primaryKey);
+        this.foreignKeys = Collections.unmodifiableList(foreignKeys);
+        this.indexes = Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * @return columns in table order
+     */
+    public List<JdbcColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return column names in table order
+     */
+    public List<String> getColumnNames() {
+        List<String> names = new ArrayList<>(columns.size());
+        for (JdbcColumn column : columns) {
+            names.add(column.getName());
+        }
+        return names;
+    }
+
+    /**
+     * @return primary key columns in key order, empty if the table has no primary key
+     */
+    public List<String> getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public List<JdbcForeignKey> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    public List<JdbcIndex> getIndexes() {
+        return indexes;
+    }
+
+    @Override
+    public void setCatalog(String catalog) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setSchema(String schema) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,92 @@
+package org.indp.vdbc.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operation of an execution plan. Numbers the database didn't report are null.
+ */
+public class PlanNode {
+
+    private final String operation;
+    private final List<String> details = new ArrayList<>();
+    private final List<PlanNode> children = new ArrayList<>();
+    private Double cost;
+    private Long rows;
+    private Double actualTime;
+    private Long actualRows;
+    private Long loops;
+
+    public PlanNode(String operation) {
+        this.operation = operation;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return additional lines of the operation, e.g. filter conditions
+     */
+    public List<String> getDetails() {
+        return details;
+    }
+
+    public List<PlanNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return estimated total cost in the units of the database
+     */
+    public Double getCost() {
+        return cost;
+    }
+
+    public void setCost(Double cost) {
+        this.cost = cost;
+    }
+
+    /**
+     * @return estimated number of rows
+     */
+    public Long getRows() {
+        return rows;
+    }
+
+    public void setRows(Long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return measured time in milliseconds to produce all rows of one loop
+     */
+    public Double getActualTime() {
+        return actualTime;
+    }
+
+    public void setActualTime(Double actualTime) {
+        this.actualTime = actualTime;
+    }
+
+    public Long getActualRows() {
+        return actualRows;
+    }
+
+    public void setActualRows(Long actualRows) {
+        this.actualRows = actualRows;
+    }
+
+    public Long getLoops() {
+        return loops;
+    }
+
+    public void setLoops(Long loops) {
+        this.loops = loops;
+    }
+
+    @Override
+    public String toString() {
+        return operation;
+    }
+}
@@ -0,0 +1,284 @@
+package org.indp.vdbc.plan;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the textual plan output of a database into a tree of {@link PlanNode plan nodes}.
+ * <p/>
+ * The {@code tree} format covers plans where nesting is expressed by indentation: PostgreSQL and MySQL mark
+ * operations with a leading {@code ->} and put properties on the lines in between, other databases (H2, Derby) print
+ * one operation or property per line. The {@code oracle} format reads the operation table of DBMS_XPLAN.
+ */
+public final class PlanParser {
+
+    public static final String TREE_FORMAT = "tree";
+    public static final String ORACLE_FORMAT = "oracle";
+
+    private static final String ARROW = "->";
+    private static final String NUMBER = "(\\d+(?:\\.\\d+)?)";
+    private static final Pattern ESTIMATE = Pattern.compile(
+            "\\(cost=" + NUMBER + "(?:\\.\\." + NUMBER + ")?\\s+rows=(\\d+)[^)]*\\)");
+    private static final Pattern ACTUAL = Pattern.compile(
+            "\\(actual time=" + NUMBER + "\\.\\." + NUMBER + "\\s+rows=(\\d+)\\s+loops=(\\d+)\\)");
+    private static final Pattern NEVER_EXECUTED = Pattern.compile("\\(never executed\\)");
+    private static final Pattern PROPERTY = Pattern.compile("^(/\\*|[A-Za-z][A-Za-z ()]*(\\s=\\s|:\\s|:$))");
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount:\\s*(\\d+)");
+    private static final Pattern ESTIMATED_ROWS = Pattern.compile("estimated row count:\\s*([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ESTIMATED_COST = Pattern.compile("estimated cost:\\s*([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ROWS_SEEN = Pattern.compile("rows seen\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORACLE_PREDICATE = Pattern.compile("^\\s*(\\d+)\\s+-\\s+(.*)$");
+
+    private PlanParser() {
+    }
+
+    /**
+     * @param lines plan text, one line per element
+     * @return top level operations
+     */
+    public static List<PlanNode> parse(String format, List<String> lines) {
+        if (ORACLE_FORMAT.equals(format)) {
+            return parseOracle(lines);
+        }
+        return parseTree(lines);
+    }
+
+    private static List<PlanNode> parseTree(List<String> lines) {
+        boolean arrows = false;
+        for (String line : lines) {
+            if (line.trim().startsWith(ARROW)) {
+                arrows = true;
+                break;
+            }
+        }
+
+        List<PlanNode> roots = new ArrayList<>();
+        Tree tree = new Tree(roots);
+        for (String line : lines) {
+            String text = line.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            int indent = indentOf(line);
+            boolean operation = arrows
+                    ? text.startsWith(ARROW) || roots.isEmpty()
+                    : roots.isEmpty() || !PROPERTY.matcher(text).find();
+            if (operation) {
+                if (text.startsWith(ARROW)) {
+                    text = text.substring(ARROW.length()).trim();
+                }
+                tree.add(indent, parseOperation(text));
+            } else {
+                PlanNode node = tree.ownerOf(indent);
+                node.getDetails().add(text);
+                applyProperty(node, text);
+            }
+        }
+        return roots;
+    }
+
+    private static PlanNode parseOperation(String text) {
+        StringBuffer operation = new StringBuffer();
+        Double cost = null;
+        Long rows = null;
+        Matcher matcher = ESTIMATE.matcher(text);
+        if (matcher.find()) {
+            cost = Double.valueOf(matcher.group(2) != null ? matcher.group(2) : matcher.group(1));
+            rows = Long.valueOf(matcher.group(3));
+            matcher.appendReplacement(operation, "");
+            matcher.appendTail(operation);
+            text = operation.toString();
+        }
+
+        PlanNode node;
+        matcher = ACTUAL.matcher(text);
+        if (matcher.find()) {
+            node = new PlanNode(clean(text.substring(0, matcher.start()) + text.substring(matcher.end())));
+            node.setActualTime(Double.valueOf(matcher.group(2)));
+            node.setActualRows(Long.valueOf(matcher.group(3)));
+            node.setLoops(Long.valueOf(matcher.group(4)));
+        } else if (NEVER_EXECUTED.matcher(text).find()) {
+            node = new PlanNode(clean(NEVER_EXECUTED.matcher(text).replaceFirst("")));
+            node.setLoops(0L);
+        } else {
+            node = new PlanNode(clean(text));
+        }
+        node.setCost(cost);
+        node.setRows(rows);
+        applyProperty(node, text);
+        return node;
+    }
+
+    private static void applyProperty(PlanNode node, String text) {
+        Matcher matcher = SCAN_COUNT.matcher(text);
+        if (matcher.find()) {
+            node.setActualRows(Long.valueOf(matcher.group(1)));
+        }
+        matcher = ROWS_SEEN.matcher(text);
+        if (matcher.find()) {
+            node.setActualRows(Long.valueOf(matcher.group(1)));
+        }
+        matcher = ESTIMATED_ROWS.matcher(text);
+        if (matcher.find()) {
+            node.setRows(Math.round(Double.parseDouble(matcher.group(1))));
+        }
+        matcher = ESTIMATED_COST.matcher(text);
+        if (matcher.find()) {
+            node.setCost(Double.valueOf(matcher.group(1)));
+        }
+    }
+
+    private static List<PlanNode> parseOracle(List<String> lines) {
+        List<PlanNode> roots = new ArrayList<>();
+        Tree tree = new Tree(roots);
+        Map<Integer, PlanNode> nodesById = new HashMap<>();
+        List<String> header = null;
+        boolean tableDone = false;
+        for (String line : lines) {
+            String text = line.trim();
+            if (!tableDone && text.startsWith("|")) {
+                List<String> cells = splitCells(line);
+                if (header == null) {
+                    header = new ArrayList<>();
+                    for (String cell : cells) {
+                        header.add(cell.trim());
+                    }
+                    continue;
+                }
+                String operationCell = cellOf(cells, header, "Operation");
+                if (operationCell == null) {
+                    continue;
+                }
+                String name = cellOf(cells, header, "Name");
+                String operation = operationCell.trim() + (name == null || name.trim().isEmpty() ? "" : " " + name.trim());
+                PlanNode node = new PlanNode(operation);
+                node.setRows(parseOracleNumber(cellOf(cells, header, "Rows")));
+                String cost = cellOf(cells, header, "Cost (%CPU)");
+                if (cost != null && !cost.trim().isEmpty()) {
+                    Long value = parseOracleNumber(cost.replaceAll("\\(.*\\)", ""));
+                    node.setCost(value == null ? null : value.doubleValue());
+                }
+                String id = cellOf(cells, header, "Id");
+                if (id != null) {
+                    try {
+                        nodesById.put(Integer.valueOf(id.replace("*", "").trim()), node);
+                    } catch (NumberFormatException e) {
+                        // not an operation row
+                    }
+                }
+                // the operation cell starts with one space, deeper operations are indented further
+                tree.add(indentOf(operationCell), node);
+            } else if (header != null && !text.startsWith("-")) {
+                tableDone = true;
+                Matcher matcher = ORACLE_PREDICATE.matcher(line);
+                if (matcher.matches()) {
+                    PlanNode node = nodesById.get(Integer.valueOf(matcher.group(1)));
+                    if (node != null) {
+                        node.getDetails().add(matcher.group(2).trim());
+                    }
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static List<String> splitCells(String line) {
+        String text = line.trim();
+        List<String> cells = new ArrayList<>();
+        int start = 1;
+        for (int i = 1; i < text.length(); i++) {
+            if (text.charAt(i) == '|') {
+                cells.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return cells;
+    }
+
+    private static String cellOf(List<String> cells, List<String> header, String column) {
+        int index = header.indexOf(column);
+        return index >= 0 && index < cells.size() ? cells.get(index) : null;
+    }
+
+    private static Long parseOracleNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        long multiplier = 1;
+        char suffix = text.charAt(text.length() - 1);
+        if (suffix == 'K' || suffix == 'M' || suffix == 'G') {
+            multiplier = suffix == 'K' ? 1000L : suffix == 'M' ? 1000000L : 1000000000L;
+            text = text.substring(0, text.length() - 1);
+        }
+        try {
+            return Long.parseLong(text.trim()) * multiplier;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int indentOf(String line) {
+        int indent = 0;
+        while (indent < line.length() && Character.isWhitespace(line.charAt(indent))) {
+            indent++;
+        }
+        return indent;
+    }
+
+    private static String clean(String text) {
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Builds the node hierarchy from indentation levels.
+     */
+    private static class Tree {
+
+        private final List<PlanNode> roots;
+        private final LinkedList<Integer> indents = new LinkedList<>();
+        private final LinkedList<PlanNode> path = new LinkedList<>();
+
+        Tree(List<PlanNode> roots) {
+            this.roots = roots;
+        }
+
+        void add(int indent, PlanNode node) {
+            popTo(indent);
+            if (path.isEmpty()) {
+                roots.add(node);
+            } else {
+                path.getLast().getChildren().add(node);
+            }
+            indents.add(indent);
+            path.add(node);
+        }
+
+        /**
+         * @return the node a property line with the given indentation belongs to
+         */
+        PlanNode ownerOf(int indent) {
+            for (int i = path.size() - 1; i >= 0; i--) {
+                if (indents.get(i) < indent) {
+                    return path.get(i);
+                }
+            }
+            return path.isEmpty() ? roots.get(0) : path.getFirst();
+        }
+
+        private void popTo(int indent) {
+            while (!indents.isEmpty() && indents.getLast() >= indent) {
+                indents.removeLast();
+                path.removeLast();
+            }
+        }
+    }
+}
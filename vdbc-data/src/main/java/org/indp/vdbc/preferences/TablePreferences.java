@@ -0,0 +1,112 @@
+package org.indp.vdbc.preferences;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.io.Files;
+import org.indp.vdbc.SettingsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-table view settings of a connection profile, e.g. the columns shown on the data tab.
+ * <p/>
+ * Settings are kept in a properties file in the settings directory, keyed by the qualified table name. All sessions
+ * of a profile share one instance.
+ */
+public class TablePreferences {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TablePreferences.class);
+    private static final ConcurrentMap<String, TablePreferences> PREFERENCES = new ConcurrentHashMap<>();
+    private static final String COLUMNS_SUFFIX = ".columns";
+    private static final char SEPARATOR = '\t';
+
+    private final File file;
+    private final Properties properties = new Properties();
+    private boolean loaded;
+
+    public static TablePreferences forProfile(String profileName) {
+        TablePreferences preferences = PREFERENCES.get(profileName);
+        if (preferences == null) {
+            String fileName = profileName.replaceAll("[^A-Za-z0-9_-]+", "_") + "-" + Integer.toHexString(profileName.hashCode()) + ".properties";
+            File file = new File(new File(SettingsManager.get().getSettingsDir(), "tables"), fileName);
+            TablePreferences created = new TablePreferences(file);
+            preferences = PREFERENCES.putIfAbsent(profileName, created);
+            if (preferences == null) {
+                preferences = created;
+            }
+        }
+        return preferences;
+    }
+
+    public TablePreferences(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param tableName qualified table name
+     * @return names of the columns to show in table order, null if all columns are shown
+     */
+    public synchronized List<String> getVisibleColumns(String tableName) {
+        ensureLoaded();
+        String value = properties.getProperty(tableName + COLUMNS_SUFFIX);
+        return value == null ? null : Splitter.on(SEPARATOR).omitEmptyStrings().splitToList(value);
+    }
+
+    /**
+     * @param columns names of the columns to show, null to show all columns
+     */
+    public synchronized void setVisibleColumns(String tableName, List<String> columns) {
+        ensureLoaded();
+        if (columns == null) {
+            properties.remove(tableName + COLUMNS_SUFFIX);
+        } else {
+            properties.setProperty(tableName + COLUMNS_SUFFIX, Joiner.on(SEPARATOR).join(columns));
+        }
+        save();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("failed to read table preferences from " + file, e);
+        }
+    }
+
+    private void save() {
+        try {
+            Files.createParentDirs(file);
+            OutputStream out = new FileOutputStream(file);
+            try {
+                properties.store(out, null);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("failed to write table preferences to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package org.indp.vdbc.result;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Base class for result buffers: column metadata, loading rows from a result set and sorting.
+ * <p/>
+ * Subclasses store rows in their physical (load) order, sorting is done through a permutation of row indexes. Sorting
+ * keeps the permutation and numeric keys on the heap, 8 bytes per row and 8 more per numeric sort column, so it is
+ * limited to {@link #MAX_SORT_ROWS} rows.
+ */
+public abstract class AbstractResultBuffer implements ResultBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractResultBuffer.class);
+
+    private final List<String> labels;
+    private final List<Class<?>> types;
+    private final List<Integer> sqlTypes;
+    private int[] order;
+
+    protected AbstractResultBuffer(ResultSetMetaData md) throws SQLException {
+        this(md, true);
+    }
+
+    /**
+     * @param previewLargeText whether character and binary columns without a small declared length are read as
+     *                         previews like LOB columns, see {@link LobValue#isLob(ResultSetMetaData, int)}
+     */
+    protected AbstractResultBuffer(ResultSetMetaData md, boolean previewLargeText) throws SQLException {
+        labels = new ArrayList<>();
+        types = new ArrayList<>();
+        sqlTypes = new ArrayList<>();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            labels.add(uniqueLabel(md.getColumnLabel(i)));
+            int sqlType = md.getColumnType(i);
+            sqlTypes.add(sqlType);
+            boolean lob = previewLargeText ? LobValue.isLob(md, i) : LobValue.isLob(sqlType);
+            types.add(lob ? LobValue.class : getClassForSqlType(md.getColumnClassName(i)));
+        }
+    }
+
+    /**
+     * Shares the column metadata of a loaded buffer, the sort order is not shared.
+     */
+    protected AbstractResultBuffer(AbstractResultBuffer source) {
+        labels = source.labels;
+        types = source.types;
+        sqlTypes = source.sqlTypes;
+    }
+
+    /**
+     * Reads all remaining rows of the result set. Large character and binary columns are read as {@link LobValue}
+     * previews.
+     */
+    public void load(ResultSet rs) throws SQLException, IOException {
+        loadMore(rs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads at most {@code maxRows} further rows of the result set. The buffer is completed once the result set is
+     * exhausted, rows read before that can already be accessed.
+     *
+     * @return number of rows read, less than {@code maxRows} if the result set is exhausted
+     */
+    public int loadMore(ResultSet rs, int maxRows) throws SQLException, IOException {
+        int columnCount = getColumnCount();
+        Object[] row = new Object[columnCount];
+        int count = 0;
+        while (count < maxRows) {
+            if (!rs.next()) {
+                finishLoading();
+                break;
+            }
+            for (int i = 0; i < columnCount; i++) {
+                int sqlType = sqlTypes.get(i);
+                row[i] = types.get(i) == LobValue.class ? LobValue.read(rs, i + 1, sqlType) : rs.getObject(i + 1);
+            }
+            appendRow(row);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stores a row. The array is reused by the caller.
+     */
+    protected abstract void appendRow(Object[] row) throws IOException;
+
+    /**
+     * Called once all rows have been appended.
+     */
+    protected abstract void finishLoading() throws IOException;
+
+    protected abstract Object[] readRow(int physicalRow);
+
+    protected abstract Object readValue(int physicalRow, int column);
+
+    @Override
+    public int getColumnCount() {
+        return labels.size();
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return labels.get(column);
+    }
+
+    @Override
+    public Class<?> getColumnType(int column) {
+        return types.get(column);
+    }
+
+    @Override
+    public Object[] getRow(int row) {
+        return readRow(toPhysical(row));
+    }
+
+    @Override
+    public Object getValue(int row, int column) {
+        return readValue(toPhysical(row), column);
+    }
+
+    @Override
+    public boolean isSortable() {
+        return getRowCount() <= MAX_SORT_ROWS;
+    }
+
+    /**
+     * Sorts through an {@code int} permutation with a merge sort. Numeric sort columns are extracted into primitive
+     * arrays, other columns are read from the buffer on each comparison instead of being copied to the heap.
+     *
+     * @throws IllegalStateException if the buffer has more than {@link #MAX_SORT_ROWS} rows
+     */
+    @Override
+    public void sort(int[] columns, boolean[] ascending) {
+        if (columns.length == 0) {
+            order = null;
+            return;
+        }
+        if (!isSortable()) {
+            throw new IllegalStateException("Results with more than " + MAX_SORT_ROWS + " rows can't be sorted");
+        }
+        int rowCount = getRowCount();
+        SortKey[] keys = new SortKey[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            keys[c] = createSortKey(columns[c], ascending[c], rowCount);
+        }
+        int[] newOrder = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            newOrder[i] = i;
+        }
+        mergeSort(newOrder, new int[rowCount], 0, rowCount, keys);
+        order = newOrder;
+    }
+
+    private SortKey createSortKey(int column, boolean ascending, int rowCount) {
+        Class<?> type = getColumnType(column);
+        boolean integral = type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+        if (!integral && type != Double.class && type != Float.class) {
+            return new ValueKey(column, ascending);
+        }
+        long[] longs = integral ? new long[rowCount] : null;
+        double[] doubles = integral ? null : new double[rowCount];
+        BitSet nulls = new BitSet();
+        for (int row = 0; row < rowCount; row++) {
+            Object value = readValue(row, column);
+            if (value == null) {
+                nulls.set(row);
+            } else if (!(value instanceof Number)) {
+                // the driver returned something else than the declared type
+                return new ValueKey(column, ascending);
+            } else if (integral) {
+                longs[row] = ((Number) value).longValue();
+            } else {
+                doubles[row] = ((Number) value).doubleValue();
+            }
+        }
+        return new NumberKey(longs, doubles, nulls, ascending);
+    }
+
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, SortKey[] keys) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i;
+                for (; j > from && compareRows(rows[j - 1], row, keys) > 0; j--) {
+                    rows[j] = rows[j - 1];
+                }
+                rows[j] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle, keys);
+        mergeSort(rows, buffer, middle, to, keys);
+        if (compareRows(rows[middle - 1], rows[middle], keys) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && compareRows(buffer[left], buffer[right], keys) <= 0) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int compareRows(int row1, int row2, SortKey[] keys) {
+        for (SortKey key : keys) {
+            int result = key.compare(row1, row2);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object v1, Object v2) {
+        if (v1 == null || v2 == null) {
+            return v1 == null ? (v2 == null ? 0 : -1) : 1;
+        }
+        if (v1 instanceof Comparable && v1.getClass().isInstance(v2)) {
+            return ((Comparable<Object>) v1).compareTo(v2);
+        }
+        if (v1 instanceof Number && v2 instanceof Number) {
+            return Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+        }
+        return String.valueOf(v1).compareTo(String.valueOf(v2));
+    }
+
+    private abstract static class SortKey {
+
+        private final boolean ascending;
+
+        private SortKey(boolean ascending) {
+            this.ascending = ascending;
+        }
+
+        int compare(int row1, int row2) {
+            int result = compareAscending(row1, row2);
+            return ascending ? result : -result;
+        }
+
+        abstract int compareAscending(int row1, int row2);
+    }
+
+    private static class NumberKey extends SortKey {
+
+        private final long[] longs;
+        private final double[] doubles;
+        private final BitSet nulls;
+
+        private NumberKey(long[] longs, double[] doubles, BitSet nulls, boolean ascending) {
+            super(ascending);
+            this.longs = longs;
+            this.doubles = doubles;
+            this.nulls = nulls;
+        }
+
+        @Override
+        int compareAscending(int row1, int row2) {
+            boolean null1 = nulls.get(row1);
+            boolean null2 = nulls.get(row2);
+            if (null1 || null2) {
+                return null1 == null2 ? 0 : null1 ? -1 : 1;
+            }
+            return longs != null ? Long.compare(longs[row1], longs[row2]) : Double.compare(doubles[row1], doubles[row2]);
+        }
+    }
+
+    private class ValueKey extends SortKey {
+
+        private final int column;
+
+        private ValueKey(int column, boolean ascending) {
+            super(ascending);
+            this.column = column;
+        }
+
+        @Override
+        int compareAscending(int row1, int row2) {
+            return compareValues(readValue(row1, column), readValue(row2, column));
+        }
+    }
+
+    private int toPhysical(int row) {
+        return order == null ? row : order[row];
+    }
+
+    private String uniqueLabel(String label) {
+        String result = label;
+        for (int i = 2; labels.contains(result); i++) {
+            result = label + " (" + i + ")";
+        }
+        return result;
+    }
+
+    private static Class<?> getClassForSqlType(String name) {
+        try {
+            return Class.forName(name);
+        } catch (Exception ex) {
+            LOG.debug("unable to get class for name " + name, ex);
+            return Object.class;
+        }
+    }
+}
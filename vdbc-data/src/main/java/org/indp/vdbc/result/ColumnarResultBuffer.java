@@ -0,0 +1,443 @@
+package org.indp.vdbc.result;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory result buffer which stores each column in its own array.
+ * <p/>
+ * Integral and floating point columns are kept in primitive arrays with a null bitmap, strings are dictionary
+ * encoded while the number of distinct values stays low. This avoids a boxed object per cell and a property map per
+ * row, which is what an {@code IndexedContainer} costs.
+ */
+public class ColumnarResultBuffer extends AbstractResultBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Column[] columns;
+    private int rowCount;
+    private int capacity = INITIAL_CAPACITY;
+
+    public ColumnarResultBuffer(ResultSetMetaData md) throws SQLException {
+        this(md, true);
+    }
+
+    /**
+     * @param previewLargeText false to read character columns of unknown length in full, e.g. for metadata rows
+     */
+    public ColumnarResultBuffer(ResultSetMetaData md, boolean previewLargeText) throws SQLException {
+        super(md, previewLargeText);
+        columns = new Column[getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(getColumnType(i));
+        }
+    }
+
+    private ColumnarResultBuffer(ColumnarResultBuffer source) {
+        super(source);
+        columns = source.columns;
+        rowCount = source.rowCount;
+        capacity = source.capacity;
+    }
+
+    /**
+     * Returns a buffer sharing the rows of this fully loaded buffer but sorted independently. Loaded rows are never
+     * modified, so views can be read concurrently.
+     */
+    public ColumnarResultBuffer view() {
+        return new ColumnarResultBuffer(this);
+    }
+
+    /**
+     * @return approximate heap size of the stored values in bytes
+     */
+    public long getMemorySize() {
+        long size = 0;
+        for (Column column : columns) {
+            size += column.getMemorySize() + column.nulls.size() / 8;
+        }
+        return size;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    protected void appendRow(Object[] row) {
+        if (rowCount == capacity) {
+            capacity = capacity * 2;
+            for (Column column : columns) {
+                column.grow(capacity);
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].set(rowCount, row[i])) {
+                // the driver returned a value of an unexpected class, fall back to plain objects
+                columns[i] = new ObjectColumn(columns[i], rowCount, capacity);
+                columns[i].set(rowCount, row[i]);
+            }
+        }
+        rowCount++;
+    }
+
+    @Override
+    protected void finishLoading() {
+        capacity = rowCount;
+        for (Column column : columns) {
+            column.grow(capacity);
+        }
+    }
+
+    @Override
+    protected Object[] readRow(int physicalRow) {
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            row[i] = columns[i].get(physicalRow);
+        }
+        return row;
+    }
+
+    @Override
+    protected Object readValue(int physicalRow, int column) {
+        return columns[column].get(physicalRow);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        } else if (value instanceof LobValue) {
+            LobValue lob = (LobValue) value;
+            return 56 + (lob.isBinary() ? lob.getPreviewBytes().length : 2L * lob.getPreview().length());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return 24;
+        }
+        return 48;
+    }
+
+    private static Column createColumn(Class<?> type) {
+        if (type == Integer.class || type == Short.class || type == Byte.class) {
+            return new IntColumn(type);
+        } else if (type == Long.class) {
+            return new LongColumn();
+        } else if (type == Double.class || type == Float.class) {
+            return new DoubleColumn(type);
+        } else if (type == Boolean.class) {
+            return new BooleanColumn();
+        } else if (type == String.class) {
+            return new StringColumn();
+        }
+        return new ObjectColumn(null, 0, INITIAL_CAPACITY);
+    }
+
+    private abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        /**
+         * @return false if the value can't be stored in this column
+         */
+        abstract boolean set(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract void grow(int capacity);
+
+        abstract long getMemorySize();
+    }
+
+    private static class IntColumn extends Column {
+
+        private final Class<?> type;
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            if (!type.isInstance(value)) {
+                return false;
+            }
+            values[row] = ((Number) value).intValue();
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            int value = values[row];
+            return type == Short.class ? Short.valueOf((short) value)
+                    : type == Byte.class ? Byte.valueOf((byte) value)
+                    : Integer.valueOf(value);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        long getMemorySize() {
+            return 16 + 4L * values.length;
+        }
+    }
+
+    private static class LongColumn extends Column {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            if (!(value instanceof Long)) {
+                return false;
+            }
+            values[row] = (Long) value;
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : Long.valueOf(values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        long getMemorySize() {
+            return 16 + 8L * values.length;
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+
+        private final Class<?> type;
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            if (!type.isInstance(value)) {
+                return false;
+            }
+            values[row] = ((Number) value).doubleValue();
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return type == Float.class ? Float.valueOf((float) values[row]) : Double.valueOf(values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        long getMemorySize() {
+            return 16 + 8L * values.length;
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            if (!(value instanceof Boolean)) {
+                return false;
+            }
+            values.set(row, (Boolean) value);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : Boolean.valueOf(values.get(row));
+        }
+
+        @Override
+        void grow(int capacity) {
+        }
+
+        @Override
+        long getMemorySize() {
+            return values.size() / 8;
+        }
+    }
+
+    /**
+     * Dictionary encoded strings. Once there are too many distinct values the dictionary stops paying off and the
+     * column switches to plain string references.
+     */
+    private static class StringColumn extends Column {
+
+        private static final int MIN_DICTIONARY_SIZE = 1024;
+
+        private Map<String, Integer> codes = new HashMap<>();
+        private List<String> dictionary = new ArrayList<>();
+        private int[] values = new int[INITIAL_CAPACITY];
+        private String[] plain;
+
+        @Override
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            if (!(value instanceof String)) {
+                return false;
+            }
+            String string = (String) value;
+            if (plain != null) {
+                plain[row] = string;
+                return true;
+            }
+            Integer code = codes.get(string);
+            if (code == null) {
+                if (dictionary.size() >= MIN_DICTIONARY_SIZE && dictionary.size() > row / 2) {
+                    switchToPlain(row);
+                    plain[row] = string;
+                    return true;
+                }
+                code = dictionary.size();
+                dictionary.add(string);
+                codes.put(string, code);
+            }
+            values[row] = code;
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return plain != null ? plain[row] : dictionary.get(values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (plain != null) {
+                plain = Arrays.copyOf(plain, capacity);
+            } else {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        long getMemorySize() {
+            long size = 0;
+            if (plain != null) {
+                size += 16 + 8L * plain.length;
+                for (String value : plain) {
+                    size += estimateSize(value);
+                }
+            } else {
+                // dictionary list and map entries plus the distinct strings
+                size += 16 + 4L * values.length;
+                for (String value : dictionary) {
+                    size += 56 + estimateSize(value);
+                }
+            }
+            return size;
+        }
+
+        private void switchToPlain(int rowCount) {
+            plain = new String[values.length];
+            for (int i = 0; i < rowCount; i++) {
+                if (!nulls.get(i)) {
+                    plain[i] = dictionary.get(values[i]);
+                }
+            }
+            values = null;
+            codes = null;
+            dictionary = null;
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        private Object[] values;
+
+        /**
+         * @param source column to copy the first {@code rowCount} values from, may be null
+         */
+        ObjectColumn(Column source, int rowCount, int capacity) {
+            values = new Object[capacity];
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = source.get(i);
+            }
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+            values[row] = value;
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        long getMemorySize() {
+            long size = 16 + 8L * values.length;
+            for (Object value : values) {
+                size += estimateSize(value);
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package org.indp.vdbc.result;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * Result buffer which keeps rows in a temporary file and reads them back through memory mapping, so results larger
+ * than the heap can be browsed. Only row offsets (8 bytes per row) stay on the heap.
+ * <p/>
+ * Every cell is written as a type tag followed by the value in binary form. The file is deleted on {@link #close()}.
+ */
+public class FileResultBuffer extends AbstractResultBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileResultBuffer.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte STRING = 8;
+    private static final byte DECIMAL = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte TIMESTAMP = 11;
+    private static final byte DATE = 12;
+    private static final byte TIME = 13;
+    private static final byte BYTES = 14;
+    private static final byte CHARACTER_LOB = 15;
+    private static final byte BINARY_LOB = 16;
+
+    private final File file;
+    private final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+    private final DataOutputStream rowOut = new DataOutputStream(rowBytes);
+    private OutputStream fileOut;
+    private long[] offsets = new long[1024];
+    private int rowCount;
+    private long size;
+    private final boolean[] stringColumns;
+
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer[] segments;
+
+    public FileResultBuffer(ResultSetMetaData md) throws SQLException, IOException {
+        super(md);
+        stringColumns = new boolean[getColumnCount()];
+        file = File.createTempFile("vdbc-result", ".bin");
+        file.deleteOnExit();
+        fileOut = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+    }
+
+    /**
+     * @return {@link String} for columns with values stored in their string form, e.g. {@link java.util.UUID} or driver
+     * specific types, the declared class otherwise
+     */
+    @Override
+    public Class<?> getColumnType(int column) {
+        return stringColumns[column] ? String.class : super.getColumnType(column);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return size of the buffer file in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    protected void appendRow(Object[] row) throws IOException {
+        rowBytes.reset();
+        for (int i = 0; i < row.length; i++) {
+            if (!writeValue(rowOut, row[i])) {
+                stringColumns[i] = true;
+            }
+        }
+        rowOut.flush();
+
+        if (rowCount + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[rowCount] = size;
+        rowBytes.writeTo(fileOut);
+        size += rowBytes.size();
+        rowCount++;
+        offsets[rowCount] = size;
+    }
+
+    @Override
+    protected void finishLoading() throws IOException {
+        fileOut.close();
+        fileOut = null;
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+    }
+
+    @Override
+    protected Object[] readRow(int physicalRow) {
+        ByteBuffer buffer = rowBuffer(physicalRow);
+        Object[] row = new Object[getColumnCount()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = readValue(buffer);
+        }
+        return row;
+    }
+
+    @Override
+    protected Object readValue(int physicalRow, int column) {
+        ByteBuffer buffer = rowBuffer(physicalRow);
+        for (int i = 0; i < column; i++) {
+            skipValue(buffer);
+        }
+        return readValue(buffer);
+    }
+
+    @Override
+    public void close() {
+        segments = null;
+        try {
+            if (fileOut != null) {
+                fileOut.close();
+                fileOut = null;
+            }
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+                randomAccessFile = null;
+            }
+        } catch (IOException e) {
+            LOG.warn("failed to close result buffer file", e);
+        }
+        if (file.exists() && !file.delete()) {
+            LOG.warn("failed to delete result buffer file " + file);
+        }
+    }
+
+    private ByteBuffer rowBuffer(int physicalRow) {
+        if (segments == null && fileOut == null) {
+            throw new IllegalStateException("result buffer is already closed");
+        }
+        long start = offsets[physicalRow];
+        int length = (int) (offsets[physicalRow + 1] - start);
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        int segment = (int) (start / SEGMENT_SIZE);
+        try {
+            if (segments != null && (start + length - 1) / SEGMENT_SIZE == segment) {
+                ByteBuffer buffer = segment(segment).duplicate();
+                buffer.position((int) (start - (long) segment * SEGMENT_SIZE));
+                return buffer;
+            }
+            // the row crosses a segment boundary or the file is still growing and isn't mapped, read it directly
+            if (fileOut != null) {
+                fileOut.flush();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            FileChannel channel = channel();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("unexpected end of result buffer file");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read result buffer file", e);
+        }
+    }
+
+    private ByteBuffer segment(int index) throws IOException {
+        if (segments[index] == null) {
+            long start = (long) index * SEGMENT_SIZE;
+            segments[index] = channel().map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+        return segments[index];
+    }
+
+    private FileChannel channel() throws IOException {
+        if (randomAccessFile == null) {
+            randomAccessFile = new RandomAccessFile(file, "r");
+        }
+        return randomAccessFile.getChannel();
+    }
+
+    /**
+     * @return false if the value has no tag of its own and was stored in its string form
+     */
+    private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(DECIMAL);
+            writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+            out.writeInt(((BigDecimal) value).scale());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte(DATE);
+            out.writeLong(((java.util.Date) value).getTime());
+        } else if (value instanceof LobValue) {
+            LobValue lob = (LobValue) value;
+            out.writeByte(lob.isBinary() ? BINARY_LOB : CHARACTER_LOB);
+            out.writeLong(lob.getLength());
+            writeBytes(out, lob.isBinary() ? lob.getPreviewBytes() : lob.getPreview().getBytes(UTF8));
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(UTF8));
+        } else {
+            out.writeByte(STRING);
+            writeBytes(out, value.toString().getBytes(UTF8));
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case FLOAT:
+                return in.getFloat();
+            case SHORT:
+                return in.getShort();
+            case BYTE:
+                return in.get();
+            case BOOLEAN:
+                return in.get() != 0;
+            case STRING:
+                return new String(readBytes(in), UTF8);
+            case DECIMAL:
+                return new BigDecimal(new BigInteger(readBytes(in)), in.getInt());
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.getLong());
+                timestamp.setNanos(in.getInt());
+                return timestamp;
+            case DATE:
+                return new java.sql.Date(in.getLong());
+            case TIME:
+                return new Time(in.getLong());
+            case BYTES:
+                return readBytes(in);
+            case CHARACTER_LOB:
+                long characters = in.getLong();
+                return LobValue.ofCharacters(new String(readBytes(in), UTF8), characters);
+            case BINARY_LOB:
+                long bytes = in.getLong();
+                return LobValue.ofBytes(readBytes(in), bytes);
+            default:
+                throw new IllegalStateException("unknown value tag " + tag);
+        }
+    }
+
+    private static void skipValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                break;
+            case BYTE:
+            case BOOLEAN:
+                in.position(in.position() + 1);
+                break;
+            case SHORT:
+                in.position(in.position() + 2);
+                break;
+            case INT:
+            case FLOAT:
+                in.position(in.position() + 4);
+                break;
+            case LONG:
+            case DOUBLE:
+            case DATE:
+            case TIME:
+                in.position(in.position() + 8);
+                break;
+            case TIMESTAMP:
+                in.position(in.position() + 12);
+                break;
+            case DECIMAL:
+                skipBytes(in);
+                in.position(in.position() + 4);
+                break;
+            case STRING:
+            case BIG_INTEGER:
+            case BYTES:
+                skipBytes(in);
+                break;
+            case CHARACTER_LOB:
+            case BINARY_LOB:
+                in.position(in.position() + 8);
+                skipBytes(in);
+                break;
+            default:
+                throw new IllegalStateException("unknown value tag " + tag);
+        }
+    }
+
+    private static void skipBytes(ByteBuffer in) {
+        int length = in.getInt();
+        in.position(in.position() + length);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,298 @@
+package org.indp.vdbc.result;
+
+import com.google.common.io.BaseEncoding;
+import org.indp.vdbc.util.Sizes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Truncated preview of a large character or binary value together with its full length.
+ * <p/>
+ * Only the first {@link #PREVIEW_LENGTH} characters or bytes are read from the driver, so a page of document rows
+ * costs a few kilobytes no matter how large the documents are. The full value has to be read from the database again,
+ * see {@link org.indp.vdbc.services.LobReader}. Values read as streams have no length beyond the preview, counting it
+ * would mean reading the whole value; their length is {@link #UNKNOWN_LENGTH}.
+ */
+public final class LobValue implements Comparable<LobValue> {
+
+    public static final int PREVIEW_LENGTH = 256;
+    public static final long UNKNOWN_LENGTH = -1;
+    /**
+     * Declared length above which character and binary columns are read as previews as well.
+     */
+    public static final int LARGE_PRECISION = 4000;
+
+    private final String text;
+    private final byte[] bytes;
+    private final long length;
+
+    private LobValue(String text, byte[] bytes, long length) {
+        this.text = text;
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    public static LobValue ofCharacters(String preview, long length) {
+        return new LobValue(preview, null, length);
+    }
+
+    public static LobValue ofBytes(byte[] preview, long length) {
+        return new LobValue(null, preview, length);
+    }
+
+    /**
+     * @return true for column types read as previews
+     */
+    public static boolean isLob(int sqlType) {
+        switch (sqlType) {
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.BLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true for columns read as previews: LOB columns and character or binary columns without a declared length
+     * or with one above {@link #LARGE_PRECISION}, e.g. PostgreSQL {@code text}, {@code bytea} or {@code jsonb}; UUID
+     * columns are reported this way by H2 and PostgreSQL, but they are never read as previews
+     */
+    public static boolean isLob(ResultSetMetaData md, int column) throws SQLException {
+        int sqlType = md.getColumnType(column);
+        switch (sqlType) {
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.OTHER:
+                if ("uuid".equalsIgnoreCase(md.getColumnTypeName(column))) {
+                    return false;
+                }
+                int precision = md.getPrecision(column);
+                return precision <= 0 || precision > LARGE_PRECISION;
+            default:
+                return isLob(sqlType);
+        }
+    }
+
+    /**
+     * Reads the preview of a column for which {@link #isLob(ResultSetMetaData, int)} is true.
+     *
+     * @return the preview, null for SQL NULL
+     */
+    public static LobValue read(ResultSet rs, int column, int sqlType) throws SQLException {
+        switch (sqlType) {
+            case Types.CLOB:
+            case Types.NCLOB:
+                return readCharacters(rs, column);
+            case Types.BLOB:
+                return readBytes(rs, column);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return readBinaryStream(rs, column);
+            default:
+                return readCharacterStream(rs, column);
+        }
+    }
+
+    /**
+     * Reads a character value column.
+     *
+     * @return the preview, null for SQL NULL
+     */
+    public static LobValue readCharacters(ResultSet rs, int column) throws SQLException {
+        Clob clob = rs.getClob(column);
+        if (clob == null) {
+            return null;
+        }
+        try {
+            long length = clob.length();
+            return ofCharacters(clob.getSubString(1, (int) Math.min(length, PREVIEW_LENGTH)), length);
+        } finally {
+            free(clob);
+        }
+    }
+
+    /**
+     * Reads a binary value column.
+     *
+     * @return the preview, null for SQL NULL
+     */
+    public static LobValue readBytes(ResultSet rs, int column) throws SQLException {
+        Blob blob = rs.getBlob(column);
+        if (blob == null) {
+            return null;
+        }
+        try {
+            long length = blob.length();
+            return ofBytes(blob.getBytes(1, (int) Math.min(length, PREVIEW_LENGTH)), length);
+        } finally {
+            free(blob);
+        }
+    }
+
+    /**
+     * Reads a long character column (e.g. {@code text} or {@code longvarchar}) as a stream. Reading stops after the
+     * preview, the length of longer values is {@link #UNKNOWN_LENGTH}.
+     *
+     * @return the preview, null for SQL NULL
+     */
+    public static LobValue readCharacterStream(ResultSet rs, int column) throws SQLException {
+        Reader reader = rs.getCharacterStream(column);
+        if (reader == null) {
+            return null;
+        }
+        try {
+            // one more character tells whether the value is longer than the preview
+            char[] preview = new char[PREVIEW_LENGTH + 1];
+            int read = 0;
+            int n;
+            while (read < preview.length && (n = reader.read(preview, read, preview.length - read)) >= 0) {
+                read += n;
+            }
+            return read > PREVIEW_LENGTH
+                    ? ofCharacters(new String(preview, 0, PREVIEW_LENGTH), UNKNOWN_LENGTH)
+                    : ofCharacters(new String(preview, 0, read), read);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read column " + column, e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Binary counterpart of {@link #readCharacterStream(ResultSet, int)}.
+     */
+    public static LobValue readBinaryStream(ResultSet rs, int column) throws SQLException {
+        InputStream in = rs.getBinaryStream(column);
+        if (in == null) {
+            return null;
+        }
+        try {
+            byte[] preview = new byte[PREVIEW_LENGTH + 1];
+            int read = 0;
+            int n;
+            while (read < preview.length && (n = in.read(preview, read, preview.length - read)) >= 0) {
+                read += n;
+            }
+            return read > PREVIEW_LENGTH
+                    ? ofBytes(Arrays.copyOf(preview, PREVIEW_LENGTH), UNKNOWN_LENGTH)
+                    : ofBytes(Arrays.copyOf(preview, read), read);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read column " + column, e);
+        } finally {
+            close(in);
+        }
+    }
+
+    public boolean isBinary() {
+        return bytes != null;
+    }
+
+    /**
+     * @return full length in characters or bytes, {@link #UNKNOWN_LENGTH} if it's only known to be longer than the
+     * preview
+     */
+    public long getLength() {
+        return length;
+    }
+
+    public boolean isTruncated() {
+        return length == UNKNOWN_LENGTH || length > getPreviewLength();
+    }
+
+    private int getPreviewLength() {
+        return isBinary() ? bytes.length : text.length();
+    }
+
+    /**
+     * @return the preview text, binary values as hex
+     */
+    public String getPreview() {
+        return isBinary() ? "0x" + BaseEncoding.base16().encode(bytes) : text;
+    }
+
+    /**
+     * @return the preview bytes, null for character values
+     */
+    public byte[] getPreviewBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return full length in human readable form, e.g. "12.5 KB", "300 chars" or "> 256 chars" if it's unknown
+     */
+    public String getDisplayLength() {
+        if (length == UNKNOWN_LENGTH) {
+            return "> " + (isBinary() ? Sizes.format(getPreviewLength()) : String.format("%,d chars", getPreviewLength()));
+        }
+        return isBinary() ? Sizes.format(length) : String.format("%,d chars", length);
+    }
+
+    @Override
+    public int compareTo(LobValue o) {
+        return getPreview().compareTo(o.getPreview());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LobValue)) {
+            return false;
+        }
+        LobValue other = (LobValue) o;
+        return length == other.length && (isBinary() ? Arrays.equals(bytes, other.bytes) : text.equals(other.text));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (isBinary() ? Arrays.hashCode(bytes) : text.hashCode()) + (int) (length ^ length >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return isTruncated() ? getPreview() + "... [" + getDisplayLength() + "]" : getPreview();
+    }
+
+    private static void free(Clob clob) {
+        try {
+            clob.free();
+        } catch (SQLException | AbstractMethodError e) {
+            // old drivers don't release locators explicitly
+        }
+    }
+
+    private static void free(Blob blob) {
+        try {
+            blob.free();
+        } catch (SQLException | AbstractMethodError e) {
+            // old drivers don't release locators explicitly
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing left to read
+        }
+    }
+}
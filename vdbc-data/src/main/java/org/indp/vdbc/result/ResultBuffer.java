@@ -0,0 +1,42 @@
+package org.indp.vdbc.result;
+
+import java.io.Closeable;
+
+/**
+ * Read-only, random access storage for the rows of a query result.
+ */
+public interface ResultBuffer extends Closeable {
+
+    /**
+     * Rows a buffer can be sorted with at most, sorting needs a few bytes of heap per row.
+     */
+    int MAX_SORT_ROWS = 5000000;
+
+    int getColumnCount();
+
+    String getColumnLabel(int column);
+
+    Class<?> getColumnType(int column);
+
+    int getRowCount();
+
+    /**
+     * @param row row index in the current sort order
+     */
+    Object[] getRow(int row);
+
+    /**
+     * @param row row index in the current sort order
+     */
+    Object getValue(int row, int column);
+
+    /**
+     * @return false if the buffer has too many rows to be sorted
+     */
+    boolean isSortable();
+
+    /**
+     * Changes the order rows are returned in. An empty array of columns restores the original order.
+     */
+    void sort(int[] columns, boolean[] ascending);
+}
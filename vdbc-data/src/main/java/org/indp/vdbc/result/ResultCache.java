@@ -0,0 +1,198 @@
+package org.indp.vdbc.result;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of fully loaded query results, keyed by normalized SQL text, parameters and max rows.
+ * <p/>
+ * The cache is bounded by the approximate heap size of the cached buffers and evicts the least recently used results
+ * first; results also expire a fixed time after they were loaded. Callers get a {@link ColumnarResultBuffer#view()
+ * view} of the cached buffer, so sorting one result table doesn't affect the others.
+ */
+public class ResultCache {
+
+    public static final int DEFAULT_TTL_SECONDS = 300;
+
+    private static final Pattern READ_ONLY = Pattern.compile("^(select|with)\\b");
+    private static final Pattern SIDE_EFFECTS = Pattern.compile(
+            "\\b(insert|update|delete|merge|into|nextval|setval|lock)\\b|\\bfor\\s+(update|share)\\b");
+    private static final Pattern MODIFYING = Pattern.compile(
+            "^(insert|update|delete|merge|upsert|replace|truncate|create|alter|drop|rename|comment|grant|revoke"
+                    + "|call|exec|execute|begin|declare|do|copy|load|rollback)\\b");
+    // functions whose result differs between runs, a cached result would show stale values
+    private static final Pattern NON_DETERMINISTIC = Pattern.compile(
+            "\\b(current_timestamp|current_date|current_time|localtimestamp|localtime|sysdate|systimestamp|dbms_random)\\b"
+                    + "|\\b(now|random|rand|uuid|newid|random_uuid|gen_random_uuid|getdate|getutcdate|sysdatetime"
+                    + "|clock_timestamp|statement_timestamp|timeofday|utc_timestamp|unix_timestamp)\\s*\\(");
+
+    private final long maxBytes;
+    private final Cache<Key, ColumnarResultBuffer> cache;
+
+    public ResultCache(long maxBytes, long ttlSeconds) {
+        this.maxBytes = maxBytes;
+        // a single segment, otherwise each segment only gets its share of the weight and large results never fit
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maxBytes)
+                .weigher(new Weigher<Key, ColumnarResultBuffer>() {
+                    @Override
+                    public int weigh(Key key, ColumnarResultBuffer value) {
+                        return (int) Math.min(Integer.MAX_VALUE, key.getMemorySize() + value.getMemorySize());
+                    }
+                })
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return a view of the cached result or null
+     */
+    public ColumnarResultBuffer get(String sql, List<?> parameters, int maxRows) {
+        ColumnarResultBuffer buffer = cache.getIfPresent(new Key(sql, parameters, maxRows));
+        return buffer == null ? null : buffer.view();
+    }
+
+    /**
+     * Caches a fully loaded result. Results larger than the whole cache are ignored.
+     */
+    public void put(String sql, List<?> parameters, int maxRows, ColumnarResultBuffer buffer) {
+        if (buffer.getMemorySize() < maxBytes) {
+            // keep a private view so later sorting of the caller's buffer doesn't leak into the cache
+            cache.put(new Key(sql, parameters, maxRows), buffer.view());
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return true if the statement only reads data, doesn't call functions like {@code now()} or {@code random()} and
+     * its result may be cached
+     */
+    public static boolean isCacheable(String sql) {
+        String normalized = normalize(sql);
+        return READ_ONLY.matcher(normalized).find()
+                && !SIDE_EFFECTS.matcher(normalized).find()
+                && !NON_DETERMINISTIC.matcher(normalized).find();
+    }
+
+    /**
+     * @return true if the statement may have changed data or schema, so cached results may be stale after it ran;
+     * false for plain selects and statements like {@code explain} or {@code show}
+     */
+    public static boolean isModifying(String sql) {
+        String normalized = normalize(sql);
+        return MODIFYING.matcher(normalized).find()
+                || READ_ONLY.matcher(normalized).find() && SIDE_EFFECTS.matcher(normalized).find();
+    }
+
+    /**
+     * Removes comments, collapses whitespace and lower-cases everything outside of string literals and quoted
+     * identifiers, so that statements differing only in formatting share a cache entry.
+     */
+    static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                // doubled quotes are escapes and simply continue the literal
+                while (end >= 0 && end + 1 < length && sql.charAt(end + 1) == c) {
+                    end = sql.indexOf(c, end + 2);
+                }
+                end = end < 0 ? length : end + 1;
+                appendSpace(sb, pendingSpace);
+                pendingSpace = false;
+                sb.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+                pendingSpace = true;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                appendSpace(sb, pendingSpace);
+                pendingSpace = false;
+                sb.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ';') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString().trim();
+    }
+
+    private static void appendSpace(StringBuilder sb, boolean pendingSpace) {
+        if (pendingSpace && sb.length() > 0) {
+            sb.append(' ');
+        }
+    }
+
+    private static final class Key {
+
+        private final String sql;
+        private final List<Object> parameters;
+        private final int maxRows;
+
+        Key(String sql, List<?> parameters, int maxRows) {
+            this.sql = normalize(sql);
+            this.parameters = parameters == null || parameters.isEmpty()
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<Object>(parameters));
+            this.maxRows = maxRows;
+        }
+
+        long getMemorySize() {
+            return 64 + 2L * sql.length() + 32L * parameters.size();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return maxRows == key.maxRows && sql.equals(key.sql) && parameters.equals(key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new Object[]{sql, parameters, maxRows});
+        }
+    }
+}
@@ -4,18 +4,23 @@ import com.google.common.base.Strings;
 import org.indp.vdbc.ConnectionListener;
 import org.indp.vdbc.db.Dialect;
 import org.indp.vdbc.db.DialectSupport;
+import org.indp.vdbc.history.QueryHistory;
 import org.indp.vdbc.model.DataSourceAdapter;
 import org.indp.vdbc.model.config.ConnectionProfile;
 import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.preferences.TablePreferences;
+import org.indp.vdbc.result.ResultCache;
+import org.indp.vdbc.util.MetadataCache;
 import org.indp.vdbc.util.MetadataRetriever;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
-import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DatabaseSession {
 
@@ -25,15 +30,28 @@ public class DatabaseSession {
     private final ConnectionListener connectionListener;
     private final DataSourceAdapter dataSourceAdapter;
     private final Dialect dialect;
-    private MetadataRetriever metadataRetriever;
+    private final ExecutionRegistry executionRegistry = new ExecutionRegistry();
+    private final QueryScheduler.Queue queryQueue;
+    private final ResultCache resultCache;
+    private final ConcurrentMap<String, TableStatistics> tableStatistics = new ConcurrentHashMap<>();
+    private final MetadataRetriever metadataRetriever;
+    private MetadataWarmup metadataWarmup;
 
     private volatile boolean closed = false;
 
     public DatabaseSession(ConnectionProfile connectionProfile, ConnectionListener connectionListener) {
+        this(connectionProfile, connectionListener, QueryScheduler.get());
+    }
+
+    public DatabaseSession(ConnectionProfile connectionProfile, ConnectionListener connectionListener, QueryScheduler scheduler) {
         this.connectionProfile = connectionProfile;
         this.connectionListener = connectionListener;
         this.dataSourceAdapter = connectionProfile.createDataSourceAdapter();
         this.dialect = createDialect(connectionProfile);
+        this.queryQueue = scheduler.createQueue(connectionProfile.getName(), connectionProfile.getMaxConcurrentQueries());
+        this.resultCache = createResultCache(connectionProfile);
+        this.metadataRetriever = new MetadataRetriever(getDataSource(), dialect,
+                MetadataCache.forProfile(connectionProfile));
     }
 
     public synchronized void close() {
@@ -41,13 +59,13 @@ public class DatabaseSession {
 
         LOG.info("cleaning up...");
 
-        if (metadataRetriever != null) {
-            try {
-                metadataRetriever.close();
-                metadataRetriever = null;
-            } catch (IOException e) {
-                LOG.warn("failed to close metadata retriever", e);
-            }
+        if (metadataWarmup != null) {
+            metadataWarmup.cancel();
+        }
+        queryQueue.close();
+        executionRegistry.cancelAll();
+        if (resultCache != null) {
+            resultCache.invalidateAll();
         }
 
         if (dataSourceAdapter != null) {
@@ -62,6 +80,18 @@ public class DatabaseSession {
         connectionListener.connectionClosed(this);
     }
 
+    /**
+     * Starts prefetching metadata into the cache in the background, if the profile has a prefetch budget.
+     */
+    public synchronized void startMetadataWarmup() {
+        Integer budget = connectionProfile.getMetadataPrefetchBudget();
+        if (closed || budget == null || budget <= 0 || metadataWarmup != null) {
+            return;
+        }
+        metadataWarmup = new MetadataWarmup(this, MetadataWarmup.parseSchemas(connectionProfile.getMetadataPrefetchSchemas()), budget * 1000L);
+        metadataWarmup.start();
+    }
+
     public ConnectionProfile getConnectionProfile() {
         return connectionProfile;
     }
@@ -78,10 +108,60 @@ public class DatabaseSession {
         return dialect;
     }
 
-    public synchronized MetadataRetriever getMetadata() throws SQLException {
-        if (metadataRetriever == null) {
-            metadataRetriever = new MetadataRetriever(getDataSource());
+    public ExecutionRegistry getExecutionRegistry() {
+        return executionRegistry;
+    }
+
+    /**
+     * @return queue for running statements and other database work of this session in the background
+     */
+    public QueryScheduler.Queue getQueryQueue() {
+        return queryQueue;
+    }
+
+    /**
+     * @return cache for results of read-only queries, null if it is disabled for the profile
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public QueryHistory getQueryHistory() {
+        return QueryHistory.forProfile(connectionProfile.getName());
+    }
+
+    /**
+     * @param refresh read the statistics again even if they were read before
+     * @return statistics of the table, cached for the lifetime of the session
+     */
+    public TableStatistics getTableStatistics(JdbcTable table, boolean refresh) throws SQLException {
+        String key = buildTableName(table);
+        TableStatistics statistics = refresh ? null : tableStatistics.get(key);
+        if (statistics == null) {
+            statistics = TableStatistics.read(this, table);
+            tableStatistics.put(key, statistics);
         }
+        return statistics;
+    }
+
+    public TablePreferences getTablePreferences() {
+        return TablePreferences.forProfile(connectionProfile.getName());
+    }
+
+    /**
+     * Applies profile-level statement settings such as the query timeout.
+     */
+    public void configureStatement(Statement statement) throws SQLException {
+        Integer queryTimeout = connectionProfile.getQueryTimeout();
+        if (queryTimeout != null && queryTimeout > 0) {
+            statement.setQueryTimeout(queryTimeout);
+        }
+    }
+
+    /**
+     * @return metadata reader of the session, safe to use from several threads at once
+     */
+    public MetadataRetriever getMetadata() {
         return metadataRetriever;
     }
 
@@ -95,8 +175,19 @@ public class DatabaseSession {
                 : buildGenericTableName(table, this);
     }
 
+    /**
+     * Quotes a column or table name with the identifier quote of the database, if it has one.
+     */
+    public String quoteIdentifier(String name) throws SQLException {
+        String quote = metadataRetriever.getIdentifierQuoteString();
+        if (quote == null || " ".equals(quote)) {
+            return name;
+        }
+        return quote + name.replace(quote, quote + quote) + quote;
+    }
+
     private String buildGenericTableName(JdbcTable table, DatabaseSession databaseSession) throws SQLException {
-        DatabaseMetaData metaData = databaseSession.getMetadata().getRawMetadata();
+        MetadataRetriever metaData = databaseSession.getMetadata();
         String catalog = table.getCatalog();
         String schema = table.getSchema();
 
@@ -119,6 +210,15 @@ public class DatabaseSession {
         return sb.toString();
     }
 
+    private static ResultCache createResultCache(ConnectionProfile connectionProfile) {
+        Integer size = connectionProfile.getResultCacheSize();
+        if (size == null || size <= 0) {
+            return null;
+        }
+        Integer ttl = connectionProfile.getResultCacheTtl();
+        return new ResultCache(size * 1024L * 1024L, ttl == null || ttl <= 0 ? ResultCache.DEFAULT_TTL_SECONDS : ttl);
+    }
+
     private Dialect createDialect(ConnectionProfile connectionProfile) {
         Dialect dialect = DialectSupport.getDialect(connectionProfile.getDialect());
         if (dialect == null) {
@@ -27,6 +27,7 @@ public final class DatabaseSessionManager implements Serializable {
         DatabaseSession session = new DatabaseSession(profile, connectionListener);
         sessions.add(session);
         connectionListener.connectionEstablished(session);
+        session.startMetadataWarmup();
         return session;
     }
 
@@ -0,0 +1,109 @@
+package org.indp.vdbc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of statements currently executed within a database session so they can be listed and cancelled.
+ */
+public class ExecutionRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionRegistry.class);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Execution> executions = Collections.newSetFromMap(new ConcurrentHashMap<Execution, Boolean>());
+
+    /**
+     * Registers a new execution. The caller must {@link Execution#close() close} it once the statement completes.
+     */
+    public Execution start(String sql) {
+        Execution execution = new Execution(sql);
+        executions.add(execution);
+        return execution;
+    }
+
+    public List<Execution> getExecutions() {
+        List<Execution> list = new ArrayList<>(executions);
+        Collections.sort(list, new Comparator<Execution>() {
+            @Override
+            public int compare(Execution o1, Execution o2) {
+                return Long.compare(o1.order, o2.order);
+            }
+        });
+        return list;
+    }
+
+    public void cancelAll() {
+        for (Execution execution : executions) {
+            try {
+                execution.cancel();
+            } catch (SQLException e) {
+                LOG.warn("failed to cancel statement", e);
+            }
+        }
+    }
+
+    public class Execution implements Closeable {
+
+        private final String sql;
+        private final long startTime = System.currentTimeMillis();
+        private final long order = sequence.incrementAndGet();
+        private Statement statement;
+        private boolean cancelled;
+
+        private Execution(String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * Binds the statement about to be executed.
+         *
+         * @throws SQLException if cancellation was requested before the statement could be bound, as most drivers
+         *                      ignore cancel requests made before the execution starts
+         */
+        public synchronized void setStatement(Statement statement) throws SQLException {
+            if (cancelled && statement != null) {
+                throw new SQLException("Execution cancelled");
+            }
+            this.statement = statement;
+        }
+
+        public synchronized void cancel() throws SQLException {
+            cancelled = true;
+            if (statement != null) {
+                statement.cancel();
+            }
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                statement = null;
+            }
+            executions.remove(this);
+        }
+    }
+}
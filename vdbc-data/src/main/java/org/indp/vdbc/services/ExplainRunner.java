@@ -0,0 +1,103 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.db.Expressions;
+import org.indp.vdbc.plan.PlanNode;
+import org.indp.vdbc.plan.PlanParser;
+import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.util.SqlScriptSplitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Retrieves the execution plan of a query using the explain statements of the session dialect.
+ * <p/>
+ * Plans are requested on a separate pooled connection inside a transaction which is always rolled back, so analyzing
+ * a data modifying statement (which actually executes it) leaves no changes behind.
+ */
+public class ExplainRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExplainRunner.class);
+
+    private final DatabaseSession databaseSession;
+
+    public ExplainRunner(DatabaseSession databaseSession) {
+        this.databaseSession = databaseSession;
+    }
+
+    /**
+     * @param analyze true to execute the query and report actual timings
+     * @return top level operations of the plan
+     */
+    public List<PlanNode> explain(String sql, boolean analyze, ExecutionRegistry.Execution execution) throws SQLException {
+        Expressions expressions = databaseSession.getDialect().getExpressions();
+        String query = stripTerminator(sql);
+        String explain = analyze ? expressions.explainAnalyze(query) : expressions.explain(query);
+        List<String> statements = SqlScriptSplitter.split(explain, Collections.<String>emptyList());
+        return PlanParser.parse(expressions.explainFormat(), readPlan(statements, execution));
+    }
+
+    private List<String> readPlan(List<String> statements, ExecutionRegistry.Execution execution) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        Connection connection = databaseSession.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            for (String sql : statements) {
+                if (execution.isCancelled()) {
+                    throw new SQLException("Execution cancelled");
+                }
+                Statement stmt = connection.createStatement();
+                try {
+                    databaseSession.configureStatement(stmt);
+                    execution.setStatement(stmt);
+                    boolean hasResultSet = stmt.execute(sql);
+                    execution.setStatement(null);
+                    if (hasResultSet) {
+                        // earlier statements may be the query itself (e.g. with runtime statistics), only the last
+                        // one returns the plan
+                        lines.clear();
+                        ResultSet rs = stmt.getResultSet();
+                        try {
+                            while (rs.next()) {
+                                String text = rs.getString(1);
+                                if (text != null) {
+                                    lines.addAll(Arrays.asList(text.split("\r?\n")));
+                                }
+                            }
+                        } finally {
+                            JdbcUtils.close(rs);
+                        }
+                    }
+                } finally {
+                    JdbcUtils.close(stmt);
+                }
+            }
+        } finally {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                LOG.debug("failed to reset explain connection", e);
+            }
+            JdbcUtils.close(connection);
+        }
+        return lines;
+    }
+
+    private static String stripTerminator(String sql) {
+        String query = sql.trim();
+        while (query.endsWith(";")) {
+            query = query.substring(0, query.length() - 1).trim();
+        }
+        return query;
+    }
+}
@@ -0,0 +1,170 @@
+package org.indp.vdbc.services;
+
+import com.google.common.base.Joiner;
+import org.indp.vdbc.util.JdbcUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads full values of single table cells which are shown as {@link org.indp.vdbc.result.LobValue} previews. The row
+ * is selected again by primary key and the value is streamed, never materialized as a whole.
+ */
+public class LobReader {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DatabaseSession databaseSession;
+    private final String tableName;
+    private final List<String> keyColumns;
+
+    /**
+     * @param tableName  qualified and quoted table name
+     * @param keyColumns primary key column names as reported by the database
+     */
+    public LobReader(DatabaseSession databaseSession, String tableName, List<String> keyColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Rows of " + tableName + " can't be identified without a primary key");
+        }
+        this.databaseSession = databaseSession;
+        this.tableName = tableName;
+        this.keyColumns = keyColumns;
+    }
+
+    /**
+     * Copies the full value to the stream, character values are written as UTF-8.
+     *
+     * @param key values of all key columns
+     * @return false if the row doesn't exist anymore or the value is null
+     */
+    public boolean copy(String column, Map<String, Object> key, OutputStream out) throws SQLException, IOException {
+        Connection connection = databaseSession.getConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = prepare(connection, column, key);
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                if (isBinary(rs.getMetaData().getColumnType(1))) {
+                    InputStream in = rs.getBinaryStream(1);
+                    if (in == null) {
+                        return false;
+                    }
+                    try {
+                        byte[] buffer = new byte[BUFFER_SIZE];
+                        int n;
+                        while ((n = in.read(buffer)) >= 0) {
+                            out.write(buffer, 0, n);
+                        }
+                    } finally {
+                        in.close();
+                    }
+                } else {
+                    Reader in = rs.getCharacterStream(1);
+                    if (in == null) {
+                        return false;
+                    }
+                    try {
+                        Writer writer = new OutputStreamWriter(out, UTF8);
+                        char[] buffer = new char[BUFFER_SIZE];
+                        int n;
+                        while ((n = in.read(buffer)) >= 0) {
+                            writer.write(buffer, 0, n);
+                        }
+                        writer.flush();
+                    } finally {
+                        in.close();
+                    }
+                }
+                return true;
+            } finally {
+                JdbcUtils.close(rs);
+            }
+        } finally {
+            JdbcUtils.close(statement);
+            JdbcUtils.close(connection);
+        }
+    }
+
+    /**
+     * Reads a character value.
+     *
+     * @param maxLength characters to read at most
+     * @return the value, null if the row doesn't exist anymore or the value is null
+     */
+    public String readString(String column, Map<String, Object> key, int maxLength) throws SQLException, IOException {
+        Connection connection = databaseSession.getConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = prepare(connection, column, key);
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    return null;
+                }
+                Reader in = rs.getCharacterStream(1);
+                if (in == null) {
+                    return null;
+                }
+                try {
+                    StringBuilder sb = new StringBuilder();
+                    char[] buffer = new char[BUFFER_SIZE];
+                    int n;
+                    while (sb.length() < maxLength && (n = in.read(buffer, 0, Math.min(buffer.length, maxLength - sb.length()))) >= 0) {
+                        sb.append(buffer, 0, n);
+                    }
+                    return sb.toString();
+                } finally {
+                    in.close();
+                }
+            } finally {
+                JdbcUtils.close(rs);
+            }
+        } finally {
+            JdbcUtils.close(statement);
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private PreparedStatement prepare(Connection connection, String column, Map<String, Object> key) throws SQLException {
+        List<String> quoted = new ArrayList<>();
+        for (String keyColumn : keyColumns) {
+            quoted.add(databaseSession.quoteIdentifier(keyColumn));
+        }
+        String sql = "select " + databaseSession.quoteIdentifier(column) + " from " + tableName
+                + " where " + Joiner.on(" = ? and ").join(quoted) + " = ?";
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < keyColumns.size(); i++) {
+                if (!key.containsKey(keyColumns.get(i))) {
+                    throw new IllegalArgumentException("Missing key column " + keyColumns.get(i));
+                }
+                statement.setObject(i + 1, key.get(keyColumns.get(i)));
+            }
+        } catch (SQLException | RuntimeException e) {
+            JdbcUtils.close(statement);
+            throw e;
+        }
+        return statement;
+    }
+
+    private static boolean isBinary(int sqlType) {
+        return sqlType == Types.BLOB || sqlType == Types.LONGVARBINARY || sqlType == Types.VARBINARY || sqlType == Types.BINARY;
+    }
+}
@@ -0,0 +1,176 @@
+package org.indp.vdbc.services;
+
+import com.google.common.base.Splitter;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.util.MetadataRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fills the metadata cache right after connecting, so the first look at the table list doesn't wait for the
+ * dictionary: catalogs, schemas, table types, then tables and columns of the prefetched schemas.
+ * <p/>
+ * The warm-up runs as a background task of the session queue, stops when its time budget is spent and is cancelled
+ * when the session closes. Whatever it managed to read stays in the cache.
+ */
+public class MetadataWarmup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetadataWarmup.class);
+    private static final String TABLE_TYPE = "TABLE";
+
+    private final DatabaseSession databaseSession;
+    private final List<String> schemas;
+    private final long budgetMillis;
+    private volatile boolean cancelled;
+    private Future<?> future;
+    private long deadline;
+
+    /**
+     * @param schemas      schemas to prefetch, empty for the default schema of the connection
+     * @param budgetMillis time the warm-up may take
+     */
+    public MetadataWarmup(DatabaseSession databaseSession, List<String> schemas, long budgetMillis) {
+        this.databaseSession = databaseSession;
+        this.schemas = schemas;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * @param schemas comma separated schema names, null or empty for the default schema
+     */
+    public static List<String> parseSchemas(String schemas) {
+        return schemas == null
+                ? Collections.<String>emptyList()
+                : Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schemas);
+    }
+
+    /**
+     * @return the running warm-up, null if it was rejected because the session is closing
+     */
+    public synchronized Future<?> start() {
+        deadline = System.currentTimeMillis() + budgetMillis;
+        try {
+            future = databaseSession.getQueryQueue().submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    warmUp();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("metadata warm-up rejected", e);
+        }
+        return future;
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        MetadataRetriever metadata = databaseSession.getMetadata();
+        try {
+            List<String> catalogs = metadata.getCatalogs();
+            if (!proceed()) {
+                return;
+            }
+            List<String> allSchemas = metadata.getSchemas();
+            if (!proceed()) {
+                return;
+            }
+            List<String> tableTypes = metadata.getTableTypes();
+            // the table list asks for the catalog only when there is a single one
+            String catalog = catalogs.size() == 1 ? catalogs.get(0) : null;
+            if (tableTypes.contains(TABLE_TYPE)) {
+                for (String schema : getTargetSchemas(allSchemas)) {
+                    if (!proceed()) {
+                        break;
+                    }
+                    warmUpSchema(metadata, allSchemas.isEmpty() ? getDefaultCatalog(catalog) : catalog, schema);
+                }
+            }
+            LOG.debug("metadata warm-up of {} took {} ms", databaseSession.getConnectionProfile().getName(), System.currentTimeMillis() - start);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("metadata warm-up failed", e);
+        }
+    }
+
+    private void warmUpSchema(MetadataRetriever metadata, String catalog, String schema) throws SQLException {
+        List<JdbcTable> tables = metadata.getTables(catalog, schema, TABLE_TYPE);
+        if (tables.isEmpty() || !proceed()) {
+            return;
+        }
+        if (metadata.supportsSchemaSnapshot()) {
+            // column lookups are served from a snapshot keyed by the names the driver reported
+            metadata.getSchemaSnapshot(tables.get(0).getCatalog(), tables.get(0).getSchema());
+            return;
+        }
+        for (JdbcTable table : tables) {
+            if (!proceed()) {
+                return;
+            }
+            metadata.getColumns(table);
+        }
+    }
+
+    /**
+     * @return configured schemas, otherwise the default schema of the connection; a null element for databases
+     * without schemas
+     */
+    private List<String> getTargetSchemas(List<String> allSchemas) throws SQLException {
+        if (!schemas.isEmpty()) {
+            return schemas;
+        }
+        if (allSchemas.isEmpty()) {
+            return Collections.singletonList(null);
+        }
+        String schema = getDefaultSchema();
+        if (schema == null && allSchemas.size() == 1) {
+            schema = allSchemas.get(0);
+        }
+        if (schema == null) {
+            LOG.debug("no default schema to warm up");
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(schema);
+    }
+
+    private String getDefaultSchema() throws SQLException {
+        Connection connection = databaseSession.getConnection();
+        try {
+            return connection.getSchema();
+        } catch (AbstractMethodError | SQLException e) {
+            // pre JDBC 4.1 drivers
+            return null;
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private String getDefaultCatalog(String catalog) throws SQLException {
+        if (catalog != null) {
+            return catalog;
+        }
+        Connection connection = databaseSession.getConnection();
+        try {
+            return connection.getCatalog();
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private boolean proceed() {
+        return !cancelled && !databaseSession.isClosed() && System.currentTimeMillis() < deadline;
+    }
+}
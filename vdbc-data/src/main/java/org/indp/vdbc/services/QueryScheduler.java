@@ -0,0 +1,354 @@
+package org.indp.vdbc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database work of all sessions on a bounded set of worker threads.
+ * <p/>
+ * Every session gets its own {@link Queue}. Workers pick queues in round-robin order, so a session with many
+ * pending statements can't starve the others. Concurrency is additionally limited per session and per profile.
+ * One slot of the session limit is kept for priority tasks, the statements the user runs in the query editor, so
+ * they never wait for other work of their own session.
+ * <p/>
+ * Background tasks, such as metadata warm-up, row counts or page prefetches, only get a worker when no regular task
+ * of any session can run, and take at most a quarter of the workers. They don't use the slots of the session limit
+ * but have a budget of their own, {@link #BACKGROUND_SESSION_LIMIT} tasks per session.
+ */
+public class QueryScheduler {
+
+    public static final String THREADS_PROPERTY = "vdbc.scheduler.threads";
+    public static final String SESSION_LIMIT_PROPERTY = "vdbc.scheduler.session-limit";
+    public static final String PROFILE_LIMIT_PROPERTY = "vdbc.scheduler.profile-limit";
+    public static final int BACKGROUND_SESSION_LIMIT = 1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryScheduler.class);
+    private static final QueryScheduler INSTANCE = new QueryScheduler(
+            Integer.getInteger(THREADS_PROPERTY, 16),
+            Integer.getInteger(SESSION_LIMIT_PROPERTY, 2),
+            Integer.getInteger(PROFILE_LIMIT_PROPERTY, 8));
+
+    private final Object lock = new Object();
+    private final List<Queue> queues = new ArrayList<>();
+    private final Map<String, Integer> runningPerProfile = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final int sessionLimit;
+    private final int defaultProfileLimit;
+    private final int backgroundLimit;
+    private int nextQueue;
+    private int backgroundRunning;
+    private boolean shutdown;
+
+    public static QueryScheduler get() {
+        return INSTANCE;
+    }
+
+    public QueryScheduler(int threads, int sessionLimit, int defaultProfileLimit) {
+        this.sessionLimit = Math.max(sessionLimit, 1);
+        this.defaultProfileLimit = Math.max(defaultProfileLimit, 1);
+        this.backgroundLimit = Math.max(threads / 4, 1);
+
+        final AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < Math.max(threads, 1); i++) {
+            Thread thread = Executors.defaultThreadFactory().newThread(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            });
+            thread.setName("vdbc-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+    }
+
+    /**
+     * Creates a queue for a database session.
+     *
+     * @param profileKey   identifies the connection profile, queues with the same key share the profile limit
+     * @param profileLimit max number of tasks running concurrently for the profile, null for the default
+     */
+    public Queue createQueue(String profileKey, Integer profileLimit) {
+        Queue queue = new Queue(profileKey, profileLimit == null || profileLimit <= 0 ? defaultProfileLimit : profileLimit);
+        synchronized (lock) {
+            queues.add(queue);
+        }
+        return queue;
+    }
+
+    /**
+     * @return number of tasks waiting for a worker across all sessions
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            int depth = 0;
+            for (Queue queue : queues) {
+                depth += queue.priority.size() + queue.pending.size() + queue.background.size();
+            }
+            return depth;
+        }
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            for (Queue queue : new ArrayList<>(queues)) {
+                queue.close();
+            }
+            lock.notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Task<?> task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.warn("task failed", t);
+            } finally {
+                finished(task);
+            }
+        }
+    }
+
+    private Task<?> take() throws InterruptedException {
+        synchronized (lock) {
+            while (!shutdown) {
+                Task<?> task = pollNext();
+                if (task != null) {
+                    return task;
+                }
+                lock.wait();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Picks the next runnable task visiting queues in round-robin order, skipping queues which reached their limits.
+     */
+    private Task<?> pollNext() {
+        Task<?> task = pollNext(Lane.PRIORITY);
+        if (task == null) {
+            task = pollNext(Lane.REGULAR);
+        }
+        if (task == null && backgroundRunning < backgroundLimit) {
+            task = pollNext(Lane.BACKGROUND);
+            if (task != null) {
+                backgroundRunning++;
+            }
+        }
+        return task;
+    }
+
+    private Task<?> pollNext(Lane lane) {
+        int count = queues.size();
+        for (int i = 0; i < count; i++) {
+            int index = (nextQueue + i) % count;
+            Queue queue = queues.get(index);
+            ArrayDeque<Task<?>> tasks = queue.getTasks(lane);
+            if (tasks.isEmpty()
+                    || queue.isAtLimit(lane)
+                    || getRunning(queue.profileKey) >= queue.profileLimit) {
+                continue;
+            }
+            nextQueue = (index + 1) % count;
+            if (lane == Lane.BACKGROUND) {
+                queue.backgroundRunning++;
+            } else {
+                queue.running++;
+            }
+            runningPerProfile.put(queue.profileKey, getRunning(queue.profileKey) + 1);
+            return tasks.poll();
+        }
+        return null;
+    }
+
+    private void finished(Task<?> task) {
+        synchronized (lock) {
+            Queue queue = task.queue;
+            if (task.lane == Lane.BACKGROUND) {
+                queue.backgroundRunning--;
+                backgroundRunning--;
+            } else {
+                queue.running--;
+            }
+            runningPerProfile.put(queue.profileKey, getRunning(queue.profileKey) - 1);
+            lock.notifyAll();
+        }
+    }
+
+    private int getRunning(String profileKey) {
+        Integer running = runningPerProfile.get(profileKey);
+        return running == null ? 0 : running;
+    }
+
+    private enum Lane {
+        PRIORITY, REGULAR, BACKGROUND
+    }
+
+    /**
+     * Per-session queue of tasks.
+     */
+    public class Queue {
+
+        private final String profileKey;
+        private final int profileLimit;
+        private final ArrayDeque<Task<?>> priority = new ArrayDeque<>();
+        private final ArrayDeque<Task<?>> pending = new ArrayDeque<>();
+        private final ArrayDeque<Task<?>> background = new ArrayDeque<>();
+        private int running;
+        private int backgroundRunning;
+        private boolean closed;
+
+        private Queue(String profileKey, int profileLimit) {
+            this.profileKey = profileKey;
+            this.profileLimit = profileLimit;
+        }
+
+        public <T> Future<T> submit(Callable<T> callable) {
+            return submit(callable, Lane.REGULAR);
+        }
+
+        public Future<?> submit(Runnable runnable) {
+            return submit(Executors.callable(runnable));
+        }
+
+        /**
+         * Submits a task which may use the slot of the session limit kept free of regular tasks, e.g. a statement
+         * of the query editor.
+         */
+        public Future<?> submitPriority(Runnable runnable) {
+            return submit(Executors.callable(runnable), Lane.PRIORITY);
+        }
+
+        /**
+         * Submits a low priority task which runs only when no regular task is waiting for a worker.
+         */
+        public Future<?> submitBackground(Runnable runnable) {
+            return submit(Executors.callable(runnable), Lane.BACKGROUND);
+        }
+
+        private <T> Future<T> submit(Callable<T> callable, Lane lane) {
+            Task<T> task = new Task<>(this, callable, lane);
+            synchronized (lock) {
+                if (closed || shutdown) {
+                    throw new RejectedExecutionException("queue is closed");
+                }
+                getTasks(lane).add(task);
+                lock.notifyAll();
+            }
+            return task;
+        }
+
+        private ArrayDeque<Task<?>> getTasks(Lane lane) {
+            switch (lane) {
+                case PRIORITY:
+                    return priority;
+                case BACKGROUND:
+                    return background;
+                default:
+                    return pending;
+            }
+        }
+
+        private boolean isAtLimit(Lane lane) {
+            switch (lane) {
+                case PRIORITY:
+                    return running >= sessionLimit;
+                case BACKGROUND:
+                    return backgroundRunning >= BACKGROUND_SESSION_LIMIT;
+                default:
+                    return running >= (sessionLimit > 1 ? sessionLimit - 1 : sessionLimit);
+            }
+        }
+
+        /**
+         * @return number of tasks of this queue waiting for a worker
+         */
+        public int getQueueDepth() {
+            synchronized (lock) {
+                return priority.size() + pending.size() + background.size();
+            }
+        }
+
+        public int getRunningCount() {
+            synchronized (lock) {
+                return running + backgroundRunning;
+            }
+        }
+
+        public QueryScheduler getScheduler() {
+            return QueryScheduler.this;
+        }
+
+        /**
+         * Cancels pending tasks and detaches the queue from the scheduler. Running tasks are left to complete.
+         */
+        public void close() {
+            List<Task<?>> cancelled;
+            synchronized (lock) {
+                closed = true;
+                cancelled = new ArrayList<>(priority);
+                cancelled.addAll(pending);
+                cancelled.addAll(background);
+                priority.clear();
+                pending.clear();
+                background.clear();
+                queues.remove(this);
+                if (nextQueue >= queues.size()) {
+                    nextQueue = 0;
+                }
+            }
+            for (Task<?> task : cancelled) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private class Task<T> extends FutureTask<T> {
+
+        private final Queue queue;
+        private final Lane lane;
+
+        private Task(Queue queue, Callable<T> callable, Lane lane) {
+            super(callable);
+            this.queue = queue;
+            this.lane = lane;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                synchronized (lock) {
+                    queue.getTasks(lane).remove(this);
+                }
+            }
+        }
+    }
+}
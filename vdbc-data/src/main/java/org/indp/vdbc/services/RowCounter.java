@@ -0,0 +1,126 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.db.Dialect;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.util.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts table rows, either exactly or from the statistics the database keeps for the optimizer.
+ */
+public class RowCounter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RowCounter.class);
+
+    /**
+     * Tables with fewer estimated rows are cheap enough to count right away.
+     */
+    public static final long ESTIMATE_THRESHOLD = 100000;
+
+    private final DatabaseSession databaseSession;
+
+    public RowCounter(DatabaseSession databaseSession) {
+        this.databaseSession = databaseSession;
+    }
+
+    /**
+     * @return estimated number of rows or null if the dialect has no estimate or the table was never analyzed
+     */
+    public Long estimate(JdbcTable table) {
+        Dialect dialect = databaseSession.getDialect();
+        if (!dialect.supportsEstimatedCount()) {
+            return null;
+        }
+        String sql = dialect.getExpressions().estimatedCount(table.getCatalog(), table.getSchema(), table.getName());
+        try {
+            Long count = queryCount(sql, null);
+            // e.g. PostgreSQL reports -1 or 0 for tables without statistics
+            return count != null && count > 0 ? count : null;
+        } catch (SQLException e) {
+            LOG.debug("failed to estimate row count of " + table.getName(), e);
+            return null;
+        }
+    }
+
+    public long count(String tableName, String filter, ExecutionRegistry.Execution execution) throws SQLException {
+        return count(tableName, filter, Collections.emptyList(), execution);
+    }
+
+    /**
+     * @param parameters values of the bind parameters of the filter
+     */
+    public long count(String tableName, String filter, List<?> parameters, ExecutionRegistry.Execution execution) throws SQLException {
+        Long count = queryCount(databaseSession.getDialect().getExpressions().count(tableName, filter), parameters, execution);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Counts matching rows but stops at the limit, so the database reads no more than {@code limit} of them.
+     *
+     * @param parameters values of the bind parameters of the filter
+     * @return number of matching rows, or the limit if there are at least as many; null if the dialect can't limit
+     * selects
+     */
+    public Long countUpTo(String tableName, String filter, List<?> parameters, int limit) throws SQLException {
+        return countUpTo(tableName, filter, parameters, limit, null);
+    }
+
+    /**
+     * @param execution execution the statement is registered with to be cancellable, may be null
+     */
+    public Long countUpTo(String tableName, String filter, List<?> parameters, int limit,
+                          ExecutionRegistry.Execution execution) throws SQLException {
+        Dialect dialect = databaseSession.getDialect();
+        if (!dialect.supportsLimitedSelects()) {
+            return null;
+        }
+        List<Object> allParameters = new ArrayList<Object>(parameters);
+        String select = dialect.getExpressions().selectColumnsFromTable(tableName, "1", filter, null, 0, limit, allParameters);
+        Long count = queryCount("select count(*) from (" + select + ") c", allParameters, execution);
+        return count == null ? 0 : count;
+    }
+
+    private Long queryCount(String sql, ExecutionRegistry.Execution execution) throws SQLException {
+        return queryCount(sql, Collections.emptyList(), execution);
+    }
+
+    private Long queryCount(String sql, List<?> parameters, ExecutionRegistry.Execution execution) throws SQLException {
+        Connection connection = databaseSession.getConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            databaseSession.configureStatement(statement);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            if (execution != null) {
+                execution.setStatement(statement);
+            }
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    return null;
+                }
+                long count = rs.getLong(1);
+                return rs.wasNull() ? null : count;
+            } finally {
+                JdbcUtils.close(rs);
+            }
+        } finally {
+            if (execution != null) {
+                execution.setStatement(null);
+            }
+            JdbcUtils.close(statement);
+            JdbcUtils.close(connection);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.util.SqlScriptSplitter;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Executes statements of a script one after another on a single connection.
+ * <p/>
+ * Consecutive parameter-free DML statements are sent to the database in JDBC batches, other statements are executed
+ * one by one. Execution stops at the first failing statement.
+ */
+public class ScriptRunner {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final DatabaseSession databaseSession;
+    private final Connection connection;
+    private final int maxRows;
+
+    public interface Listener {
+
+        /**
+         * Called for statements returning rows. The result set is closed once the method returns.
+         */
+        void resultSet(int index, String sql, ResultSet resultSet) throws SQLException;
+
+        /**
+         * Called for statements returning an update count, which may be {@link Statement#SUCCESS_NO_INFO} for
+         * batched statements.
+         */
+        void updateCount(int index, String sql, int count);
+    }
+
+    public ScriptRunner(DatabaseSession databaseSession, Connection connection, int maxRows) {
+        this.databaseSession = databaseSession;
+        this.connection = connection;
+        this.maxRows = maxRows;
+    }
+
+    public void run(List<String> statements, ExecutionRegistry.Execution execution, Listener listener) throws SQLException {
+        int index = 0;
+        while (index < statements.size()) {
+            if (execution.isCancelled()) {
+                throw new SQLException("Execution cancelled");
+            }
+            int batchEnd = index;
+            while (batchEnd < statements.size() && batchEnd - index < MAX_BATCH_SIZE
+                    && SqlScriptSplitter.isBatchable(statements.get(batchEnd))) {
+                batchEnd++;
+            }
+            if (batchEnd - index > 1) {
+                executeBatch(statements, index, batchEnd, execution, listener);
+                index = batchEnd;
+            } else {
+                execute(statements, index, execution, listener);
+                index++;
+            }
+        }
+    }
+
+    private void executeBatch(List<String> statements, int from, int to, ExecutionRegistry.Execution execution,
+                              Listener listener) throws SQLException {
+        Statement stmt = connection.createStatement();
+        try {
+            databaseSession.configureStatement(stmt);
+            for (int i = from; i < to; i++) {
+                stmt.addBatch(statements.get(i));
+            }
+            execution.setStatement(stmt);
+            int[] counts;
+            try {
+                counts = stmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                // drivers either stop at the failing statement or mark it as failed and go on
+                int[] done = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+                int failed = 0;
+                while (failed < done.length && failed < to - from && done[failed] != Statement.EXECUTE_FAILED) {
+                    listener.updateCount(from + failed, statements.get(from + failed), done[failed]);
+                    failed++;
+                }
+                throw failure(from + Math.min(failed, to - from - 1), e);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                listener.updateCount(from + i, statements.get(from + i), counts[i]);
+            }
+        } finally {
+            execution.setStatement(null);
+            JdbcUtils.close(stmt);
+        }
+    }
+
+    private void execute(List<String> statements, int index, ExecutionRegistry.Execution execution,
+                         Listener listener) throws SQLException {
+        String sql = statements.get(index);
+        Statement stmt = connection.createStatement();
+        try {
+            stmt.setMaxRows(maxRows);
+            databaseSession.configureStatement(stmt);
+            execution.setStatement(stmt);
+            boolean hasResultSet;
+            try {
+                hasResultSet = stmt.execute(sql);
+            } catch (SQLException e) {
+                throw failure(index, e);
+            }
+            if (hasResultSet) {
+                ResultSet rs = stmt.getResultSet();
+                try {
+                    listener.resultSet(index, sql, rs);
+                } finally {
+                    JdbcUtils.close(rs);
+                }
+            } else {
+                listener.updateCount(index, sql, stmt.getUpdateCount());
+            }
+        } finally {
+            execution.setStatement(null);
+            JdbcUtils.close(stmt);
+        }
+    }
+
+    private static SQLException failure(int index, SQLException cause) {
+        return new SQLException("Statement " + (index + 1) + " failed: " + cause.getMessage(),
+                cause.getSQLState(), cause.getErrorCode(), cause);
+    }
+}
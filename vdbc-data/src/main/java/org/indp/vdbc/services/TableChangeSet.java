@@ -0,0 +1,244 @@
+package org.indp.vdbc.services;
+
+import com.google.common.base.Joiner;
+import org.indp.vdbc.util.JdbcUtils;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Pending row changes of a table, identified by primary key.
+ * <p/>
+ * {@link #apply()} writes all changes in one transaction. Statements with the same text share a prepared statement
+ * and are sent as one JDBC batch: all deletes, then updates of the same set of columns, then inserts of the same set
+ * of columns. Usually that is a single round trip per kind of change no matter how many rows were edited.
+ */
+public class TableChangeSet {
+
+    private final DatabaseSession databaseSession;
+    private final String tableName;
+    private final List<String> keyColumns;
+    private final Map<List<Object>, SortedMap<String, Object>> updates = new LinkedHashMap<>();
+    private final Set<List<Object>> deletes = new LinkedHashSet<>();
+    private final List<SortedMap<String, Object>> inserts = new ArrayList<>();
+
+    /**
+     * @param tableName  qualified and quoted table name
+     * @param keyColumns primary key column names as reported by the database
+     */
+    public TableChangeSet(DatabaseSession databaseSession, String tableName, List<String> keyColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Rows of " + tableName + " can't be identified without a primary key");
+        }
+        this.databaseSession = databaseSession;
+        this.tableName = tableName;
+        this.keyColumns = keyColumns;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * @param row values of the row, at least of all key columns
+     */
+    public synchronized void update(Map<String, Object> row, String column, Object value) {
+        List<Object> key = keyOf(row);
+        SortedMap<String, Object> values = updates.get(key);
+        if (values == null) {
+            values = new TreeMap<>();
+            updates.put(key, values);
+        }
+        values.put(column, value);
+    }
+
+    /**
+     * @return pending values of the row by column, empty if the row is unchanged
+     */
+    public synchronized Map<String, Object> getUpdates(Map<String, Object> row) {
+        SortedMap<String, Object> values = updates.get(keyOf(row));
+        return values == null
+                ? Collections.<String, Object>emptyMap()
+                : Collections.unmodifiableMap(new TreeMap<>(values));
+    }
+
+    public synchronized void insert(Map<String, Object> values) {
+        inserts.add(new TreeMap<>(values));
+    }
+
+    public synchronized void delete(Map<String, Object> row) {
+        List<Object> key = keyOf(row);
+        updates.remove(key);
+        deletes.add(key);
+    }
+
+    public synchronized void undelete(Map<String, Object> row) {
+        deletes.remove(keyOf(row));
+    }
+
+    public synchronized boolean isDeleted(Map<String, Object> row) {
+        return deletes.contains(keyOf(row));
+    }
+
+    /**
+     * @return number of changed, inserted and deleted rows
+     */
+    public synchronized int size() {
+        return updates.size() + deletes.size() + inserts.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public synchronized void clear() {
+        updates.clear();
+        deletes.clear();
+        inserts.clear();
+    }
+
+    /**
+     * Writes all changes in one transaction and forgets them. Nothing is written if any statement fails or an update
+     * or delete doesn't find its row.
+     *
+     * @return number of statements executed
+     */
+    public synchronized int apply() throws SQLException {
+        if (isEmpty()) {
+            return 0;
+        }
+        Connection connection = databaseSession.getConnection();
+        Map<String, Batch> batches = new LinkedHashMap<>();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            String keyCondition = buildKeyCondition();
+            for (List<Object> key : deletes) {
+                Batch batch = batch(connection, batches, "delete from " + tableName + " where " + keyCondition, true);
+                batch.add(key);
+            }
+            for (Map.Entry<List<Object>, SortedMap<String, Object>> entry : updates.entrySet()) {
+                SortedMap<String, Object> values = entry.getValue();
+                String sql = "update " + tableName + " set " + Joiner.on(" = ?, ").join(quote(values.keySet())) + " = ?"
+                        + " where " + keyCondition;
+                List<Object> parameters = new ArrayList<>(values.values());
+                parameters.addAll(entry.getKey());
+                batch(connection, batches, sql, true).add(parameters);
+            }
+            for (SortedMap<String, Object> values : inserts) {
+                String sql = "insert into " + tableName + " (" + Joiner.on(", ").join(quote(values.keySet())) + ")"
+                        + " values (" + Joiner.on(", ").join(Collections.nCopies(values.size(), "?")) + ")";
+                batch(connection, batches, sql, false).add(new ArrayList<>(values.values()));
+            }
+
+            int statements = 0;
+            for (Batch batch : batches.values()) {
+                statements += batch.execute();
+            }
+            connection.commit();
+            clear();
+            return statements;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            for (Batch batch : batches.values()) {
+                JdbcUtils.close(batch.statement);
+            }
+            connection.setAutoCommit(autoCommit);
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private Batch batch(Connection connection, Map<String, Batch> batches, String sql, boolean keyed) throws SQLException {
+        Batch batch = batches.get(sql);
+        if (batch == null) {
+            batch = new Batch(connection.prepareStatement(sql), sql, keyed);
+            batches.put(sql, batch);
+        }
+        return batch;
+    }
+
+    private String buildKeyCondition() throws SQLException {
+        return Joiner.on(" = ? and ").join(quote(keyColumns)) + " = ?";
+    }
+
+    private List<String> quote(Iterable<String> columns) throws SQLException {
+        List<String> quoted = new ArrayList<>();
+        for (String column : columns) {
+            quoted.add(databaseSession.quoteIdentifier(column));
+        }
+        return quoted;
+    }
+
+    private List<Object> keyOf(Map<String, Object> row) {
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (String column : keyColumns) {
+            if (!row.containsKey(column)) {
+                throw new IllegalArgumentException("Missing key column " + column);
+            }
+            key.add(row.get(column));
+        }
+        return key;
+    }
+
+    /**
+     * Rows sent with one prepared statement.
+     */
+    private static class Batch {
+
+        private final PreparedStatement statement;
+        private final String sql;
+        private final boolean keyed;
+        private int size;
+
+        Batch(PreparedStatement statement, String sql, boolean keyed) {
+            this.statement = statement;
+            this.sql = sql;
+            this.keyed = keyed;
+        }
+
+        void add(List<Object> parameters) throws SQLException {
+            for (int i = 0; i < parameters.size(); i++) {
+                Object value = parameters.get(i);
+                if (value == null) {
+                    statement.setNull(i + 1, Types.NULL);
+                } else {
+                    statement.setObject(i + 1, value);
+                }
+            }
+            statement.addBatch();
+            size++;
+        }
+
+        int execute() throws SQLException {
+            int[] counts;
+            try {
+                counts = statement.executeBatch();
+            } catch (BatchUpdateException e) {
+                throw new SQLException("Failed to execute " + sql + ": " + e.getMessage(), e.getSQLState(), e);
+            }
+            if (keyed) {
+                for (int count : counts) {
+                    // drivers may report SUCCESS_NO_INFO, only a definite 0 means the row is gone
+                    if (count == 0) {
+                        throw new SQLException("Row not found, it was changed or deleted by someone else: " + sql);
+                    }
+                }
+            }
+            return size;
+        }
+    }
+}
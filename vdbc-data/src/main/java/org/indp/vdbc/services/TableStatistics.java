@@ -0,0 +1,105 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.db.Dialect;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
+import org.indp.vdbc.util.JdbcUtils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics the database keeps about a table for the optimizer: estimated rows, sizes, last analyze time and per
+ * column cardinality and null fraction. What exactly is available depends on the dialect.
+ */
+public class TableStatistics {
+
+    private final Map<String, Object> tableStatistics;
+    private final ColumnarResultBuffer columnStatistics;
+    private final long timestamp = System.currentTimeMillis();
+
+    private TableStatistics(Map<String, Object> tableStatistics, ColumnarResultBuffer columnStatistics) {
+        this.tableStatistics = tableStatistics;
+        this.columnStatistics = columnStatistics;
+    }
+
+    /**
+     * Reads the statistics from the database catalog, see {@link DatabaseSession#getTableStatistics(JdbcTable, boolean)}
+     * for the cached ones.
+     */
+    public static TableStatistics read(DatabaseSession databaseSession, JdbcTable table) throws SQLException {
+        Dialect dialect = databaseSession.getDialect();
+        Map<String, Object> tableStatistics = Collections.emptyMap();
+        ColumnarResultBuffer columnStatistics = null;
+        Connection connection = databaseSession.getConnection();
+        Statement statement = null;
+        try {
+            statement = connection.createStatement();
+            databaseSession.configureStatement(statement);
+            if (dialect.supportsTableStatistics()) {
+                ResultSet rs = statement.executeQuery(dialect.getExpressions().tableStatistics(table.getCatalog(), table.getSchema(), table.getName()));
+                try {
+                    tableStatistics = readRow(rs);
+                } finally {
+                    JdbcUtils.close(rs);
+                }
+            }
+            if (dialect.supportsColumnStatistics()) {
+                ResultSet rs = statement.executeQuery(dialect.getExpressions().columnStatistics(table.getCatalog(), table.getSchema(), table.getName()));
+                try {
+                    columnStatistics = new ColumnarResultBuffer(rs.getMetaData(), false);
+                    columnStatistics.load(rs);
+                } catch (IOException e) {
+                    throw new SQLException(e);
+                } finally {
+                    JdbcUtils.close(rs);
+                }
+            }
+        } finally {
+            JdbcUtils.close(statement);
+            JdbcUtils.close(connection);
+        }
+        return new TableStatistics(tableStatistics, columnStatistics);
+    }
+
+    private static Map<String, Object> readRow(ResultSet rs) throws SQLException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (rs.next()) {
+            ResultSetMetaData md = rs.getMetaData();
+            for (int i = 1; i <= md.getColumnCount(); i++) {
+                values.put(md.getColumnLabel(i), rs.getObject(i));
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * @return statistic name to value in dialect order, empty if the dialect has no table statistics or the table
+     * wasn't found; names ending with {@code _BYTES} hold sizes in bytes
+     */
+    public Map<String, Object> getTableStatistics() {
+        return tableStatistics;
+    }
+
+    /**
+     * @return a row per column, null if the dialect has no column statistics; every call returns a new view which can
+     * be sorted independently
+     */
+    public ColumnarResultBuffer getColumnStatistics() {
+        return columnStatistics == null ? null : columnStatistics.view();
+    }
+
+    /**
+     * @return time the statistics were read at
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
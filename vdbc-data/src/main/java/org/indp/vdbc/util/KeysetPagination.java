@@ -0,0 +1,264 @@
+package org.indp.vdbc.util;
+
+import com.google.common.base.Joiner;
+import org.indp.vdbc.db.Dialect;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.services.DatabaseSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Builds page queries which seek to a primary key instead of skipping rows with a large offset.
+ * <p/>
+ * The key of the last row of every page read is remembered, see {@link #pageRead(int, ResultPage)}, so scrolling on
+ * to the next page seeks from it. For jumps of more than {@link #SAMPLE_STEP} rows past every known key, the key of
+ * every {@link #SAMPLE_STEP}-th row is read once with a single pass over the key in the background; until it is
+ * available such pages use plain offsets. A page then starts from the closest sampled key before it, so the database
+ * never skips more than one step of rows no matter how deep into the table the page is.
+ */
+public class KeysetPagination {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeysetPagination.class);
+
+    public static final int SAMPLE_STEP = 1000;
+    private static final int MAX_PAGE_KEYS = 1000;
+
+    private final DatabaseSession databaseSession;
+    private final Dialect dialect;
+    private final String tableName;
+    private final String filter;
+    private final List<String> keyNames;
+    private final List<String> keyColumns;
+    private final int sampleStep;
+    private final NavigableMap<Integer, Object[]> pageKeys = new TreeMap<>();
+    private String projection;
+    private List<Object[]> samples;
+    private boolean sampling;
+
+    /**
+     * A query with its parameter values.
+     */
+    public static class PageQuery {
+
+        private final String sql;
+        private final List<Object> parameters;
+
+        PageQuery(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+    }
+
+    /**
+     * @param keyNames unquoted key columns
+     */
+    public KeysetPagination(DatabaseSession databaseSession, String tableName, String filter, List<String> keyNames,
+                            int sampleStep) throws SQLException {
+        this.databaseSession = databaseSession;
+        this.dialect = databaseSession.getDialect();
+        this.tableName = tableName;
+        this.filter = filter;
+        this.keyNames = keyNames;
+        this.keyColumns = new ArrayList<>(keyNames.size());
+        for (String column : keyNames) {
+            keyColumns.add(databaseSession.quoteIdentifier(column));
+        }
+        this.sampleStep = sampleStep;
+    }
+
+    /**
+     * @return pagination for the table or null if the dialect doesn't support ordered pages or the table has no
+     * primary key
+     */
+    public static KeysetPagination create(DatabaseSession databaseSession, JdbcTable table, String filter) throws SQLException {
+        if (!databaseSession.getDialect().supportsOrderedLimitedSelects()) {
+            return null;
+        }
+        List<String> primaryKeys = databaseSession.getMetadata().getPrimaryKeys(table);
+        if (primaryKeys.isEmpty()) {
+            return null;
+        }
+        return new KeysetPagination(databaseSession, databaseSession.buildTableName(table), filter, primaryKeys, SAMPLE_STEP);
+    }
+
+    /**
+     * @param projection comma separated list of quoted columns the pages select, null for all columns
+     */
+    public synchronized void setProjection(String projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * @return comma separated key columns, the order pages are read in
+     */
+    public String getKeyOrder() {
+        return Joiner.on(", ").join(keyColumns);
+    }
+
+    public synchronized PageQuery getPageQuery(int offset, int limit) {
+        int base = 0;
+        Object[] key = null;
+        Map.Entry<Integer, Object[]> last = pageKeys.floorEntry(offset - 1);
+        if (last != null) {
+            base = last.getKey() + 1;
+            key = last.getValue();
+        }
+        if (offset - base >= sampleStep) {
+            List<Object[]> keys = getSamples();
+            int index = Math.min(offset / sampleStep, keys.size()) - 1;
+            if (index >= 0 && (index + 1) * sampleStep > base) {
+                base = (index + 1) * sampleStep;
+                key = keys.get(index);
+            }
+        }
+        List<Object> parameters = new ArrayList<>();
+        String where = filter;
+        if (key != null) {
+            String condition = buildKeyCondition(key, parameters);
+            where = filter == null ? condition : "(" + filter + ") and " + condition;
+        }
+        return new PageQuery(
+                dialect.getExpressions().selectColumnsFromTable(tableName, projection, where, getKeyOrder(), offset - base, limit, parameters),
+                parameters);
+    }
+
+    /**
+     * Remembers the key of the last row of a page read with a query of {@link #getPageQuery(int, int)}, the page
+     * after it then seeks from that key. Pages without the key columns are ignored.
+     */
+    public synchronized void pageRead(int offset, ResultPage page) {
+        int rows = page.getRowCount();
+        if (rows == 0) {
+            return;
+        }
+        Object[] key = new Object[keyNames.size()];
+        try {
+            for (int i = 0; i < key.length; i++) {
+                key[i] = page.getValue(rows - 1, keyNames.get(i));
+            }
+        } catch (SQLException e) {
+            return;
+        }
+        if (pageKeys.size() >= MAX_PAGE_KEYS) {
+            pageKeys.pollFirstEntry();
+        }
+        pageKeys.put(offset + rows - 1, key);
+    }
+
+    /**
+     * @return true once the sampled keys are available
+     */
+    synchronized boolean isSampled() {
+        return samples != null;
+    }
+
+    private String buildKeyCondition(Object[] key, List<Object> parameters) {
+        if (keyColumns.size() == 1) {
+            parameters.add(key[0]);
+            return keyColumns.get(0) + " > ?";
+        }
+        if (dialect.supportsRowValueComparison()) {
+            Collections.addAll(parameters, key);
+            String params = Joiner.on(", ").join(Collections.nCopies(key.length, "?"));
+            return dialect.getExpressions().keyGreaterThan(Joiner.on(", ").join(keyColumns), params);
+        }
+        // (a > ?) or (a = ? and b > ?) or ...
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                sb.append(" or ");
+            }
+            sb.append('(');
+            for (int j = 0; j < i; j++) {
+                sb.append(keyColumns.get(j)).append(" = ? and ");
+                parameters.add(key[j]);
+            }
+            sb.append(keyColumns.get(i)).append(" > ?)");
+            parameters.add(key[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * @return sampled keys, empty while they are read in the background
+     */
+    private List<Object[]> getSamples() {
+        if (samples == null && !sampling) {
+            if (dialect.supportsKeySampling()) {
+                startSampling();
+            } else {
+                samples = Collections.emptyList();
+            }
+        }
+        return samples == null ? Collections.<Object[]>emptyList() : samples;
+    }
+
+    private void startSampling() {
+        sampling = true;
+        try {
+            databaseSession.getQueryQueue().submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    List<Object[]> keys = readSamples();
+                    synchronized (KeysetPagination.this) {
+                        samples = keys;
+                        sampling = false;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the session is closing
+            sampling = false;
+            samples = Collections.emptyList();
+        }
+    }
+
+    private List<Object[]> readSamples() {
+        String sql = dialect.getExpressions().selectKeySample(tableName, filter, Joiner.on(", ").join(keyColumns), sampleStep);
+        List<Object[]> keys = new ArrayList<>();
+        Connection connection = null;
+        Statement statement = null;
+        try {
+            connection = databaseSession.getConnection();
+            statement = connection.createStatement();
+            databaseSession.configureStatement(statement);
+            ResultSet rs = statement.executeQuery(sql);
+            while (rs.next()) {
+                Object[] key = new Object[keyColumns.size()];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = rs.getObject(i + 1);
+                }
+                keys.add(key);
+            }
+            rs.close();
+        } catch (SQLException e) {
+            // paging still works, just with larger offsets
+            LOG.warn("failed to sample keys of " + tableName, e);
+            return Collections.emptyList();
+        } finally {
+            JdbcUtils.close(statement);
+            JdbcUtils.close(connection);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,164 @@
+package org.indp.vdbc.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.indp.vdbc.model.config.ConnectionProfile;
+import org.indp.vdbc.model.config.JdbcConnectionProfile;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of catalog metadata (catalogs, schemas, table lists, columns), keyed by the kind of metadata and catalog,
+ * schema, table type and table name.
+ * <p/>
+ * All sessions of a profile connecting to the same database as the same user share one instance, and concurrent requests for the same entry wait for a single
+ * dictionary query. Entries expire a fixed time after they were loaded or when the cache is invalidated explicitly.
+ */
+public class MetadataCache {
+
+    public static final int DEFAULT_TTL_SECONDS = 600;
+
+    private static final Pattern SCHEMA_CHANGE = Pattern.compile("^\\s*(create|alter|drop|rename|comment)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+    private static final ConcurrentMap<List<String>, MetadataCache> CACHES = new ConcurrentHashMap<>();
+
+    private final long ttlSeconds;
+    private final Cache<Key, Object> cache;
+
+    /**
+     * @return the cache shared by all sessions of the profile with its current connection and user; a new one if the
+     * TTL of the profile was changed
+     */
+    public static MetadataCache forProfile(ConnectionProfile profile) {
+        Integer ttlSeconds = profile.getMetadataCacheTtl();
+        long ttl = ttlSeconds == null || ttlSeconds <= 0 ? DEFAULT_TTL_SECONDS : ttlSeconds;
+        String user = profile instanceof JdbcConnectionProfile ? ((JdbcConnectionProfile) profile).getUser() : null;
+        List<String> key = Arrays.asList(profile.getName(), profile.getConnectionPresentationString(), user);
+        while (true) {
+            MetadataCache cache = CACHES.get(key);
+            if (cache != null && cache.ttlSeconds == ttl) {
+                return cache;
+            }
+            MetadataCache created = new MetadataCache(ttl);
+            if (cache == null ? CACHES.putIfAbsent(key, created) == null : CACHES.replace(key, cache, created)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Drops the caches of a removed profile, for any connection and user.
+     */
+    public static void removeProfile(String profileName) {
+        for (List<String> key : CACHES.keySet()) {
+            if (profileName.equals(key.get(0))) {
+                CACHES.remove(key);
+            }
+        }
+    }
+
+    public MetadataCache(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Loads metadata.
+     */
+    public interface Loader<T> {
+
+        T load() throws SQLException;
+    }
+
+    /**
+     * @param kind what kind of metadata is cached, e.g. "tables"
+     * @param path catalog, schema, type or table names identifying the entry, nulls allowed
+     * @return the cached value, loaded if it's missing or expired
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, String[] path, final Loader<T> loader) throws SQLException {
+        try {
+            return (T) cache.get(new Key(kind, path), new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return loader.load();
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the cached value or null, never loads
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(String kind, String[] path) {
+        return (T) cache.getIfPresent(new Key(kind, path));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return true if a statement of the script may have created, changed or dropped database objects
+     */
+    public static boolean isSchemaChange(String sql) {
+        return SCHEMA_CHANGE.matcher(sql).find();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private static final class Key {
+
+        private final String kind;
+        private final String[] path;
+
+        private Key(String kind, String[] path) {
+            this.kind = kind;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return kind.equals(other.kind) && Arrays.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + Arrays.hashCode(path);
+        }
+    }
+}
@@ -1,84 +1,350 @@
 package org.indp.vdbc.util;
 
+import org.indp.vdbc.db.Dialect;
 import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.model.jdbc.SchemaSnapshot;
+import org.indp.vdbc.model.jdbc.SnapshotTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
 
 import javax.sql.DataSource;
-import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
- *
+ * Reads catalog metadata. Lists of catalogs, schemas, tables, columns and keys are served from the {@link
+ * MetadataCache} of the profile and only read from the database when they are missing or expired.
+ * <p/>
+ * No connection is held between calls: every read borrows one from the data source and returns it right away, so
+ * concurrent calls don't wait for each other and idle sessions don't keep a connection.
  */
-public class MetadataRetriever implements Closeable {
+public class MetadataRetriever {
 
-    private final DatabaseMetaData metaData;
-    private final Connection connection;
+    private static final String SNAPSHOT = "snapshot";
 
-    public MetadataRetriever(DataSource dataSource) throws SQLException {
-        this.connection = dataSource.getConnection();
-        this.metaData = connection.getMetaData();
+    private final DataSource dataSource;
+    private final Dialect dialect;
+    private final MetadataCache cache;
+
+    public MetadataRetriever(DataSource dataSource) {
+        this(dataSource, new MetadataCache(MetadataCache.DEFAULT_TTL_SECONDS));
+    }
+
+    public MetadataRetriever(DataSource dataSource, MetadataCache cache) {
+        this(dataSource, null, cache);
     }
 
-    @Override
-    public void close() throws IOException {
-        JdbcUtils.close(connection);
+    /**
+     * @param dialect dialect used to read {@link SchemaSnapshot schema snapshots}, null if they aren't needed
+     */
+    public MetadataRetriever(DataSource dataSource, Dialect dialect, MetadataCache cache) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.cache = cache;
     }
 
-    public DatabaseMetaData getRawMetadata() {
-        return metaData;
+    /**
+     * @return true if {@link #getSchemaSnapshot(String, String)} is available for the database
+     */
+    public boolean supportsSchemaSnapshot() {
+        return dialect != null && dialect.supportsSchemaSnapshot();
+    }
+
+    /**
+     * Reads tables, columns, keys and indexes of the whole schema in a few catalog queries. Once a snapshot is
+     * cached, column and key lookups of its tables are served from it as well.
+     *
+     * @throws UnsupportedOperationException if {@link #supportsSchemaSnapshot()} is false
+     */
+    public SchemaSnapshot getSchemaSnapshot(final String catalog, final String schema) throws SQLException {
+        if (!supportsSchemaSnapshot()) {
+            throw new UnsupportedOperationException("Schema snapshots are not supported for " + (dialect == null ? "this database" : dialect.getName()));
+        }
+        return cache.get(SNAPSHOT, new String[]{catalog, schema}, new Query<SchemaSnapshot>() {
+            @Override
+            protected SchemaSnapshot read(DatabaseMetaData metaData) throws SQLException {
+                return new SchemaSnapshotReader(dialect.getExpressions(), catalog, schema).read(metaData.getConnection());
+            }
+        });
+    }
+
+    /**
+     * @return the table from an already cached snapshot, null if there is none
+     */
+    public SnapshotTable getCachedSnapshotTable(JdbcTable table) {
+        SchemaSnapshot snapshot = cache.getIfPresent(SNAPSHOT, new String[]{table.getCatalog(), table.getSchema()});
+        return snapshot == null ? null : snapshot.getTable(table.getName());
+    }
+
+    /**
+     * Drops all cached metadata of the profile, e.g. after the schema was changed.
+     */
+    public void invalidate() {
+        cache.invalidateAll();
     }
 
     public List<String> getCatalogs() throws SQLException {
-        List<String> rez = new ArrayList<>();
-        ResultSet catalogs = metaData.getCatalogs();
-        while (catalogs.next())
-            rez.add(catalogs.getString("TABLE_CAT"));
-        return rez;
+        return cache.get("catalogs", new String[0], new Query<List<String>>() {
+            @Override
+            protected List<String> read(DatabaseMetaData metaData) throws SQLException {
+                List<String> rez = new ArrayList<>();
+                ResultSet catalogs = metaData.getCatalogs();
+                try {
+                    while (catalogs.next())
+                        rez.add(catalogs.getString("TABLE_CAT"));
+                } finally {
+                    catalogs.close();
+                }
+                return Collections.unmodifiableList(rez);
+            }
+        });
     }
 
     public String getCatalogTerm() throws SQLException {
-        String term = metaData.getCatalogTerm();
+        String term = getNaming().catalogTerm;
         return null == term || term.isEmpty() ? "catalog" : term;
     }
 
     public List<String> getSchemas() throws SQLException {
-        List<String> rez = new ArrayList<>();
-        ResultSet schemas = metaData.getSchemas();
-        while (schemas.next())
-            rez.add(schemas.getString("TABLE_SCHEM"));
-        schemas.close();
-        return rez;
+        return cache.get("schemas", new String[0], new Query<List<String>>() {
+            @Override
+            protected List<String> read(DatabaseMetaData metaData) throws SQLException {
+                List<String> rez = new ArrayList<>();
+                ResultSet schemas = metaData.getSchemas();
+                try {
+                    while (schemas.next())
+                        rez.add(schemas.getString("TABLE_SCHEM"));
+                } finally {
+                    schemas.close();
+                }
+                return Collections.unmodifiableList(rez);
+            }
+        });
     }
 
     public String getSchemaTerm() throws SQLException {
-        String term = metaData.getSchemaTerm();
+        String term = getNaming().schemaTerm;
         return null == term || term.isEmpty() ? "schema" : term;
     }
 
+    /**
+     * @return the identifier quote, null or " " if the database doesn't quote identifiers
+     */
+    public String getIdentifierQuoteString() throws SQLException {
+        return getNaming().identifierQuote;
+    }
+
+    public String getCatalogSeparator() throws SQLException {
+        return getNaming().catalogSeparator;
+    }
+
+    /**
+     * @return metadata name pattern matching names which contain the text, with pattern characters escaped and the
+     * text in the case unquoted identifiers are stored in
+     */
+    public String containsPattern(String text) throws SQLException {
+        Naming naming = getNaming();
+        if (naming.upperCaseIdentifiers) {
+            text = text.toUpperCase();
+        } else if (naming.lowerCaseIdentifiers) {
+            text = text.toLowerCase();
+        }
+        String escape = naming.searchStringEscape;
+        if (escape != null && !escape.isEmpty()) {
+            text = text.replace(escape, escape + escape).replace("%", escape + "%").replace("_", escape + "_");
+        }
+        return "%" + text + "%";
+    }
+
+    public boolean supportsCatalogsInTableDefinitions() throws SQLException {
+        return getNaming().catalogsInTableDefinitions;
+    }
+
+    public boolean supportsSchemasInTableDefinitions() throws SQLException {
+        return getNaming().schemasInTableDefinitions;
+    }
+
     public List<String> getTableTypes() throws SQLException {
-        List<String> rez = new ArrayList<>();
-        ResultSet types = metaData.getTableTypes();
-        while (types.next())
-            rez.add(types.getString("TABLE_TYPE"));
-        types.close();
-        return rez;
+        return cache.get("tableTypes", new String[0], new Query<List<String>>() {
+            @Override
+            protected List<String> read(DatabaseMetaData metaData) throws SQLException {
+                List<String> rez = new ArrayList<>();
+                ResultSet types = metaData.getTableTypes();
+                try {
+                    while (types.next())
+                        rez.add(types.getString("TABLE_TYPE"));
+                } finally {
+                    types.close();
+                }
+                return Collections.unmodifiableList(rez);
+            }
+        });
     }
 
     public List<JdbcTable> getTables(String catalog, String schema, String tableType) throws SQLException {
-        List<JdbcTable> rez = new ArrayList<>();
-        ResultSet tables = metaData.getTables(catalog, schema, null, new String[]{tableType});
-        while (tables.next())
-            rez.add(new JdbcTable(
-                    tables.getString("TABLE_CAT"),
-                    tables.getString("TABLE_SCHEM"),
-                    tables.getString("TABLE_NAME")));
-        tables.close();
-        return rez;
+        return getTables(catalog, schema, tableType, null);
+    }
+
+    /**
+     * @param namePattern table name pattern evaluated by the database, see {@link #containsPattern(String)}; null
+     *                    for all tables
+     */
+    public List<JdbcTable> getTables(final String catalog, final String schema, final String tableType, final String namePattern) throws SQLException {
+        return cache.get("tables", new String[]{catalog, schema, tableType, namePattern}, new Query<List<JdbcTable>>() {
+            @Override
+            protected List<JdbcTable> read(DatabaseMetaData metaData) throws SQLException {
+                List<JdbcTable> rez = new ArrayList<>();
+                ResultSet tables = metaData.getTables(catalog, schema, namePattern, new String[]{tableType});
+                try {
+                    while (tables.next())
+                        rez.add(new JdbcTable(
+                                tables.getString("TABLE_CAT"),
+                                tables.getString("TABLE_SCHEM"),
+                                tables.getString("TABLE_NAME")));
+                } finally {
+                    tables.close();
+                }
+                return Collections.unmodifiableList(rez);
+            }
+        });
+    }
+
+    /**
+     * @return the {@link DatabaseMetaData#getColumns(String, String, String, String)} rows of the table
+     */
+    public ColumnarResultBuffer getColumns(final JdbcTable table) throws SQLException {
+        ColumnarResultBuffer columns = cache.get("columns", path(table), new Query<ColumnarResultBuffer>() {
+            @Override
+            protected ColumnarResultBuffer read(DatabaseMetaData metaData) throws SQLException {
+                ResultSet rs = metaData.getColumns(table.getCatalog(), table.getSchema(), table.getName(), null);
+                try {
+                    ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData(), false);
+                    buffer.load(rs);
+                    return buffer;
+                } catch (IOException e) {
+                    throw new SQLException(e);
+                } finally {
+                    rs.close();
+                }
+            }
+        });
+        // callers may sort their copy
+        return columns.view();
+    }
+
+    /**
+     * @return column names in table order
+     */
+    public List<String> getColumnNames(JdbcTable table) throws SQLException {
+        SnapshotTable snapshotTable = getCachedSnapshotTable(table);
+        if (snapshotTable != null) {
+            return snapshotTable.getColumnNames();
+        }
+        ColumnarResultBuffer columns = getColumns(table);
+        int nameColumn = indexOf(columns, "COLUMN_NAME");
+        int positionColumn = indexOf(columns, "ORDINAL_POSITION");
+        SortedMap<Integer, String> names = new TreeMap<>();
+        for (int row = 0; row < columns.getRowCount(); row++)
+            names.put(((Number) columns.getValue(row, positionColumn)).intValue(), (String) columns.getValue(row, nameColumn));
+        return new ArrayList<>(names.values());
+    }
+
+    /**
+     * @return primary key columns in key order, empty if the table has no primary key
+     */
+    public List<String> getPrimaryKeys(final JdbcTable table) throws SQLException {
+        SnapshotTable snapshotTable = getCachedSnapshotTable(table);
+        if (snapshotTable != null) {
+            return snapshotTable.getPrimaryKey();
+        }
+        return cache.get("primaryKeys", path(table), new Query<List<String>>() {
+            @Override
+            protected List<String> read(DatabaseMetaData metaData) throws SQLException {
+                SortedMap<Short, String> columns = new TreeMap<>();
+                ResultSet keys = metaData.getPrimaryKeys(table.getCatalog(), table.getSchema(), table.getName());
+                try {
+                    while (keys.next())
+                        columns.put(keys.getShort("KEY_SEQ"), keys.getString("COLUMN_NAME"));
+                } finally {
+                    keys.close();
+                }
+                return Collections.unmodifiableList(new ArrayList<>(columns.values()));
+            }
+        });
+    }
+
+    private Naming getNaming() throws SQLException {
+        return cache.get("naming", new String[0], new Query<Naming>() {
+            @Override
+            protected Naming read(DatabaseMetaData metaData) throws SQLException {
+                return new Naming(metaData);
+            }
+        });
+    }
+
+    private static String[] path(JdbcTable table) {
+        return new String[]{table.getCatalog(), table.getSchema(), table.getName()};
+    }
+
+    private static int indexOf(ColumnarResultBuffer buffer, String label) throws SQLException {
+        for (int i = 0; i < buffer.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(buffer.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        throw new SQLException("Column " + label + " is missing in the driver's metadata");
+    }
+
+    /**
+     * Reads metadata with a connection borrowed for the single read.
+     */
+    private abstract class Query<T> implements MetadataCache.Loader<T> {
+
+        @Override
+        public T load() throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                return read(connection.getMetaData());
+            } finally {
+                JdbcUtils.close(connection);
+            }
+        }
+
+        protected abstract T read(DatabaseMetaData metaData) throws SQLException;
+    }
+
+    /**
+     * Terms and identifier rules of the database, they don't change while it runs.
+     */
+    private static final class Naming {
+
+        private final String catalogTerm;
+        private final String schemaTerm;
+        private final String identifierQuote;
+        private final String catalogSeparator;
+        private final boolean catalogsInTableDefinitions;
+        private final boolean schemasInTableDefinitions;
+        private final String searchStringEscape;
+        private final boolean upperCaseIdentifiers;
+        private final boolean lowerCaseIdentifiers;
+
+        private Naming(DatabaseMetaData metaData) throws SQLException {
+            catalogTerm = metaData.getCatalogTerm();
+            schemaTerm = metaData.getSchemaTerm();
+            identifierQuote = metaData.getIdentifierQuoteString();
+            catalogSeparator = metaData.getCatalogSeparator();
+            catalogsInTableDefinitions = metaData.supportsCatalogsInTableDefinitions();
+            schemasInTableDefinitions = metaData.supportsSchemasInTableDefinitions();
+            searchStringEscape = metaData.getSearchStringEscape();
+            upperCaseIdentifiers = metaData.storesUpperCaseIdentifiers();
+            lowerCaseIdentifiers = metaData.storesLowerCaseIdentifiers();
+        }
     }
 }
@@ -0,0 +1,173 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.services.QueryScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Small cache of result pages which reads ahead in the direction the pages are requested.
+ * <p/>
+ * After a page is served, the next {@code readAhead} pages in the scroll direction are queued on the background lane
+ * of the session queue.
+ * A page that is requested while its prefetch is still waiting for a worker is loaded on the requesting thread
+ * instead, so a busy queue never makes scrolling slower than without prefetching.
+ */
+public class PagePrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PagePrefetcher.class);
+
+    private final QueryScheduler.Queue queue;
+    private final PageSource source;
+    private final int readAhead;
+    private final Map<Long, Prefetch> pages;
+    private int lastOffset = -1;
+
+    /**
+     * Creates page loading tasks.
+     */
+    public interface PageSource {
+
+        /**
+         * Called on the requesting thread, so the task must capture the query as it is at that moment; the returned
+         * task may run on another thread.
+         */
+        Callable<ResultPage> createTask(int offset, int limit);
+    }
+
+    /**
+     * @param capacity max number of pages kept, including the ones being prefetched
+     */
+    public PagePrefetcher(QueryScheduler.Queue queue, PageSource source, int readAhead, final int capacity) {
+        this.queue = queue;
+        this.source = source;
+        this.readAhead = readAhead;
+        this.pages = new LinkedHashMap<Long, Prefetch>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Prefetch> eldest) {
+                if (size() > capacity) {
+                    eldest.getValue().cancel();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized ResultPage getPage(int offset, int limit) throws SQLException {
+        Long key = key(offset, limit);
+        Prefetch prefetch = pages.get(key);
+        ResultPage page = null;
+        if (prefetch != null) {
+            try {
+                page = prefetch.get();
+            } catch (SQLException | CancellationException e) {
+                LOG.debug("prefetch of page at " + offset + " failed, loading it again", e);
+            }
+        }
+        if (page == null) {
+            prefetch = new Prefetch(source.createTask(offset, limit));
+            pages.put(key, prefetch);
+            try {
+                page = prefetch.get();
+            } catch (SQLException e) {
+                pages.remove(key);
+                throw e;
+            }
+        }
+
+        boolean backward = lastOffset > offset;
+        lastOffset = offset;
+        if (backward || page.getRowCount() == limit) {
+            prefetch(offset, limit, backward ? -limit : limit);
+        }
+        return page;
+    }
+
+    /**
+     * Forgets all pages, e.g. after the query was changed.
+     */
+    public synchronized void invalidate() {
+        for (Prefetch prefetch : pages.values()) {
+            prefetch.cancel();
+        }
+        pages.clear();
+        lastOffset = -1;
+    }
+
+    private void prefetch(int offset, int limit, int step) {
+        for (int i = 1; i <= readAhead; i++) {
+            int next = offset + i * step;
+            if (next < 0) {
+                break;
+            }
+            Long key = key(next, limit);
+            if (pages.containsKey(key)) {
+                continue;
+            }
+            Prefetch prefetch = new Prefetch(source.createTask(next, limit));
+            try {
+                queue.submitBackground(prefetch);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("page prefetch rejected", e);
+                return;
+            }
+            pages.put(key, prefetch);
+        }
+    }
+
+    private static Long key(int offset, int limit) {
+        return ((long) offset << 32) | limit;
+    }
+
+    /**
+     * Page load which runs either on a worker or on the requesting thread, whichever claims it first.
+     */
+    private static class Prefetch implements Runnable {
+
+        private final FutureTask<ResultPage> task;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Prefetch(Callable<ResultPage> callable) {
+            this.task = new FutureTask<>(callable);
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                task.run();
+            }
+        }
+
+        ResultPage get() throws SQLException {
+            run();
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for page", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                throw new SQLException(cause);
+            }
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                task.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.result.LobValue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows of a result set read into memory together with the column metadata, so they can be served after the
+ * connection is gone.
+ * <p/>
+ * {@link #toResultSet()} exposes the page as a forward-only, read-only result set. It supports navigation with
+ * {@code next()}, {@code getObject}, {@code getString}, {@code getRow} and the basic metadata; other calls fail with
+ * {@link SQLFeatureNotSupportedException}.
+ */
+public class ResultPage {
+
+    private final List<Column> columns;
+    private final List<Object[]> rows;
+
+    private static class Column {
+        private final String label;
+        private final String name;
+        private final String className;
+        private final int type;
+        private final boolean lob;
+        private final boolean autoIncrement;
+        private final int nullable;
+        private final boolean readOnly;
+
+        Column(ResultSetMetaData metaData, int column, Collection<String> keyColumns) throws SQLException {
+            label = metaData.getColumnLabel(column);
+            name = metaData.getColumnName(column);
+            type = metaData.getColumnType(column);
+            lob = LobValue.isLob(metaData, column) && !containsIgnoreCase(keyColumns, name);
+            className = lob ? LobValue.class.getName() : metaData.getColumnClassName(column);
+            autoIncrement = metaData.isAutoIncrement(column);
+            nullable = metaData.isNullable(column);
+            readOnly = metaData.isReadOnly(column);
+        }
+    }
+
+    private ResultPage(List<Column> columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Reads all remaining rows of the result set, the result set is left open. Large character and binary columns are
+     * read as {@link LobValue} previews.
+     */
+    public static ResultPage read(ResultSet rs) throws SQLException {
+        return read(rs, Collections.<String>emptyList());
+    }
+
+    /**
+     * @param keyColumns columns which are always read in full, rows are identified by their values
+     */
+    public static ResultPage read(ResultSet rs, Collection<String> keyColumns) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<Column> columns = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columns.add(new Column(metaData, i, keyColumns));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                Column column = columns.get(i);
+                row[i] = column.lob ? LobValue.read(rs, i + 1, column.type) : rs.getObject(i + 1);
+            }
+            rows.add(row);
+        }
+        return new ResultPage(Collections.unmodifiableList(columns), rows);
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * @param row   index of the row in the page
+     * @param label column label, case insensitive
+     */
+    public Object getValue(int row, String label) throws SQLException {
+        return rows.get(row)[findColumn(label) - 1];
+    }
+
+    /**
+     * @return a new result set positioned before the first row of the page
+     */
+    public ResultSet toResultSet() {
+        return proxy(ResultSet.class, new Cursor());
+    }
+
+    private int findColumn(String label) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).label.equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Column not found: " + label);
+    }
+
+    private Column column(Object index) throws SQLException {
+        int i = (Integer) index;
+        if (i < 1 || i > columns.size()) {
+            throw new SQLException("Invalid column index: " + i);
+        }
+        return columns.get(i - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ResultPage.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static SQLException unsupported(Method method) {
+        return new SQLFeatureNotSupportedException(method.getName() + " is not supported by cached pages");
+    }
+
+    private static boolean containsIgnoreCase(Collection<String> names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class Cursor implements InvocationHandler {
+
+        private int row = -1;
+        private boolean closed;
+        private boolean wasNull;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    checkOpen();
+                    if (row < rows.size()) {
+                        row++;
+                    }
+                    return row < rows.size();
+                case "getRow":
+                    return row >= 0 && row < rows.size() ? row + 1 : 0;
+                case "getObject":
+                case "getString":
+                    if (args.length == 1) {
+                        Object value = value(args[0]);
+                        return value == null || method.getName().equals("getObject") ? value : value.toString();
+                    }
+                    break;
+                case "wasNull":
+                    return wasNull;
+                case "findColumn":
+                    return findColumn((String) args[0]);
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, new MetaData());
+                case "getStatement":
+                    // callers close the statement of a result set, there is none behind a cached page
+                    return proxy(Statement.class, new DetachedStatement());
+                case "getType":
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                case "getConcurrency":
+                    return ResultSet.CONCUR_READ_ONLY;
+                case "getWarnings":
+                    return null;
+                case "clearWarnings":
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ResultPage cursor at row " + (row + 1) + " of " + rows.size();
+            }
+            throw unsupported(method);
+        }
+
+        private Object value(Object column) throws SQLException {
+            checkOpen();
+            if (row < 0 || row >= rows.size()) {
+                throw new SQLException("No current row");
+            }
+            int index = column instanceof String ? findColumn((String) column) : (Integer) column;
+            if (index < 1 || index > columns.size()) {
+                throw new SQLException("Invalid column index: " + index);
+            }
+            Object value = rows.get(row)[index - 1];
+            wasNull = value == null;
+            return value;
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Result set is closed");
+            }
+        }
+    }
+
+    private class MetaData implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.size();
+                case "getColumnLabel":
+                    return column(args[0]).label;
+                case "getColumnName":
+                    return column(args[0]).name;
+                case "getColumnClassName":
+                    return column(args[0]).className;
+                case "getColumnType":
+                    return column(args[0]).type;
+                case "isAutoIncrement":
+                    return column(args[0]).autoIncrement;
+                case "isNullable":
+                    return column(args[0]).nullable;
+                case "isReadOnly":
+                    return column(args[0]).readOnly;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ResultPage metadata";
+            }
+            throw unsupported(method);
+        }
+    }
+
+    private static class DetachedStatement implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "isClosed":
+                    return true;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ResultPage statement";
+            }
+            throw unsupported(method);
+        }
+    }
+}
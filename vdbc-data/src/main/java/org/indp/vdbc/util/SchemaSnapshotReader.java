@@ -0,0 +1,182 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.db.Expressions;
+import org.indp.vdbc.model.jdbc.JdbcColumn;
+import org.indp.vdbc.model.jdbc.JdbcForeignKey;
+import org.indp.vdbc.model.jdbc.JdbcIndex;
+import org.indp.vdbc.model.jdbc.SchemaSnapshot;
+import org.indp.vdbc.model.jdbc.SnapshotTable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a {@link SchemaSnapshot} with three set-based catalog queries (columns, keys, indexes) instead of a round
+ * trip per table.
+ */
+class SchemaSnapshotReader {
+
+    private final Expressions expressions;
+    private final String catalog;
+    private final String schema;
+    private final Map<String, List<JdbcColumn>> columns = new LinkedHashMap<>();
+    private final Map<String, List<String>> primaryKeys = new LinkedHashMap<>();
+    private final Map<String, Map<String, ForeignKeyBuilder>> foreignKeys = new LinkedHashMap<>();
+    private final Map<String, Map<String, IndexBuilder>> indexes = new LinkedHashMap<>();
+
+    SchemaSnapshotReader(Expressions expressions, String catalog, String schema) {
+        this.expressions = expressions;
+        this.catalog = catalog;
+        this.schema = schema;
+    }
+
+    SchemaSnapshot read(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            readColumns(statement.executeQuery(expressions.schemaColumns(catalog, schema)));
+            readKeys(statement.executeQuery(expressions.schemaKeys(catalog, schema)));
+            readIndexes(statement.executeQuery(expressions.schemaIndexes(catalog, schema)));
+        } finally {
+            JdbcUtils.close(statement);
+        }
+
+        List<SnapshotTable> tables = new ArrayList<>(columns.size());
+        for (Map.Entry<String, List<JdbcColumn>> entry : columns.entrySet()) {
+            String table = entry.getKey();
+            List<String> primaryKey = primaryKeys.get(table);
+            List<JdbcForeignKey> tableForeignKeys = new ArrayList<>();
+            if (foreignKeys.containsKey(table)) {
+                for (ForeignKeyBuilder builder : foreignKeys.get(table).values()) {
+                    tableForeignKeys.add(builder.build());
+                }
+            }
+            List<JdbcIndex> tableIndexes = new ArrayList<>();
+            if (indexes.containsKey(table)) {
+                for (IndexBuilder builder : indexes.get(table).values()) {
+                    tableIndexes.add(builder.build());
+                }
+            }
+            tables.add(new SnapshotTable(catalog, schema, table, entry.getValue(),
+                    primaryKey == null ? Collections.<String>emptyList() : primaryKey, tableForeignKeys, tableIndexes));
+        }
+        return new SchemaSnapshot(catalog, schema, tables);
+    }
+
+    private void readColumns(ResultSet rs) throws SQLException {
+        try {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME");
+                List<JdbcColumn> tableColumns = columns.get(table);
+                if (tableColumns == null) {
+                    tableColumns = new ArrayList<>();
+                    columns.put(table, tableColumns);
+                }
+                tableColumns.add(new JdbcColumn(
+                        rs.getString("COLUMN_NAME"),
+                        rs.getInt("ORDINAL_POSITION"),
+                        rs.getString("TYPE_NAME"),
+                        !"NO".equalsIgnoreCase(rs.getString("NULLABLE"))));
+            }
+        } finally {
+            JdbcUtils.close(rs);
+        }
+    }
+
+    private void readKeys(ResultSet rs) throws SQLException {
+        try {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if ("P".equals(rs.getString("CONSTRAINT_TYPE"))) {
+                    List<String> key = primaryKeys.get(table);
+                    if (key == null) {
+                        key = new ArrayList<>();
+                        primaryKeys.put(table, key);
+                    }
+                    key.add(column);
+                } else {
+                    Map<String, ForeignKeyBuilder> tableKeys = foreignKeys.get(table);
+                    if (tableKeys == null) {
+                        tableKeys = new LinkedHashMap<>();
+                        foreignKeys.put(table, tableKeys);
+                    }
+                    String name = rs.getString("CONSTRAINT_NAME");
+                    ForeignKeyBuilder builder = tableKeys.get(name);
+                    if (builder == null) {
+                        builder = new ForeignKeyBuilder(name, rs.getString("REFERENCED_SCHEMA"), rs.getString("REFERENCED_TABLE"));
+                        tableKeys.put(name, builder);
+                    }
+                    builder.columns.add(column);
+                    builder.referencedColumns.add(rs.getString("REFERENCED_COLUMN"));
+                }
+            }
+        } finally {
+            JdbcUtils.close(rs);
+        }
+    }
+
+    private void readIndexes(ResultSet rs) throws SQLException {
+        try {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME");
+                Map<String, IndexBuilder> tableIndexes = indexes.get(table);
+                if (tableIndexes == null) {
+                    tableIndexes = new LinkedHashMap<>();
+                    indexes.put(table, tableIndexes);
+                }
+                String name = rs.getString("INDEX_NAME");
+                IndexBuilder builder = tableIndexes.get(name);
+                if (builder == null) {
+                    // drivers report the flag as boolean or number
+                    builder = new IndexBuilder(name, rs.getBoolean("UNIQUE_INDEX"));
+                    tableIndexes.put(name, builder);
+                }
+                builder.columns.add(rs.getString("COLUMN_NAME"));
+            }
+        } finally {
+            JdbcUtils.close(rs);
+        }
+    }
+
+    private static class ForeignKeyBuilder {
+
+        private final String name;
+        private final String referencedSchema;
+        private final String referencedTable;
+        private final List<String> columns = new ArrayList<>();
+        private final List<String> referencedColumns = new ArrayList<>();
+
+        private ForeignKeyBuilder(String name, String referencedSchema, String referencedTable) {
+            this.name = name;
+            this.referencedSchema = referencedSchema;
+            this.referencedTable = referencedTable;
+        }
+
+        private JdbcForeignKey build() {
+            return new JdbcForeignKey(name, columns, referencedSchema, referencedTable, referencedColumns);
+        }
+    }
+
+    private static class IndexBuilder {
+
+        private final String name;
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+
+        private IndexBuilder(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        private JdbcIndex build() {
+            return new JdbcIndex(name, unique, columns);
+        }
+    }
+}
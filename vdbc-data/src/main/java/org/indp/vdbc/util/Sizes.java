@@ -0,0 +1,28 @@
+package org.indp.vdbc.util;
+
+/**
+ * Formatting of byte counts.
+ */
+public final class Sizes {
+
+    private static final String[] UNITS = {"KB", "MB", "GB", "TB"};
+
+    /**
+     * @return size in human readable form, e.g. "300 bytes" or "12.5 KB"
+     */
+    public static String format(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " bytes";
+        }
+        double size = bytes;
+        int unit = -1;
+        do {
+            size /= 1024;
+            unit++;
+        } while (size >= 1024 && unit < UNITS.length - 1);
+        return String.format("%.1f %s", size, UNITS[unit]);
+    }
+
+    private Sizes() {
+    }
+}
@@ -0,0 +1,165 @@
+package org.indp.vdbc.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits SQL scripts into separate statements.
+ * <p/>
+ * Statements are terminated by ';' or by one of the dialect's line delimiters ('/', 'GO') placed alone on a line.
+ * Delimiters inside string literals, quoted identifiers, dollar-quoted strings and comments are ignored. When the
+ * dialect has line delimiters, procedural blocks (BEGIN, DECLARE, CREATE PROCEDURE etc.) may contain ';' and end
+ * only at the line delimiter.
+ */
+public final class SqlScriptSplitter {
+
+    private static final Pattern BLOCK_START = Pattern.compile(
+            "^(create\\s+(or\\s+replace\\s+)?((non)?editionable\\s+)?(procedure|function|package|trigger|type)|declare|begin)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BATCHABLE = Pattern.compile("^(insert|update|delete|merge)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DOLLAR_TAG = Pattern.compile("\\$[A-Za-z_]*\\$");
+    private static final int HEAD_LENGTH = 64;
+
+    private SqlScriptSplitter() {
+    }
+
+    public static List<String> split(String script, Collection<String> lineDelimiters) {
+        List<String> statements = new ArrayList<>();
+        Statement statement = new Statement();
+        boolean lineStart = true;
+        int i = 0;
+        while (i < script.length()) {
+            if (lineStart && !lineDelimiters.isEmpty()) {
+                int lineEnd = script.indexOf('\n', i);
+                if (lineEnd < 0) {
+                    lineEnd = script.length();
+                }
+                if (isLineDelimiter(script.substring(i, lineEnd).trim(), lineDelimiters)) {
+                    statement.flushTo(statements);
+                    i = lineEnd + 1;
+                    continue;
+                }
+            }
+
+            char c = script.charAt(i);
+            lineStart = c == '\n';
+
+            int end = skipLiteralOrComment(script, i);
+            if (end > i) {
+                statement.append(script, i, end, !isCommentStart(script, i));
+                i = end;
+            } else if (c == ';' && !(statement.isBlock() && !lineDelimiters.isEmpty())) {
+                statement.flushTo(statements);
+                i++;
+            } else {
+                statement.append(script, i, i + 1, !Character.isWhitespace(c));
+                i++;
+            }
+        }
+        statement.flushTo(statements);
+        return statements;
+    }
+
+    /**
+     * @return true for DML statements without parameter markers which can be sent to the database in a JDBC batch
+     */
+    public static boolean isBatchable(String sql) {
+        Statement statement = new Statement();
+        int i = 0;
+        while (i < sql.length()) {
+            int end = skipLiteralOrComment(sql, i);
+            if (end > i) {
+                statement.append(sql, i, end, !isCommentStart(sql, i));
+                i = end;
+            } else {
+                char c = sql.charAt(i);
+                if (c == '?') {
+                    return false;
+                }
+                statement.append(sql, i, i + 1, !Character.isWhitespace(c));
+                i++;
+            }
+        }
+        return BATCHABLE.matcher(statement.head).find();
+    }
+
+    private static boolean isLineDelimiter(String line, Collection<String> lineDelimiters) {
+        for (String delimiter : lineDelimiters) {
+            if (delimiter.equalsIgnoreCase(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCommentStart(String s, int i) {
+        return s.startsWith("--", i) || s.startsWith("/*", i);
+    }
+
+    /**
+     * @return index just past the literal or comment starting at i, or i if there is none
+     */
+    private static int skipLiteralOrComment(String s, int i) {
+        char c = s.charAt(i);
+        switch (c) {
+            case '\'':
+            case '"':
+            case '`':
+                return indexAfter(s, String.valueOf(c), i + 1);
+            case '-':
+                if (s.startsWith("--", i)) {
+                    int end = s.indexOf('\n', i);
+                    return end < 0 ? s.length() : end;
+                }
+                return i;
+            case '/':
+                return s.startsWith("/*", i) ? indexAfter(s, "*/", i + 2) : i;
+            case '$':
+                if (i > 0 && (Character.isLetterOrDigit(s.charAt(i - 1)) || s.charAt(i - 1) == '_')) {
+                    return i;
+                }
+                Matcher matcher = DOLLAR_TAG.matcher(s).region(i, s.length());
+                return matcher.lookingAt() ? indexAfter(s, matcher.group(), matcher.end()) : i;
+            default:
+                return i;
+        }
+    }
+
+    private static int indexAfter(String s, String terminator, int from) {
+        int index = s.indexOf(terminator, from);
+        return index < 0 ? s.length() : index + terminator.length();
+    }
+
+    private static class Statement {
+
+        private final StringBuilder text = new StringBuilder();
+        private final StringBuilder head = new StringBuilder();
+        private boolean hasCode;
+
+        void append(String s, int start, int end, boolean code) {
+            text.append(s, start, end);
+            if (code) {
+                hasCode = true;
+            }
+            if (hasCode && head.length() < HEAD_LENGTH) {
+                head.append(code ? s.substring(start, Math.min(end, start + HEAD_LENGTH)) : " ");
+            }
+        }
+
+        boolean isBlock() {
+            return BLOCK_START.matcher(head).find();
+        }
+
+        void flushTo(List<String> statements) {
+            if (hasCode) {
+                statements.add(text.toString().trim());
+            }
+            text.setLength(0);
+            head.setLength(0);
+            hasCode = false;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Case-insensitive substring filter over the table names of a schema. Queries of three or more characters are
+ * answered from a {@link TrigramIndex}, so filtering tens of thousands of names doesn't scan them all.
+ */
+public class TableNameIndex {
+
+    private final List<JdbcTable> tables;
+    private final String[] names;
+    private final TrigramIndex index = new TrigramIndex();
+
+    public TableNameIndex(List<JdbcTable> tables) {
+        this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+        names = new String[tables.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TrigramIndex.normalize(tables.get(i).getName());
+            index.add(i, names[i]);
+        }
+    }
+
+    /**
+     * @return all tables in their original order
+     */
+    public List<JdbcTable> getTables() {
+        return tables;
+    }
+
+    /**
+     * @param text substring to look for, null or empty for all tables
+     * @return tables whose name contains the text ignoring case, in their original order
+     */
+    public List<JdbcTable> filter(String text) {
+        String query = text == null ? "" : TrigramIndex.normalize(text);
+        if (query.isEmpty()) {
+            return tables;
+        }
+        List<JdbcTable> result = new ArrayList<>();
+        int[] candidates = index.candidates(query);
+        if (candidates == null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].contains(query)) {
+                    result.add(tables.get(i));
+                }
+            }
+        } else {
+            // trigrams only tell which names may match
+            for (int i : candidates) {
+                if (names[i].contains(query)) {
+                    result.add(tables.get(i));
+                }
+            }
+        }
+        return result;
+    }
+}
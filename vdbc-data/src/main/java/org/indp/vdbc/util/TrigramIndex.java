@@ -0,0 +1,135 @@
+package org.indp.vdbc.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from character trigrams to ids of the documents containing them.
+ * <p/>
+ * Documents must be added with increasing ids, so posting lists stay sorted and can be intersected cheaply.
+ * Text is lower-cased and whitespace runs are collapsed, see {@link #normalize(String)}. Documents longer than
+ * {@link #MAX_INDEXED_LENGTH} aren't indexed, they are returned as candidates of every query instead.
+ */
+public class TrigramIndex {
+
+    private static final int MAX_INDEXED_LENGTH = 2000;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Postings unindexed = new Postings();
+
+    public void add(int id, String text) {
+        String normalized = normalize(text);
+        if (normalized.length() > MAX_INDEXED_LENGTH) {
+            unindexed.add(id);
+            return;
+        }
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            Long key = trigram(normalized, i);
+            Postings list = postings.get(key);
+            if (list == null) {
+                list = new Postings();
+                postings.put(key, list);
+            }
+            list.add(id);
+        }
+    }
+
+    /**
+     * @return ascending ids of documents which may contain the normalized query, null if the query is too short to
+     * use the index
+     */
+    public int[] candidates(String normalizedQuery) {
+        if (normalizedQuery.length() < 3) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= normalizedQuery.length(); i++) {
+            Postings list = postings.get(trigram(normalizedQuery, i));
+            if (list == null) {
+                return Arrays.copyOf(unindexed.ids, unindexed.size);
+            }
+            lists.add(list);
+        }
+        Collections.sort(lists, new Comparator<Postings>() {
+            @Override
+            public int compare(Postings o1, Postings o2) {
+                return Integer.compare(o1.size, o2.size);
+            }
+        });
+
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = result.length;
+        for (int l = 1; l < lists.size() && size > 0; l++) {
+            Postings list = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(list.ids, 0, list.size, result[i]) >= 0) {
+                    result[kept++] = result[i];
+                }
+            }
+            size = kept;
+        }
+        return union(result, size, unindexed);
+    }
+
+    private static int[] union(int[] ids, int size, Postings other) {
+        if (other.size == 0) {
+            return Arrays.copyOf(ids, size);
+        }
+        int[] result = new int[size + other.size];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && ids[i] < other.ids[j]) {
+                result[k++] = ids[i++];
+            } else {
+                result[k++] = other.ids[j++];
+            }
+        }
+        return result;
+    }
+
+    public static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.indp.vdbc.export;
+
+import com.google.common.io.ByteStreams;
+import org.indp.vdbc.result.FileResultBuffer;
+import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.TestSessions;
+import org.indp.vdbc.util.JdbcUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ExportInputStreamTest {
+
+    private DatabaseSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("export");
+        TestSessions.execute(session,
+                "create table t (id int, name varchar(20), amount decimal(10, 2))",
+                "insert into t values (1, 'plain', 1.50)",
+                "insert into t values (2, 'with \"quotes\", comma', null)",
+                "insert into t values (3, 'it''s', 3)");
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        String csv = export(ExportFormat.CSV, false);
+        assertEquals("ID,NAME,AMOUNT\r\n" +
+                "1,plain,1.50\r\n" +
+                "2,\"with \"\"quotes\"\", comma\",\r\n" +
+                "3,it's,3.00\r\n", csv);
+    }
+
+    @Test
+    public void testJsonLines() throws Exception {
+        String json = export(ExportFormat.JSON_LINES, false);
+        assertEquals("{\"ID\":1,\"NAME\":\"plain\",\"AMOUNT\":1.50}\n" +
+                "{\"ID\":2,\"NAME\":\"with \\\"quotes\\\", comma\",\"AMOUNT\":null}\n" +
+                "{\"ID\":3,\"NAME\":\"it's\",\"AMOUNT\":3.00}\n", json);
+    }
+
+    @Test
+    public void testInsertWithGzip() throws Exception {
+        String sql = export(ExportFormat.INSERT, true);
+        assertTrue(sql, sql.startsWith("insert into t (ID, NAME, AMOUNT) values (1, 'plain', 1.50);\n"));
+        assertTrue(sql, sql.endsWith("insert into t (ID, NAME, AMOUNT) values (3, 'it''s', 3.00);\n"));
+    }
+
+    @Test
+    public void testLargeExportIsStreamed() throws Exception {
+        ExportInputStream in = new ExportInputStream(session, "select x, 'row ' || x from system_range(1, 100000)",
+                ExportFormat.CSV, "t", false);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            int lines = 0;
+            while (reader.readLine() != null) {
+                lines++;
+            }
+            assertEquals(100001, lines);
+            assertEquals(100000, in.getRowCount());
+        } finally {
+            in.close();
+        }
+        assertTrue(session.getExecutionRegistry().getExecutions().isEmpty());
+    }
+
+    @Test
+    public void testParameters() throws Exception {
+        InputStream in = new ExportInputStream(session, "select id from t where id > ? order by id desc",
+                Collections.singletonList(1), ExportFormat.CSV, "t", false);
+        try {
+            assertEquals("ID\r\n3\r\n2\r\n", new String(ByteStreams.toByteArray(in), "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testBufferExport() throws Exception {
+        Connection connection = session.getConnection();
+        FileResultBuffer buffer;
+        try {
+            ResultSet rs = connection.createStatement().executeQuery("select id, name from t");
+            buffer = new FileResultBuffer(rs.getMetaData());
+            buffer.load(rs);
+        } finally {
+            JdbcUtils.close(connection);
+        }
+        try {
+            buffer.sort(new int[]{0}, new boolean[]{false});
+            InputStream in = new ExportInputStream(buffer, ExportFormat.CSV, "t", false);
+            String csv = new String(ByteStreams.toByteArray(in), "UTF-8");
+            assertEquals("ID,NAME\r\n" +
+                    "3,it's\r\n" +
+                    "2,\"with \"\"quotes\"\", comma\"\r\n" +
+                    "1,plain\r\n", csv);
+            assertEquals(-1, in.read());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    private String export(ExportFormat format, boolean gzip) throws Exception {
+        InputStream in = new ExportInputStream(session, "select * from t order by id", format, "t", gzip);
+        try {
+            byte[] bytes = ByteStreams.toByteArray(gzip ? new GZIPInputStream(in) : in);
+            return new String(bytes, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.indp.vdbc.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class QueryHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSearch() throws Exception {
+        QueryHistory history = new QueryHistory(new File(folder.getRoot(), "history.log"));
+        history.add(new HistoryEntry("select * from customers", 1, 10, 5, null));
+        history.add(new HistoryEntry("SELECT *\n  FROM   orders", 2, 10, 7, null));
+        history.add(new HistoryEntry("select * from customer_orders", 3, 10, -1, "table not found"));
+
+        List<HistoryEntry> found = history.search("from orders", 10);
+        assertEquals(1, found.size());
+        assertEquals(2, found.get(0).getTimestamp());
+
+        found = history.search("ORDERS", 10);
+        assertEquals(2, found.size());
+        assertEquals(3, found.get(0).getTimestamp());
+
+        assertEquals(3, history.search("", 10).size());
+        assertEquals(1, history.search("", 1).size());
+        assertEquals(3, history.search("*", 10).size());
+        assertTrue(history.search("products", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchLongQuery() throws Exception {
+        QueryHistory history = new QueryHistory(new File(folder.getRoot(), "history.log"));
+        StringBuilder sql = new StringBuilder("select * from t where id in (");
+        for (int i = 0; i < 1000; i++) {
+            sql.append(i).append(", ");
+        }
+        sql.append("-1) and name = 'needle'");
+        history.add(new HistoryEntry("select 1", 1, 10, 1, null));
+        history.add(new HistoryEntry(sql.toString(), 2, 10, 1, null));
+        history.add(new HistoryEntry("select 'needle'", 3, 10, 1, null));
+
+        List<HistoryEntry> found = history.search("name = 'needle'", 10);
+        assertEquals(1, found.size());
+        assertEquals(2, found.get(0).getTimestamp());
+        assertEquals(2, history.search("needle", 10).size());
+        assertTrue(history.search("haystack", 10).isEmpty());
+    }
+
+    @Test
+    public void testReloadsFromLog() throws Exception {
+        File file = new File(folder.getRoot(), "sub/history.log");
+        QueryHistory history = new QueryHistory(file);
+        history.add(new HistoryEntry("select 'a\tb'\nfrom dual -- back\\slash", 100, 20, 1, null));
+        history.add(new HistoryEntry("delete from t", 200, 30, -1, "error\non two lines"));
+
+        QueryHistory reloaded = new QueryHistory(file);
+        assertEquals(2, reloaded.size());
+        List<HistoryEntry> entries = reloaded.search(null, 10);
+        assertEquals("delete from t", entries.get(0).getSql());
+        assertEquals("error\non two lines", entries.get(0).getError());
+        assertEquals(30, entries.get(0).getDuration());
+        assertEquals("select 'a\tb'\nfrom dual -- back\\slash", entries.get(1).getSql());
+        assertFalse(entries.get(1).isFailed());
+        assertEquals(1, entries.get(1).getRows());
+    }
+}
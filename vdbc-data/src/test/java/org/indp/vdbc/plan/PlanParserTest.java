@@ -0,0 +1,92 @@
+package org.indp.vdbc.plan;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PlanParserTest {
+
+    @Test
+    public void testPostgresqlAnalyze() {
+        List<PlanNode> roots = PlanParser.parse(PlanParser.TREE_FORMAT, Arrays.asList(
+                "Hash Join  (cost=1.07..2.22 rows=5 width=8) (actual time=0.031..0.040 rows=4 loops=1)",
+                "  Hash Cond: (a.id = b.a_id)",
+                "  ->  Seq Scan on a  (cost=0.00..1.05 rows=5 width=4) (actual time=0.005..0.007 rows=5 loops=1)",
+                "  ->  Hash  (cost=1.03..1.03 rows=3 width=8) (actual time=0.012..0.012 rows=3 loops=1)",
+                "        Buckets: 1024  Batches: 1  Memory Usage: 9kB",
+                "        ->  Seq Scan on b  (cost=0.00..1.03 rows=3 width=8) (never executed)",
+                "Planning Time: 0.150 ms",
+                "Execution Time: 0.080 ms"));
+
+        assertEquals(1, roots.size());
+        PlanNode join = roots.get(0);
+        assertEquals("Hash Join", join.getOperation());
+        assertEquals(2.22, join.getCost(), 0.001);
+        assertEquals(Long.valueOf(5), join.getRows());
+        assertEquals(0.040, join.getActualTime(), 0.0001);
+        assertEquals(Long.valueOf(4), join.getActualRows());
+        assertEquals(Arrays.asList("Hash Cond: (a.id = b.a_id)", "Planning Time: 0.150 ms", "Execution Time: 0.080 ms"),
+                join.getDetails());
+
+        assertEquals(2, join.getChildren().size());
+        assertEquals("Seq Scan on a", join.getChildren().get(0).getOperation());
+        PlanNode hash = join.getChildren().get(1);
+        assertEquals(1, hash.getDetails().size());
+        PlanNode scan = hash.getChildren().get(0);
+        assertEquals("Seq Scan on b", scan.getOperation());
+        assertEquals(Long.valueOf(0), scan.getLoops());
+        assertNull(scan.getActualTime());
+    }
+
+    @Test
+    public void testMysqlTree() {
+        List<PlanNode> roots = PlanParser.parse(PlanParser.TREE_FORMAT, Arrays.asList(
+                "-> Nested loop inner join  (cost=4.70 rows=6)",
+                "    -> Filter: (t1.id is not null)  (cost=0.65 rows=3)",
+                "        -> Table scan on t1  (cost=0.65 rows=3)",
+                "    -> Index lookup on t2 using idx (id=t1.id)  (cost=1.05 rows=2)"));
+
+        assertEquals(1, roots.size());
+        assertEquals(4.70, roots.get(0).getCost(), 0.001);
+        assertEquals(2, roots.get(0).getChildren().size());
+        assertEquals("Filter: (t1.id is not null)", roots.get(0).getChildren().get(0).getOperation());
+        assertEquals("Table scan on t1", roots.get(0).getChildren().get(0).getChildren().get(0).getOperation());
+        assertEquals(Long.valueOf(2), roots.get(0).getChildren().get(1).getRows());
+    }
+
+    @Test
+    public void testOracle() {
+        List<PlanNode> roots = PlanParser.parse(PlanParser.ORACLE_FORMAT, Arrays.asList(
+                "Plan hash value: 1445457117",
+                " ",
+                "---------------------------------------------------------------------------",
+                "| Id  | Operation          | Name | Rows  | Bytes | Cost (%CPU)| Time     |",
+                "---------------------------------------------------------------------------",
+                "|   0 | SELECT STATEMENT   |      |    12K|   156K|    19   (6)| 00:00:01 |",
+                "|*  1 |  HASH JOIN         |      |    12K|   156K|    19   (6)| 00:00:01 |",
+                "|   2 |   TABLE ACCESS FULL| A    |    10 |    60 |     3   (0)| 00:00:01 |",
+                "|   3 |   TABLE ACCESS FULL| B    |  1200 |  8400 |    15   (0)| 00:00:01 |",
+                "---------------------------------------------------------------------------",
+                " ",
+                "Predicate Information (identified by operation id):",
+                "---------------------------------------------------",
+                " ",
+                "   1 - access(\"A\".\"ID\"=\"B\".\"A_ID\")"));
+
+        assertEquals(1, roots.size());
+        PlanNode select = roots.get(0);
+        assertEquals("SELECT STATEMENT", select.getOperation());
+        assertEquals(Long.valueOf(12000), select.getRows());
+        PlanNode join = select.getChildren().get(0);
+        assertEquals(19.0, join.getCost(), 0.001);
+        assertEquals(Arrays.asList("access(\"A\".\"ID\"=\"B\".\"A_ID\")"), join.getDetails());
+        assertEquals(2, join.getChildren().size());
+        assertEquals("TABLE ACCESS FULL B", join.getChildren().get(1).getOperation());
+    }
+}
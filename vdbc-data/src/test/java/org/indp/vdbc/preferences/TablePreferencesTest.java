@@ -0,0 +1,37 @@
+package org.indp.vdbc.preferences;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TablePreferencesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testVisibleColumns() throws Exception {
+        File file = new File(folder.getRoot(), "tables/test.properties");
+        TablePreferences preferences = new TablePreferences(file);
+        assertNull(preferences.getVisibleColumns("PUBLIC.T"));
+
+        preferences.setVisibleColumns("PUBLIC.T", Arrays.asList("ID", "NAME, FULL", "a=b"));
+        preferences.setVisibleColumns("PUBLIC.U", Arrays.asList("X"));
+        assertTrue(file.exists());
+
+        TablePreferences reloaded = new TablePreferences(file);
+        assertEquals(Arrays.asList("ID", "NAME, FULL", "a=b"), reloaded.getVisibleColumns("PUBLIC.T"));
+        assertEquals(Arrays.asList("X"), reloaded.getVisibleColumns("PUBLIC.U"));
+
+        reloaded.setVisibleColumns("PUBLIC.T", null);
+        assertNull(new TablePreferences(file).getVisibleColumns("PUBLIC.T"));
+    }
+}
@@ -0,0 +1,71 @@
+package org.indp.vdbc.result;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ColumnarResultBufferTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:columnar" + System.nanoTime(), "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testPrimitiveColumns() throws Exception {
+        ColumnarResultBuffer buffer = load("select cast(x as int) i, x l, x / 2.0 d, mod(x, 2) = 0 b, " +
+                "'v' || mod(x, 3) s, cast(x as decimal(10, 1)) n, case when x = 2 then null else x end nl " +
+                "from system_range(1, 1000)");
+        assertEquals(1000, buffer.getRowCount());
+        Object[] second = buffer.getRow(1);
+        assertEquals(2, second[0]);
+        assertEquals(2L, second[1]);
+        assertEquals(true, second[3]);
+        assertEquals("v2", second[4]);
+        assertEquals(new BigDecimal("2.0"), second[5]);
+        assertNull(second[6]);
+        assertEquals(3L, buffer.getValue(2, 6));
+        assertEquals("v1", buffer.getValue(999, 4));
+    }
+
+    @Test
+    public void testManyDistinctStrings() throws Exception {
+        ColumnarResultBuffer buffer = load("select 'value ' || x from system_range(1, 5000)");
+        assertEquals(5000, buffer.getRowCount());
+        assertEquals("value 1", buffer.getValue(0, 0));
+        assertEquals("value 4000", buffer.getValue(3999, 0));
+
+        buffer.sort(new int[]{0}, new boolean[]{false});
+        assertEquals("value 999", buffer.getValue(0, 0));
+    }
+
+    private ColumnarResultBuffer load(String sql) throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet rs = statement.executeQuery(sql);
+            ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData());
+            buffer.load(rs);
+            return buffer;
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.indp.vdbc.result;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class FileResultBufferTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:buffer" + System.nanoTime(), "sa", "");
+        Statement statement = connection.createStatement();
+        statement.execute("create table t (id int, name varchar(20), amount decimal(10, 2), created timestamp, flag boolean, data clob)");
+        statement.execute("insert into t values (1, 'b', 10.50, '2014-01-02 03:04:05.123', true, 'text')");
+        statement.execute("insert into t values (2, null, 3.25, null, false, null)");
+        statement.execute("insert into t values (3, 'a', null, '2014-05-06 07:08:09', null, 'more text')");
+        statement.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testReadsRowsBack() throws Exception {
+        FileResultBuffer buffer = load("select * from t order by id");
+        try {
+            assertEquals(3, buffer.getRowCount());
+            assertEquals(6, buffer.getColumnCount());
+            assertEquals("NAME", buffer.getColumnLabel(1));
+            assertEquals(LobValue.class, buffer.getColumnType(5));
+
+            Object[] first = buffer.getRow(0);
+            assertEquals(1, first[0]);
+            assertEquals("b", first[1]);
+            assertEquals(new BigDecimal("10.50"), first[2]);
+            assertEquals(Timestamp.valueOf("2014-01-02 03:04:05.123"), first[3]);
+            assertEquals(true, first[4]);
+            assertEquals(LobValue.ofCharacters("text", 4), first[5]);
+
+            assertNull(buffer.getValue(1, 1));
+            assertEquals(new BigDecimal("3.25"), buffer.getValue(1, 2));
+            assertEquals("more text", buffer.getValue(2, 5).toString());
+            assertNull(buffer.getValue(1, 5));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        FileResultBuffer buffer = load("select id, name from t order by id");
+        try {
+            buffer.sort(new int[]{1}, new boolean[]{true});
+            assertNull(buffer.getValue(0, 1));
+            assertEquals("a", buffer.getValue(1, 1));
+            assertEquals(1, buffer.getValue(2, 0));
+
+            buffer.sort(new int[]{0}, new boolean[]{false});
+            assertEquals(3, buffer.getValue(0, 0));
+
+            buffer.sort(new int[0], new boolean[0]);
+            assertEquals(1, buffer.getValue(0, 0));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void testSortByNumberAndText() throws Exception {
+        Statement statement = connection.createStatement();
+        statement.execute("create table s (k int, v varchar(10))");
+        statement.execute("insert into s select mod(x, 3), 'v' || (100 - x) from system_range(1, 100)");
+        statement.execute("insert into s values (null, 'z')");
+        statement.close();
+        FileResultBuffer buffer = load("select k, v from s");
+        try {
+            assertTrue(buffer.isSortable());
+            buffer.sort(new int[]{0, 1}, new boolean[]{true, false});
+            assertNull(buffer.getValue(0, 0));
+            assertEquals(0, buffer.getValue(1, 0));
+            assertEquals("v97", buffer.getValue(1, 1));
+            for (int row = 2; row < buffer.getRowCount(); row++) {
+                int k1 = (Integer) buffer.getValue(row - 1, 0);
+                int k2 = (Integer) buffer.getValue(row, 0);
+                assertTrue(k1 < k2 || k1 == k2 && ((String) buffer.getValue(row - 1, 1)).compareTo((String) buffer.getValue(row, 1)) > 0);
+            }
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void testUntaggedTypesAreStrings() throws Exception {
+        Statement statement = connection.createStatement();
+        statement.execute("create table u (id int, u uuid)");
+        statement.execute("insert into u values (1, '4a4b3ed6-1c0d-4d8f-9b2f-6f3a1b0c2d3e')");
+        statement.execute("insert into u values (2, null)");
+        statement.close();
+        FileResultBuffer buffer = load("select id, u from u order by id");
+        try {
+            assertEquals(Integer.class, buffer.getColumnType(0));
+            assertEquals(String.class, buffer.getColumnType(1));
+            assertEquals("4a4b3ed6-1c0d-4d8f-9b2f-6f3a1b0c2d3e", buffer.getValue(0, 1));
+            assertNull(buffer.getValue(1, 1));
+            buffer.sort(new int[]{1}, new boolean[]{true});
+            assertNull(buffer.getValue(0, 1));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void testLoadMore() throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet rs = statement.executeQuery("select id, name from t order by id");
+            FileResultBuffer buffer = new FileResultBuffer(rs.getMetaData());
+            try {
+                assertEquals(2, buffer.loadMore(rs, 2));
+                assertEquals(2, buffer.getRowCount());
+                assertEquals("b", buffer.getValue(0, 1));
+                assertEquals(2, buffer.getRow(1)[0]);
+
+                assertEquals(1, buffer.loadMore(rs, 2));
+                assertEquals(3, buffer.getRowCount());
+                assertEquals("a", buffer.getValue(2, 1));
+                assertEquals(1, buffer.getValue(0, 0));
+            } finally {
+                buffer.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Test
+    public void testLoadMoreReadsCursorIncrementally() throws Exception {
+        // streamed results are read in a transaction of their own with a fetch size, as the query editor does
+        connection.setAutoCommit(false);
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(100);
+        try {
+            ResultSet rs = statement.executeQuery("select x from system_range(1, 100000)");
+            FileResultBuffer buffer = new FileResultBuffer(rs.getMetaData());
+            try {
+                assertEquals(100, buffer.loadMore(rs, 100));
+                assertEquals(100, rs.getRow());
+                assertFalse(rs.isClosed());
+                long sizeAfterFirstPage = buffer.getSize();
+
+                assertEquals(100, buffer.loadMore(rs, 100));
+                assertEquals(200, rs.getRow());
+                assertEquals(200, buffer.getRowCount());
+                assertEquals(200L, buffer.getValue(199, 0));
+                assertTrue(buffer.getSize() > sizeAfterFirstPage);
+            } finally {
+                buffer.close();
+            }
+        } finally {
+            statement.close();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Test
+    public void testCloseDeletesFile() throws Exception {
+        FileResultBuffer buffer = load("select * from t");
+        assertTrue(buffer.getFile().exists());
+        assertTrue(buffer.getSize() > 0);
+        buffer.close();
+        assertFalse(buffer.getFile().exists());
+    }
+
+    private FileResultBuffer load(String sql) throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet rs = statement.executeQuery(sql);
+            FileResultBuffer buffer = new FileResultBuffer(rs.getMetaData());
+            buffer.load(rs);
+            return buffer;
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.indp.vdbc.result;
+
+import com.google.common.base.Strings;
+import org.indp.vdbc.util.ResultPage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LobValueTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:lob" + System.nanoTime(), "sa", "");
+        Statement statement = connection.createStatement();
+        statement.execute("create table t (id int primary key, doc clob, data blob)");
+        statement.close();
+        PreparedStatement insert = connection.prepareStatement("insert into t values (?, ?, ?)");
+        insert.setInt(1, 1);
+        insert.setString(2, Strings.repeat("x", 100000));
+        insert.setBytes(3, new byte[3000]);
+        insert.execute();
+        insert.setInt(1, 2);
+        insert.setString(2, "short");
+        insert.setBytes(3, null);
+        insert.execute();
+        insert.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testBufferKeepsPreviews() throws Exception {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select * from t order by id");
+        ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData());
+        buffer.load(rs);
+        statement.close();
+
+        assertEquals(LobValue.class, buffer.getColumnType(1));
+        assertEquals(LobValue.class, buffer.getColumnType(2));
+
+        LobValue doc = (LobValue) buffer.getValue(0, 1);
+        assertTrue(doc.isTruncated());
+        assertEquals(100000, doc.getLength());
+        assertEquals(LobValue.PREVIEW_LENGTH, doc.getPreview().length());
+        assertEquals("100,000 chars", doc.getDisplayLength());
+
+        LobValue data = (LobValue) buffer.getValue(0, 2);
+        assertTrue(data.isBinary());
+        assertEquals(LobValue.PREVIEW_LENGTH, data.getPreviewBytes().length);
+        assertEquals("2.9 KB", data.getDisplayLength());
+
+        LobValue shortDoc = (LobValue) buffer.getValue(1, 1);
+        assertFalse(shortDoc.isTruncated());
+        assertEquals("short", shortDoc.toString());
+        assertNull(buffer.getValue(1, 2));
+        assertTrue(buffer.getMemorySize() < 10000);
+    }
+
+    @Test
+    public void testStreamsStopAfterPreview() throws Exception {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select doc, data from t order by id");
+        try {
+            assertTrue(rs.next());
+            LobValue doc = LobValue.readCharacterStream(rs, 1);
+            assertTrue(doc.isTruncated());
+            assertEquals(LobValue.UNKNOWN_LENGTH, doc.getLength());
+            assertEquals(Strings.repeat("x", LobValue.PREVIEW_LENGTH), doc.getPreview());
+            assertEquals("> 256 chars", doc.getDisplayLength());
+            LobValue data = LobValue.readBinaryStream(rs, 2);
+            assertTrue(data.isTruncated());
+            assertEquals("> 256 bytes", data.getDisplayLength());
+
+            assertTrue(rs.next());
+            LobValue shortDoc = LobValue.readCharacterStream(rs, 1);
+            assertFalse(shortDoc.isTruncated());
+            assertEquals(5, shortDoc.getLength());
+            assertNull(LobValue.readBinaryStream(rs, 2));
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Test
+    public void testUnboundedTextColumnsArePreviews() throws Exception {
+        Statement statement = connection.createStatement();
+        statement.execute("create table d (k varchar primary key, doc varchar, name varchar(20), payload varbinary, id uuid)");
+        statement.close();
+        PreparedStatement insert = connection.prepareStatement("insert into d values (?, ?, 'n', ?, random_uuid())");
+        insert.setString(1, Strings.repeat("k", 1000));
+        insert.setString(2, Strings.repeat("x", 100000));
+        insert.setBytes(3, new byte[3000]);
+        insert.execute();
+        insert.close();
+
+        statement = connection.createStatement();
+        try {
+            ResultSet rs = statement.executeQuery("select * from d");
+            ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData());
+            buffer.load(rs);
+            assertEquals(LobValue.class, buffer.getColumnType(1));
+            assertEquals(String.class, buffer.getColumnType(2));
+            assertEquals(LobValue.class, buffer.getColumnType(3));
+            LobValue doc = (LobValue) buffer.getValue(0, 1);
+            assertTrue(doc.isTruncated());
+            assertEquals(LobValue.PREVIEW_LENGTH, doc.getPreview().length());
+            assertTrue(((LobValue) buffer.getValue(0, 3)).isBinary());
+            assertNotEquals(LobValue.class, buffer.getColumnType(4));
+
+            rs = statement.executeQuery("select * from d");
+            ResultSet page = ResultPage.read(rs, Collections.singletonList("K")).toResultSet();
+            assertTrue(page.next());
+            assertEquals(Strings.repeat("k", 1000), page.getObject(1));
+            assertTrue(page.getObject(2) instanceof LobValue);
+            assertEquals("n", page.getObject(3));
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.indp.vdbc.result;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ResultCacheTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:cache" + System.nanoTime(), "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("select * from t where a = 'X  y'",
+                ResultCache.normalize("SELECT *\n  FROM t -- comment\n WHERE a = 'X  y';"));
+        assertEquals("select \"Col\" from t", ResultCache.normalize("select /* c */ \"Col\" from T"));
+    }
+
+    @Test
+    public void testIsCacheable() {
+        assertTrue(ResultCache.isCacheable("select * from t"));
+        assertTrue(ResultCache.isCacheable("-- report\nWITH a AS (select 1) select * from a"));
+        assertFalse(ResultCache.isCacheable("update t set a = 1"));
+        assertFalse(ResultCache.isCacheable("select * from t for update"));
+        assertFalse(ResultCache.isCacheable("select * into t2 from t"));
+        assertFalse(ResultCache.isCacheable("select now()"));
+        assertFalse(ResultCache.isCacheable("SELECT SYSDATE FROM dual"));
+        assertFalse(ResultCache.isCacheable("select * from t where created > current_timestamp - 1"));
+        assertFalse(ResultCache.isCacheable("select * from t order by random ()"));
+        assertTrue(ResultCache.isCacheable("select random_value, now_playing from t"));
+    }
+
+    @Test
+    public void testIsModifying() {
+        assertTrue(ResultCache.isModifying("update t set a = 1"));
+        assertTrue(ResultCache.isModifying("-- cleanup\nDELETE FROM t"));
+        assertTrue(ResultCache.isModifying("create table t2 (a int)"));
+        assertTrue(ResultCache.isModifying("select * into t2 from t"));
+        assertTrue(ResultCache.isModifying("with d as (delete from t returning *) select * from d"));
+        assertTrue(ResultCache.isModifying("select nextval('s')"));
+        assertFalse(ResultCache.isModifying("select * from t"));
+        assertFalse(ResultCache.isModifying("select now()"));
+        assertFalse(ResultCache.isModifying("explain select * from t"));
+        assertFalse(ResultCache.isModifying("show tables"));
+        assertFalse(ResultCache.isModifying("select * from deleted_items"));
+    }
+
+    @Test
+    public void testHitReturnsIndependentView() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024, 60);
+        ColumnarResultBuffer buffer = load("select x from system_range(1, 10)");
+        cache.put("select x from system_range(1, 10)", null, 100, buffer);
+
+        assertNull(cache.get("select x from system_range(1, 10)", null, 10));
+        assertNull(cache.get("select x from system_range(1, 10)", Arrays.asList(1), 100));
+        ColumnarResultBuffer hit = cache.get("SELECT x\nFROM system_range(1, 10)", Collections.emptyList(), 100);
+        assertNotNull(hit);
+        assertEquals(10, hit.getRowCount());
+
+        hit.sort(new int[]{0}, new boolean[]{false});
+        assertEquals(10L, hit.getValue(0, 0));
+        assertEquals(1L, buffer.getValue(0, 0));
+        assertEquals(1L, cache.get("select x from system_range(1, 10)", null, 100).getValue(0, 0));
+        assertEquals(2, cache.getStats().hitCount());
+
+        cache.invalidateAll();
+        assertNull(cache.get("select x from system_range(1, 10)", null, 100));
+    }
+
+    @Test
+    public void testWeightBound() throws Exception {
+        ColumnarResultBuffer large = load("select 'value ' || x from system_range(1, 10000)");
+        assertTrue(large.getMemorySize() > 10000 * 2 * "value 1".length());
+
+        ResultCache cache = new ResultCache(large.getMemorySize() / 2, 60);
+        cache.put("large", null, 0, large);
+        assertEquals(0, cache.size());
+
+        ResultCache biggerCache = new ResultCache(large.getMemorySize() * 3 / 2, 60);
+        biggerCache.put("first", null, 0, large);
+        biggerCache.put("second", null, 0, large);
+        assertEquals(1, biggerCache.size());
+        assertNotNull(biggerCache.get("second", null, 0));
+    }
+
+    private ColumnarResultBuffer load(String sql) throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet rs = statement.executeQuery(sql);
+            ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData());
+            buffer.load(rs);
+            return buffer;
+        } finally {
+            statement.close();
+        }
+    }
+}
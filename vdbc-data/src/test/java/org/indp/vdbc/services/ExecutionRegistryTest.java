@@ -0,0 +1,97 @@
+package org.indp.vdbc.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ExecutionRegistryTest {
+
+    private ExecutionRegistry registry;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new ExecutionRegistry();
+        connection = DriverManager.getConnection("jdbc:h2:mem:registry" + System.nanoTime(), "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testListsRunningExecutions() {
+        ExecutionRegistry.Execution first = registry.start("select 1");
+        ExecutionRegistry.Execution second = registry.start("select 2");
+        assertEquals(2, registry.getExecutions().size());
+        assertSame(first, registry.getExecutions().get(0));
+
+        first.close();
+        assertEquals(1, registry.getExecutions().size());
+        assertSame(second, registry.getExecutions().get(0));
+
+        second.close();
+        assertTrue(registry.getExecutions().isEmpty());
+    }
+
+    @Test
+    public void testCancelRunningStatement() throws Exception {
+        final ExecutionRegistry.Execution execution = registry.start("slow");
+        final Statement statement = connection.createStatement();
+        execution.setStatement(statement);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> future = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return statement.executeQuery("select sum(x) from system_range(1, 10000000000)");
+                }
+            });
+            Thread.sleep(200);
+            registry.cancelAll();
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("statement should have been cancelled");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+            assertTrue(execution.isCancelled());
+        } finally {
+            executor.shutdownNow();
+            execution.close();
+        }
+    }
+
+    @Test
+    public void testCancelBeforeStatementIsBound() throws Exception {
+        ExecutionRegistry.Execution execution = registry.start("select 1");
+        execution.cancel();
+        assertTrue(execution.isCancelled());
+
+        try {
+            execution.setStatement(connection.createStatement());
+            fail("execution should refuse to start");
+        } catch (SQLException expected) {
+        } finally {
+            execution.close();
+        }
+    }
+}
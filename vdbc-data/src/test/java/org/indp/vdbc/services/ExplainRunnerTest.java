@@ -0,0 +1,65 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.plan.PlanNode;
+import org.indp.vdbc.util.JdbcUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ExplainRunnerTest {
+
+    private DatabaseSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("explain");
+        TestSessions.execute(session,
+                "create table t (id int primary key, name varchar(10))",
+                "insert into t select x, 'n' || x from system_range(1, 10)");
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        List<PlanNode> plan = explain("select * from t where id = 5;", false);
+        assertFalse(plan.isEmpty());
+        assertTrue(plan.get(0).getOperation().toUpperCase().startsWith("SELECT"));
+    }
+
+    @Test
+    public void testAnalyzeRollsBack() throws Exception {
+        List<PlanNode> plan = explain("delete from t", true);
+        assertFalse(plan.isEmpty());
+
+        Connection connection = session.getConnection();
+        try {
+            ResultSet rs = connection.createStatement().executeQuery("select count(*) from t");
+            rs.next();
+            assertEquals(10, rs.getInt(1));
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private List<PlanNode> explain(String sql, boolean analyze) throws Exception {
+        ExecutionRegistry.Execution execution = session.getExecutionRegistry().start(sql);
+        try {
+            return new ExplainRunner(session).explain(sql, analyze, execution);
+        } finally {
+            execution.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.indp.vdbc.services;
+
+import com.google.common.base.Strings;
+import org.indp.vdbc.util.JdbcUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LobReaderTest {
+
+    private static final String DOC = Strings.repeat("document ", 10000);
+
+    private DatabaseSession session;
+    private LobReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("lobs");
+        Connection connection = session.getConnection();
+        try {
+            connection.createStatement().execute("create table t (id int primary key, doc clob, data blob)");
+            PreparedStatement insert = connection.prepareStatement("insert into t values (1, ?, ?)");
+            insert.setString(1, DOC);
+            insert.setBytes(2, new byte[]{1, 2, 3});
+            insert.execute();
+            insert.close();
+        } finally {
+            JdbcUtils.close(connection);
+        }
+        reader = new LobReader(session, "T", Collections.singletonList("ID"));
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(reader.copy("DOC", key(1), out));
+        assertEquals(DOC, out.toString("UTF-8"));
+
+        out.reset();
+        assertTrue(reader.copy("DATA", key(1), out));
+        assertArrayEquals(new byte[]{1, 2, 3}, out.toByteArray());
+
+        assertFalse(reader.copy("DOC", key(2), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testReadString() throws Exception {
+        assertEquals(DOC, reader.readString("DOC", key(1), Integer.MAX_VALUE));
+        assertEquals("document", reader.readString("DOC", key(1), 8));
+        assertNull(reader.readString("DOC", key(2), 10));
+    }
+
+    private static Map<String, Object> key(int id) {
+        return Collections.<String, Object>singletonMap("ID", id);
+    }
+}
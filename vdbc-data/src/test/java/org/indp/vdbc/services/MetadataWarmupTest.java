@@ -0,0 +1,76 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.util.MetadataCache;
+import org.indp.vdbc.util.MetadataRetriever;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MetadataWarmupTest {
+
+    private DatabaseSession session;
+    private MetadataCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("warmup");
+        cache = MetadataCache.forProfile(session.getConnectionProfile());
+        TestSessions.execute(session,
+                "create table a (id int primary key, name varchar(10))",
+                "create table b (id int primary key, a_id int references a(id))");
+    }
+
+    @After
+    public void tearDown() {
+        if (!session.isClosed()) {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testWarmup() throws Exception {
+        Future<?> future = new MetadataWarmup(session, Collections.singletonList("PUBLIC"), 60000).start();
+        future.get(10, TimeUnit.SECONDS);
+        assertTrue(cache.size() > 0);
+
+        long misses = cache.getStats().missCount();
+        MetadataRetriever metadata = session.getMetadata();
+        metadata.getCatalogs();
+        metadata.getSchemas();
+        metadata.getTableTypes();
+        List<JdbcTable> tables = metadata.getTables(metadata.getCatalogs().get(0), "PUBLIC", "TABLE");
+        assertEquals(2, tables.size());
+        for (JdbcTable table : tables) {
+            metadata.getColumnNames(table);
+        }
+        assertEquals(Arrays.asList("ID", "NAME"), metadata.getColumnNames(tables.get(0)));
+        assertEquals(misses, cache.getStats().missCount());
+    }
+
+    @Test
+    public void testExpiredBudget() throws Exception {
+        Future<?> future = new MetadataWarmup(session, Collections.singletonList("PUBLIC"), 0).start();
+        future.get(10, TimeUnit.SECONDS);
+        // the catalogs are read before the budget is checked the first time
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testParseSchemas() {
+        assertEquals(Collections.emptyList(), MetadataWarmup.parseSchemas(null));
+        assertEquals(Collections.emptyList(), MetadataWarmup.parseSchemas(" "));
+        assertEquals(Arrays.asList("A", "B"), MetadataWarmup.parseSchemas("A, ,B"));
+    }
+}
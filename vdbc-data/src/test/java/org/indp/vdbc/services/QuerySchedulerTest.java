@@ -0,0 +1,195 @@
+package org.indp.vdbc.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class QuerySchedulerTest {
+
+    private QueryScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new QueryScheduler(1, 1, 8);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testRoundRobinBetweenQueues() throws Exception {
+        QueryScheduler.Queue busy = scheduler.createQueue("a", null);
+        QueryScheduler.Queue other = scheduler.createQueue("b", null);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        busy.submit(block(gate));
+        awaitRunning(busy);
+        for (int i = 0; i < 3; i++) {
+            busy.submit(record(order, "busy"));
+        }
+        Future<?> last = other.submit(record(order, "other"));
+        assertEquals(4, scheduler.getQueueDepth());
+
+        gate.countDown();
+        last.get(5, TimeUnit.SECONDS);
+        assertEquals("other", order.get(0));
+    }
+
+    @Test
+    public void testProfileLimit() throws Exception {
+        scheduler.shutdown();
+        scheduler = new QueryScheduler(4, 4, 1);
+        QueryScheduler.Queue first = scheduler.createQueue("a", null);
+        QueryScheduler.Queue second = scheduler.createQueue("a", null);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    int current = running.incrementAndGet();
+                    maxRunning.set(Math.max(maxRunning.get(), current));
+                    sleep(20);
+                    running.decrementAndGet();
+                }
+            };
+            futures.add((i % 2 == 0 ? first : second).submit(task));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testCloseCancelsPendingTasks() throws Exception {
+        QueryScheduler.Queue queue = scheduler.createQueue("a", null);
+        CountDownLatch gate = new CountDownLatch(1);
+        Future<?> running = queue.submit(block(gate));
+        awaitRunning(queue);
+        Future<?> pending = queue.submit(record(new ArrayList<String>(), "pending"));
+        assertEquals(1, queue.getQueueDepth());
+
+        queue.close();
+        assertTrue(pending.isCancelled());
+        assertEquals(0, scheduler.getQueueDepth());
+
+        gate.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        try {
+            queue.submit(record(new ArrayList<String>(), "rejected"));
+            fail("closed queue should reject tasks");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    @Test
+    public void testBackgroundTasksYieldToRegularTasks() throws Exception {
+        QueryScheduler.Queue queue = scheduler.createQueue("a", null);
+        QueryScheduler.Queue other = scheduler.createQueue("b", null);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        queue.submit(block(gate));
+        awaitRunning(queue);
+        Future<?> background = queue.submitBackground(record(order, "background"));
+        queue.submit(record(order, "regular"));
+        other.submit(record(order, "other"));
+
+        gate.countDown();
+        background.get(5, TimeUnit.SECONDS);
+        assertEquals(3, order.size());
+        assertEquals("background", order.get(2));
+    }
+
+    @Test
+    public void testPrioritySlotIsKeptFree() throws Exception {
+        scheduler.shutdown();
+        scheduler = new QueryScheduler(4, 2, 8);
+        QueryScheduler.Queue queue = scheduler.createQueue("a", null);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        queue.submit(block(gate));
+        awaitRunning(queue);
+        Future<?> regular = queue.submit(record(order, "regular"));
+        Future<?> background = queue.submitBackground(record(order, "background"));
+        Future<?> priority = queue.submitPriority(record(order, "priority"));
+        priority.get(5, TimeUnit.SECONDS);
+        background.get(5, TimeUnit.SECONDS);
+        assertFalse(regular.isDone());
+
+        gate.countDown();
+        regular.get(5, TimeUnit.SECONDS);
+        assertEquals("regular", order.get(2));
+    }
+
+    @Test
+    public void testCloseCancelsBackgroundTasks() throws Exception {
+        QueryScheduler.Queue queue = scheduler.createQueue("a", null);
+        CountDownLatch gate = new CountDownLatch(1);
+        queue.submit(block(gate));
+        awaitRunning(queue);
+        Future<?> background = queue.submitBackground(record(new ArrayList<String>(), "background"));
+
+        queue.close();
+        gate.countDown();
+        assertTrue(background.isCancelled());
+    }
+
+    private static void awaitRunning(QueryScheduler.Queue queue) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.getRunningCount() == 0 && System.currentTimeMillis() < deadline) {
+            sleep(5);
+        }
+    }
+
+    private static Runnable block(final CountDownLatch gate) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RowCounterTest {
+
+    private DatabaseSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("count");
+        TestSessions.execute(session,
+                "create table t (id int primary key)",
+                "insert into t select x from system_range(1, 500)");
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testEstimateAndCount() throws Exception {
+        RowCounter counter = new RowCounter(session);
+        assertEquals(Long.valueOf(500), counter.estimate(new JdbcTable(null, "PUBLIC", "T")));
+        assertNull(counter.estimate(new JdbcTable(null, "PUBLIC", "MISSING")));
+
+        ExecutionRegistry.Execution execution = session.getExecutionRegistry().start("count");
+        try {
+            assertEquals(250, counter.count("t", "id > 250", execution));
+        } finally {
+            execution.close();
+        }
+    }
+
+    @Test
+    public void testCountUpTo() throws Exception {
+        RowCounter counter = new RowCounter(session);
+        assertEquals(Long.valueOf(100), counter.countUpTo("t", "id > ?", Collections.singletonList(250), 100));
+        assertEquals(Long.valueOf(50), counter.countUpTo("t", "id > ?", Collections.singletonList(450), 100));
+        assertEquals(3, counter.count("t", "id <= ?", Collections.singletonList(3), null));
+    }
+}
@@ -0,0 +1,104 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.util.SqlScriptSplitter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ScriptRunnerTest {
+
+    private DatabaseSession session;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("script");
+        connection = session.getConnection();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+        session.close();
+    }
+
+    @Test
+    public void testRunsScript() throws Exception {
+        List<String> statements = SqlScriptSplitter.split(
+                "create table t (id int);\n" +
+                        "insert into t values (1);\n" +
+                        "insert into t values (2);\n" +
+                        "update t set id = id + 10;\n" +
+                        "select * from t order by id;\n" +
+                        "select count(*) from t;",
+                Collections.<String>emptyList());
+        final List<String> events = new ArrayList<>();
+        ExecutionRegistry.Execution execution = session.getExecutionRegistry().start("script");
+        try {
+            new ScriptRunner(session, connection, 0).run(statements, execution, new ScriptRunner.Listener() {
+                @Override
+                public void resultSet(int index, String sql, ResultSet resultSet) throws SQLException {
+                    int rows = 0;
+                    while (resultSet.next()) {
+                        rows++;
+                    }
+                    events.add(index + ":rows=" + rows);
+                }
+
+                @Override
+                public void updateCount(int index, String sql, int count) {
+                    events.add(index + ":count=" + count);
+                }
+            });
+        } finally {
+            execution.close();
+        }
+        assertEquals(6, events.size());
+        assertEquals("3:count=2", events.get(3));
+        assertEquals("4:rows=2", events.get(4));
+        assertEquals("5:rows=1", events.get(5));
+    }
+
+    @Test
+    public void testStopsAtFailingStatement() throws Exception {
+        List<String> statements = SqlScriptSplitter.split(
+                "create table t2 (id int primary key); insert into t2 values (1); insert into t2 values (1); select 1",
+                Collections.<String>emptyList());
+        final List<Integer> indexes = new ArrayList<>();
+        ExecutionRegistry.Execution execution = session.getExecutionRegistry().start("script");
+        try {
+            new ScriptRunner(session, connection, 0).run(statements, execution, new ScriptRunner.Listener() {
+                @Override
+                public void resultSet(int index, String sql, ResultSet resultSet) {
+                    indexes.add(index);
+                }
+
+                @Override
+                public void updateCount(int index, String sql, int count) {
+                    indexes.add(index);
+                }
+            });
+            fail("duplicate key should fail the script");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Statement 3 failed"));
+        } finally {
+            execution.close();
+        }
+        assertFalse(indexes.contains(3));
+    }
+}
@@ -0,0 +1,116 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.util.JdbcUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TableChangeSetTest {
+
+    private DatabaseSession session;
+    private TableChangeSet changeSet;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("changes");
+        TestSessions.execute(session,
+                "create table t (a int, b int, v varchar(10), primary key (a, b))",
+                "insert into t select x, x * 10, 'v' || x from system_range(1, 5)");
+        changeSet = new TableChangeSet(session, "T", Arrays.asList("A", "B"));
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        changeSet.update(row(1, 10), "V", "x1");
+        changeSet.update(row(2, 20), "V", "x2");
+        changeSet.update(row(2, 20), "V", null);
+        changeSet.delete(row(3, 30));
+        changeSet.update(row(4, 40), "V", "gone");
+        changeSet.delete(row(4, 40));
+        Map<String, Object> values = row(6, 60);
+        values.put("V", "new");
+        changeSet.insert(values);
+
+        assertEquals(values("V", null), changeSet.getUpdates(row(2, 20)));
+        assertTrue(changeSet.isDeleted(row(4, 40)));
+        assertEquals(5, changeSet.size());
+
+        assertEquals(5, changeSet.apply());
+        assertTrue(changeSet.isEmpty());
+        assertEquals("1:x1,2:null,5:v5,6:new", read());
+    }
+
+    @Test
+    public void testFailureRollsBackEverything() throws Exception {
+        changeSet.update(row(1, 10), "V", "x1");
+        changeSet.insert(row(2, 20));
+        try {
+            changeSet.apply();
+            fail();
+        } catch (SQLException e) {
+            // duplicate key
+        }
+        assertEquals(2, changeSet.size());
+        assertEquals("1:v1,2:v2,3:v3,4:v4,5:v5", read());
+    }
+
+    @Test
+    public void testMissingRowFails() throws Exception {
+        changeSet.update(row(1, 10), "V", "x1");
+        changeSet.update(row(9, 90), "V", "x9");
+        try {
+            changeSet.apply();
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Row not found"));
+        }
+        assertEquals("1:v1,2:v2,3:v3,4:v4,5:v5", read());
+    }
+
+    private static Map<String, Object> row(int a, int b) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("A", a);
+        row.put("B", b);
+        return row;
+    }
+
+    private static Map<String, Object> values(String column, Object value) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(column, value);
+        return map;
+    }
+
+    private String read() throws SQLException {
+        Connection connection = session.getConnection();
+        try {
+            ResultSet rs = connection.createStatement().executeQuery("select a, v from t order by a");
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(rs.getInt(1)).append(':').append(rs.getString(2));
+            }
+            return sb.toString();
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TableStatisticsTest {
+
+    private DatabaseSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("stats");
+        TestSessions.execute(session,
+                "create table t (id int primary key, kind varchar(10))",
+                "insert into t select x, 'k' || mod(x, 5) from system_range(1, 500)",
+                "analyze");
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        JdbcTable table = new JdbcTable(null, "PUBLIC", "T");
+        TableStatistics statistics = session.getTableStatistics(table, false);
+        assertEquals(500L, ((Number) statistics.getTableStatistics().get("ESTIMATED_ROWS")).longValue());
+        assertTrue(statistics.getTableStatistics().containsKey("TABLE_BYTES"));
+
+        ColumnarResultBuffer columns = statistics.getColumnStatistics();
+        assertEquals(2, columns.getRowCount());
+        assertEquals("ID", columns.getValue(0, 0));
+        assertEquals(500L, ((Number) columns.getValue(0, 1)).longValue());
+        assertEquals("KIND", columns.getValue(1, 0));
+        assertEquals(5L, ((Number) columns.getValue(1, 1)).longValue());
+
+        assertSame(statistics, session.getTableStatistics(table, false));
+        assertNotSame(statistics, session.getTableStatistics(table, true));
+    }
+
+    @Test
+    public void testMixedCaseTable() throws Exception {
+        TestSessions.execute(session,
+                "create table \"Mixed\" (id int primary key)",
+                "insert into \"Mixed\" select x from system_range(1, 10)");
+        TableStatistics statistics = session.getTableStatistics(new JdbcTable(null, "PUBLIC", "Mixed"), false);
+        assertTrue(statistics.getTableStatistics().get("TABLE_BYTES") instanceof Number);
+    }
+}
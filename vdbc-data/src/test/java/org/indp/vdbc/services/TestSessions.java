@@ -0,0 +1,58 @@
+package org.indp.vdbc.services;
+
+import org.indp.vdbc.ConnectionListener;
+import org.indp.vdbc.model.config.JdbcConnectionProfile;
+import org.indp.vdbc.util.JdbcUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Sessions over in-memory H2 databases for tests.
+ */
+public final class TestSessions {
+
+    private static final ConnectionListener NO_OP_LISTENER = new ConnectionListener() {
+        @Override
+        public void connectionEstablished(DatabaseSession databaseSession) {
+        }
+
+        @Override
+        public void connectionClosed(DatabaseSession databaseSession) {
+        }
+    };
+
+    private TestSessions() {
+    }
+
+    /**
+     * @param name prefix of the database and profile names, both are made unique so tests don't share caches
+     * @return session of a new, empty database which lives until the session is closed
+     */
+    public static DatabaseSession h2(String name) {
+        String uniqueName = name + System.nanoTime();
+        JdbcConnectionProfile profile = new JdbcConnectionProfile(uniqueName, "h2", "org.h2.Driver",
+                "jdbc:h2:mem:" + uniqueName + ";DB_CLOSE_DELAY=-1", "sa", "", null);
+        return new DatabaseSession(profile, NO_OP_LISTENER);
+    }
+
+    /**
+     * Runs the statements on a connection of the session, e.g. to create test tables.
+     */
+    public static void execute(DatabaseSession session, String... sql) throws SQLException {
+        Connection connection = session.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                for (String s : sql) {
+                    statement.execute(s);
+                }
+            } finally {
+                JdbcUtils.close(statement);
+            }
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+}
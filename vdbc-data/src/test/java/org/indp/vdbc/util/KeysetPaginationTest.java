@@ -0,0 +1,133 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.TestSessions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class KeysetPaginationTest {
+
+    private DatabaseSession session;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        session = TestSessions.h2("keyset");
+        connection = session.getConnection();
+        connection.createStatement().execute("create table t (a int, b int, v varchar(10), primary key (b, a))");
+        connection.createStatement().execute("insert into t select mod(x, 7), x / 7, 'v' || x from system_range(0, 94)");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        session.close();
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        assertNotNull(KeysetPagination.create(session, new JdbcTable(null, "PUBLIC", "T"), null));
+
+        connection.createStatement().execute("create table nokey (id int)");
+        assertNull(KeysetPagination.create(session, new JdbcTable(null, "PUBLIC", "NOKEY"), null));
+    }
+
+    @Test
+    public void testPagesMatchOffsetPaging() throws Exception {
+        List<String> keys = new ArrayList<>();
+        keys.add("B");
+        keys.add("A");
+        KeysetPagination pagination = new KeysetPagination(session, "t", null, keys, 10);
+        // keys are sampled in the background on the first deep jump
+        assertTrue(pagination.getPageQuery(20, 9).getParameters().size() <= 2);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pagination.isSampled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(pagination.isSampled());
+        for (int offset = 0; offset < 100; offset += 7) {
+            KeysetPagination.PageQuery page = pagination.getPageQuery(offset, 9);
+            assertEquals("offset " + offset, read("select v from t order by b, a limit 9 offset " + offset, new ArrayList<>()),
+                    read(page.getSql(), page.getParameters()));
+            if (offset >= 10) {
+                assertFalse(page.getParameters().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testNextPageSeeksFromLastKey() throws Exception {
+        List<String> keys = new ArrayList<>();
+        keys.add("B");
+        keys.add("A");
+        KeysetPagination pagination = new KeysetPagination(session, "t", null, keys, 1000);
+        for (int offset = 0; offset < 100; offset += 9) {
+            KeysetPagination.PageQuery query = pagination.getPageQuery(offset, 9);
+            if (offset > 0) {
+                assertFalse("offset " + offset, query.getParameters().isEmpty());
+            }
+            PreparedStatement statement = connection.prepareStatement(query.getSql());
+            try {
+                for (int i = 0; i < query.getParameters().size(); i++) {
+                    statement.setObject(i + 1, query.getParameters().get(i));
+                }
+                ResultPage page = ResultPage.read(statement.executeQuery());
+                assertEquals("offset " + offset, read("select v from t order by b, a limit 9 offset " + offset, new ArrayList<>()),
+                        values(page));
+                pagination.pageRead(offset, page);
+            } finally {
+                statement.close();
+            }
+        }
+        assertFalse(pagination.isSampled());
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        List<String> keys = new ArrayList<>();
+        keys.add("B");
+        keys.add("A");
+        KeysetPagination pagination = new KeysetPagination(session, "t", "a = 3", keys, 4);
+        KeysetPagination.PageQuery page = pagination.getPageQuery(9, 3);
+        assertEquals(read("select v from t where a = 3 order by b, a limit 3 offset 9", new ArrayList<>()),
+                read(page.getSql(), page.getParameters()));
+    }
+
+    private static List<String> values(ResultPage page) throws Exception {
+        List<String> values = new ArrayList<>();
+        for (int row = 0; row < page.getRowCount(); row++) {
+            values.add((String) page.getValue(row, "v"));
+        }
+        return values;
+    }
+
+    private List<String> read(String sql, List<Object> parameters) throws Exception {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            List<String> values = new ArrayList<>();
+            ResultSet rs = statement.executeQuery();
+            while (rs.next()) {
+                values.add(rs.getString("V"));
+            }
+            return values;
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.indp.vdbc.util;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.jdbcx.JdbcDataSource;
+import org.indp.vdbc.model.config.JdbcConnectionProfile;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MetadataCacheTest {
+
+    private JdbcDataSource dataSource;
+    private Connection connection;
+    private MetadataCache cache;
+    private MetadataRetriever retriever;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:metadata" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        connection.createStatement().execute("create table t (id int primary key, name varchar(10))");
+        cache = new MetadataCache(60);
+        retriever = new MetadataRetriever(dataSource, cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        JdbcUtils.close(connection);
+    }
+
+    @Test
+    public void testLoadsOnce() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        MetadataCache.Loader<List<String>> loader = new MetadataCache.Loader<List<String>>() {
+            @Override
+            public List<String> load() throws SQLException {
+                loads.incrementAndGet();
+                return Collections.singletonList("x");
+            }
+        };
+        assertEquals("x", cache.get("kind", new String[]{null, "S"}, loader).get(0));
+        assertEquals("x", cache.get("kind", new String[]{null, "S"}, loader).get(0));
+        assertEquals(1, loads.get());
+
+        cache.get("kind", new String[]{null, "other"}, loader);
+        assertEquals(2, loads.get());
+
+        cache.invalidateAll();
+        cache.get("kind", new String[]{null, "S"}, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testPropagatesErrors() {
+        try {
+            cache.get("kind", new String[0], new MetadataCache.Loader<Object>() {
+                @Override
+                public Object load() throws SQLException {
+                    throw new SQLException("boom");
+                }
+            });
+            fail();
+        } catch (SQLException e) {
+            assertEquals("boom", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRetrieverUsesCache() throws Exception {
+        JdbcTable table = new JdbcTable(null, "PUBLIC", "T");
+        assertEquals(Arrays.asList("ID", "NAME"), retriever.getColumnNames(table));
+        assertEquals(Collections.singletonList("ID"), retriever.getPrimaryKeys(table));
+        assertEquals(1, retriever.getTables(null, "PUBLIC", "TABLE").size());
+
+        connection.createStatement().execute("alter table t add column extra int");
+        connection.createStatement().execute("create table u (id int)");
+        assertEquals(2, retriever.getColumnNames(table).size());
+        assertEquals(1, retriever.getTables(null, "PUBLIC", "TABLE").size());
+
+        retriever.invalidate();
+        assertEquals(Arrays.asList("ID", "NAME", "EXTRA"), retriever.getColumnNames(table));
+        assertEquals(2, retriever.getTables(null, "PUBLIC", "TABLE").size());
+    }
+
+    @Test
+    public void testBorrowsConnectionsPerRead() throws Exception {
+        JdbcConnectionPool pool = JdbcConnectionPool.create(dataSource);
+        try {
+            MetadataRetriever pooled = new MetadataRetriever(pool, new MetadataCache(60));
+            assertEquals("\"", pooled.getIdentifierQuoteString());
+            assertEquals(Arrays.asList("ID", "NAME"), pooled.getColumnNames(new JdbcTable(null, "PUBLIC", "T")));
+            assertEquals(0, pool.getActiveConnections());
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void testNamePattern() throws Exception {
+        connection.createStatement().execute("create table t_x (id int)");
+        connection.createStatement().execute("create table tax (id int)");
+        assertEquals("%T\\_X%", retriever.containsPattern("t_x"));
+        List<JdbcTable> tables = retriever.getTables(null, "PUBLIC", "TABLE", retriever.containsPattern("t_x"));
+        assertEquals(1, tables.size());
+        assertEquals("T_X", tables.get(0).getName());
+    }
+
+    @Test
+    public void testSharedPerProfile() {
+        JdbcConnectionProfile profile = new JdbcConnectionProfile("shared", "h2", "org.h2.Driver", "jdbc:h2:mem:a", "sa", "", null);
+        MetadataCache cache = MetadataCache.forProfile(profile);
+        profile.setMetadataCacheTtl(0);
+        assertSame(cache, MetadataCache.forProfile(profile));
+
+        profile.setUser("other");
+        MetadataCache otherUser = MetadataCache.forProfile(profile);
+        assertNotSame(cache, otherUser);
+        profile.setUrl("jdbc:h2:mem:b");
+        assertNotSame(otherUser, MetadataCache.forProfile(profile));
+
+        profile.setMetadataCacheTtl(5);
+        MetadataCache changedTtl = MetadataCache.forProfile(profile);
+        assertNotSame(cache, changedTtl);
+        assertSame(changedTtl, MetadataCache.forProfile(profile));
+
+        MetadataCache.removeProfile("shared");
+        assertNotSame(changedTtl, MetadataCache.forProfile(profile));
+    }
+
+    @Test
+    public void testSchemaChange() {
+        assertTrue(MetadataCache.isSchemaChange("CREATE TABLE x (id int)"));
+        assertTrue(MetadataCache.isSchemaChange("insert into t values (1);\n  drop table u"));
+        assertFalse(MetadataCache.isSchemaChange("select created from t"));
+        assertFalse(MetadataCache.isSchemaChange("update t set name = 'alter'"));
+    }
+}
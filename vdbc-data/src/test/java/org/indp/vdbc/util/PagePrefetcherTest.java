@@ -0,0 +1,157 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.services.QueryScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PagePrefetcherTest {
+
+    private QueryScheduler scheduler;
+    private QueryScheduler.Queue queue;
+    private Connection connection;
+    private List<Integer> loaded;
+
+    @Before
+    public void setUp() throws Exception {
+        scheduler = new QueryScheduler(2, 2, 8);
+        queue = scheduler.createQueue("test", null);
+        connection = DriverManager.getConnection("jdbc:h2:mem:prefetch" + System.nanoTime(), "sa", "");
+        loaded = Collections.synchronizedList(new ArrayList<Integer>());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdown();
+        connection.close();
+    }
+
+    @Test
+    public void testReadsAheadInScrollDirection() throws Exception {
+        PagePrefetcher prefetcher = new PagePrefetcher(queue, source(100), 2, 6);
+
+        assertRows(prefetcher.getPage(0, 10), 0, 10);
+        awaitIdle();
+        assertEquals(sorted(0, 10, 20), sorted(loaded));
+
+        loaded.clear();
+        assertRows(prefetcher.getPage(10, 10), 10, 10);
+        assertRows(prefetcher.getPage(20, 10), 20, 10);
+        awaitIdle();
+        // pages 10 and 20 came from the cache, 30 and 40 were read ahead
+        assertEquals(sorted(30, 40), sorted(loaded));
+
+        loaded.clear();
+        prefetcher.invalidate();
+        assertRows(prefetcher.getPage(50, 10), 50, 10);
+        assertRows(prefetcher.getPage(40, 10), 40, 10);
+        awaitIdle();
+        assertTrue(loaded.contains(30));
+        assertTrue(loaded.contains(20));
+    }
+
+    @Test
+    public void testStopsAtEnd() throws Exception {
+        PagePrefetcher prefetcher = new PagePrefetcher(queue, source(25), 2, 6);
+        assertRows(prefetcher.getPage(20, 10), 20, 5);
+        awaitIdle();
+        assertEquals(Collections.singletonList(20), new ArrayList<>(loaded));
+    }
+
+    @Test
+    public void testLoadsQueuedPageOnRequestingThread() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        QueryScheduler.Queue blocked = scheduler.createQueue("blocked", 1);
+        blocked.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            PagePrefetcher prefetcher = new PagePrefetcher(blocked, source(100), 2, 6);
+            assertRows(prefetcher.getPage(0, 10), 0, 10);
+            // the prefetch of the next page is stuck behind the blocking task
+            assertRows(prefetcher.getPage(10, 10), 10, 10);
+        } finally {
+            gate.countDown();
+        }
+    }
+
+    private PagePrefetcher.PageSource source(final int size) {
+        return new PagePrefetcher.PageSource() {
+            @Override
+            public Callable<ResultPage> createTask(final int offset, final int limit) {
+                return new Callable<ResultPage>() {
+                    @Override
+                    public ResultPage call() throws SQLException {
+                        loaded.add(offset);
+                        PreparedStatement statement = connection.prepareStatement(
+                                "select x from system_range(0, ?) order by x limit ? offset ?");
+                        try {
+                            statement.setInt(1, size - 1);
+                            statement.setInt(2, limit);
+                            statement.setInt(3, offset);
+                            ResultSet rs = statement.executeQuery();
+                            return ResultPage.read(rs);
+                        } finally {
+                            statement.close();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    private void assertRows(ResultPage page, int first, int count) throws SQLException {
+        ResultSet rs = page.toResultSet();
+        assertEquals("X", rs.getMetaData().getColumnLabel(1));
+        for (int i = 0; i < count; i++) {
+            assertTrue(rs.next());
+            assertEquals(i + 1, rs.getRow());
+            assertEquals((long) first + i, ((Number) rs.getObject("x")).longValue());
+        }
+        assertFalse(rs.next());
+        rs.getStatement().close();
+        rs.close();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while ((queue.getQueueDepth() > 0 || queue.getRunningCount() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Integer> sorted(Integer... values) {
+        return sorted(Arrays.asList(values));
+    }
+
+    private static List<Integer> sorted(List<Integer> values) {
+        List<Integer> list = new ArrayList<>(values);
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,97 @@
+package org.indp.vdbc.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.indp.vdbc.db.DialectSupport;
+import org.indp.vdbc.model.jdbc.JdbcForeignKey;
+import org.indp.vdbc.model.jdbc.JdbcIndex;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.model.jdbc.SchemaSnapshot;
+import org.indp.vdbc.model.jdbc.SnapshotTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SchemaSnapshotTest {
+
+    private Connection connection;
+    private MetadataRetriever retriever;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:snapshot" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        statement.execute("create table customer (id int primary key, name varchar(50) not null, rating decimal(5, 2))");
+        statement.execute("create table orders (region int, num int, customer_id int references customer(id), primary key (region, num))");
+        statement.execute("create unique index orders_customer on orders (customer_id, num)");
+        statement.close();
+        retriever = new MetadataRetriever(dataSource, DialectSupport.getDialect("h2"), new MetadataCache(60));
+    }
+
+    @After
+    public void tearDown() {
+        JdbcUtils.close(connection);
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        assertTrue(retriever.supportsSchemaSnapshot());
+        SchemaSnapshot snapshot = retriever.getSchemaSnapshot(null, "PUBLIC");
+        assertEquals(2, snapshot.getTables().size());
+
+        SnapshotTable customer = snapshot.getTable("CUSTOMER");
+        assertEquals(Arrays.asList("ID", "NAME", "RATING"), customer.getColumnNames());
+        assertEquals("VARCHAR(50)", customer.getColumns().get(1).getTypeName());
+        assertFalse(customer.getColumns().get(1).isNullable());
+        assertEquals("DECIMAL(5, 2)", customer.getColumns().get(2).getTypeName());
+        assertEquals(Collections.singletonList("ID"), customer.getPrimaryKey());
+        assertTrue(customer.getForeignKeys().isEmpty());
+
+        SnapshotTable orders = snapshot.getTable("ORDERS");
+        assertEquals(Arrays.asList("REGION", "NUM"), orders.getPrimaryKey());
+        assertEquals(1, orders.getForeignKeys().size());
+        JdbcForeignKey foreignKey = orders.getForeignKeys().get(0);
+        assertEquals(Collections.singletonList("CUSTOMER_ID"), foreignKey.getColumns());
+        assertEquals("CUSTOMER", foreignKey.getReferencedTable());
+        assertEquals(Collections.singletonList("ID"), foreignKey.getReferencedColumns());
+
+        JdbcIndex index = null;
+        for (JdbcIndex candidate : orders.getIndexes()) {
+            if ("ORDERS_CUSTOMER".equals(candidate.getName())) {
+                index = candidate;
+            }
+        }
+        assertNotNull(index);
+        assertTrue(index.isUnique());
+        assertEquals(Arrays.asList("CUSTOMER_ID", "NUM"), index.getColumns());
+    }
+
+    @Test
+    public void testLookupsUseCachedSnapshot() throws Exception {
+        retriever.getSchemaSnapshot(null, "PUBLIC");
+        connection.createStatement().execute("alter table customer add column extra int");
+
+        JdbcTable customer = new JdbcTable(null, "PUBLIC", "CUSTOMER");
+        assertEquals(3, retriever.getColumnNames(customer).size());
+        assertEquals(Collections.singletonList("ID"), retriever.getPrimaryKeys(customer));
+
+        retriever.invalidate();
+        assertEquals(4, retriever.getColumnNames(customer).size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        retriever.getSchemaSnapshot(null, "PUBLIC").getTable("CUSTOMER").setName("other");
+    }
+}
@@ -0,0 +1,64 @@
+package org.indp.vdbc.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SqlScriptSplitterTest {
+
+    private static final List<String> NO_DELIMITERS = Collections.emptyList();
+
+    @Test
+    public void testSplitsOnSemicolon() {
+        assertEquals(Arrays.asList("create table t (id int)", "insert into t values (1)", "select * from t"),
+                SqlScriptSplitter.split("create table t (id int);\ninsert into t values (1);\n\nselect * from t", NO_DELIMITERS));
+    }
+
+    @Test
+    public void testIgnoresDelimitersInLiteralsAndComments() {
+        List<String> statements = SqlScriptSplitter.split(
+                "insert into t values ('a;b', \"c;d\");\n" +
+                        "-- comment; with semicolon\n" +
+                        "/* block; comment */ select $$x;y$$ from t;\n" +
+                        "-- trailing comment only",
+                NO_DELIMITERS);
+        assertEquals(2, statements.size());
+        assertEquals("insert into t values ('a;b', \"c;d\")", statements.get(0));
+        assertTrue(statements.get(1).endsWith("select $$x;y$$ from t"));
+    }
+
+    @Test
+    public void testOracleBlocksEndAtSlash() {
+        List<String> statements = SqlScriptSplitter.split(
+                "create or replace procedure p as\nbegin\n  null;\nend;\n/\n" +
+                        "select 1 from dual;\n/\n" +
+                        "select 2 from dual\n/\n",
+                Arrays.asList("/"));
+        assertEquals(Arrays.asList(
+                "create or replace procedure p as\nbegin\n  null;\nend;",
+                "select 1 from dual",
+                "select 2 from dual"), statements);
+    }
+
+    @Test
+    public void testGoDelimiter() {
+        List<String> statements = SqlScriptSplitter.split("select 1\ngo\nselect 2\nGO", Arrays.asList("GO"));
+        assertEquals(Arrays.asList("select 1", "select 2"), statements);
+    }
+
+    @Test
+    public void testIsBatchable() {
+        assertTrue(SqlScriptSplitter.isBatchable("insert into t values ('?')"));
+        assertTrue(SqlScriptSplitter.isBatchable("-- comment\n update t set a = 1"));
+        assertFalse(SqlScriptSplitter.isBatchable("insert into t values (?)"));
+        assertFalse(SqlScriptSplitter.isBatchable("select * from t"));
+        assertFalse(SqlScriptSplitter.isBatchable("create table t (id int)"));
+    }
+}
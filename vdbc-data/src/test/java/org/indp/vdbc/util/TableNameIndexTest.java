@@ -0,0 +1,55 @@
+package org.indp.vdbc.util;
+
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TableNameIndexTest {
+
+    @Test
+    public void testFilter() {
+        TableNameIndex index = new TableNameIndex(tables("ORDERS", "order_items", "CUSTOMER", "customer_orders", "x"));
+        assertEquals(5, index.filter(null).size());
+        assertEquals(5, index.filter(" ").size());
+        assertEquals(Arrays.asList("ORDERS", "order_items", "customer_orders"), names(index.filter("Order")));
+        assertEquals(Arrays.asList("CUSTOMER", "customer_orders"), names(index.filter("cus")));
+        assertEquals(Arrays.asList("customer_orders"), names(index.filter("r_o")));
+        assertEquals(Arrays.asList("x"), names(index.filter("x")));
+        assertTrue(index.filter("missing").isEmpty());
+    }
+
+    @Test
+    public void testManyTables() {
+        List<JdbcTable> tables = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            tables.add(new JdbcTable(null, "DW", "FACT_" + i));
+        }
+        TableNameIndex index = new TableNameIndex(tables);
+        assertEquals(Arrays.asList("FACT_12345"), names(index.filter("fact_12345")));
+        assertEquals(11, index.filter("_3999").size());
+    }
+
+    private static List<JdbcTable> tables(String... names) {
+        List<JdbcTable> tables = new ArrayList<>();
+        for (String name : names) {
+            tables.add(new JdbcTable(null, "PUBLIC", name));
+        }
+        return tables;
+    }
+
+    private static List<String> names(List<JdbcTable> tables) {
+        List<String> names = new ArrayList<>();
+        for (JdbcTable table : tables) {
+            names.add(table.getName());
+        }
+        return names;
+    }
+}
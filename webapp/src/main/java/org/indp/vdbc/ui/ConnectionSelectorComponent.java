@@ -12,6 +12,7 @@ import org.indp.vdbc.ui.profile.ConnectionProfileLoginPanelFactory;
 import org.indp.vdbc.ui.profile.ConnectionProfileSupportService;
 import org.indp.vdbc.ui.settings.ProfileSettingsDialog;
 import org.indp.vdbc.ui.settings.ProfileTypeSelectorDialog;
+import org.indp.vdbc.util.MetadataCache;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -220,6 +221,7 @@ public class ConnectionSelectorComponent extends VerticalLayout {
                 SettingsManager settingsManager = SettingsManager.get();
                 settingsManager.getConfiguration().removeProfile(profile);
                 settingsManager.persistConfiguration();
+                MetadataCache.removeProfile(profile.getName());
                 recreateRootLayout();
             }
         });
@@ -0,0 +1,186 @@
+package org.indp.vdbc.ui;
+
+import com.vaadin.data.Property;
+import com.vaadin.event.ShortcutAction;
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.StreamResource;
+import com.vaadin.ui.*;
+import org.indp.vdbc.export.ExportFormat;
+import org.indp.vdbc.export.ExportInputStream;
+import org.indp.vdbc.result.ResultBuffer;
+import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.util.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lets the user download the result of a query in one of the {@link ExportFormat export formats}.
+ * <p/>
+ * The query is executed again when the download starts and the rows are streamed to the browser as they are read.
+ * It is prepared once when the dialog is created, so a broken query is reported before the download is offered.
+ * Results kept in a {@link ResultBuffer} are exported from the buffer instead, in the order they are shown.
+ */
+public class ExportDialog extends Window {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportDialog.class);
+
+    private final DatabaseSession databaseSession;
+    private final String sql;
+    private final List<?> parameters;
+    private final ResultBuffer buffer;
+    private final ComboBox formatBox;
+    private final CheckBox gzipCheckBox;
+    private final TextField tableNameField;
+    private final FileDownloader downloader;
+
+    /**
+     * @throws SQLException if the query can't be prepared
+     */
+    public ExportDialog(DatabaseSession databaseSession, String sql, String tableName) throws SQLException {
+        this(databaseSession, sql, Collections.emptyList(), tableName);
+    }
+
+    /**
+     * @param parameters values of the bind parameters of the query
+     * @throws SQLException if the query can't be prepared
+     */
+    public ExportDialog(DatabaseSession databaseSession, String sql, List<?> parameters, String tableName) throws SQLException {
+        this(databaseSession, sql, parameters, null, tableName);
+        validate();
+    }
+
+    /**
+     * @param buffer rows to export, the buffer stays owned by the caller
+     */
+    public ExportDialog(ResultBuffer buffer, String tableName) {
+        this(null, null, Collections.emptyList(), buffer, tableName);
+    }
+
+    private ExportDialog(DatabaseSession databaseSession, String sql, List<?> parameters, ResultBuffer buffer, String tableName) {
+        this.databaseSession = databaseSession;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.buffer = buffer;
+
+        formatBox = new ComboBox("Format", Arrays.asList(ExportFormat.values()));
+        for (ExportFormat format : ExportFormat.values()) {
+            formatBox.setItemCaption(format, format.getTitle());
+        }
+        formatBox.setNullSelectionAllowed(false);
+        formatBox.setTextInputAllowed(false);
+        formatBox.setImmediate(true);
+        formatBox.setValue(ExportFormat.CSV);
+
+        tableNameField = new TextField("Table name", tableName);
+        tableNameField.setImmediate(true);
+        tableNameField.setVisible(false);
+
+        gzipCheckBox = new CheckBox("Compress (gzip)", false);
+        gzipCheckBox.setImmediate(true);
+
+        Button downloadButton = new Button("Download");
+        downloader = new FileDownloader(createResource());
+        downloader.extend(downloadButton);
+
+        Property.ValueChangeListener optionsListener = new Property.ValueChangeListener() {
+            @Override
+            public void valueChange(Property.ValueChangeEvent event) {
+                tableNameField.setVisible(getFormat() == ExportFormat.INSERT);
+                downloader.setFileDownloadResource(createResource());
+            }
+        };
+        formatBox.addValueChangeListener(optionsListener);
+        tableNameField.addValueChangeListener(optionsListener);
+        gzipCheckBox.addValueChangeListener(optionsListener);
+
+        Button closeButton = new Button("Close", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                close();
+            }
+        });
+
+        HorizontalLayout buttons = new HorizontalLayout(downloadButton, closeButton);
+        buttons.setSpacing(true);
+
+        FormLayout form = new FormLayout(formatBox, tableNameField, gzipCheckBox);
+        VerticalLayout root = new VerticalLayout(form, buttons);
+        root.setSpacing(true);
+        root.setMargin(true);
+        root.setComponentAlignment(buttons, Alignment.BOTTOM_RIGHT);
+
+        setContent(root);
+        setCaption("Export");
+        setResizable(false);
+        setModal(true);
+        setCloseShortcut(ShortcutAction.KeyCode.ESCAPE);
+    }
+
+    /**
+     * Prepares the query without executing it, most drivers check syntax and names at this point.
+     */
+    private void validate() throws SQLException {
+        Connection connection = databaseSession.getConnection();
+        try {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            try {
+                statement.getMetaData();
+            } finally {
+                JdbcUtils.close(statement);
+            }
+        } finally {
+            JdbcUtils.close(connection);
+        }
+    }
+
+    private StreamResource createResource() {
+        final UI ui = UI.getCurrent();
+        final ExportFormat format = getFormat();
+        final boolean gzip = Boolean.TRUE.equals(gzipCheckBox.getValue());
+        final String tableName = tableNameField.getValue();
+        StreamResource resource = new StreamResource(new StreamResource.StreamSource() {
+            @Override
+            public InputStream getStream() {
+                try {
+                    return buffer != null
+                            ? new ExportInputStream(buffer, format, tableName, gzip)
+                            : new ExportInputStream(databaseSession, sql, parameters, format, tableName, gzip);
+                } catch (final SQLException | IOException e) {
+                    LOG.warn("failed to start export", e);
+                    // the download request can't show anything, report it with the next UI update
+                    ui.access(new Runnable() {
+                        @Override
+                        public void run() {
+                            Notification.show("Export failed\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+                        }
+                    });
+                    return null;
+                }
+            }
+        }, buildFileName(tableName, format, gzip));
+        resource.setMIMEType(gzip ? "application/gzip" : format.getMimeType());
+        resource.setCacheTime(0);
+        return resource;
+    }
+
+    private ExportFormat getFormat() {
+        return (ExportFormat) formatBox.getValue();
+    }
+
+    private static String buildFileName(String tableName, ExportFormat format, boolean gzip) {
+        String name = tableName == null ? "" : tableName.replaceAll("[^A-Za-z0-9_.-]+", "_");
+        if (name.isEmpty()) {
+            name = "export";
+        }
+        return name + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+}
@@ -0,0 +1,308 @@
+package org.indp.vdbc.ui;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.AbstractContainer;
+import com.vaadin.data.util.AbstractProperty;
+import org.indp.vdbc.result.ResultBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only, sortable container showing the rows of a {@link ResultBuffer}.
+ * <p/>
+ * The container owns the buffer and closes it on {@link #close()}.
+ */
+public class ResultBufferContainer extends AbstractContainer implements Container.Indexed, Container.Sortable, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResultBufferContainer.class);
+
+    private final ResultBuffer buffer;
+    private final List<String> propertyIds = new ArrayList<>();
+
+    // the table reads a row cell by cell, so keep the last decoded row around
+    private int cachedIndex = -1;
+    private Object[] cachedRow;
+
+    public ResultBufferContainer(ResultBuffer buffer) {
+        this.buffer = buffer;
+        for (int i = 0; i < buffer.getColumnCount(); i++) {
+            propertyIds.add(buffer.getColumnLabel(i));
+        }
+    }
+
+    public ResultBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        cachedRow = null;
+        try {
+            buffer.close();
+        } catch (IOException e) {
+            LOG.warn("failed to close result buffer", e);
+        }
+    }
+
+    private Object[] getRow(int index) {
+        if (index != cachedIndex) {
+            cachedRow = buffer.getRow(index);
+            cachedIndex = index;
+        }
+        return cachedRow;
+    }
+
+    private int toIndex(Object itemId) {
+        if (itemId instanceof Integer) {
+            int index = (Integer) itemId;
+            if (index >= 0 && index < buffer.getRowCount()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    // Container
+
+    @Override
+    public int size() {
+        return buffer.getRowCount();
+    }
+
+    @Override
+    public Item getItem(Object itemId) {
+        int index = toIndex(itemId);
+        return index < 0 ? null : new RowItem(index);
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.unmodifiableList(propertyIds);
+    }
+
+    @Override
+    public Collection<?> getItemIds() {
+        return getItemIds(0, size());
+    }
+
+    @Override
+    public Property getContainerProperty(Object itemId, Object propertyId) {
+        int index = toIndex(itemId);
+        int column = propertyIds.indexOf(propertyId);
+        return index < 0 || column < 0 ? null : new CellProperty(index, column);
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        int column = propertyIds.indexOf(propertyId);
+        return column < 0 ? null : buffer.getColumnType(column);
+    }
+
+    @Override
+    public boolean containsId(Object itemId) {
+        return toIndex(itemId) >= 0;
+    }
+
+    // Container.Indexed
+
+    @Override
+    public int indexOfId(Object itemId) {
+        return toIndex(itemId);
+    }
+
+    @Override
+    public Object getIdByIndex(int index) {
+        return index >= 0 && index < size() ? index : null;
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        int end = Math.min(startIndex + numberOfItems, size());
+        List<Integer> ids = new ArrayList<>(Math.max(end - startIndex, 0));
+        for (int i = startIndex; i < end; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    // Container.Ordered
+
+    @Override
+    public Object nextItemId(Object itemId) {
+        int index = toIndex(itemId);
+        return index < 0 ? null : getIdByIndex(index + 1);
+    }
+
+    @Override
+    public Object prevItemId(Object itemId) {
+        int index = toIndex(itemId);
+        return index <= 0 ? null : index - 1;
+    }
+
+    @Override
+    public Object firstItemId() {
+        return getIdByIndex(0);
+    }
+
+    @Override
+    public Object lastItemId() {
+        return getIdByIndex(size() - 1);
+    }
+
+    @Override
+    public boolean isFirstId(Object itemId) {
+        return toIndex(itemId) == 0;
+    }
+
+    @Override
+    public boolean isLastId(Object itemId) {
+        return toIndex(itemId) == size() - 1;
+    }
+
+    // Container.Sortable
+
+    @Override
+    public void sort(Object[] propertyId, boolean[] ascending) {
+        List<Integer> columns = new ArrayList<>();
+        List<Boolean> directions = new ArrayList<>();
+        for (int i = 0; i < propertyId.length; i++) {
+            int column = propertyIds.indexOf(propertyId[i]);
+            if (column >= 0) {
+                columns.add(column);
+                directions.add(i >= ascending.length || ascending[i]);
+            }
+        }
+        int[] sortColumns = new int[columns.size()];
+        boolean[] sortDirections = new boolean[columns.size()];
+        for (int i = 0; i < sortColumns.length; i++) {
+            sortColumns[i] = columns.get(i);
+            sortDirections[i] = directions.get(i);
+        }
+        buffer.sort(sortColumns, sortDirections);
+        cachedIndex = -1;
+        cachedRow = null;
+        fireItemSetChange();
+    }
+
+    @Override
+    public Collection<?> getSortableContainerPropertyIds() {
+        return buffer.isSortable() ? getContainerPropertyIds() : Collections.emptyList();
+    }
+
+    // read-only container
+
+    @Override
+    public Item addItem(Object itemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItem() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeItem(Object itemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addContainerProperty(Object propertyId, Class<?> type, Object defaultValue) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeContainerProperty(Object propertyId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAllItems() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAt(int index) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAfter(Object previousItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAfter(Object previousItemId, Object newItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    private class RowItem implements Item {
+
+        private final int index;
+
+        private RowItem(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Property getItemProperty(Object id) {
+            return getContainerProperty(index, id);
+        }
+
+        @Override
+        public Collection<?> getItemPropertyIds() {
+            return getContainerPropertyIds();
+        }
+
+        @Override
+        public boolean addItemProperty(Object id, Property property) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeItemProperty(Object id) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class CellProperty extends AbstractProperty<Object> {
+
+        private final int index;
+        private final int column;
+
+        private CellProperty(int index, int column) {
+            this.index = index;
+            this.column = column;
+            setReadOnly(true);
+        }
+
+        @Override
+        public Object getValue() {
+            return getRow(index)[column];
+        }
+
+        @Override
+        public void setValue(Object newValue) throws ReadOnlyException {
+            throw new ReadOnlyException();
+        }
+
+        @Override
+        public Class<?> getType() {
+            return buffer.getColumnType(column);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package org.indp.vdbc.ui;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.AbstractContainer;
+import com.vaadin.data.util.AbstractProperty;
+import org.indp.vdbc.result.FileResultBuffer;
+import org.indp.vdbc.util.JdbcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only container which pulls rows from an open cursor as they are requested by the table.
+ * <p/>
+ * Rows read from the cursor are spilled to a {@link FileResultBuffer}, only the most recently shown pages are kept on
+ * the heap, so scrolling through a large result doesn't fill it. The container owns the result set and its statement,
+ * both are closed once the cursor is exhausted or {@link #close()} is called. The buffer file is deleted on close.
+ * An optional callback runs right after the cursor is closed, e.g. to end the transaction the cursor was read in.
+ */
+public class ResultSetContainer extends AbstractContainer implements Container.Indexed, Container.ItemSetChangeNotifier, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResultSetContainer.class);
+    private static final int CACHED_PAGES = 10;
+
+    private final List<String> propertyIds = new ArrayList<>();
+    private final FileResultBuffer buffer;
+    private final int pageSize;
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<Integer, Object[][]>(CACHED_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    private final Runnable cursorCloseCallback;
+
+    private ResultSet resultSet;
+    private boolean firingItemSetChange;
+
+    public ResultSetContainer(ResultSet resultSet, int pageSize) throws SQLException {
+        this(resultSet, pageSize, null);
+    }
+
+    /**
+     * @param cursorCloseCallback called once the cursor has been closed, may be null
+     */
+    public ResultSetContainer(ResultSet resultSet, int pageSize, Runnable cursorCloseCallback) throws SQLException {
+        this.resultSet = resultSet;
+        this.cursorCloseCallback = cursorCloseCallback;
+        this.pageSize = pageSize > 0 ? pageSize : 100;
+        try {
+            buffer = new FileResultBuffer(resultSet.getMetaData());
+        } catch (IOException e) {
+            throw new SQLException("failed to create result buffer file", e);
+        }
+        for (int i = 0; i < buffer.getColumnCount(); i++) {
+            propertyIds.add(buffer.getColumnLabel(i));
+        }
+
+        fetch(this.pageSize);
+    }
+
+    /**
+     * @return true if all rows have been read from the cursor
+     */
+    public boolean isExhausted() {
+        return resultSet == null;
+    }
+
+    /**
+     * @return number of rows read from the cursor so far
+     */
+    public int getFetchedRowCount() {
+        return buffer.getRowCount();
+    }
+
+    @Override
+    public void close() {
+        closeCursor();
+        pages.clear();
+        buffer.close();
+    }
+
+    private void closeCursor() {
+        if (resultSet != null) {
+            Statement statement = null;
+            try {
+                statement = resultSet.getStatement();
+            } catch (SQLException e) {
+                LOG.debug("failed to get statement of the result set", e);
+            }
+            JdbcUtils.close(resultSet);
+            if (statement != null) {
+                JdbcUtils.close(statement);
+            }
+            resultSet = null;
+            if (cursorCloseCallback != null) {
+                cursorCloseCallback.run();
+            }
+        }
+    }
+
+    /**
+     * Reads rows from the cursor until at least {@code count} rows are available or the cursor is exhausted.
+     */
+    private void fetch(int count) {
+        int rowCount = buffer.getRowCount();
+        if (resultSet == null || rowCount >= count) {
+            return;
+        }
+        int target = (int) Math.min(Integer.MAX_VALUE, ((count + (long) pageSize - 1) / pageSize) * pageSize);
+        // the last page may be incomplete and gets new rows
+        pages.remove(rowCount / pageSize);
+        try {
+            if (buffer.loadMore(resultSet, target - rowCount) < target - rowCount) {
+                closeCursor();
+            }
+        } catch (SQLException | IOException e) {
+            LOG.warn("failed to fetch rows, closing the cursor", e);
+            closeCursor();
+        }
+    }
+
+    private void ensureFetched(int count) {
+        int sizeBefore = size();
+        fetch(count);
+        if (size() != sizeBefore && !firingItemSetChange) {
+            firingItemSetChange = true;
+            try {
+                fireItemSetChange();
+            } finally {
+                firingItemSetChange = false;
+            }
+        }
+    }
+
+    private Object[] getRow(int index) {
+        int page = index / pageSize;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            int start = page * pageSize;
+            rows = new Object[Math.min(pageSize, buffer.getRowCount() - start)][];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = buffer.getRow(start + i);
+            }
+            pages.put(page, rows);
+        }
+        return rows[index - page * pageSize];
+    }
+
+    private int toIndex(Object itemId) {
+        if (itemId instanceof Integer) {
+            int index = (Integer) itemId;
+            if (index >= 0 && index < buffer.getRowCount()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Integer> ids(final int start, final int end) {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return start + index;
+            }
+
+            @Override
+            public int size() {
+                return Math.max(end - start, 0);
+            }
+        };
+    }
+
+    // Container
+
+    @Override
+    public int size() {
+        // while the cursor is open we pretend there is one more page so the table lets the user scroll to it
+        return resultSet == null ? buffer.getRowCount() : buffer.getRowCount() + pageSize;
+    }
+
+    @Override
+    public Item getItem(Object itemId) {
+        int index = toIndex(itemId);
+        return index < 0 ? null : new RowItem(index);
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.unmodifiableList(propertyIds);
+    }
+
+    @Override
+    public Collection<?> getItemIds() {
+        // rows read so far, reading the rest of the cursor is left to scrolling
+        return ids(0, buffer.getRowCount());
+    }
+
+    @Override
+    public Property getContainerProperty(Object itemId, Object propertyId) {
+        int index = toIndex(itemId);
+        int column = propertyIds.indexOf(propertyId);
+        return index < 0 || column < 0 ? null : new CellProperty(index, column);
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        int column = propertyIds.indexOf(propertyId);
+        return column < 0 ? null : buffer.getColumnType(column);
+    }
+
+    @Override
+    public boolean containsId(Object itemId) {
+        if (itemId instanceof Integer) {
+            ensureFetched((Integer) itemId + 1);
+        }
+        return toIndex(itemId) >= 0;
+    }
+
+    // Container.Indexed
+
+    @Override
+    public int indexOfId(Object itemId) {
+        return toIndex(itemId);
+    }
+
+    @Override
+    public Object getIdByIndex(int index) {
+        ensureFetched(index + 1);
+        return index < buffer.getRowCount() ? index : null;
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        ensureFetched(startIndex + numberOfItems);
+        return ids(startIndex, Math.min(startIndex + numberOfItems, buffer.getRowCount()));
+    }
+
+    // Container.Ordered
+
+    @Override
+    public Object nextItemId(Object itemId) {
+        int index = toIndex(itemId);
+        return index < 0 ? null : getIdByIndex(index + 1);
+    }
+
+    @Override
+    public Object prevItemId(Object itemId) {
+        int index = toIndex(itemId);
+        return index <= 0 ? null : index - 1;
+    }
+
+    @Override
+    public Object firstItemId() {
+        return getIdByIndex(0);
+    }
+
+    @Override
+    public Object lastItemId() {
+        return buffer.getRowCount() == 0 ? null : buffer.getRowCount() - 1;
+    }
+
+    @Override
+    public boolean isFirstId(Object itemId) {
+        return toIndex(itemId) == 0;
+    }
+
+    @Override
+    public boolean isLastId(Object itemId) {
+        return resultSet == null && toIndex(itemId) == buffer.getRowCount() - 1;
+    }
+
+    // Container.ItemSetChangeNotifier
+
+    @Override
+    public void addItemSetChangeListener(ItemSetChangeListener listener) {
+        super.addItemSetChangeListener(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void addListener(ItemSetChangeListener listener) {
+        super.addItemSetChangeListener(listener);
+    }
+
+    @Override
+    public void removeItemSetChangeListener(ItemSetChangeListener listener) {
+        super.removeItemSetChangeListener(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void removeListener(ItemSetChangeListener listener) {
+        super.removeItemSetChangeListener(listener);
+    }
+
+    // read-only container
+
+    @Override
+    public Item addItem(Object itemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItem() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeItem(Object itemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addContainerProperty(Object propertyId, Class<?> type, Object defaultValue) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeContainerProperty(Object propertyId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAllItems() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAt(int index) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAfter(Object previousItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAfter(Object previousItemId, Object newItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    private class RowItem implements Item {
+
+        private final int index;
+
+        private RowItem(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Property getItemProperty(Object id) {
+            return getContainerProperty(index, id);
+        }
+
+        @Override
+        public Collection<?> getItemPropertyIds() {
+            return getContainerPropertyIds();
+        }
+
+        @Override
+        public boolean addItemProperty(Object id, Property property) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeItemProperty(Object id) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class CellProperty extends AbstractProperty<Object> {
+
+        private final int index;
+        private final int column;
+
+        private CellProperty(int index, int column) {
+            this.index = index;
+            this.column = column;
+            setReadOnly(true);
+        }
+
+        @Override
+        public Object getValue() {
+            return getRow(index)[column];
+        }
+
+        @Override
+        public void setValue(Object newValue) throws ReadOnlyException {
+            throw new ReadOnlyException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<?> getType() {
+            return buffer.getColumnType(column);
+        }
+    }
+}
@@ -1,18 +1,17 @@
 package org.indp.vdbc.ui;
 
-import com.vaadin.data.Container;
-import com.vaadin.data.Item;
-import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.Table;
 import com.vaadin.ui.VerticalLayout;
+import org.indp.vdbc.result.ColumnarResultBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -20,6 +19,7 @@ import java.util.List;
 public class ResultSetTable extends VerticalLayout {
     private static final Logger LOG = LoggerFactory.getLogger(ResultSetTable.class);
     private Table table;
+    private ColumnarResultBuffer buffer;
 
     public ResultSetTable(ResultSet resultSet) {
         this(resultSet, null);
@@ -31,6 +31,7 @@ public class ResultSetTable extends VerticalLayout {
             table = createResultsTable(resultSet, columns);
             content = table;
         } catch (Exception ex) {
+            LOG.debug("failed to process result set", ex);
             content = new Label("Failed to process supplied result set: " + ex.getMessage());
         }
 
@@ -38,38 +39,59 @@ public class ResultSetTable extends VerticalLayout {
         addComponent(content);
     }
 
+    /**
+     * Shows an already loaded buffer.
+     */
+    public ResultSetTable(ColumnarResultBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * Shows the given columns of an already loaded buffer.
+     */
+    public ResultSetTable(ColumnarResultBuffer buffer, List<String> columns) {
+        this.buffer = buffer;
+        table = createTable(columns);
+        setSizeFull();
+        addComponent(table);
+    }
+
     public Collection<?> getItemIds() {
         return null != table ? table.getItemIds() : Collections.emptyList();
     }
 
-    protected Table createResultsTable(ResultSet rs, List<String> columns) throws SQLException {
-        ResultSetMetaData md = rs.getMetaData();
-        Container c = new IndexedContainer();
-        for (int i = 0; i < md.getColumnCount(); ++i) {
-            String label = md.getColumnLabel(i + 1);
-            if (null == columns || columns.contains(label)) {
-                Class<?> clazz = getClassForSqlType(md.getColumnClassName(i + 1));
-                c.addContainerProperty(label, clazz, null);
-            }
-        }
-
-        int i = 0;
-        while (rs.next()) {
-            Item item = c.addItem(i++);
-            for (Object propertyId : c.getContainerPropertyIds()) {
-                item.getItemProperty(propertyId).setValue(rs.getObject(propertyId.toString()));
-            }
-        }
+    public int getRowCount() {
+        return null != buffer ? buffer.getRowCount() : 0;
+    }
 
-        return UiUtils.createTable(c);
+    /**
+     * @return loaded rows, null if the result set could not be read
+     */
+    public ColumnarResultBuffer getBuffer() {
+        return null != table ? buffer : null;
     }
 
-    protected Class<?> getClassForSqlType(String name) {
+    protected Table createResultsTable(ResultSet rs, List<String> columns) throws SQLException {
+        buffer = new ColumnarResultBuffer(rs.getMetaData());
         try {
-            return Class.forName(name);
-        } catch (Exception ex) {
-            LOG.warn("unable to get class for name " + name, ex);
-            return null;
+            buffer.load(rs);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+        return createTable(columns);
+    }
+
+    private Table createTable(List<String> columns) {
+        Table table = UiUtils.createTable(new ResultBufferContainer(buffer));
+        if (null != columns) {
+            List<Object> visibleColumns = new ArrayList<>();
+            for (Object column : table.getVisibleColumns()) {
+                if (columns.contains(column.toString())) {
+                    visibleColumns.add(column);
+                }
+            }
+            table.setVisibleColumns(visibleColumns.toArray());
         }
+        return table;
     }
 }
@@ -11,6 +11,7 @@ import org.indp.vdbc.services.DatabaseSession;
 import org.indp.vdbc.ui.explorer.TablesView;
 import org.indp.vdbc.ui.metadata.DatabaseMetadataView;
 import org.indp.vdbc.ui.query.QueryExecutorComponent;
+import org.indp.vdbc.ui.query.RunningStatementsWindow;
 import org.indp.vdbc.util.UnsafeCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +96,12 @@ public class WorkspaceView extends VerticalLayout {
                 addPage(new DatabaseMetadataView(databaseSession));
             }
         });
+        rootItem.addItem("Running Statements", new UnsafeCommand() {
+            @Override
+            public void menuSelectedImpl(MenuBar.MenuItem selectedItem) throws Exception {
+                getUI().addWindow(new RunningStatementsWindow(databaseSession.getExecutionRegistry(), databaseSession.getQueryQueue()));
+            }
+        });
         return menuBar;
     }
 
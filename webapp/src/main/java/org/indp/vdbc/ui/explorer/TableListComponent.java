@@ -3,7 +3,6 @@ package org.indp.vdbc.ui.explorer;
 import com.vaadin.data.Property;
 import com.vaadin.data.Property.ValueChangeEvent;
 import com.vaadin.data.Property.ValueChangeListener;
-import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.event.FieldEvents;
 import com.vaadin.event.ItemClickEvent;
 import com.vaadin.event.ItemClickEvent.ItemClickListener;
@@ -15,23 +14,36 @@ import org.indp.vdbc.model.jdbc.JdbcTable;
 import org.indp.vdbc.services.DatabaseSession;
 import org.indp.vdbc.ui.explorer.details.TableDetailsView;
 import org.indp.vdbc.util.MetadataRetriever;
+import org.indp.vdbc.util.TableNameIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class TableListComponent extends VerticalLayout {
 
-    private static final String VALUE_PROPERTY = "value";
-    private IndexedContainer tableListContainer;
+    private static final Logger LOG = LoggerFactory.getLogger(TableListComponent.class);
+    private final TableListContainer tableListContainer = new TableListContainer();
     private DetailsListener detailsListener;
     private final DatabaseSession databaseSession;
+    private ComboBox catalogs;
+    private ComboBox schemas;
+    private ComboBox tableTypes;
+    private boolean refreshing;
+    private String catalog;
+    private String schema;
+    private String tableType;
+    private String filterText = "";
+    private TableNameIndex tableIndex;
+    private int generation;
 
     public TableListComponent(DatabaseSession databaseSession) throws SQLException {
         this.databaseSession = databaseSession;
 
         Component selectors = createSelectors();
 
-        tableListContainer = createObjectListContainer();
         Table objectList = new Table(null, tableListContainer);
         objectList.setSizeFull();
         objectList.addStyleName(ValoTheme.TABLE_COMPACT);
@@ -66,14 +78,28 @@ public class TableListComponent extends VerticalLayout {
         filter.addTextChangeListener(new FieldEvents.TextChangeListener() {
             @Override
             public void textChange(FieldEvents.TextChangeEvent event) {
-                String text = event.getText();
-                tableListContainer.removeAllContainerFilters();
-                tableListContainer.addContainerFilter(VALUE_PROPERTY, text, true, false);
+                filterText = event.getText() == null ? "" : event.getText();
+                applyFilter();
             }
         });
 
+        Button refreshButton = new Button(FontAwesome.REFRESH);
+        refreshButton.setDescription("Refresh metadata");
+        refreshButton.addStyleName(ValoTheme.BUTTON_TINY);
+        refreshButton.addStyleName(ValoTheme.BUTTON_BORDERLESS);
+        refreshButton.addClickListener(new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                refreshMetadata();
+            }
+        });
+
+        HorizontalLayout bottom = new HorizontalLayout(filter, refreshButton);
+        bottom.setWidth("100%");
+        bottom.setExpandRatio(filter, 1f);
+
         setSizeFull();
-        addComponents(selectors, objectList, filter);
+        addComponents(selectors, objectList, bottom);
         setExpandRatio(objectList, 1f);
     }
 
@@ -87,7 +113,7 @@ public class TableListComponent extends VerticalLayout {
         String catalogTerm = metadataRetriever.getCatalogTerm();
         catalogTerm = catalogTerm.substring(0, 1).toUpperCase() + catalogTerm.substring(1);
         List<String> catalogNames = metadataRetriever.getCatalogs();
-        final ComboBox catalogs = new ComboBox(catalogTerm + ":", catalogNames);
+        catalogs = new ComboBox(catalogTerm + ":", catalogNames);
         catalogs.setWidth("100%");
         catalogs.setNullSelectionAllowed(false);
         catalogs.setImmediate(true);
@@ -101,7 +127,7 @@ public class TableListComponent extends VerticalLayout {
         schemaTerm = schemaTerm.substring(0, 1).toUpperCase() + schemaTerm.substring(1);
 
         List<String> schemaNames = metadataRetriever.getSchemas();
-        final ComboBox schemas = new ComboBox(schemaTerm + ":", schemaNames);
+        schemas = new ComboBox(schemaTerm + ":", schemaNames);
         schemas.setWidth("100%");
         schemas.setNullSelectionAllowed(false);
         schemas.setImmediate(true);
@@ -113,7 +139,7 @@ public class TableListComponent extends VerticalLayout {
         }
 
         List<String> tableTypesList = metadataRetriever.getTableTypes();
-        final ComboBox tableTypes = new ComboBox("Table type:", tableTypesList);
+        tableTypes = new ComboBox("Table type:", tableTypesList);
         if (tableTypesList.contains("TABLE")) {
             tableTypes.select("TABLE");
         }
@@ -126,7 +152,9 @@ public class TableListComponent extends VerticalLayout {
 
             @Override
             public void valueChange(ValueChangeEvent event) {
-                updateTableList(catalogs, schemas, tableTypes);
+                if (!refreshing) {
+                    updateTableList(catalogs, schemas, tableTypes);
+                }
             }
         };
 
@@ -140,38 +168,121 @@ public class TableListComponent extends VerticalLayout {
         return form;
     }
 
-    protected IndexedContainer createObjectListContainer() {
-        IndexedContainer c = new IndexedContainer();
-        c.addContainerProperty(VALUE_PROPERTY, String.class, null);
-        return c;
+    /**
+     * Drops the cached metadata of the profile and reads the selectors and the table list again.
+     */
+    protected void refreshMetadata() {
+        refreshing = true;
+        try {
+            MetadataRetriever metadataRetriever = databaseSession.getMetadata();
+            metadataRetriever.invalidate();
+            setOptions(catalogs, metadataRetriever.getCatalogs());
+            setOptions(schemas, metadataRetriever.getSchemas());
+            setOptions(tableTypes, metadataRetriever.getTableTypes());
+        } catch (SQLException ex) {
+            Notification.show("Error\n", ex.getMessage(), Notification.Type.ERROR_MESSAGE);
+            return;
+        } finally {
+            refreshing = false;
+        }
+        updateTableList(catalogs, schemas, tableTypes);
+    }
+
+    private static void setOptions(ComboBox comboBox, List<String> options) {
+        Object value = comboBox.getValue();
+        comboBox.removeAllItems();
+        for (String option : options) {
+            comboBox.addItem(option);
+        }
+        if (value != null && options.contains(value)) {
+            comboBox.select(value);
+        }
     }
 
+    /**
+     * Reads the full table list in the background. Until it arrives, a non-empty filter is passed to the database as
+     * a name pattern, so the matching tables show up without waiting for the whole schema.
+     */
     protected void updateTableList(Property catalogProperty, Property schemaProperty, Property tableTypeProperty) {
         tableListContainer.removeAllItems();
+        tableIndex = null;
 
-        String catalog = null, schema = null, tableType = null;
-        if (null != catalogProperty.getValue()) {
-            catalog = catalogProperty.getValue().toString();
-        }
-        if (null != schemaProperty.getValue()) {
-            schema = schemaProperty.getValue().toString();
-        }
-        if (null != tableTypeProperty.getValue()) {
-            tableType = tableTypeProperty.getValue().toString();
-        }
+        catalog = null == catalogProperty.getValue() ? null : catalogProperty.getValue().toString();
+        schema = null == schemaProperty.getValue() ? null : schemaProperty.getValue().toString();
+        tableType = null == tableTypeProperty.getValue() ? null : tableTypeProperty.getValue().toString();
 
         // TODO what if tableType == null
 
-        List<JdbcTable> tables;
-        try {
-            tables = databaseSession.getMetadata().getTables(catalog, schema, tableType);
-        } catch (Exception ex) {
-            Notification.show("Error\n", ex.getMessage(), Notification.Type.ERROR_MESSAGE);
+        final int current = ++generation;
+        final String catalog = this.catalog, schema = this.schema, tableType = this.tableType;
+        final UI ui = getUI();
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final TableNameIndex index = new TableNameIndex(databaseSession.getMetadata().getTables(catalog, schema, tableType));
+                    ui.access(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (current == generation) {
+                                tableIndex = index;
+                                applyFilter();
+                            }
+                        }
+                    });
+                } catch (final SQLException ex) {
+                    ui.access(new Runnable() {
+                        @Override
+                        public void run() {
+                            Notification.show("Error\n", ex.getMessage(), Notification.Type.ERROR_MESSAGE);
+                        }
+                    });
+                }
+            }
+        });
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        if (tableIndex != null) {
+            tableListContainer.setTables(tableIndex.filter(filterText));
             return;
         }
+        if (filterText.trim().isEmpty()) {
+            // the full list is still loading
+            return;
+        }
+        final int current = generation;
+        final String catalog = this.catalog, schema = this.schema, tableType = this.tableType, text = filterText;
+        final UI ui = getUI();
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    MetadataRetriever metadata = databaseSession.getMetadata();
+                    // the pattern may be case sensitive, the index filter makes the result match the full list
+                    final List<JdbcTable> tables = new TableNameIndex(
+                            metadata.getTables(catalog, schema, tableType, metadata.containsPattern(text.trim()))).filter(text);
+                    ui.access(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (current == generation && tableIndex == null && text.equals(filterText)) {
+                                tableListContainer.setTables(tables);
+                            }
+                        }
+                    });
+                } catch (SQLException ex) {
+                    LOG.debug("table name pattern lookup failed", ex);
+                }
+            }
+        });
+    }
 
-        for (JdbcTable t : tables) {
-            tableListContainer.addItem(t).getItemProperty(VALUE_PROPERTY).setValue(t.getName());
+    private void submit(Runnable task) {
+        try {
+            databaseSession.getQueryQueue().submit(task);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("table list update rejected", e);
         }
     }
 
@@ -0,0 +1,204 @@
+package org.indp.vdbc.ui.explorer;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.AbstractContainer;
+import com.vaadin.data.util.ObjectProperty;
+import com.vaadin.data.util.PropertysetItem;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only container of table names. Items are created only for the rows the table actually renders, so replacing
+ * a list of tens of thousands of tables costs one item set change instead of an item per table.
+ */
+class TableListContainer extends AbstractContainer implements Container.Indexed, Container.ItemSetChangeNotifier {
+
+    static final String VALUE_PROPERTY = "value";
+
+    private List<JdbcTable> tables = Collections.emptyList();
+    private Map<JdbcTable, Integer> indexes = Collections.emptyMap();
+
+    /**
+     * Replaces the listed tables.
+     */
+    void setTables(List<JdbcTable> tables) {
+        Map<JdbcTable, Integer> indexes = new HashMap<>(tables.size() * 2);
+        for (int i = 0; i < tables.size(); i++) {
+            indexes.put(tables.get(i), i);
+        }
+        this.tables = tables;
+        this.indexes = indexes;
+        fireItemSetChange();
+    }
+
+    @Override
+    public Item getItem(Object itemId) {
+        if (!containsId(itemId)) {
+            return null;
+        }
+        PropertysetItem item = new PropertysetItem();
+        item.addItemProperty(VALUE_PROPERTY, getContainerProperty(itemId, VALUE_PROPERTY));
+        return item;
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.singletonList(VALUE_PROPERTY);
+    }
+
+    @Override
+    public Collection<?> getItemIds() {
+        return Collections.unmodifiableList(tables);
+    }
+
+    @Override
+    public Property getContainerProperty(Object itemId, Object propertyId) {
+        if (!VALUE_PROPERTY.equals(propertyId) || !containsId(itemId)) {
+            return null;
+        }
+        return new ObjectProperty<>(((JdbcTable) itemId).getName(), String.class, true);
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        return VALUE_PROPERTY.equals(propertyId) ? String.class : null;
+    }
+
+    @Override
+    public int size() {
+        return tables.size();
+    }
+
+    @Override
+    public boolean containsId(Object itemId) {
+        return itemId != null && indexes.containsKey(itemId);
+    }
+
+    @Override
+    public int indexOfId(Object itemId) {
+        Integer index = itemId == null ? null : indexes.get(itemId);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public Object getIdByIndex(int index) {
+        return tables.get(index);
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        return Collections.unmodifiableList(tables.subList(startIndex, Math.min(tables.size(), startIndex + numberOfItems)));
+    }
+
+    @Override
+    public Object nextItemId(Object itemId) {
+        int index = indexOfId(itemId);
+        return index < 0 || index + 1 >= tables.size() ? null : tables.get(index + 1);
+    }
+
+    @Override
+    public Object prevItemId(Object itemId) {
+        int index = indexOfId(itemId);
+        return index <= 0 ? null : tables.get(index - 1);
+    }
+
+    @Override
+    public Object firstItemId() {
+        return tables.isEmpty() ? null : tables.get(0);
+    }
+
+    @Override
+    public Object lastItemId() {
+        return tables.isEmpty() ? null : tables.get(tables.size() - 1);
+    }
+
+    @Override
+    public boolean isFirstId(Object itemId) {
+        return itemId != null && itemId == firstItemId();
+    }
+
+    @Override
+    public boolean isLastId(Object itemId) {
+        return itemId != null && itemId == lastItemId();
+    }
+
+    @Override
+    public void addItemSetChangeListener(ItemSetChangeListener listener) {
+        super.addItemSetChangeListener(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void addListener(ItemSetChangeListener listener) {
+        super.addItemSetChangeListener(listener);
+    }
+
+    @Override
+    public void removeItemSetChangeListener(ItemSetChangeListener listener) {
+        super.removeItemSetChangeListener(listener);
+    }
+
+    @Override
+    @Deprecated
+    public void removeListener(ItemSetChangeListener listener) {
+        super.removeItemSetChangeListener(listener);
+    }
+
+    @Override
+    public Object addItemAt(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItemAfter(Object previousItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAfter(Object previousItemId, Object newItemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItem(Object itemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object addItem() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeItem(Object itemId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addContainerProperty(Object propertyId, Class<?> type, Object defaultValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeContainerProperty(Object propertyId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAllItems() {
+        setTables(Collections.<JdbcTable>emptyList());
+        return true;
+    }
+}
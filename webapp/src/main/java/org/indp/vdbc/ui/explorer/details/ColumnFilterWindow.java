@@ -0,0 +1,223 @@
+package org.indp.vdbc.ui.explorer.details;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.IsNull;
+import com.vaadin.data.util.filter.Like;
+import com.vaadin.data.util.filter.Not;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+import com.vaadin.event.ShortcutAction;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-column conditions for a container. The filters are passed to the listener all at once, which applies them to
+ * the container.
+ */
+public class ColumnFilterWindow extends Window {
+
+    public interface Listener {
+
+        /**
+         * @param filters filters replacing the current container filters, empty to remove them
+         */
+        void apply(List<Container.Filter> filters);
+    }
+
+    private static final String EQUAL = "=";
+    private static final String NOT_EQUAL = "<>";
+    private static final String LESS = "<";
+    private static final String LESS_OR_EQUAL = "<=";
+    private static final String GREATER = ">";
+    private static final String GREATER_OR_EQUAL = ">=";
+    private static final String LIKE = "like";
+    private static final String CONTAINS = "contains";
+    private static final String IS_NULL = "is null";
+    private static final String IS_NOT_NULL = "is not null";
+    private static final List<String> OPERATORS = Arrays.asList(
+            EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, LIKE, CONTAINS, IS_NULL, IS_NOT_NULL);
+
+    private final Container container;
+    private final List<Object> columns;
+    private final Listener listener;
+    private final Map<Object, ComboBox> operators = new LinkedHashMap<>();
+    private final Map<Object, TextField> values = new LinkedHashMap<>();
+
+    public ColumnFilterWindow(Container container, List<Object> columns, Listener listener) {
+        this.container = container;
+        this.columns = columns;
+        this.listener = listener;
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+
+        setCaption("Column filters");
+        setModal(true);
+        setWidth("500px");
+        setHeight("500px");
+        setContent(createLayout());
+        setCloseShortcut(ShortcutAction.KeyCode.ESCAPE);
+    }
+
+    private ComponentContainer createLayout() {
+        GridLayout grid = new GridLayout(3, columns.size());
+        grid.setWidth("100%");
+        grid.setSpacing(true);
+        grid.setColumnExpandRatio(2, 1);
+        for (Object column : columns) {
+            Label label = new Label(column.toString());
+            label.setSizeUndefined();
+            label.addStyleName(ValoTheme.LABEL_SMALL);
+
+            ComboBox operator = new ComboBox(null, OPERATORS);
+            operator.setWidth("110px");
+            operator.addStyleName(ValoTheme.COMBOBOX_SMALL);
+            operators.put(column, operator);
+
+            TextField value = new TextField();
+            value.setWidth("100%");
+            value.addStyleName(ValoTheme.TEXTFIELD_SMALL);
+            values.put(column, value);
+
+            grid.addComponents(label, operator, value);
+            grid.setComponentAlignment(label, Alignment.MIDDLE_LEFT);
+        }
+
+        Panel fields = new Panel(grid);
+        fields.addStyleName(ValoTheme.PANEL_BORDERLESS);
+        fields.setSizeFull();
+
+        Button applyButton = new Button("Apply", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                apply();
+            }
+        });
+        applyButton.addStyleName(ValoTheme.BUTTON_PRIMARY);
+        applyButton.setClickShortcut(ShortcutAction.KeyCode.ENTER);
+
+        Button clearButton = new Button("Clear", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                listener.apply(Collections.<Container.Filter>emptyList());
+                close();
+            }
+        });
+
+        Button closeButton = new Button("Close", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                close();
+            }
+        });
+
+        HorizontalLayout buttons = new HorizontalLayout(applyButton, clearButton, closeButton);
+        buttons.setSpacing(true);
+
+        VerticalLayout layout = new VerticalLayout(fields, buttons);
+        layout.setMargin(true);
+        layout.setSpacing(true);
+        layout.setSizeFull();
+        layout.setExpandRatio(fields, 1f);
+        layout.setComponentAlignment(buttons, Alignment.MIDDLE_RIGHT);
+        return layout;
+    }
+
+    private void apply() {
+        List<Container.Filter> filters = new ArrayList<>();
+        for (Object column : columns) {
+            String operator = (String) operators.get(column).getValue();
+            if (operator == null) {
+                continue;
+            }
+            String text = values.get(column).getValue();
+            try {
+                filters.add(createFilter(column, operator, text));
+            } catch (IllegalArgumentException e) {
+                Notification.show("Invalid value for " + column, e.getMessage(), Notification.Type.WARNING_MESSAGE);
+                return;
+            }
+        }
+
+        listener.apply(filters);
+        close();
+    }
+
+    private Container.Filter createFilter(Object column, String operator, String text) {
+        switch (operator) {
+            case IS_NULL:
+                return new IsNull(column);
+            case IS_NOT_NULL:
+                return new Not(new IsNull(column));
+            case LIKE:
+                return new Like(column, text, true);
+            case CONTAINS:
+                return new SimpleStringFilter(column, text, true, false);
+        }
+        Object value = convert(text, container.getType(column));
+        switch (operator) {
+            case EQUAL:
+                return new Compare.Equal(column, value);
+            case NOT_EQUAL:
+                return new Not(new Compare.Equal(column, value));
+            case LESS:
+                return new Compare.Less(column, value);
+            case LESS_OR_EQUAL:
+                return new Compare.LessOrEqual(column, value);
+            case GREATER:
+                return new Compare.Greater(column, value);
+            case GREATER_OR_EQUAL:
+                return new Compare.GreaterOrEqual(column, value);
+            default:
+                throw new IllegalArgumentException("Unknown operator " + operator);
+        }
+    }
+
+    /**
+     * Same as {@link #convert(String, Class)}, but empty text stands for null.
+     */
+    static Object convertValue(String text, Class<?> type) {
+        return text == null || text.isEmpty() ? null : convert(text, type);
+    }
+
+    /**
+     * Converts the text to the column type through its {@code valueOf(String)} method or string constructor, e.g.
+     * {@code Timestamp.valueOf("2014-01-01 00:00:00")} or {@code new BigDecimal("1.5")}.
+     */
+    static Object convert(String text, Class<?> type) {
+        if (text == null || type == null || type.isInstance(text)) {
+            return text;
+        }
+        text = text.trim();
+        try {
+            Method valueOf = type.getMethod("valueOf", String.class);
+            if (Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType())) {
+                return valueOf.invoke(null, text);
+            }
+        } catch (NoSuchMethodException e) {
+            // try the constructor
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " value: " + text, e);
+        }
+        try {
+            Constructor<?> constructor = type.getConstructor(String.class);
+            return constructor.newInstance(text);
+        } catch (NoSuchMethodException e) {
+            return text;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " value: " + text, e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.indp.vdbc.ui.explorer.details;
+
+import com.vaadin.event.ShortcutAction;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Picks the columns the table data view selects. Unselected columns are not fetched from the database at all.
+ */
+public class ColumnSelectionWindow extends Window {
+
+    private final List<String> columns;
+    private final List<String> selected;
+    private final SelectionListener listener;
+    private OptionGroup options;
+
+    /**
+     * Receives the chosen columns.
+     */
+    public interface SelectionListener {
+
+        /**
+         * @param columns selected columns in table order, null to show all columns
+         */
+        void columnsSelected(List<String> columns);
+    }
+
+    /**
+     * @param columns  all columns of the table in table order
+     * @param selected currently shown columns, null if all columns are shown
+     */
+    public ColumnSelectionWindow(List<String> columns, List<String> selected, SelectionListener listener) {
+        this.columns = columns;
+        this.selected = selected;
+        this.listener = listener;
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+
+        setCaption("Columns");
+        setModal(true);
+        setWidth("350px");
+        setHeight("500px");
+        setContent(createLayout());
+        setCloseShortcut(ShortcutAction.KeyCode.ESCAPE);
+    }
+
+    private ComponentContainer createLayout() {
+        options = new OptionGroup(null, columns);
+        options.setMultiSelect(true);
+        options.addStyleName(ValoTheme.OPTIONGROUP_SMALL);
+        options.setValue(selected == null ? columns : selected);
+
+        Panel panel = new Panel(options);
+        panel.addStyleName(ValoTheme.PANEL_BORDERLESS);
+        panel.setSizeFull();
+
+        Button allButton = new Button("All", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                options.setValue(columns);
+            }
+        });
+        allButton.addStyleName(ValoTheme.BUTTON_LINK);
+
+        Button noneButton = new Button("None", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                options.setValue(new ArrayList<String>());
+            }
+        });
+        noneButton.addStyleName(ValoTheme.BUTTON_LINK);
+
+        HorizontalLayout selectionButtons = new HorizontalLayout(allButton, noneButton);
+        selectionButtons.setSpacing(true);
+
+        Button applyButton = new Button("Apply", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                apply();
+            }
+        });
+        applyButton.addStyleName(ValoTheme.BUTTON_PRIMARY);
+        applyButton.setClickShortcut(ShortcutAction.KeyCode.ENTER);
+
+        Button closeButton = new Button("Close", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                close();
+            }
+        });
+
+        HorizontalLayout buttons = new HorizontalLayout(applyButton, closeButton);
+        buttons.setSpacing(true);
+
+        VerticalLayout layout = new VerticalLayout(selectionButtons, panel, buttons);
+        layout.setMargin(true);
+        layout.setSpacing(true);
+        layout.setSizeFull();
+        layout.setExpandRatio(panel, 1f);
+        layout.setComponentAlignment(buttons, Alignment.MIDDLE_RIGHT);
+        return layout;
+    }
+
+    private void apply() {
+        Collection<?> value = (Collection<?>) options.getValue();
+        if (value.isEmpty()) {
+            Notification.show("Select at least one column", Notification.Type.WARNING_MESSAGE);
+            return;
+        }
+        List<String> result = new ArrayList<>();
+        for (String column : columns) {
+            if (value.contains(column)) {
+                result.add(column);
+            }
+        }
+        close();
+        listener.columnsSelected(result.size() == columns.size() ? null : result);
+    }
+}
@@ -1,17 +1,67 @@
 package org.indp.vdbc.ui.explorer.details;
 
 import com.vaadin.data.Item;
-import com.vaadin.data.Property;
 import com.vaadin.event.ShortcutAction;
+import com.vaadin.server.FileDownloader;
+import com.vaadin.server.StreamResource;
 import com.vaadin.ui.*;
 import com.vaadin.ui.themes.ValoTheme;
 import org.indp.vdbc.db.DialectSupport;
+import org.indp.vdbc.result.LobValue;
+import org.indp.vdbc.services.LobReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class SingleRecordViewWindow extends Window {
-    private final Item item;
+    private static final Logger LOG = LoggerFactory.getLogger(SingleRecordViewWindow.class);
+    /**
+     * Longer character values can only be downloaded.
+     */
+    private static final int MAX_SHOWN_LENGTH = 1024 * 1024;
+
+    private final Map<Object, Object> values;
+    private final Map<Object, Class<?>> types;
+    private final Collection<?> readOnlyColumns;
+    private final ApplyListener applyListener;
+    private final Map<Object, TextField> fields = new LinkedHashMap<>();
+    private LobReader lobReader;
+    private Map<String, Object> key;
+
+    /**
+     * Receives the values changed in an editable record window.
+     */
+    public interface ApplyListener {
+        void apply(Map<Object, Object> changes);
+    }
 
     public SingleRecordViewWindow(Item item, final Runnable onClose) {
-        this.item = item;
+        this(valuesOf(item), null, null, null, onClose);
+    }
+
+    /**
+     * @param values          column values to show, in display order
+     * @param types           column types values are converted to
+     * @param readOnlyColumns columns which can't be changed, e.g. the key of an existing row
+     * @param applyListener   called with the changed values; null shows a read-only record
+     */
+    public SingleRecordViewWindow(Map<Object, Object> values, Map<Object, Class<?>> types, Collection<?> readOnlyColumns,
+                                  ApplyListener applyListener, final Runnable onClose) {
+        this.values = values;
+        this.types = types;
+        this.readOnlyColumns = readOnlyColumns == null ? Collections.emptySet() : readOnlyColumns;
+        this.applyListener = applyListener;
         if (onClose != null) {
             addCloseListener(new CloseListener() {
                 @Override
@@ -22,6 +72,16 @@ public class SingleRecordViewWindow extends Window {
         }
     }
 
+    /**
+     * Allows to show and download full values of truncated {@link LobValue} previews.
+     *
+     * @param key values of the key columns of the shown row
+     */
+    public void setLobReader(LobReader lobReader, Map<String, Object> key) {
+        this.lobReader = lobReader;
+        this.key = key;
+    }
+
     @Override
     public void attach() {
         super.attach();
@@ -37,7 +97,7 @@ public class SingleRecordViewWindow extends Window {
     private ComponentContainer createLayout() {
         Component fields = createFields();
 
-        Button closeButton = new Button("Close", new Button.ClickListener() {
+        Button closeButton = new Button(applyListener == null ? "Close" : "Cancel", new Button.ClickListener() {
             @Override
             public void buttonClick(Button.ClickEvent event) {
                 close();
@@ -50,6 +110,19 @@ public class SingleRecordViewWindow extends Window {
         buttons.setWidth("100%");
         buttons.setComponentAlignment(closeButton, Alignment.MIDDLE_RIGHT);
 
+        if (applyListener != null) {
+            Button applyButton = new Button("Apply", new Button.ClickListener() {
+                @Override
+                public void buttonClick(Button.ClickEvent event) {
+                    apply();
+                }
+            });
+            applyButton.addStyleName(ValoTheme.BUTTON_PRIMARY);
+            buttons.addComponentAsFirst(applyButton);
+            buttons.setComponentAlignment(applyButton, Alignment.MIDDLE_RIGHT);
+            buttons.setExpandRatio(applyButton, 1f);
+        }
+
         VerticalLayout layout = new VerticalLayout(fields, buttons);
         layout.setMargin(true);
         layout.setSpacing(true);
@@ -62,21 +135,140 @@ public class SingleRecordViewWindow extends Window {
         FormLayout form = new FormLayout();
         form.addStyleName(ValoTheme.FORMLAYOUT_LIGHT);
         form.setMargin(false);
-        for (Object propertyId : item.getItemPropertyIds()) {
-            if (!DialectSupport.isServiceColumn(propertyId.toString())) {
-                Property property = item.getItemProperty(propertyId);
-                form.addComponent(createField(propertyId, property));
+        for (Map.Entry<Object, Object> entry : values.entrySet()) {
+            if (!DialectSupport.isServiceColumn(entry.getKey().toString())) {
+                form.addComponent(createField(entry.getKey(), entry.getValue()));
             }
         }
         return form;
     }
 
-    private Component createField(Object propertyId, Property property) {
+    private Component createField(Object propertyId, Object value) {
+        if (value instanceof LobValue) {
+            return createLobField(propertyId.toString(), (LobValue) value);
+        }
         // todo check property type
-        Object value = property.getValue();
-        TextField field = new TextField(propertyId.toString(), value == null ? "(null)" : value.toString());
+        TextField field;
+        if (applyListener == null || readOnlyColumns.contains(propertyId)) {
+            field = new TextField(propertyId.toString(), value == null ? "(null)" : value.toString());
+            field.setReadOnly(true);
+        } else {
+            field = new TextField(propertyId.toString(), value == null ? "" : value.toString());
+            field.setInputPrompt("(null)");
+            fields.put(propertyId, field);
+        }
         field.setWidth("100%");
-        field.setReadOnly(true);
         return field;
     }
+
+    private Component createLobField(final String column, final LobValue value) {
+        final TextArea area = new TextArea(column + " (" + value.getDisplayLength() + ")", value.toString());
+        area.setReadOnly(true);
+        area.setRows(4);
+        area.setWidth("100%");
+        if (lobReader == null || !value.isTruncated()) {
+            return area;
+        }
+
+        HorizontalLayout buttons = new HorizontalLayout();
+        buttons.setSpacing(true);
+        if (!value.isBinary() && value.getLength() <= MAX_SHOWN_LENGTH) {
+            final Button showButton = new Button("Show full value");
+            showButton.addClickListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(Button.ClickEvent event) {
+                    try {
+                        String text = lobReader.readString(column, key, MAX_SHOWN_LENGTH);
+                        area.setReadOnly(false);
+                        area.setValue(text == null ? "(null)" : text);
+                        area.setReadOnly(true);
+                        area.setRows(12);
+                        showButton.setVisible(false);
+                    } catch (SQLException | IOException e) {
+                        LOG.warn("failed to read " + column, e);
+                        Notification.show("Failed to read " + column, e.getMessage(), Notification.Type.ERROR_MESSAGE);
+                    }
+                }
+            });
+            showButton.addStyleName(ValoTheme.BUTTON_TINY);
+            buttons.addComponent(showButton);
+        }
+
+        Button downloadButton = new Button("Download");
+        downloadButton.addStyleName(ValoTheme.BUTTON_TINY);
+        StreamResource resource = new StreamResource(new StreamResource.StreamSource() {
+            @Override
+            public InputStream getStream() {
+                return download(column);
+            }
+        }, column.toLowerCase() + (value.isBinary() ? ".bin" : ".txt"));
+        resource.setCacheTime(0);
+        new FileDownloader(resource).extend(downloadButton);
+        buttons.addComponent(downloadButton);
+
+        VerticalLayout layout = new VerticalLayout(area, buttons);
+        layout.setCaption(area.getCaption());
+        area.setCaption(null);
+        return layout;
+    }
+
+    /**
+     * Spools the value to a temporary file, which is deleted once the download is done.
+     */
+    private InputStream download(String column) {
+        try {
+            final File file = File.createTempFile("vdbc-value", ".tmp");
+            file.deleteOnExit();
+            OutputStream out = new FileOutputStream(file);
+            try {
+                lobReader.copy(column, key, out);
+            } finally {
+                out.close();
+            }
+            return new FileInputStream(file) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (!file.delete()) {
+                        LOG.debug("failed to delete " + file);
+                    }
+                }
+            };
+        } catch (SQLException | IOException e) {
+            LOG.warn("failed to download " + column, e);
+            return null;
+        }
+    }
+
+    private void apply() {
+        Map<Object, Object> changes = new LinkedHashMap<>();
+        for (Map.Entry<Object, TextField> entry : fields.entrySet()) {
+            Object column = entry.getKey();
+            TextField field = entry.getValue();
+            Object value;
+            try {
+                value = ColumnFilterWindow.convertValue(field.getValue(), types.get(column));
+            } catch (IllegalArgumentException e) {
+                Notification.show("Invalid value for " + column, e.getMessage(), Notification.Type.WARNING_MESSAGE);
+                field.focus();
+                return;
+            }
+            Object original = values.get(column);
+            if (value == null ? original != null : !value.equals(original)) {
+                changes.put(column, value);
+            }
+        }
+        close();
+        if (!changes.isEmpty()) {
+            applyListener.apply(changes);
+        }
+    }
+
+    private static Map<Object, Object> valuesOf(Item item) {
+        Map<Object, Object> values = new LinkedHashMap<>();
+        for (Object propertyId : item.getItemPropertyIds()) {
+            values.put(propertyId, item.getItemProperty(propertyId).getValue());
+        }
+        return values;
+    }
 }
@@ -1,8 +1,10 @@
 package org.indp.vdbc.ui.explorer.details;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.vaadin.data.Container;
 import com.vaadin.data.Item;
+import com.vaadin.data.Property;
 import com.vaadin.data.util.sqlcontainer.SQLContainer;
 import com.vaadin.data.util.sqlcontainer.connection.J2EEConnectionPool;
 import com.vaadin.data.util.sqlcontainer.query.FreeformQuery;
@@ -15,27 +17,78 @@ import com.vaadin.ui.*;
 import com.vaadin.ui.themes.ValoTheme;
 import org.indp.vdbc.db.DialectSupport;
 import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
 import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.ExecutionRegistry;
+import org.indp.vdbc.services.LobReader;
+import org.indp.vdbc.services.RowCounter;
+import org.indp.vdbc.services.TableChangeSet;
+import org.indp.vdbc.ui.ConfirmDialog;
+import org.indp.vdbc.ui.ExportDialog;
+import org.indp.vdbc.ui.ResultSetTable;
 import org.indp.vdbc.ui.UiUtils;
 import org.indp.vdbc.util.CustomFreeformQuery;
+import org.indp.vdbc.util.FilterableSQLContainer;
+import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.util.KeysetFreeformStatementDelegate;
+import org.indp.vdbc.util.KeysetPagination;
 import org.indp.vdbc.util.ReadonlyFreeformStatementDelegate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 public class TableDataView extends VerticalLayout implements ToolbarContributor {
 
     private static final Logger LOG = LoggerFactory.getLogger(TableDataView.class);
     public static final String TITLE = "Data";
+    public static final int SAMPLE_ROWS = 1000;
+    /**
+     * Rows counted right away when a filtered view of a large table is opened, the rest are counted in the background.
+     */
+    public static final int COUNT_PROBE_ROWS = 1000;
 
     private final J2EEConnectionPool connectionPool;
     private final JdbcTable table;
     private final DatabaseSession databaseSession;
     private VerticalLayout tableContainer;
     private Panel toolbar;
+    private String currentFilter;
+    private Label countLabel;
+    private ExecutionRegistry.Execution countExecution;
+    private Future<?> countFuture;
+    private FilterableSQLContainer currentContainer;
+    private ReadonlyFreeformStatementDelegate currentDelegate;
+    private Long tableEstimate;
+    private Object[] currentColumns;
+    private boolean databaseFiltering;
+    private CheckBox sampleToggle;
+    private TextField samplePercent;
+    private ExecutionRegistry.Execution sampleExecution;
+    private Future<?> sampleFuture;
+    private List<String> keyColumns;
+    private List<String> visibleColumns;
+    private LobReader lobReader;
+    private TableEditor editor;
+    private CheckBox editToggle;
+    private Button saveButton;
+    private Button discardButton;
+    private Button addRowButton;
+    private boolean revertingEditToggle;
 
     public TableDataView(final JdbcTable table, final DatabaseSession databaseSession) {
         this.table = table;
@@ -55,16 +108,133 @@ public class TableDataView extends VerticalLayout implements ToolbarContributor
         });
         refreshButton.addStyleName(ValoTheme.BUTTON_TINY);
 
+        Button exportButton = new Button("Export...", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                export();
+            }
+        });
+        exportButton.addStyleName(ValoTheme.BUTTON_TINY);
+
+        Button columnFiltersButton = new Button("Column filters...", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                showColumnFilters();
+            }
+        });
+        columnFiltersButton.addStyleName(ValoTheme.BUTTON_TINY);
+
+        Button columnsButton = new Button("Columns...", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                showColumnSelection(filter.getValue());
+            }
+        });
+        columnsButton.addStyleName(ValoTheme.BUTTON_TINY);
+
+        sampleToggle = new CheckBox("Sample");
+        sampleToggle.setDescription("Show up to " + SAMPLE_ROWS + " random rows picked from the given percentage of the table");
+        sampleToggle.addStyleName(ValoTheme.CHECKBOX_SMALL);
+        sampleToggle.addValueChangeListener(new Property.ValueChangeListener() {
+            @Override
+            public void valueChange(Property.ValueChangeEvent event) {
+                refreshDataView(table, databaseSession, filter.getValue());
+            }
+        });
+
+        samplePercent = new TextField();
+        samplePercent.setValue("1");
+        samplePercent.setWidth("50px");
+        samplePercent.addStyleName(ValoTheme.TEXTFIELD_TINY);
+
+        Label percentLabel = new Label("%&nbsp;", ContentMode.HTML);
+        percentLabel.setSizeUndefined();
+        percentLabel.addStyleName(ValoTheme.LABEL_TINY);
+
+        boolean sampling = databaseSession.getDialect().supportsSample();
+        sampleToggle.setVisible(sampling);
+        samplePercent.setVisible(sampling);
+        percentLabel.setVisible(sampling);
+
+        keyColumns = readKeyColumns(table, databaseSession);
+        visibleColumns = readVisibleColumns(table, databaseSession);
+        editor = createEditor(table, databaseSession);
+        editToggle = new CheckBox("Edit");
+        editToggle.setDescription("Edit rows; changes are written in one transaction on save");
+        editToggle.addStyleName(ValoTheme.CHECKBOX_SMALL);
+        editToggle.setVisible(editor != null);
+        editToggle.addValueChangeListener(new Property.ValueChangeListener() {
+            @Override
+            public void valueChange(Property.ValueChangeEvent event) {
+                if (revertingEditToggle) {
+                    return;
+                }
+                if (!editToggle.getValue() && !editor.getChangeSet().isEmpty()) {
+                    revertingEditToggle = true;
+                    editToggle.setValue(true);
+                    revertingEditToggle = false;
+                    ConfirmDialog.confirmYesNo("Discard " + editor.getChangeSet().size() + " unsaved changes?", new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent e) {
+                            editor.getChangeSet().clear();
+                            editToggle.setValue(false);
+                        }
+                    });
+                    return;
+                }
+                updateEditButtons();
+                refreshDataView(table, databaseSession, filter.getValue());
+            }
+        });
+
+        addRowButton = new Button("Add row...", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                if (currentContainer != null) {
+                    editor.addRow(currentContainer);
+                }
+            }
+        });
+        addRowButton.addStyleName(ValoTheme.BUTTON_TINY);
+
+        saveButton = new Button("Save", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                saveChanges(filter.getValue());
+            }
+        });
+        saveButton.addStyleName(ValoTheme.BUTTON_TINY);
+        saveButton.addStyleName(ValoTheme.BUTTON_PRIMARY);
+
+        discardButton = new Button("Discard", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                editor.getChangeSet().clear();
+                refreshDataView(table, databaseSession, filter.getValue());
+            }
+        });
+        discardButton.addStyleName(ValoTheme.BUTTON_TINY);
+        updateEditButtons();
+
         Label filterLabel = new Label("Filter:&nbsp;", ContentMode.HTML);
         filterLabel.setSizeUndefined();
         filterLabel.addStyleName(ValoTheme.LABEL_TINY);
 
+        countLabel = new Label();
+        countLabel.setContentMode(ContentMode.HTML);
+        countLabel.setSizeUndefined();
+        countLabel.addStyleName(ValoTheme.LABEL_TINY);
+
         HorizontalLayout toolbarLayout = new HorizontalLayout();
         toolbarLayout.setDefaultComponentAlignment(Alignment.MIDDLE_LEFT);
-        toolbarLayout.addComponents(filterLabel, filter, refreshButton);
+        toolbarLayout.addComponents(filterLabel, filter, countLabel, sampleToggle, samplePercent, percentLabel,
+                editToggle, addRowButton, saveButton, discardButton, columnsButton, columnFiltersButton, refreshButton, exportButton);
         toolbarLayout.setWidth("100%");
         toolbarLayout.setExpandRatio(filter, 1);
+        toolbarLayout.setComponentAlignment(columnsButton, Alignment.MIDDLE_RIGHT);
+        toolbarLayout.setComponentAlignment(columnFiltersButton, Alignment.MIDDLE_RIGHT);
         toolbarLayout.setComponentAlignment(refreshButton, Alignment.MIDDLE_RIGHT);
+        toolbarLayout.setComponentAlignment(exportButton, Alignment.MIDDLE_RIGHT);
         toolbarLayout.setMargin(new MarginInfo(false, false, false, true));
 
         toolbar = new Panel(toolbarLayout);
@@ -91,31 +261,64 @@ public class TableDataView extends VerticalLayout implements ToolbarContributor
         refreshDataView(table, databaseSession);
     }
 
+    @Override
+    public void detach() {
+        cancelExactCount();
+        cancelSample();
+        super.detach();
+    }
+
     private void refreshDataView(JdbcTable tableDefinition, DatabaseSession databaseSession) {
         refreshDataView(tableDefinition, databaseSession, null);
     }
 
     private void refreshDataView(JdbcTable tableDefinition, DatabaseSession databaseSession, String filter) {
+        cancelExactCount();
+        cancelSample();
+        countLabel.setValue(null);
+        currentContainer = null;
+        currentDelegate = null;
+        updateEditButtons();
         Component component;
         try {
-            Container container = createContainer(tableDefinition, databaseSession, filter);
+            if (sampleToggle.getValue() && !isEditing()) {
+                showSample(tableDefinition, databaseSession, filter);
+                return;
+            }
+            FilterableSQLContainer container = createContainer(tableDefinition, databaseSession, filter);
             final Table table = UiUtils.createTable(container);
+            // sorting is done by the database, see ReadonlyFreeformStatementDelegate
+            table.setSortEnabled(databaseFiltering);
             table.addActionHandler(new Action.Handler() {
                 private final Action viewSingleRecordAction = new Action("Single record view...");
 
                 @Override
                 public Action[] getActions(Object target, Object sender) {
-                    return new Action[]{viewSingleRecordAction};
+                    if (!isEditing()) {
+                        return new Action[]{viewSingleRecordAction};
+                    }
+                    Action[] editActions = editor.getActions(table, target);
+                    Action[] actions = Arrays.copyOf(editActions, editActions.length + 1);
+                    actions[editActions.length] = viewSingleRecordAction;
+                    return actions;
                 }
 
                 @Override
                 public void handleAction(Action action, Object sender, Object target) {
                     if (action == viewSingleRecordAction) {
                         showRecordEditor(table, target);
+                    } else if (isEditing()) {
+                        editor.handleAction(action, table, target);
                     }
                 }
             });
             table.setVisibleColumns(filterColumns(table.getVisibleColumns()));
+            currentContainer = container;
+            currentColumns = table.getVisibleColumns();
+            if (isEditing()) {
+                editor.install(table);
+            }
+            updateEditButtons();
 
             Panel panel = new Panel(table);
             panel.addStyleName(ValoTheme.PANEL_BORDERLESS);
@@ -139,19 +342,272 @@ public class TableDataView extends VerticalLayout implements ToolbarContributor
         tableContainer.addComponent(component);
     }
 
-    private Container createContainer(JdbcTable tableDefinition, DatabaseSession databaseSession, String filter) throws SQLException {
+    private void showSample(JdbcTable tableDefinition, final DatabaseSession databaseSession, String filter) throws SQLException {
+        double percent;
+        try {
+            percent = Double.parseDouble(samplePercent.getValue().trim());
+        } catch (NumberFormatException e) {
+            percent = -1;
+        }
+        if (percent <= 0 || percent >= 100) {
+            Notification.show("Sample percentage must be a number between 0 and 100", Notification.Type.WARNING_MESSAGE);
+            return;
+        }
+
         filter = fixFilter(filter);
+        currentFilter = filter;
+        databaseFiltering = false;
+        final String tableName = databaseSession.buildTableName(tableDefinition);
+        final String sql = databaseSession.getDialect().getExpressions().selectSample(tableName, buildProjection(), filter, percent, SAMPLE_ROWS);
+        tableContainer.removeAllComponents();
+        tableContainer.addComponent(new Label("Sampling " + tableDefinition.getName() + "..."));
+
+        final UI ui = getUI();
+        final ExecutionRegistry.Execution execution = databaseSession.getExecutionRegistry().start(sql);
+        sampleExecution = execution;
+        try {
+            sampleFuture = databaseSession.getQueryQueue().submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    Connection connection = null;
+                    Statement statement = null;
+                    try {
+                        connection = databaseSession.getConnection();
+                        statement = connection.createStatement();
+                        databaseSession.configureStatement(statement);
+                        execution.setStatement(statement);
+                        ResultSet rs = statement.executeQuery(sql);
+                        final ColumnarResultBuffer buffer = new ColumnarResultBuffer(rs.getMetaData());
+                        buffer.load(rs);
+                        rs.close();
+                        ui.access(new Runnable() {
+                            @Override
+                            public void run() {
+                                tableContainer.removeAllComponents();
+                                tableContainer.addComponent(new ResultSetTable(buffer));
+                                countLabel.setValue(String.format("&nbsp;%,d sampled rows&nbsp;", buffer.getRowCount()));
+                            }
+                        });
+                    } catch (final SQLException | IOException e) {
+                        if (!execution.isCancelled()) {
+                            LOG.warn("failed to sample " + tableName, e);
+                            ui.access(new Runnable() {
+                                @Override
+                                public void run() {
+                                    tableContainer.removeAllComponents();
+                                    tableContainer.addComponent(new Label(e.getMessage()));
+                                }
+                            });
+                        }
+                    } finally {
+                        JdbcUtils.close(statement);
+                        JdbcUtils.close(connection);
+                        execution.close();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("sample rejected", e);
+            execution.close();
+        }
+    }
+
+    private static List<String> readKeyColumns(JdbcTable tableDefinition, DatabaseSession databaseSession) {
+        try {
+            return databaseSession.getMetadata().getPrimaryKeys(tableDefinition);
+        } catch (SQLException e) {
+            LOG.warn("failed to read primary key of " + tableDefinition.getName(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static List<String> readVisibleColumns(JdbcTable tableDefinition, DatabaseSession databaseSession) {
+        try {
+            List<String> saved = databaseSession.getTablePreferences().getVisibleColumns(databaseSession.buildTableName(tableDefinition));
+            if (saved == null) {
+                return null;
+            }
+            // columns may have been dropped or renamed since
+            List<String> columns = new ArrayList<>(databaseSession.getMetadata().getColumnNames(tableDefinition));
+            columns.retainAll(saved);
+            return columns.isEmpty() ? null : columns;
+        } catch (SQLException e) {
+            LOG.warn("failed to read visible columns of " + tableDefinition.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return quoted columns to select: the chosen ones plus the primary key, null for all columns
+     */
+    private String buildProjection() throws SQLException {
+        if (visibleColumns == null) {
+            return null;
+        }
+        Set<String> columns = new LinkedHashSet<>(visibleColumns);
+        columns.addAll(keyColumns);
+        List<String> quoted = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            quoted.add(databaseSession.quoteIdentifier(column));
+        }
+        return Joiner.on(", ").join(quoted);
+    }
+
+    private void showColumnSelection(final String filter) {
+        final List<String> columns;
+        final String tableName;
+        try {
+            columns = databaseSession.getMetadata().getColumnNames(table);
+            tableName = databaseSession.buildTableName(table);
+        } catch (SQLException e) {
+            LOG.warn("failed to read columns of " + table.getName(), e);
+            Notification.show("Failed to read columns\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+            return;
+        }
+        getUI().addWindow(new ColumnSelectionWindow(columns, visibleColumns, new ColumnSelectionWindow.SelectionListener() {
+            @Override
+            public void columnsSelected(List<String> selected) {
+                visibleColumns = selected;
+                databaseSession.getTablePreferences().setVisibleColumns(tableName, selected);
+                refreshDataView(table, databaseSession, filter);
+            }
+        }));
+    }
+
+    private TableEditor createEditor(JdbcTable tableDefinition, DatabaseSession databaseSession) {
+        if (keyColumns.isEmpty()) {
+            // rows can't be addressed reliably without a primary key
+            return null;
+        }
+        try {
+            String tableName = databaseSession.buildTableName(tableDefinition);
+            lobReader = new LobReader(databaseSession, tableName, keyColumns);
+            TableChangeSet changeSet = new TableChangeSet(databaseSession, tableName, keyColumns);
+            return new TableEditor(changeSet, lobReader, new Runnable() {
+                @Override
+                public void run() {
+                    updateEditButtons();
+                }
+            });
+        } catch (SQLException e) {
+            LOG.warn("failed to build name of " + tableDefinition.getName(), e);
+            return null;
+        }
+    }
+
+    private boolean isEditing() {
+        return editor != null && editToggle.getValue();
+    }
+
+    private void updateEditButtons() {
+        boolean editing = isEditing();
+        int changes = editing ? editor.getChangeSet().size() : 0;
+        addRowButton.setVisible(editing);
+        addRowButton.setEnabled(currentContainer != null);
+        saveButton.setVisible(editing);
+        saveButton.setEnabled(changes > 0);
+        saveButton.setCaption(changes > 0 ? "Save (" + changes + ")" : "Save");
+        discardButton.setVisible(editing);
+        discardButton.setEnabled(changes > 0);
+        sampleToggle.setEnabled(!editing);
+    }
+
+    private void saveChanges(String filter) {
+        try {
+            int count = editor.getChangeSet().apply();
+            if (databaseSession.getResultCache() != null) {
+                databaseSession.getResultCache().invalidateAll();
+            }
+            Notification.show(count + " changes saved", Notification.Type.TRAY_NOTIFICATION);
+            refreshDataView(table, databaseSession, filter);
+        } catch (SQLException e) {
+            LOG.warn("failed to save changes of " + table.getName(), e);
+            Notification.show("Save failed\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+        }
+    }
+
+    private void cancelSample() {
+        cancel(sampleFuture, sampleExecution);
+        sampleFuture = null;
+        sampleExecution = null;
+    }
+
+    private void export() {
+        try {
+            List<Object> parameters = new ArrayList<>();
+            String sql;
+            if (currentDelegate != null) {
+                // same rows and order as on screen, including column filters and sorting
+                sql = currentDelegate.getSelectAll(parameters);
+            } else {
+                String tableName = databaseSession.buildTableName(table);
+                sql = databaseSession.getDialect().getExpressions().selectColumnsFromTable(tableName, buildProjection(), currentFilter);
+            }
+            getUI().addWindow(new ExportDialog(databaseSession, sql, parameters, table.getName()));
+        } catch (SQLException e) {
+            LOG.warn("failed to prepare export", e);
+            Notification.show("Export failed\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+        }
+    }
+
+    private void showColumnFilters() {
+        if (currentContainer == null) {
+            return;
+        }
+        if (!databaseFiltering) {
+            Notification.show("Column filters require limit/offset select support", Notification.Type.WARNING_MESSAGE);
+            return;
+        }
+        final FilterableSQLContainer container = currentContainer;
+        final ReadonlyFreeformStatementDelegate delegate = currentDelegate;
+        getUI().addWindow(new ColumnFilterWindow(container, Arrays.asList(currentColumns), new ColumnFilterWindow.Listener() {
+            @Override
+            public void apply(List<Container.Filter> filters) {
+                // a background count with the previous filters is useless now
+                cancelExactCount();
+                try {
+                    // the delegate gets the filters first, so the container refresh finds the count already known
+                    delegate.setFilters(filters);
+                    boolean counting = prepareRowCount(delegate);
+                    container.setContainerFilters(filters);
+                    showRowCount(container, delegate, counting);
+                } catch (SQLException | UnsupportedOperationException e) {
+                    LOG.debug("failed to apply column filters", e);
+                    Notification.show("Failed to apply column filters\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+                }
+            }
+        }));
+    }
+
+    private FilterableSQLContainer createContainer(JdbcTable tableDefinition, DatabaseSession databaseSession, String filter) throws SQLException {
+        filter = fixFilter(filter);
+        currentFilter = filter;
 
         final String tableName = databaseSession.buildTableName(tableDefinition);
-        final String queryString = databaseSession.getDialect().getExpressions().selectAllFromTable(tableName, filter);
+        final String projection = buildProjection();
+        final String queryString = databaseSession.getDialect().getExpressions().selectColumnsFromTable(tableName, projection, filter);
 
         final FreeformQuery query;
 
         // todo StatementDelegateFactory
-        // todo pk columns
-        if (databaseSession.getDialect().supportsLimitedSelects()) {
-            query = new CustomFreeformQuery(queryString, connectionPool);
-            query.setDelegate(new ReadonlyFreeformStatementDelegate(tableName, filter, databaseSession));
+        ReadonlyFreeformStatementDelegate delegate = null;
+        KeysetPagination pagination = KeysetPagination.create(databaseSession, tableDefinition, filter);
+        if (pagination != null) {
+            delegate = new KeysetFreeformStatementDelegate(tableName, filter, databaseSession, pagination);
+        } else if (databaseSession.getDialect().supportsLimitedSelects()) {
+            delegate = new ReadonlyFreeformStatementDelegate(tableName, filter, databaseSession);
+        }
+
+        databaseFiltering = delegate != null;
+        currentDelegate = delegate;
+        tableEstimate = null;
+        if (delegate != null) {
+            delegate.setProjection(projection);
+            delegate.setKeyColumns(keyColumns);
+            query = new CustomFreeformQuery(queryString, connectionPool, databaseSession.getQueryQueue());
+            query.setDelegate(delegate);
+            Long estimate = new RowCounter(databaseSession).estimate(tableDefinition);
+            tableEstimate = estimate != null && estimate >= RowCounter.ESTIMATE_THRESHOLD ? estimate : null;
         } else {
             query = new FreeformQuery(queryString, connectionPool);
             Notification.show(
@@ -160,7 +616,158 @@ public class TableDataView extends VerticalLayout implements ToolbarContributor
                     Notification.Type.TRAY_NOTIFICATION);
         }
 
-        return new SQLContainer(query);
+        boolean counting = delegate != null && prepareRowCount(delegate);
+        FilterableSQLContainer container = new FilterableSQLContainer(query);
+        if (delegate != null) {
+            showRowCount(container, delegate, counting);
+        } else {
+            showRowCount(container.size(), false);
+        }
+        return container;
+    }
+
+    /**
+     * Counting a large table may take minutes, so its view starts with the estimate while it isn't filtered and with
+     * the rows counted up to {@link #COUNT_PROBE_ROWS} otherwise. The probe runs in the background as well, the
+     * filtered view stays empty until it returns. Small tables are counted by the container.
+     *
+     * @return true if the rows are still to be counted in the background
+     */
+    private boolean prepareRowCount(ReadonlyFreeformStatementDelegate delegate) {
+        delegate.setKnownCount(null);
+        if (tableEstimate == null) {
+            return false;
+        }
+        delegate.setKnownCount(delegate.getWhere(new ArrayList<>()) == null ? tableEstimate : 0L);
+        return true;
+    }
+
+    private void showRowCount(SQLContainer container, ReadonlyFreeformStatementDelegate delegate, boolean counting) throws SQLException {
+        if (!counting) {
+            showRowCount(container.size(), false);
+            return;
+        }
+        List<Object> parameters = new ArrayList<>();
+        String where = delegate.getWhere(parameters);
+        String tableName = databaseSession.buildTableName(table);
+        if (where == null) {
+            showRowCount(delegate.getKnownCount(), true);
+            startExactCount(container, delegate, tableName, null, parameters);
+        } else {
+            countLabel.setValue("&nbsp;counting\u2026&nbsp;");
+            startCountProbe(container, delegate, tableName, where, parameters);
+        }
+    }
+
+    /**
+     * Counts the rows of a filtered view up to {@link #COUNT_PROBE_ROWS}, the exact count follows if there are more.
+     */
+    private void startCountProbe(final SQLContainer container, final ReadonlyFreeformStatementDelegate delegate,
+                                 final String tableName, final String filter, final List<Object> parameters) {
+        final UI ui = getUI();
+        final ExecutionRegistry.Execution execution = databaseSession.getExecutionRegistry().start(
+                databaseSession.getDialect().getExpressions().count(tableName, filter));
+        countExecution = execution;
+        try {
+            countFuture = databaseSession.getQueryQueue().submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Long count = new RowCounter(databaseSession).countUpTo(tableName, filter, parameters, COUNT_PROBE_ROWS, execution);
+                        ui.access(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (countExecution != execution) {
+                                    // the filters changed meanwhile
+                                    return;
+                                }
+                                delegate.setKnownCount(count);
+                                container.refresh();
+                                if (count == null || count < COUNT_PROBE_ROWS) {
+                                    showRowCount(container.size(), false);
+                                } else {
+                                    showPartialRowCount(count);
+                                    startExactCount(container, delegate, tableName, filter, parameters);
+                                }
+                            }
+                        });
+                    } catch (SQLException e) {
+                        if (!execution.isCancelled()) {
+                            LOG.warn("failed to count rows of " + tableName, e);
+                        }
+                    } finally {
+                        execution.close();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("row count rejected", e);
+            execution.close();
+        }
+    }
+
+    private void startExactCount(final SQLContainer container, final ReadonlyFreeformStatementDelegate delegate,
+                                 final String tableName, final String filter, final List<Object> parameters) {
+        final UI ui = getUI();
+        final ExecutionRegistry.Execution execution = databaseSession.getExecutionRegistry().start(
+                databaseSession.getDialect().getExpressions().count(tableName, filter));
+        countExecution = execution;
+        try {
+            countFuture = databaseSession.getQueryQueue().submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final long count = new RowCounter(databaseSession).count(tableName, filter, parameters, execution);
+                        ui.access(new Runnable() {
+                            @Override
+                            public void run() {
+                                delegate.setKnownCount(count);
+                                container.refresh();
+                                showRowCount(count, false);
+                            }
+                        });
+                    } catch (SQLException e) {
+                        if (!execution.isCancelled()) {
+                            LOG.warn("failed to count rows of " + tableName, e);
+                        }
+                    } finally {
+                        execution.close();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("row count rejected", e);
+            execution.close();
+        }
+    }
+
+    private void cancelExactCount() {
+        cancel(countFuture, countExecution);
+        countFuture = null;
+        countExecution = null;
+    }
+
+    private static void cancel(Future<?> future, ExecutionRegistry.Execution execution) {
+        if (future != null) {
+            future.cancel(false);
+        }
+        if (execution != null) {
+            try {
+                execution.cancel();
+            } catch (SQLException e) {
+                LOG.debug("failed to cancel " + execution.getSql(), e);
+            }
+            execution.close();
+        }
+    }
+
+    private void showRowCount(long count, boolean estimated) {
+        String text = String.format("%,d rows", count);
+        countLabel.setValue("&nbsp;" + (estimated ? "~" + text + " (estimated)" : text) + "&nbsp;");
+    }
+
+    private void showPartialRowCount(long count) {
+        countLabel.setValue("&nbsp;" + String.format("%,d+ rows (counting)", count) + "&nbsp;");
     }
 
     private String fixFilter(String filter) {
@@ -174,21 +781,36 @@ public class TableDataView extends VerticalLayout implements ToolbarContributor
     }
 
     private void showRecordEditor(final Table table, Object targetValue) {
+        if (isEditing()) {
+            editor.editRecord(table, targetValue, new Runnable() {
+                @Override
+                public void run() {
+                    table.focus();
+                }
+            });
+            return;
+        }
         Item item = table.getContainerDataSource().getItem(targetValue);
         if (item != null) {
-            getUI().addWindow(new SingleRecordViewWindow(item, new Runnable() {
+            SingleRecordViewWindow window = new SingleRecordViewWindow(item, new Runnable() {
                 @Override
                 public void run() {
                     table.focus();
                 }
-            }));
+            });
+            if (lobReader != null) {
+                window.setLobReader(lobReader, editor.keyOf(item));
+            }
+            getUI().addWindow(window);
         }
     }
 
-    private Object[] filterColumns(Object[] visibleColumns) {
-        List<Object> list = new ArrayList<>(visibleColumns.length);
-        for (Object column : visibleColumns) {
-            if (!DialectSupport.isServiceColumn(column.toString())) {
+    private Object[] filterColumns(Object[] columns) {
+        List<Object> list = new ArrayList<>(columns.length);
+        for (Object column : columns) {
+            // key columns are selected for editing even if they are not chosen to be shown
+            boolean hidden = visibleColumns != null && !visibleColumns.contains(column.toString());
+            if (!hidden && !DialectSupport.isServiceColumn(column.toString())) {
                 list.add(column);
             }
         }
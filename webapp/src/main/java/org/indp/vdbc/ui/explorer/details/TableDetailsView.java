@@ -64,11 +64,19 @@ public class TableDetailsView extends VerticalLayout implements ObjectDetails {
             }
         };
 
+        Component tableStatisticsView = new LazyTab(TableStatisticsView.TITLE) {
+            @Override
+            public Component createActualComponent() {
+                return new TableStatisticsView(table, databaseSession);
+            }
+        };
+
 //        TableSourceView tableSourceView = new TableSourceView(table, sessionFactory);
 //        tableSourceView.setSizeFull();
 
         tabSheet.addTab(tableStructureView);
         tabSheet.addTab(tableContentView);
+        tabSheet.addTab(tableStatisticsView);
 //        tabSheet.addTab(tableSourceView);
 
         tabSheet.addSelectedTabChangeListener(new TabSheet.SelectedTabChangeListener() {
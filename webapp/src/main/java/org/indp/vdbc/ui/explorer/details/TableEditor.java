@@ -0,0 +1,203 @@
+package org.indp.vdbc.ui.explorer.details;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.event.Action;
+import com.vaadin.server.UserError;
+import com.vaadin.ui.Table;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.db.DialectSupport;
+import org.indp.vdbc.services.LobReader;
+import org.indp.vdbc.services.TableChangeSet;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Editable mode of the table data view. Cell edits, record edits, new and deleted rows are collected in a
+ * {@link TableChangeSet} and only written when the change set is applied.
+ */
+class TableEditor {
+
+    private static final String MODIFIED_STYLE = "modified";
+    private static final String DELETED_STYLE = "deleted";
+
+    private final TableChangeSet changeSet;
+    private final LobReader lobReader;
+    private final Runnable onChange;
+    private final Action deleteRowAction = new Action("Delete row");
+    private final Action restoreRowAction = new Action("Restore row");
+
+    /**
+     * @param onChange called whenever the pending changes were modified
+     */
+    TableEditor(TableChangeSet changeSet, LobReader lobReader, Runnable onChange) {
+        this.changeSet = changeSet;
+        this.lobReader = lobReader;
+        this.onChange = onChange;
+    }
+
+    TableChangeSet getChangeSet() {
+        return changeSet;
+    }
+
+    /**
+     * Replaces the cells of editable columns with text fields and marks deleted rows.
+     */
+    void install(Table table) {
+        Container container = table.getContainerDataSource();
+        for (Object column : table.getVisibleColumns()) {
+            if (!changeSet.getKeyColumns().contains(column.toString()) && isEditable(container.getType(column))) {
+                table.addGeneratedColumn(column, new CellEditor());
+            }
+        }
+        table.setCellStyleGenerator(new Table.CellStyleGenerator() {
+            @Override
+            public String getStyle(Table source, Object itemId, Object propertyId) {
+                Item item = source.getItem(itemId);
+                return propertyId == null && item != null && changeSet.isDeleted(keyOf(item)) ? DELETED_STYLE : null;
+            }
+        });
+    }
+
+    Action[] getActions(Table table, Object itemId) {
+        Item item = itemId == null ? null : table.getItem(itemId);
+        if (item == null) {
+            return new Action[0];
+        }
+        return new Action[]{changeSet.isDeleted(keyOf(item)) ? restoreRowAction : deleteRowAction};
+    }
+
+    void handleAction(Action action, Table table, Object itemId) {
+        Item item = table.getItem(itemId);
+        if (item == null) {
+            return;
+        }
+        if (action == deleteRowAction) {
+            changeSet.delete(keyOf(item));
+        } else if (action == restoreRowAction) {
+            changeSet.undelete(keyOf(item));
+        } else {
+            return;
+        }
+        table.refreshRowCache();
+        onChange.run();
+    }
+
+    void editRecord(final Table table, Object itemId, Runnable onClose) {
+        Item item = table.getItem(itemId);
+        if (item == null) {
+            return;
+        }
+        final Map<String, Object> key = keyOf(item);
+        Map<Object, Object> values = new LinkedHashMap<>();
+        Map<String, Object> updates = changeSet.getUpdates(key);
+        for (Object propertyId : item.getItemPropertyIds()) {
+            String column = propertyId.toString();
+            values.put(propertyId, updates.containsKey(column) ? updates.get(column) : item.getItemProperty(propertyId).getValue());
+        }
+        SingleRecordViewWindow.ApplyListener listener = changeSet.isDeleted(key) ? null : new SingleRecordViewWindow.ApplyListener() {
+            @Override
+            public void apply(Map<Object, Object> changes) {
+                for (Map.Entry<Object, Object> entry : changes.entrySet()) {
+                    changeSet.update(key, entry.getKey().toString(), entry.getValue());
+                }
+                table.refreshRowCache();
+                onChange.run();
+            }
+        };
+        SingleRecordViewWindow window = new SingleRecordViewWindow(
+                values, typesOf(table.getContainerDataSource()), changeSet.getKeyColumns(), listener, onClose);
+        window.setLobReader(lobReader, key);
+        UI.getCurrent().addWindow(window);
+    }
+
+    void addRow(Container container) {
+        Map<Object, Object> values = new LinkedHashMap<>();
+        for (Object propertyId : container.getContainerPropertyIds()) {
+            if (!DialectSupport.isServiceColumn(propertyId.toString())) {
+                values.put(propertyId, null);
+            }
+        }
+        UI.getCurrent().addWindow(new SingleRecordViewWindow(values, typesOf(container), null,
+                new SingleRecordViewWindow.ApplyListener() {
+                    @Override
+                    public void apply(Map<Object, Object> changes) {
+                        Map<String, Object> row = new HashMap<>();
+                        for (Map.Entry<Object, Object> entry : changes.entrySet()) {
+                            row.put(entry.getKey().toString(), entry.getValue());
+                        }
+                        changeSet.insert(row);
+                        onChange.run();
+                    }
+                }, null));
+    }
+
+    Map<String, Object> keyOf(Item item) {
+        Map<String, Object> key = new HashMap<>();
+        for (String column : changeSet.getKeyColumns()) {
+            Property<?> property = item.getItemProperty(column);
+            key.put(column, property == null ? null : property.getValue());
+        }
+        return key;
+    }
+
+    private static Map<Object, Class<?>> typesOf(Container container) {
+        Map<Object, Class<?>> types = new HashMap<>();
+        for (Object propertyId : container.getContainerPropertyIds()) {
+            types.put(propertyId, container.getType(propertyId));
+        }
+        return types;
+    }
+
+    /**
+     * @return true for types which can be edited as text, see {@link ColumnFilterWindow#convert(String, Class)}
+     */
+    private static boolean isEditable(Class<?> type) {
+        return type != null && (String.class == type || Number.class.isAssignableFrom(type) || Boolean.class == type
+                || Date.class.isAssignableFrom(type) && type.getPackage().getName().equals("java.sql"));
+    }
+
+    private class CellEditor implements Table.ColumnGenerator {
+
+        @Override
+        public Object generateCell(Table source, Object itemId, final Object columnId) {
+            Item item = source.getItem(itemId);
+            final Map<String, Object> key = keyOf(item);
+            final Class<?> type = source.getContainerDataSource().getType(columnId);
+            Map<String, Object> updates = changeSet.getUpdates(key);
+            String column = columnId.toString();
+            Object value = updates.containsKey(column) ? updates.get(column) : item.getItemProperty(columnId).getValue();
+
+            final TextField field = new TextField();
+            field.setValue(value == null ? "" : value.toString());
+            field.setInputPrompt("(null)");
+            field.setWidth("100%");
+            field.addStyleName(ValoTheme.TEXTFIELD_TINY);
+            field.addStyleName(ValoTheme.TEXTFIELD_BORDERLESS);
+            if (updates.containsKey(column)) {
+                field.addStyleName(MODIFIED_STYLE);
+            }
+            field.setReadOnly(changeSet.isDeleted(key));
+            field.addValueChangeListener(new Property.ValueChangeListener() {
+                @Override
+                public void valueChange(Property.ValueChangeEvent event) {
+                    try {
+                        changeSet.update(key, columnId.toString(), ColumnFilterWindow.convertValue(field.getValue(), type));
+                        field.setComponentError(null);
+                        field.addStyleName(MODIFIED_STYLE);
+                        onChange.run();
+                    } catch (IllegalArgumentException e) {
+                        field.setComponentError(new UserError(e.getMessage()));
+                    }
+                }
+            });
+            return field;
+        }
+    }
+}
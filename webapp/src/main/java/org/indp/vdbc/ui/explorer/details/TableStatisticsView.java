@@ -0,0 +1,177 @@
+package org.indp.vdbc.ui.explorer.details;
+
+import com.vaadin.shared.ui.MarginInfo;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
+import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.TableStatistics;
+import org.indp.vdbc.ui.ResultSetTable;
+import org.indp.vdbc.util.Sizes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Catalog statistics of a table: estimated rows, sizes, last analyze time and per column cardinality. Statistics are
+ * read in the background and cached by the session, see {@link DatabaseSession#getTableStatistics(JdbcTable, boolean)}.
+ */
+public class TableStatisticsView extends VerticalLayout implements ToolbarContributor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableStatisticsView.class);
+    public static final String TITLE = "Statistics";
+    private static final String BYTES_SUFFIX = "_BYTES";
+
+    private final JdbcTable table;
+    private final DatabaseSession databaseSession;
+    private final Component toolbar;
+    private final Label timestampLabel;
+    private Future<?> future;
+
+    public TableStatisticsView(JdbcTable table, DatabaseSession databaseSession) {
+        this.table = table;
+        this.databaseSession = databaseSession;
+
+        Button refreshButton = new Button("Refresh", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                load(true);
+            }
+        });
+        refreshButton.addStyleName(ValoTheme.BUTTON_TINY);
+
+        timestampLabel = new Label();
+        timestampLabel.setSizeUndefined();
+        timestampLabel.addStyleName(ValoTheme.LABEL_TINY);
+
+        HorizontalLayout toolbarLayout = new HorizontalLayout(timestampLabel, refreshButton);
+        toolbarLayout.setDefaultComponentAlignment(Alignment.MIDDLE_RIGHT);
+        toolbarLayout.setSpacing(true);
+        toolbarLayout.setWidth("100%");
+        toolbarLayout.setExpandRatio(timestampLabel, 1f);
+        toolbarLayout.setComponentAlignment(timestampLabel, Alignment.MIDDLE_RIGHT);
+        toolbar = toolbarLayout;
+
+        setCaption(TITLE);
+        setSizeFull();
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+        load(false);
+    }
+
+    @Override
+    public void detach() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        super.detach();
+    }
+
+    private void load(final boolean refresh) {
+        if (!databaseSession.getDialect().supportsTableStatistics() && !databaseSession.getDialect().supportsColumnStatistics()) {
+            show(new Label("Statistics are not supported for " + databaseSession.getDialect().getName()));
+            return;
+        }
+        show(new Label("Reading statistics of " + table.getName() + "..."));
+        final UI ui = getUI();
+        try {
+            future = databaseSession.getQueryQueue().submitBackground(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final TableStatistics statistics = databaseSession.getTableStatistics(table, refresh);
+                        ui.access(new Runnable() {
+                            @Override
+                            public void run() {
+                                show(statistics);
+                            }
+                        });
+                    } catch (final SQLException e) {
+                        LOG.warn("failed to read statistics of " + table.getName(), e);
+                        ui.access(new Runnable() {
+                            @Override
+                            public void run() {
+                                show(new Label(e.getMessage()));
+                            }
+                        });
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("statistics rejected", e);
+        }
+    }
+
+    private void show(TableStatistics statistics) {
+        timestampLabel.setValue("Read at " + new SimpleDateFormat("HH:mm:ss").format(new Date(statistics.getTimestamp())));
+
+        FormLayout form = new FormLayout();
+        form.addStyleName(ValoTheme.FORMLAYOUT_LIGHT);
+        form.setMargin(new MarginInfo(false, true, false, true));
+        for (Map.Entry<String, Object> entry : statistics.getTableStatistics().entrySet()) {
+            Label value = new Label(format(entry.getKey(), entry.getValue()));
+            value.setCaption(caption(entry.getKey()));
+            form.addComponent(value);
+        }
+
+        VerticalLayout layout = new VerticalLayout(form);
+        layout.setSizeFull();
+        if (statistics.getTableStatistics().isEmpty()) {
+            form.addComponent(new Label("No table statistics, the table may have never been analyzed"));
+        }
+        ColumnarResultBuffer columns = statistics.getColumnStatistics();
+        if (columns != null) {
+            ResultSetTable columnsTable = new ResultSetTable(columns);
+            layout.addComponent(columnsTable);
+            layout.setExpandRatio(columnsTable, 1f);
+        }
+        show(layout);
+    }
+
+    private void show(Component component) {
+        removeAllComponents();
+        addComponent(component);
+        setExpandRatio(component, 1f);
+    }
+
+    /**
+     * @return e.g. "Index size" for INDEX_BYTES
+     */
+    private static String caption(String name) {
+        String caption = name.toUpperCase().endsWith(BYTES_SUFFIX)
+                ? name.substring(0, name.length() - BYTES_SUFFIX.length()) + "_SIZE"
+                : name;
+        caption = caption.replace('_', ' ').toLowerCase();
+        return Character.toUpperCase(caption.charAt(0)) + caption.substring(1);
+    }
+
+    private static String format(String name, Object value) {
+        if (value == null) {
+            return "(unknown)";
+        }
+        if (value instanceof Number && name.toUpperCase().endsWith(BYTES_SUFFIX)) {
+            return Sizes.format(((Number) value).longValue());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0) {
+            return String.format("%,d", ((Number) value).longValue());
+        }
+        return value.toString();
+    }
+
+    @Override
+    public Component getToolbar() {
+        return toolbar;
+    }
+}
@@ -1,33 +1,104 @@
 package org.indp.vdbc.ui.explorer.details;
 
+import com.google.common.base.Joiner;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.ui.CustomComponent;
 import com.vaadin.ui.Label;
+import com.vaadin.ui.Table;
+import com.vaadin.ui.VerticalSplitPanel;
+import org.indp.vdbc.model.jdbc.JdbcForeignKey;
+import org.indp.vdbc.model.jdbc.JdbcIndex;
 import org.indp.vdbc.model.jdbc.JdbcTable;
+import org.indp.vdbc.model.jdbc.SnapshotTable;
+import org.indp.vdbc.result.ColumnarResultBuffer;
 import org.indp.vdbc.services.DatabaseSession;
 import org.indp.vdbc.ui.ResultSetTable;
-import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.ui.UiUtils;
+import org.indp.vdbc.util.MetadataRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.util.Arrays;
+import java.util.List;
 
 /**
- *
- *
+ * Columns of the table and, if the dialect can read schema snapshots, its keys and indexes.
  */
 public class TableStructureView extends CustomComponent {
 
+    private static final Logger LOG = LoggerFactory.getLogger(TableStructureView.class);
+    private static final String KIND = "Kind";
+    private static final String NAME = "Name";
+    private static final String COLUMNS = "Columns";
+    private static final String REFERENCES = "References";
+
     public TableStructureView(JdbcTable table, DatabaseSession databaseSession) {
         setCaption("Structure");
         try {
-            DatabaseMetaData metadata = databaseSession.getMetadata().getRawMetadata();
-            ResultSet attributes = metadata.getColumns(table.getCatalog(), table.getSchema(), table.getName(), null);
-            ResultSetTable resultSetTable = new ResultSetTable(attributes, Arrays.asList("COLUMN_NAME", "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "IS_NULLABLE", "IS_AUTOINCREMENT", "COLUMN_DEF", "REMARKS"));
+            MetadataRetriever metadata = databaseSession.getMetadata();
+            ColumnarResultBuffer columns = metadata.getColumns(table);
+            ResultSetTable resultSetTable = new ResultSetTable(columns, Arrays.asList("COLUMN_NAME", "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "IS_NULLABLE", "IS_AUTOINCREMENT", "COLUMN_DEF", "REMARKS"));
             resultSetTable.setSizeFull();
-            setCompositionRoot(resultSetTable);
-            JdbcUtils.close(attributes);
+
+            SnapshotTable snapshotTable = readSnapshotTable(table, metadata);
+            if (snapshotTable == null) {
+                setCompositionRoot(resultSetTable);
+            } else {
+                VerticalSplitPanel splitPanel = new VerticalSplitPanel(resultSetTable, createKeysTable(snapshotTable));
+                splitPanel.setSplitPosition(65);
+                setCompositionRoot(splitPanel);
+            }
         } catch (Exception ex) {
             setCompositionRoot(new Label(ex.getMessage()));
         }
     }
+
+    private static SnapshotTable readSnapshotTable(JdbcTable table, MetadataRetriever metadata) {
+        if (!metadata.supportsSchemaSnapshot()) {
+            return null;
+        }
+        try {
+            // the snapshot of the whole schema is shared with the other views, so it's read at most once per TTL
+            return metadata.getSchemaSnapshot(table.getCatalog(), table.getSchema()).getTable(table.getName());
+        } catch (Exception e) {
+            LOG.warn("failed to read schema snapshot", e);
+            return null;
+        }
+    }
+
+    private static Table createKeysTable(SnapshotTable table) {
+        IndexedContainer container = new IndexedContainer();
+        container.addContainerProperty(KIND, String.class, null);
+        container.addContainerProperty(NAME, String.class, null);
+        container.addContainerProperty(COLUMNS, String.class, null);
+        container.addContainerProperty(REFERENCES, String.class, null);
+
+        if (!table.getPrimaryKey().isEmpty()) {
+            addRow(container, "Primary key", null, table.getPrimaryKey(), null);
+        }
+        for (JdbcForeignKey foreignKey : table.getForeignKeys()) {
+            String referencedTable = foreignKey.getReferencedSchema() == null || foreignKey.getReferencedSchema().equals(table.getSchema())
+                    ? foreignKey.getReferencedTable()
+                    : foreignKey.getReferencedSchema() + "." + foreignKey.getReferencedTable();
+            addRow(container, "Foreign key", foreignKey.getName(), foreignKey.getColumns(),
+                    referencedTable + " (" + Joiner.on(", ").useForNull("?").join(foreignKey.getReferencedColumns()) + ")");
+        }
+        for (JdbcIndex index : table.getIndexes()) {
+            addRow(container, index.isUnique() ? "Unique index" : "Index", index.getName(), index.getColumns(), null);
+        }
+
+        Table keysTable = UiUtils.createTable(container);
+        keysTable.setSizeFull();
+        return keysTable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addRow(IndexedContainer container, String kind, String name, List<String> columns, String references) {
+        Item item = container.getItem(container.addItem());
+        item.getItemProperty(KIND).setValue(kind);
+        item.getItemProperty(NAME).setValue(name);
+        item.getItemProperty(COLUMNS).setValue(Joiner.on(", ").join(columns));
+        item.getItemProperty(REFERENCES).setValue(references);
+    }
 }
@@ -9,6 +9,7 @@ import org.indp.vdbc.ui.profile.config.AbstractProfileField;
 import org.indp.vdbc.ui.profile.config.FormContext;
 import org.indp.vdbc.ui.profile.impl.fields.ColorField;
 import org.indp.vdbc.ui.profile.impl.fields.DialectField;
+import org.indp.vdbc.ui.profile.impl.fields.IntegerProfileField;
 import org.indp.vdbc.ui.profile.impl.fields.SimpleProfileField;
 
 import java.util.Arrays;
@@ -47,6 +48,14 @@ public abstract class ConnectionProfileDetailsPanel<T extends ConnectionProfile>
         return Arrays.asList(
                 new SimpleProfileField("name"),
                 new DialectField("dialect", "Dialect", true),
+                new IntegerProfileField("fetchSize", "Fetch Size", false),
+                new IntegerProfileField("queryTimeout", "Query Timeout (s)", false),
+                new IntegerProfileField("maxConcurrentQueries", "Max Concurrent Queries", false),
+                new IntegerProfileField("resultCacheSize", "Result Cache (MB)", false),
+                new IntegerProfileField("resultCacheTtl", "Result Cache TTL (s)", false),
+                new IntegerProfileField("metadataCacheTtl", "Metadata Cache TTL (s)", false),
+                new IntegerProfileField("metadataPrefetchBudget", "Metadata Prefetch Budget (s)", false),
+                new SimpleProfileField("metadataPrefetchSchemas", "Metadata Prefetch Schemas", false),
                 new ColorField("color", "Color", false));
     }
 
@@ -24,6 +24,14 @@ public class JdbcConnectionProfileDetailsPanel extends ConnectionProfileDetailsP
                 new SimpleProfileField("user"),
                 new PasswordField("password", "Password", false),
                 new TextAreaProfileField("validationQuery", "Validation Query", 3, false),
+                new IntegerProfileField("fetchSize", "Fetch Size", false),
+                new IntegerProfileField("queryTimeout", "Query Timeout (s)", false),
+                new IntegerProfileField("maxConcurrentQueries", "Max Concurrent Queries", false),
+                new IntegerProfileField("resultCacheSize", "Result Cache (MB)", false),
+                new IntegerProfileField("resultCacheTtl", "Result Cache TTL (s)", false),
+                new IntegerProfileField("metadataCacheTtl", "Metadata Cache TTL (s)", false),
+                new IntegerProfileField("metadataPrefetchBudget", "Metadata Prefetch Budget (s)", false),
+                new SimpleProfileField("metadataPrefetchSchemas", "Metadata Prefetch Schemas", false),
                 new ColorField("color", "Color", false));
     }
 }
@@ -5,6 +5,7 @@ import org.indp.vdbc.ui.profile.ConnectionProfileDetailsPanel;
 import org.indp.vdbc.ui.profile.config.AbstractProfileField;
 import org.indp.vdbc.ui.profile.impl.fields.ColorField;
 import org.indp.vdbc.ui.profile.impl.fields.DialectField;
+import org.indp.vdbc.ui.profile.impl.fields.IntegerProfileField;
 import org.indp.vdbc.ui.profile.impl.fields.SimpleProfileField;
 
 import java.util.Arrays;
@@ -22,6 +23,14 @@ public class JndiConnectionProfileDetailsPanel extends ConnectionProfileDetailsP
                 new SimpleProfileField("name"),
                 new DialectField("dialect", "Dialect", true),
                 new SimpleProfileField("jndiName", "JNDI Name", true),
+                new IntegerProfileField("fetchSize", "Fetch Size", false),
+                new IntegerProfileField("queryTimeout", "Query Timeout (s)", false),
+                new IntegerProfileField("maxConcurrentQueries", "Max Concurrent Queries", false),
+                new IntegerProfileField("resultCacheSize", "Result Cache (MB)", false),
+                new IntegerProfileField("resultCacheTtl", "Result Cache TTL (s)", false),
+                new IntegerProfileField("metadataCacheTtl", "Metadata Cache TTL (s)", false),
+                new IntegerProfileField("metadataPrefetchBudget", "Metadata Prefetch Budget (s)", false),
+                new SimpleProfileField("metadataPrefetchSchemas", "Metadata Prefetch Schemas", false),
                 new ColorField("color", "Color", false));
     }
 }
@@ -0,0 +1,44 @@
+package org.indp.vdbc.ui.profile.impl.fields;
+
+import com.google.common.base.Strings;
+import com.vaadin.data.validator.RegexpValidator;
+import com.vaadin.ui.AbstractTextField;
+import com.vaadin.ui.TextField;
+import org.indp.vdbc.model.config.ConnectionProfile;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+
+public class IntegerProfileField extends AbstractTextProfileField {
+
+    private TextField textField;
+
+    public IntegerProfileField(String id, String title, boolean required) {
+        super(id, title, required);
+    }
+
+    @Override
+    public AbstractTextField getFieldComponent() {
+        if (textField == null) {
+            textField = new TextField(getTitle());
+            textField.setWidth("100%");
+            textField.setNullRepresentation("");
+            textField.setRequired(isRequired());
+            textField.addValidator(new RegexpValidator("\\d{0,9}", getTitle() + " must be a non-negative number"));
+        }
+        return textField;
+    }
+
+    @Override
+    public void writeValue() {
+        try {
+            ConnectionProfile connectionProfile = getFormContext().getConnectionProfile();
+            PropertyDescriptor propertyDescriptor = new PropertyDescriptor(getId(), connectionProfile.getClass());
+            String value = Strings.emptyToNull(getFieldComponent().getValue());
+            propertyDescriptor.getWriteMethod().invoke(connectionProfile, value == null ? null : Integer.valueOf(value));
+        } catch (IntrospectionException | InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
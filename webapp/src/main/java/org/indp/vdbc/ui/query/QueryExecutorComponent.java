@@ -1,41 +1,75 @@
 package org.indp.vdbc.ui.query;
 
+import com.vaadin.data.Item;
 import com.vaadin.data.Property;
+import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.event.ShortcutAction;
 import com.vaadin.event.ShortcutListener;
 import com.vaadin.ui.*;
 import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.history.HistoryEntry;
+import org.indp.vdbc.plan.PlanNode;
 import org.indp.vdbc.services.DatabaseSession;
+import org.indp.vdbc.services.ExecutionRegistry;
+import org.indp.vdbc.services.ExplainRunner;
+import org.indp.vdbc.result.ColumnarResultBuffer;
+import org.indp.vdbc.result.FileResultBuffer;
+import org.indp.vdbc.result.LobValue;
+import org.indp.vdbc.result.ResultBuffer;
+import org.indp.vdbc.result.ResultCache;
+import org.indp.vdbc.services.ScriptRunner;
+import org.indp.vdbc.ui.ExportDialog;
+import org.indp.vdbc.ui.ResultBufferContainer;
+import org.indp.vdbc.ui.ResultSetContainer;
 import org.indp.vdbc.ui.ResultSetTable;
+import org.indp.vdbc.ui.UiUtils;
 import org.indp.vdbc.util.JdbcUtils;
+import org.indp.vdbc.util.MetadataCache;
+import org.indp.vdbc.util.SqlScriptSplitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import workbench.sql.formatter.SqlFormatter;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class QueryExecutorComponent extends VerticalLayout implements Closeable {
 
     private static final boolean DEFAULT_AUTO_COMMIT = true;
+    private static final int DEFAULT_FETCH_SIZE = 100;
     private static final Logger LOG = LoggerFactory.getLogger(QueryExecutorComponent.class);
-    private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(10);
 
+    private final DatabaseSession databaseSession;
     private final Connection connection;
+    private final int fetchSize;
     //
     private VerticalSplitPanel splitPanel;
+    private HorizontalSplitPanel historySplitPanel;
+    private QueryHistoryPanel historyPanel;
     private HorizontalLayout queryOptionsLayout;
     private TextArea query;
     private ComboBox maxRowsBox;
+    private ComboBox resultModeBox;
+    private CheckBox scriptCheckBox;
+    private Closeable currentResult;
+    private String currentResultSql;
+    private volatile boolean autoCommit = DEFAULT_AUTO_COMMIT;
 
     public QueryExecutorComponent(DatabaseSession databaseSession) throws SQLException {
+        this.databaseSession = databaseSession;
         connection = databaseSession.getConnection();
         connection.setAutoCommit(DEFAULT_AUTO_COMMIT);
+        Integer profileFetchSize = databaseSession.getConnectionProfile().getFetchSize();
+        fetchSize = profileFetchSize == null || profileFetchSize <= 0 ? DEFAULT_FETCH_SIZE : profileFetchSize;
 
         buildQueryTextEditor();
         buildToolbar();
@@ -43,9 +77,26 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
         splitPanel = new VerticalSplitPanel(query, new Label());
         splitPanel.setSizeFull();
 
-        addComponents(queryOptionsLayout, splitPanel);
+        historyPanel = new QueryHistoryPanel(databaseSession.getQueryHistory(), new QueryHistoryPanel.Listener() {
+            @Override
+            public void insert(String sql) {
+                query.setValue(sql);
+                query.focus();
+            }
+
+            @Override
+            public void run(String sql) {
+                query.setValue(sql);
+                executeQuery(sql);
+            }
+        });
+        historySplitPanel = new HorizontalSplitPanel(splitPanel, null);
+        historySplitPanel.setSizeFull();
+        setHistoryVisible(false);
+
+        addComponents(queryOptionsLayout, historySplitPanel);
         setSizeFull();
-        setExpandRatio(splitPanel, 1);
+        setExpandRatio(historySplitPanel, 1);
 
         setCaption("Query");
 
@@ -54,6 +105,7 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
 
     @Override
     public void close() {
+        closeCurrentResult();
         JdbcUtils.close(connection);
     }
 
@@ -103,6 +155,56 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
             }
         });
 
+        final Button exportButton = createToolButton("Export...", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                String sql = query.getValue();
+                if (sql == null || sql.trim().isEmpty()) {
+                    return;
+                }
+                ResultBuffer buffer = getExportableBuffer(sql);
+                try {
+                    getUI().addWindow(buffer != null
+                            ? new ExportDialog(buffer, "query")
+                            : new ExportDialog(databaseSession, sql, "query"));
+                } catch (SQLException e) {
+                    LOG.debug("failed to prepare export", e);
+                    Notification.show("Export failed\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+                }
+            }
+        });
+        exportButton.setDescription("Download all rows, results kept on disk are exported without executing the query again");
+
+        final Button historyButton = createToolButton("History", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                setHistoryVisible(historySplitPanel.getSecondComponent() == null);
+            }
+        });
+        historyButton.setDescription("Show or hide previously executed statements");
+
+        final Button explainButton = createToolButton("Explain", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                explainQuery(query.getValue(), false);
+            }
+        });
+        explainButton.setDescription("Show the execution plan of the query");
+        explainButton.setEnabled(databaseSession.getDialect().supportsExplain());
+
+        final Button analyzeButton = createToolButton("Analyze", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                explainQuery(query.getValue(), true);
+            }
+        });
+        analyzeButton.setDescription("Execute the query and show the execution plan with actual timings.<br/>"
+                + "Changes made by the statement are rolled back.");
+        analyzeButton.setEnabled(databaseSession.getDialect().supportsExplainAnalyze());
+
+        CssLayout explainGroup = new CssLayout(explainButton, analyzeButton);
+        explainGroup.addStyleName(ValoTheme.LAYOUT_COMPONENT_GROUP);
+
         final CheckBox autocommitCheckBox = new CheckBox("Autocommit", DEFAULT_AUTO_COMMIT);
         autocommitCheckBox.setImmediate(true);
         autocommitCheckBox.addValueChangeListener(new Property.ValueChangeListener() {
@@ -111,6 +213,7 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
                 boolean autoCommit = Boolean.TRUE.equals(autocommitCheckBox.getValue());
                 try {
                     connection.setAutoCommit(autoCommit);
+                    QueryExecutorComponent.this.autoCommit = autoCommit;
                     commitButton.setEnabled(!autoCommit);
                     rollbackButton.setEnabled(!autoCommit);
                 } catch (Exception ex) {
@@ -120,7 +223,24 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
             }
         });
 
-        maxRowsBox = new ComboBox(null, Arrays.asList(10, 100, 500, 1000));
+        resultModeBox = new ComboBox(null, Arrays.asList(ResultMode.values()));
+        for (ResultMode mode : ResultMode.values()) {
+            resultModeBox.setItemCaption(mode, mode.caption);
+        }
+        resultModeBox.setDescription("Stream: show the first rows at once and fetch the rest while scrolling<br/>"
+                + "In memory: fetch all rows into the session<br/>"
+                + "Disk buffer: fetch all rows into a temporary file, allows to sort results larger than memory");
+        resultModeBox.setWidth("130px");
+        resultModeBox.setNewItemsAllowed(false);
+        resultModeBox.setNullSelectionAllowed(false);
+        resultModeBox.setTextInputAllowed(false);
+        resultModeBox.setValue(ResultMode.STREAM);
+
+        scriptCheckBox = new CheckBox("Script", false);
+        scriptCheckBox.setDescription("Split the text into separate statements and execute them one after another");
+
+        maxRowsBox = new ComboBox(null, Arrays.asList(10, 100, 500, 1000, 0));
+        maxRowsBox.setItemCaption(0, "No limit");
         maxRowsBox.setDescription("Max number of rows to retrieve");
         maxRowsBox.setWidth("100px");
         maxRowsBox.setNewItemsAllowed(false);
@@ -137,11 +257,17 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
         queryOptionsLayout.addComponents(
                 executeButton,
                 formatButton,
+                explainGroup,
+                exportButton,
+                historyButton,
                 commitRollbackGroup,
                 autocommitCheckBox,
+                scriptCheckBox,
+                resultModeBox,
                 maxRowsBox);
         queryOptionsLayout.setWidth("100%");
-        queryOptionsLayout.setExpandRatio(autocommitCheckBox, 1);
+        queryOptionsLayout.setExpandRatio(scriptCheckBox, 1);
+        queryOptionsLayout.setComponentAlignment(resultModeBox, Alignment.MIDDLE_RIGHT);
         queryOptionsLayout.setComponentAlignment(maxRowsBox, Alignment.MIDDLE_RIGHT);
     }
 
@@ -167,62 +293,333 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
         if (sql == null || sql.isEmpty()) {
             return;
         }
-        // TODO cancelable execution
+        final boolean script = isScript();
+        submit(sql, new Task() {
+            @Override
+            public void run(ExecutionRegistry.Execution execution) {
+                if (script) {
+                    handleScriptExecution(sql, execution);
+                } else {
+                    handleQueryExecution(sql, execution);
+                }
+            }
+        });
+    }
+
+    protected void explainQuery(final String sql, final boolean analyze) {
+        if (sql == null || sql.trim().isEmpty()) {
+            return;
+        }
+        submit(sql, new Task() {
+            @Override
+            public void run(ExecutionRegistry.Execution execution) {
+                handleExplain(sql, analyze, execution);
+            }
+        });
+    }
+
+    private void submit(String sql, final Task task) {
+        final ExecutionRegistry.Execution execution = databaseSession.getExecutionRegistry().start(sql);
+
         ProgressBar progressBar = new ProgressBar();
         progressBar.setIndeterminate(true);
+        final Button cancelButton = createToolButton("Cancel", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                event.getButton().setEnabled(false);
+                try {
+                    execution.cancel();
+                } catch (SQLException ex) {
+                    LOG.warn("cancel failed", ex);
+                    Notification.show("Cancel failed\n", ex.getMessage(), Notification.Type.ERROR_MESSAGE);
+                }
+            }
+        });
+        VerticalLayout progressLayout = new VerticalLayout(progressBar, cancelButton);
+        progressLayout.setSpacing(true);
+        progressLayout.setSizeUndefined();
+        progressLayout.setDefaultComponentAlignment(Alignment.MIDDLE_CENTER);
         VerticalLayout vl = new VerticalLayout();
         vl.setSizeFull();
-        vl.addComponent(progressBar);
-        vl.setComponentAlignment(progressBar, Alignment.MIDDLE_CENTER);
+        vl.addComponent(progressLayout);
+        vl.setComponentAlignment(progressLayout, Alignment.MIDDLE_CENTER);
         splitPanel.setSecondComponent(vl);
         setExecutionAllowed(false);
-        EXECUTOR_SERVICE.submit(new Runnable() {
-            @Override
-            public void run() {
-                handleQueryExecution(sql);
-            }
-        });
+        closeCurrentResult();
+        try {
+            databaseSession.getQueryQueue().submitPriority(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run(execution);
+                    } finally {
+                        execution.close();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            execution.close();
+            LOG.debug("query rejected", e);
+            splitPanel.setSecondComponent(new Label("Session is closed"));
+            setExecutionAllowed(true);
+        }
+    }
+
+    /**
+     * Switches the connection back to the auto-commit mode selected by the user, committing the statements run while
+     * a streamed cursor kept it out of that mode.
+     */
+    private void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            LOG.warn("failed to restore autocommit mode", e);
+        }
     }
 
-    private void handleQueryExecution(String sql) {
+    private void handleQueryExecution(String sql, ExecutionRegistry.Execution execution) {
         final long start = System.currentTimeMillis();
         String statMsg;
+        long rows = -1;
+        String error = null;
+        PreparedStatement stmt = null;
+        boolean statementOwnedByResult = false;
+        boolean cursorTransaction = false;
+        ResultCache resultCache = databaseSession.getResultCache();
+        boolean cacheable = resultCache != null && ResultCache.isCacheable(sql);
         try {
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setMaxRows(getMaxRows());
-                boolean hasResultSet = stmt.execute();
-                if (hasResultSet) {
-                    ResultSetTable table = new ResultSetTable(stmt.getResultSet());
-                    statMsg = "rows fetched: " + table.getItemIds().size();
-                    showResult(table);
-                } else {
-                    int cnt = stmt.getUpdateCount();
-                    statMsg = "rows updated: " + cnt;
-                    showResult(new Label("Updated " + cnt + " row(s)"));
+            if (cacheable && getResultMode() == ResultMode.MEMORY) {
+                ColumnarResultBuffer cached = resultCache.get(sql, Collections.emptyList(), getMaxRows());
+                if (cached != null) {
+                    rows = cached.getRowCount();
+                    showResult(new ResultSetTable(cached));
+                    showStats(start, "rows fetched: " + rows + "\n" + getCacheStats(resultCache, true));
+                    addToHistory(sql, start, rows, null);
+                    return;
+                }
+            }
+            ResultMode resultMode = getResultMode();
+            if (resultMode == ResultMode.STREAM && connection.getAutoCommit()) {
+                // some drivers (e.g. PostgreSQL) only use server-side cursors outside of auto-commit mode, the
+                // connection stays out of it while the cursor is open and is switched back once it is closed
+                connection.setAutoCommit(false);
+                cursorTransaction = true;
+            }
+            stmt = connection.prepareStatement(sql);
+            stmt.setMaxRows(getMaxRows());
+            stmt.setFetchSize(fetchSize);
+            databaseSession.configureStatement(stmt);
+            execution.setStatement(stmt);
+            boolean hasResultSet = stmt.execute();
+            if (hasResultSet && resultMode == ResultMode.DISK) {
+                // keep the statement cancellable while rows are copied to the buffer
+                FileResultBuffer buffer = loadBuffer(stmt.getResultSet());
+                execution.setStatement(null);
+                ResultBufferContainer container = new ResultBufferContainer(buffer);
+                rows = buffer.getRowCount();
+                statMsg = "rows fetched: " + buffer.getRowCount() + ", buffer size: " + buffer.getSize() / 1024 + " KB";
+                Table table = UiUtils.createTable(container);
+                table.setSortEnabled(true);
+                showResult(table, container, sql);
+            } else if (hasResultSet && resultMode == ResultMode.STREAM) {
+                ResultSetContainer container = new ResultSetContainer(stmt.getResultSet(), fetchSize,
+                        cursorTransaction ? new Runnable() {
+                            @Override
+                            public void run() {
+                                restoreAutoCommit();
+                            }
+                        } : null);
+                // the container keeps reading from the cursor while the user scrolls and closes the statement itself
+                statementOwnedByResult = true;
+                execution.setStatement(null);
+                if (container.isExhausted()) {
+                    rows = container.getFetchedRowCount();
+                }
+                statMsg = container.isExhausted()
+                        ? "rows fetched: " + container.getFetchedRowCount()
+                        : "first rows fetched: " + container.getFetchedRowCount() + ", more on scroll";
+                showResult(UiUtils.createTable(container), container);
+            } else if (hasResultSet) {
+                // keep the statement cancellable while rows are read into memory
+                ResultSetTable table = new ResultSetTable(stmt.getResultSet());
+                execution.setStatement(null);
+                rows = table.getRowCount();
+                statMsg = "rows fetched: " + table.getRowCount();
+                if (cacheable && table.getBuffer() != null) {
+                    resultCache.put(sql, Collections.emptyList(), getMaxRows(), table.getBuffer());
+                    statMsg += "\n" + getCacheStats(resultCache, false);
                 }
+                showResult(table);
+            } else {
+                execution.setStatement(null);
+                int cnt = stmt.getUpdateCount();
+                rows = cnt;
+                statMsg = "rows updated: " + cnt;
+                showResult(new Label("Updated " + cnt + " row(s)"));
             }
 
-            final long end = System.currentTimeMillis();
-            final String finalStatMsg = statMsg;
-            getUI().access(new Runnable() {
+            showStats(start, statMsg);
+        } catch (SQLException e) {
+            LOG.debug("failed to execute sql query", e);
+            error = execution.isCancelled() ? "Query cancelled: " + e.getMessage() : e.getMessage();
+            showResult(new Label(error));
+        } finally {
+            if (stmt != null && !statementOwnedByResult) {
+                JdbcUtils.close(stmt);
+            }
+            if (cursorTransaction && !statementOwnedByResult) {
+                restoreAutoCommit();
+            }
+            if (resultCache != null && error == null && ResultCache.isModifying(sql)) {
+                resultCache.invalidateAll();
+            }
+            invalidateMetadata(sql);
+        }
+        addToHistory(sql, start, rows, error);
+    }
+
+    private void handleExplain(String sql, boolean analyze, ExecutionRegistry.Execution execution) {
+        try {
+            List<PlanNode> plan = new ExplainRunner(databaseSession).explain(sql, analyze, execution);
+            showResult(plan.isEmpty() ? new Label("The database returned no plan") : new QueryPlanView(plan, analyze));
+        } catch (SQLException e) {
+            LOG.debug("failed to explain sql query", e);
+            showResult(new Label(execution.isCancelled() ? "Explain cancelled: " + e.getMessage() : e.getMessage()));
+        }
+    }
+
+    private void handleScriptExecution(String script, ExecutionRegistry.Execution execution) {
+        final long start = System.currentTimeMillis();
+        List<String> statements = SqlScriptSplitter.split(script, databaseSession.getDialect().getScriptDelimiters());
+
+        final IndexedContainer log = new IndexedContainer();
+        log.addContainerProperty("#", Integer.class, null);
+        log.addContainerProperty("Statement", String.class, null);
+        log.addContainerProperty("Result", String.class, null);
+        final TabSheet tabSheet = new TabSheet();
+        tabSheet.setSizeFull();
+        tabSheet.addTab(UiUtils.createTable(log), "Log");
+
+        final int[] resultSets = {0};
+        String statMsg;
+        String error = null;
+        try {
+            new ScriptRunner(databaseSession, connection, getMaxRows()).run(statements, execution, new ScriptRunner.Listener() {
                 @Override
-                public void run() {
-                    Notification.show(
-                            "Query Stats",
-                            "exec time: " + (end - start) / 1000.0 + " ms\n" + finalStatMsg,
-                            Notification.Type.TRAY_NOTIFICATION);
+                public void resultSet(int index, String sql, ResultSet resultSet) throws SQLException {
+                    ResultSetTable table = new ResultSetTable(resultSet);
+                    TabSheet.Tab tab = tabSheet.addTab(table, "Result " + (++resultSets[0]));
+                    tab.setDescription(sql);
+                    addLogEntry(log, index, sql, "rows fetched: " + table.getRowCount());
+                }
+
+                @Override
+                public void updateCount(int index, String sql, int count) {
+                    addLogEntry(log, index, sql, count == Statement.SUCCESS_NO_INFO ? "done" : "rows updated: " + count);
                 }
             });
+            statMsg = "statements executed: " + statements.size();
         } catch (SQLException e) {
-            LOG.debug("failed to execute sql query", e);
-            showResult(new Label(e.getMessage()));
+            LOG.debug("failed to execute sql script", e);
+            String message = execution.isCancelled() ? "Script cancelled: " + e.getMessage() : e.getMessage();
+            addLogEntry(log, log.size(), null, message);
+            statMsg = message;
+            error = message;
+        }
+        showResult(tabSheet);
+        if (databaseSession.getResultCache() != null) {
+            databaseSession.getResultCache().invalidateAll();
+        }
+        invalidateMetadata(script);
+        addToHistory(script, start, -1, error);
+
+        final long end = System.currentTimeMillis();
+        final String finalStatMsg = statMsg;
+        getUI().access(new Runnable() {
+            @Override
+            public void run() {
+                Notification.show(
+                        "Script Stats",
+                        "exec time: " + (end - start) / 1000.0 + " s\n" + finalStatMsg,
+                        Notification.Type.TRAY_NOTIFICATION);
+            }
+        });
+    }
+
+    private void showStats(final long start, final String statMsg) {
+        final long end = System.currentTimeMillis();
+        getUI().access(new Runnable() {
+            @Override
+            public void run() {
+                Notification.show(
+                        "Query Stats",
+                        "exec time: " + (end - start) / 1000.0 + " ms\n" + statMsg,
+                        Notification.Type.TRAY_NOTIFICATION);
+            }
+        });
+    }
+
+    private void invalidateMetadata(String sql) {
+        if (MetadataCache.isSchemaChange(sql)) {
+            databaseSession.getMetadata().invalidate();
+        }
+    }
+
+    private static String getCacheStats(ResultCache resultCache, boolean hit) {
+        return "result cache: " + (hit ? "hit" : "miss")
+                + " (" + resultCache.getStats().hitCount() + " hits, " + resultCache.getStats().missCount() + " misses)";
+    }
+
+    private void addToHistory(String sql, long start, long rows, String error) {
+        long end = System.currentTimeMillis();
+        databaseSession.getQueryHistory().add(new HistoryEntry(sql, start, end - start, rows, error));
+        getUI().access(new Runnable() {
+            @Override
+            public void run() {
+                if (historySplitPanel.getSecondComponent() != null) {
+                    historyPanel.refresh();
+                }
+            }
+        });
+    }
+
+    private void setHistoryVisible(boolean visible) {
+        if (visible) {
+            historySplitPanel.setSecondComponent(historyPanel);
+            historySplitPanel.setSplitPosition(65, Unit.PERCENTAGE);
+            historySplitPanel.setLocked(false);
+        } else {
+            historySplitPanel.setSecondComponent(null);
+            historySplitPanel.setSplitPosition(100, Unit.PERCENTAGE);
+            historySplitPanel.setLocked(true);
         }
     }
 
-    private void showResult(final Component resultComponent) {
+    private static void addLogEntry(IndexedContainer log, int index, String sql, String result) {
+        Item item = log.addItem(log.size());
+        item.getItemProperty("#").setValue(sql == null ? null : index + 1);
+        item.getItemProperty("Statement").setValue(sql);
+        item.getItemProperty("Result").setValue(result);
+    }
+
+    private void showResult(Component resultComponent) {
+        showResult(resultComponent, null);
+    }
+
+    private void showResult(Component resultComponent, Closeable result) {
+        showResult(resultComponent, result, null);
+    }
+
+    /**
+     * @param sql query of a result which can be exported from its buffer
+     */
+    private void showResult(final Component resultComponent, final Closeable result, final String sql) {
         getUI().access(new Runnable() {
             @Override
             public void run() {
+                closeCurrentResult();
+                currentResult = result;
+                currentResultSql = sql;
                 splitPanel.setSecondComponent(resultComponent);
                 query.focus();
                 setExecutionAllowed(true);
@@ -230,6 +627,65 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
         });
     }
 
+    private void closeCurrentResult() {
+        if (currentResult != null) {
+            try {
+                currentResult.close();
+            } catch (IOException e) {
+                LOG.warn("failed to close query result", e);
+            }
+            currentResult = null;
+            currentResultSql = null;
+        }
+    }
+
+    /**
+     * @return buffer of the shown result if it holds the complete result of the query, LOB columns are kept as
+     * previews only
+     */
+    private ResultBuffer getExportableBuffer(String sql) {
+        if (!(currentResult instanceof ResultBufferContainer) || !sql.equals(currentResultSql)) {
+            return null;
+        }
+        ResultBuffer buffer = ((ResultBufferContainer) currentResult).getBuffer();
+        for (int i = 0; i < buffer.getColumnCount(); i++) {
+            if (buffer.getColumnType(i) == LobValue.class) {
+                return null;
+            }
+        }
+        return buffer;
+    }
+
+    private boolean isScript() {
+        return Boolean.TRUE.equals(scriptCheckBox.getValue());
+    }
+
+    private FileResultBuffer loadBuffer(ResultSet resultSet) throws SQLException {
+        FileResultBuffer buffer = null;
+        try {
+            buffer = new FileResultBuffer(resultSet.getMetaData());
+            buffer.load(resultSet);
+            return buffer;
+        } catch (IOException e) {
+            if (buffer != null) {
+                buffer.close();
+            }
+            throw new SQLException("Failed to write result buffer: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            if (buffer != null) {
+                buffer.close();
+            }
+            throw e;
+        } finally {
+            JdbcUtils.close(resultSet);
+        }
+    }
+
+    private ResultMode getResultMode() {
+        Object value = resultModeBox.getValue();
+        return value == null ? ResultMode.STREAM : (ResultMode) value;
+    }
+
     private int getMaxRows() {
         Object value = maxRowsBox.getValue();
         return value == null ? 0 : (Integer) value;
@@ -239,4 +695,21 @@ public class QueryExecutorComponent extends VerticalLayout implements Closeable
         query.setReadOnly(!b);
         queryOptionsLayout.setEnabled(b);
     }
+
+    private interface Task {
+
+        void run(ExecutionRegistry.Execution execution);
+    }
+
+    private enum ResultMode {
+        STREAM("Stream"),
+        MEMORY("In memory"),
+        DISK("Disk buffer");
+
+        private final String caption;
+
+        ResultMode(String caption) {
+            this.caption = caption;
+        }
+    }
 }
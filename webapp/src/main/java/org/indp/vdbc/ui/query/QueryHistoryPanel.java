@@ -0,0 +1,141 @@
+package org.indp.vdbc.ui.query;
+
+import com.vaadin.data.Item;
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.event.FieldEvents;
+import com.vaadin.event.ItemClickEvent;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.history.HistoryEntry;
+import org.indp.vdbc.history.QueryHistory;
+import org.indp.vdbc.ui.UiUtils;
+
+import java.util.Date;
+
+/**
+ * Searchable list of previously executed statements.
+ */
+public class QueryHistoryPanel extends VerticalLayout {
+
+    private static final int MAX_RESULTS = 200;
+    private static final int MAX_SQL_LENGTH = 200;
+    private static final String TIME_PROPERTY = "Time";
+    private static final String SQL_PROPERTY = "SQL";
+    private static final String DURATION_PROPERTY = "ms";
+    private static final String ROWS_PROPERTY = "Rows";
+    private static final String STATUS_PROPERTY = "Status";
+
+    private final QueryHistory history;
+    private final Listener listener;
+    private final IndexedContainer container = new IndexedContainer();
+    private final TextField searchField;
+    private final Table table;
+
+    public interface Listener {
+
+        void insert(String sql);
+
+        void run(String sql);
+    }
+
+    public QueryHistoryPanel(QueryHistory history, final Listener listener) {
+        this.history = history;
+        this.listener = listener;
+
+        container.addContainerProperty(TIME_PROPERTY, Date.class, null);
+        container.addContainerProperty(SQL_PROPERTY, String.class, null);
+        container.addContainerProperty(DURATION_PROPERTY, Long.class, null);
+        container.addContainerProperty(ROWS_PROPERTY, Long.class, null);
+        container.addContainerProperty(STATUS_PROPERTY, String.class, null);
+
+        searchField = new TextField();
+        searchField.setInputPrompt("Search history");
+        searchField.setWidth("100%");
+        searchField.addStyleName(ValoTheme.TEXTFIELD_SMALL);
+        searchField.setTextChangeEventMode(AbstractTextField.TextChangeEventMode.LAZY);
+        searchField.setTextChangeTimeout(200);
+        searchField.addTextChangeListener(new FieldEvents.TextChangeListener() {
+            @Override
+            public void textChange(FieldEvents.TextChangeEvent event) {
+                refresh(event.getText());
+            }
+        });
+
+        table = UiUtils.createTable(container);
+        table.setColumnExpandRatio(SQL_PROPERTY, 1f);
+        table.addItemClickListener(new ItemClickEvent.ItemClickListener() {
+            @Override
+            public void itemClick(ItemClickEvent event) {
+                if (event.isDoubleClick()) {
+                    listener.insert(((HistoryEntry) event.getItemId()).getSql());
+                }
+            }
+        });
+
+        Button insertButton = createButton("Insert", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                HistoryEntry entry = getSelectedEntry();
+                if (entry != null) {
+                    listener.insert(entry.getSql());
+                }
+            }
+        });
+        insertButton.setDescription("Put the statement into the editor (or double-click it)");
+        Button runButton = createButton("Run", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                HistoryEntry entry = getSelectedEntry();
+                if (entry != null) {
+                    listener.run(entry.getSql());
+                }
+            }
+        });
+
+        HorizontalLayout buttons = new HorizontalLayout(insertButton, runButton);
+        buttons.setSpacing(true);
+
+        addComponents(searchField, table, buttons);
+        setExpandRatio(table, 1f);
+        setSpacing(true);
+        setMargin(true);
+        setSizeFull();
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+        refresh();
+    }
+
+    public void refresh() {
+        refresh(searchField.getValue());
+    }
+
+    private void refresh(String text) {
+        container.removeAllItems();
+        for (HistoryEntry entry : history.search(text, MAX_RESULTS)) {
+            Item item = container.addItem(entry);
+            item.getItemProperty(TIME_PROPERTY).setValue(new Date(entry.getTimestamp()));
+            item.getItemProperty(SQL_PROPERTY).setValue(abbreviate(entry.getSql()));
+            item.getItemProperty(DURATION_PROPERTY).setValue(entry.getDuration());
+            item.getItemProperty(ROWS_PROPERTY).setValue(entry.getRows() < 0 ? null : entry.getRows());
+            item.getItemProperty(STATUS_PROPERTY).setValue(entry.isFailed() ? entry.getError() : "OK");
+        }
+    }
+
+    private HistoryEntry getSelectedEntry() {
+        return (HistoryEntry) table.getValue();
+    }
+
+    private static String abbreviate(String sql) {
+        String line = sql.replaceAll("\\s+", " ").trim();
+        return line.length() > MAX_SQL_LENGTH ? line.substring(0, MAX_SQL_LENGTH) + "..." : line;
+    }
+
+    private static Button createButton(String caption, Button.ClickListener clickListener) {
+        Button button = new Button(caption, clickListener);
+        button.addStyleName(ValoTheme.BUTTON_SMALL);
+        return button;
+    }
+}
@@ -0,0 +1,86 @@
+package org.indp.vdbc.ui.query;
+
+import com.google.common.base.Joiner;
+import com.vaadin.data.Item;
+import com.vaadin.ui.AbstractSelect;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.Table;
+import com.vaadin.ui.TreeTable;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.plan.PlanNode;
+
+import java.util.List;
+
+/**
+ * Shows an execution plan as a tree table; property lines of an operation are shown in its tooltip.
+ */
+public class QueryPlanView extends VerticalLayout {
+
+    private static final String OPERATION_PROPERTY = "Operation";
+    private static final String COST_PROPERTY = "Cost";
+    private static final String ROWS_PROPERTY = "Rows";
+    private static final String ACTUAL_TIME_PROPERTY = "Actual Time (ms)";
+    private static final String ACTUAL_ROWS_PROPERTY = "Actual Rows";
+    private static final String LOOPS_PROPERTY = "Loops";
+
+    public QueryPlanView(List<PlanNode> plan, boolean analyze) {
+        final TreeTable table = new TreeTable();
+        table.setSizeFull();
+        table.addStyleName(ValoTheme.TABLE_COMPACT);
+        table.addStyleName(ValoTheme.TABLE_NO_VERTICAL_LINES);
+        table.addStyleName(ValoTheme.TABLE_BORDERLESS);
+        table.setSelectable(true);
+        table.setSortEnabled(false);
+
+        table.addContainerProperty(OPERATION_PROPERTY, String.class, null);
+        table.addContainerProperty(COST_PROPERTY, Double.class, null);
+        table.addContainerProperty(ROWS_PROPERTY, Long.class, null);
+        if (analyze) {
+            table.addContainerProperty(ACTUAL_TIME_PROPERTY, Double.class, null);
+            table.addContainerProperty(ACTUAL_ROWS_PROPERTY, Long.class, null);
+            table.addContainerProperty(LOOPS_PROPERTY, Long.class, null);
+        }
+        table.setColumnExpandRatio(OPERATION_PROPERTY, 1f);
+        for (Object propertyId : table.getContainerPropertyIds()) {
+            if (!OPERATION_PROPERTY.equals(propertyId)) {
+                table.setColumnAlignment(propertyId, Table.Align.RIGHT);
+            }
+        }
+
+        for (PlanNode node : plan) {
+            addNode(table, null, node, analyze);
+        }
+
+        table.setItemDescriptionGenerator(new AbstractSelect.ItemDescriptionGenerator() {
+            @Override
+            public String generateDescription(Component source, Object itemId, Object propertyId) {
+                List<String> details = ((PlanNode) itemId).getDetails();
+                return details.isEmpty() ? null : Joiner.on("<br/>").join(details);
+            }
+        });
+
+        addComponent(table);
+        setSizeFull();
+    }
+
+    private static void addNode(TreeTable table, PlanNode parent, PlanNode node, boolean analyze) {
+        Item item = table.addItem(node);
+        item.getItemProperty(OPERATION_PROPERTY).setValue(node.getOperation());
+        item.getItemProperty(COST_PROPERTY).setValue(node.getCost());
+        item.getItemProperty(ROWS_PROPERTY).setValue(node.getRows());
+        if (analyze) {
+            item.getItemProperty(ACTUAL_TIME_PROPERTY).setValue(node.getActualTime());
+            item.getItemProperty(ACTUAL_ROWS_PROPERTY).setValue(node.getActualRows());
+            item.getItemProperty(LOOPS_PROPERTY).setValue(node.getLoops());
+        }
+        if (parent != null) {
+            table.setParent(node, parent);
+        }
+        table.setChildrenAllowed(node, !node.getChildren().isEmpty());
+        table.setCollapsed(node, false);
+        for (PlanNode child : node.getChildren()) {
+            addNode(table, node, child, analyze);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.indp.vdbc.ui.query;
+
+import com.vaadin.data.Item;
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.event.ShortcutAction;
+import com.vaadin.ui.*;
+import com.vaadin.ui.themes.ValoTheme;
+import org.indp.vdbc.services.ExecutionRegistry;
+import org.indp.vdbc.services.QueryScheduler;
+import org.indp.vdbc.ui.UiUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * Lists statements running in the current database session and allows to cancel them.
+ */
+public class RunningStatementsWindow extends Window {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RunningStatementsWindow.class);
+    private static final String STARTED_PROPERTY = "Started";
+    private static final String DURATION_PROPERTY = "Duration (s)";
+    private static final String SQL_PROPERTY = "SQL";
+    private static final String CANCEL_COLUMN = "";
+
+    private final ExecutionRegistry executionRegistry;
+    private final QueryScheduler.Queue queryQueue;
+    private final IndexedContainer container = new IndexedContainer();
+    private final Label queueLabel = new Label();
+
+    public RunningStatementsWindow(ExecutionRegistry executionRegistry, QueryScheduler.Queue queryQueue) {
+        this.executionRegistry = executionRegistry;
+        this.queryQueue = queryQueue;
+        container.addContainerProperty(STARTED_PROPERTY, Date.class, null);
+        container.addContainerProperty(DURATION_PROPERTY, Double.class, null);
+        container.addContainerProperty(SQL_PROPERTY, String.class, null);
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+
+        setCaption("Running Statements");
+        setModal(true);
+        setWidth("700px");
+        setHeight("400px");
+        setContent(createLayout());
+        setCloseShortcut(ShortcutAction.KeyCode.ESCAPE);
+        refresh();
+    }
+
+    private Component createLayout() {
+        Table table = UiUtils.createTable(container);
+        table.addGeneratedColumn(CANCEL_COLUMN, new Table.ColumnGenerator() {
+            @Override
+            public Object generateCell(Table source, final Object itemId, Object columnId) {
+                Button button = new Button("Cancel", new Button.ClickListener() {
+                    @Override
+                    public void buttonClick(Button.ClickEvent event) {
+                        cancel((ExecutionRegistry.Execution) itemId);
+                    }
+                });
+                button.addStyleName(ValoTheme.BUTTON_TINY);
+                return button;
+            }
+        });
+        table.setColumnExpandRatio(SQL_PROPERTY, 1f);
+
+        Button refreshButton = new Button("Refresh", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                refresh();
+            }
+        });
+        Button closeButton = new Button("Close", new Button.ClickListener() {
+            @Override
+            public void buttonClick(Button.ClickEvent event) {
+                close();
+            }
+        });
+
+        HorizontalLayout buttons = new HorizontalLayout(refreshButton, closeButton);
+        buttons.setSpacing(true);
+
+        HorizontalLayout footer = new HorizontalLayout(queueLabel, buttons);
+        footer.setWidth("100%");
+        footer.setExpandRatio(queueLabel, 1f);
+        footer.setComponentAlignment(queueLabel, Alignment.MIDDLE_LEFT);
+
+        VerticalLayout layout = new VerticalLayout(table, footer);
+        layout.setSizeFull();
+        layout.setMargin(true);
+        layout.setSpacing(true);
+        layout.setExpandRatio(table, 1f);
+        return layout;
+    }
+
+    private void cancel(ExecutionRegistry.Execution execution) {
+        try {
+            execution.cancel();
+            Notification.show("Cancel requested");
+        } catch (SQLException e) {
+            LOG.warn("cancel failed", e);
+            Notification.show("Cancel failed\n", e.getMessage(), Notification.Type.ERROR_MESSAGE);
+        }
+        refresh();
+    }
+
+    private void refresh() {
+        container.removeAllItems();
+        long now = System.currentTimeMillis();
+        for (ExecutionRegistry.Execution execution : executionRegistry.getExecutions()) {
+            Item item = container.addItem(execution);
+            item.getItemProperty(STARTED_PROPERTY).setValue(new Date(execution.getStartTime()));
+            item.getItemProperty(DURATION_PROPERTY).setValue((now - execution.getStartTime()) / 1000.0);
+            item.getItemProperty(SQL_PROPERTY).setValue(execution.getSql());
+        }
+        queueLabel.setValue("Queued: " + queryQueue.getQueueDepth()
+                + " (all sessions: " + queryQueue.getScheduler().getQueueDepth() + ")");
+    }
+}
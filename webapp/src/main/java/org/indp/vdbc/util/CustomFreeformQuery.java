@@ -1,30 +1,126 @@
 package org.indp.vdbc.util;
 
+import com.vaadin.data.Container;
 import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
 import com.vaadin.data.util.sqlcontainer.query.FreeformQuery;
 import com.vaadin.data.util.sqlcontainer.query.FreeformStatementDelegate;
+import com.vaadin.data.util.sqlcontainer.query.OrderBy;
 import com.vaadin.data.util.sqlcontainer.query.generator.StatementHelper;
+import org.indp.vdbc.services.QueryScheduler;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  *
  */
 public class CustomFreeformQuery extends FreeformQuery {
 
+    private static final int READ_AHEAD_PAGES = 2;
+    private static final int CACHED_PAGES = 6;
+
+    private final JDBCConnectionPool connectionPool;
+    private final PagePrefetcher prefetcher;
+
     public CustomFreeformQuery(String queryString, JDBCConnectionPool connectionPool, String... primaryKeyColumns) {
+        this(queryString, connectionPool, null, primaryKeyColumns);
+    }
+
+    /**
+     * @param queue queue to read pages ahead on, null to load every page when it is requested
+     */
+    public CustomFreeformQuery(String queryString, JDBCConnectionPool connectionPool, QueryScheduler.Queue queue,
+                               String... primaryKeyColumns) {
         super(queryString, connectionPool, primaryKeyColumns);
+        this.connectionPool = connectionPool;
+        this.prefetcher = queue == null ? null : new PagePrefetcher(queue, new PagePrefetcher.PageSource() {
+            @Override
+            public Callable<ResultPage> createTask(int offset, int limit) {
+                return createPageTask(offset, limit);
+            }
+        }, READ_AHEAD_PAGES, CACHED_PAGES);
     }
 
     @Override
     public ResultSet getResults(int offset, int pagelength) throws SQLException {
+        if (prefetcher != null) {
+            return prefetcher.getPage(offset, pagelength).toResultSet();
+        }
         Connection connection = getConnection();
         StatementHelper sh = ((FreeformStatementDelegate) getDelegate()).getQueryStatement(offset, pagelength);
-        PreparedStatement pstmt = connection.prepareStatement(sh.getQueryString(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        PreparedStatement pstmt = connection.prepareStatement(sh.getQueryString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
         sh.setParameterValuesToStatement(pstmt);
         return pstmt.executeQuery();
     }
+
+    private Callable<ResultPage> createPageTask(final int offset, int limit) {
+        // the statement is built right away, filters and sort order may change before the task runs
+        Object delegate = getDelegate();
+        final StatementHelper sh = ((FreeformStatementDelegate) delegate).getQueryStatement(offset, limit);
+        final List<String> keyColumns = delegate instanceof ReadonlyFreeformStatementDelegate
+                ? ((ReadonlyFreeformStatementDelegate) delegate).getKeyColumns()
+                : getPrimaryKeyColumns();
+        // the key of the last row lets the next page seek from it
+        final KeysetPagination pagination = delegate instanceof KeysetFreeformStatementDelegate
+                ? ((KeysetFreeformStatementDelegate) delegate).getActivePagination()
+                : null;
+        return new Callable<ResultPage>() {
+            @Override
+            public ResultPage call() throws SQLException {
+                Connection connection = connectionPool.reserveConnection();
+                PreparedStatement pstmt = null;
+                try {
+                    pstmt = connection.prepareStatement(sh.getQueryString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    sh.setParameterValuesToStatement(pstmt);
+                    ResultSet rs = pstmt.executeQuery();
+                    try {
+                        ResultPage page = ResultPage.read(rs, keyColumns);
+                        if (pagination != null) {
+                            pagination.pageRead(offset, page);
+                        }
+                        return page;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    JdbcUtils.close(pstmt);
+                    connectionPool.releaseConnection(connection);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void setFilters(List<Container.Filter> filters) throws UnsupportedOperationException {
+        invalidatePages();
+        super.setFilters(filters);
+    }
+
+    @Override
+    public void setOrderBy(List<OrderBy> orderBys) throws UnsupportedOperationException {
+        invalidatePages();
+        super.setOrderBy(orderBys);
+    }
+
+    private void invalidatePages() {
+        if (prefetcher != null) {
+            prefetcher.invalidate();
+        }
+    }
+
+    @Override
+    public int getCount() throws SQLException {
+        Object delegate = getDelegate();
+        if (delegate instanceof ReadonlyFreeformStatementDelegate) {
+            Long count = ((ReadonlyFreeformStatementDelegate) delegate).getKnownCount();
+            if (count != null) {
+                return (int) Math.min(Integer.MAX_VALUE, count);
+            }
+        }
+        return super.getCount();
+    }
 }
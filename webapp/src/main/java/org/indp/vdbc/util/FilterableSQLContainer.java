@@ -0,0 +1,43 @@
+package org.indp.vdbc.util;
+
+import com.vaadin.data.util.sqlcontainer.SQLContainer;
+import com.vaadin.data.util.sqlcontainer.query.QueryDelegate;
+
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * SQL container which can replace all its filters at once. Every filter change of {@link SQLContainer} refreshes the
+ * container, and the table then counts the rows again, so replacing n filters one by one ran n + 1 counts.
+ */
+public class FilterableSQLContainer extends SQLContainer {
+
+    private boolean updatingFilters;
+
+    public FilterableSQLContainer(QueryDelegate delegate) throws SQLException {
+        super(delegate);
+    }
+
+    /**
+     * Replaces the container filters with the given ones and refreshes the container once.
+     */
+    public void setContainerFilters(Collection<Filter> filters) {
+        updatingFilters = true;
+        try {
+            removeAllContainerFilters();
+            for (Filter filter : filters) {
+                addContainerFilter(filter);
+            }
+        } finally {
+            updatingFilters = false;
+        }
+        refresh();
+    }
+
+    @Override
+    public void refresh() {
+        if (!updatingFilters) {
+            super.refresh();
+        }
+    }
+}
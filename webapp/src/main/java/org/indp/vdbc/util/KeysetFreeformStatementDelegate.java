@@ -0,0 +1,50 @@
+package org.indp.vdbc.util;
+
+import com.vaadin.data.util.sqlcontainer.query.generator.StatementHelper;
+import org.indp.vdbc.services.DatabaseSession;
+
+/**
+ * Read-only delegate which pages through a table by its primary key, see {@link KeysetPagination}. Falls back to
+ * limit/offset pages while the container is filtered or sorted.
+ */
+public class KeysetFreeformStatementDelegate extends ReadonlyFreeformStatementDelegate {
+    private final KeysetPagination pagination;
+
+    public KeysetFreeformStatementDelegate(String tableName, String filter, DatabaseSession databaseSession,
+                                           KeysetPagination pagination) {
+        super(tableName, filter, databaseSession);
+        this.pagination = pagination;
+    }
+
+    @Override
+    public void setProjection(String projection) {
+        super.setProjection(projection);
+        pagination.setProjection(projection);
+    }
+
+    /**
+     * @return pagination the pages are read with, null while the container is filtered or sorted
+     */
+    public KeysetPagination getActivePagination() {
+        return isCustomized() ? null : pagination;
+    }
+
+    @Override
+    protected String getOrderBy() {
+        return isCustomized() ? super.getOrderBy() : pagination.getKeyOrder();
+    }
+
+    @Override
+    public StatementHelper getQueryStatement(int offset, int limit) throws UnsupportedOperationException {
+        if (isCustomized()) {
+            return super.getQueryStatement(offset, limit);
+        }
+        KeysetPagination.PageQuery page = pagination.getPageQuery(offset, limit);
+        StatementHelper helper = new StatementHelper();
+        helper.setQueryString(page.getSql());
+        for (Object parameter : page.getParameters()) {
+            helper.addParameterValue(parameter);
+        }
+        return helper;
+    }
+}
@@ -1,6 +1,8 @@
 package org.indp.vdbc.util;
 
+import com.google.common.base.Objects;
 import com.vaadin.data.Container;
+import com.vaadin.data.util.filter.UnsupportedFilterException;
 import com.vaadin.data.util.sqlcontainer.RowItem;
 import com.vaadin.data.util.sqlcontainer.query.FreeformStatementDelegate;
 import com.vaadin.data.util.sqlcontainer.query.OrderBy;
@@ -10,30 +12,127 @@ import org.indp.vdbc.services.DatabaseSession;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Read-only delegate which pages through a table with limit/offset selects. Container filters and sort orders are
+ * pushed down into the where and order by clauses, filter values are passed as bind parameters.
+ */
 public class ReadonlyFreeformStatementDelegate implements FreeformStatementDelegate {
     private final String tableName;
     private final String filter;
     private final Dialect dialect;
+    private final SqlFilterTranslator translator;
+    private volatile Long knownCount;
+    private String containerFilter;
+    private List<Object> containerFilterParameters = Collections.emptyList();
+    private String orderBy;
+    private String projection;
+    private List<String> keyColumns = Collections.emptyList();
 
     public ReadonlyFreeformStatementDelegate(String tableName, String filter, DatabaseSession databaseSession) {
         this.tableName = tableName;
         this.filter = filter;
         this.dialect = databaseSession.getDialect();
+        this.translator = new SqlFilterTranslator(databaseSession);
     }
 
     @Override
     public StatementHelper getQueryStatement(int offset, int limit) throws UnsupportedOperationException {
+        // offset and limit are bound too, every page of the same view reuses one pooled statement
+        List<Object> parameters = new ArrayList<>(containerFilterParameters);
         StatementHelper helper = new StatementHelper();
-        helper.setQueryString(dialect.getExpressions().selectAllFromTable(tableName, filter, offset, limit));
+        helper.setQueryString(dialect.getExpressions().selectColumnsFromTable(tableName, projection, getWhere(), orderBy, offset, limit, parameters));
+        for (Object parameter : parameters) {
+            helper.addParameterValue(parameter);
+        }
         return helper;
     }
 
+    /**
+     * @param projection comma separated list of quoted columns the pages select, null for all columns
+     */
+    public void setProjection(String projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * @param keyColumns unquoted primary key columns of the table, empty if it has none
+     */
+    public void setKeyColumns(List<String> keyColumns) {
+        this.keyColumns = keyColumns;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * @return select of all rows the container shows, in the shown order and without paging; values of the container
+     * filters are added to the parameters
+     */
+    public String getSelectAll(List<Object> parameters) {
+        parameters.addAll(containerFilterParameters);
+        String sql = dialect.getExpressions().selectColumnsFromTable(tableName, projection, getWhere());
+        String order = getOrderBy();
+        return order == null ? sql : sql + " order by " + order;
+    }
+
+    /**
+     * @return sort expressions of the shown rows, null if the order is up to the database
+     */
+    protected String getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * @return condition of the shown rows, null if all rows are shown; values of the container filters are added to
+     * the parameters
+     */
+    public String getWhere(List<Object> parameters) {
+        parameters.addAll(containerFilterParameters);
+        return getWhere();
+    }
+
+    /**
+     * @return true if the container is filtered or sorted on top of the table filter
+     */
+    protected boolean isCustomized() {
+        return containerFilter != null || orderBy != null;
+    }
+
+    private String getWhere() {
+        if (containerFilter == null) {
+            return filter;
+        }
+        return filter == null ? containerFilter : "(" + filter + ") and " + containerFilter;
+    }
+
+    private StatementHelper createHelper() {
+        StatementHelper helper = new StatementHelper();
+        for (Object parameter : containerFilterParameters) {
+            helper.addParameterValue(parameter);
+        }
+        return helper;
+    }
+
+    /**
+     * @return row count to use instead of running the count statement, e.g. an estimate; null if unknown
+     */
+    public Long getKnownCount() {
+        return knownCount;
+    }
+
+    public void setKnownCount(Long knownCount) {
+        this.knownCount = knownCount;
+    }
+
     @Override
     public StatementHelper getCountStatement() throws UnsupportedOperationException {
-        StatementHelper helper = new StatementHelper();
-        helper.setQueryString(dialect.getExpressions().count(tableName, filter));
+        StatementHelper helper = createHelper();
+        helper.setQueryString(dialect.getExpressions().count(tableName, getWhere()));
         return helper;
     }
 
@@ -54,10 +153,27 @@ public class ReadonlyFreeformStatementDelegate implements FreeformStatementDeleg
 
     @Override
     public void setFilters(List<Container.Filter> filters) throws UnsupportedOperationException {
+        List<Object> parameters = new ArrayList<>();
+        String where;
+        try {
+            where = translator.toWhere(filters, parameters);
+        } catch (UnsupportedFilterException e) {
+            throw new UnsupportedOperationException(e.getMessage(), e);
+        }
+        if (!Objects.equal(where, containerFilter) || !parameters.equals(containerFilterParameters)) {
+            // the count was taken without these filters
+            knownCount = null;
+        }
+        containerFilter = where;
+        containerFilterParameters = parameters;
     }
 
     @Override
     public void setOrderBy(List<OrderBy> orderBys) throws UnsupportedOperationException {
+        if (orderBys != null && !orderBys.isEmpty() && !dialect.supportsOrderedLimitedSelects()) {
+            throw new UnsupportedOperationException("Dialect doesn't support ordered limit/offset selects");
+        }
+        orderBy = translator.toOrderBy(orderBys, keyColumns);
     }
 
     @Override
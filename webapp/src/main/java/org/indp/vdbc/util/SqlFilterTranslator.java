@@ -0,0 +1,181 @@
+package org.indp.vdbc.util;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.util.filter.AbstractJunctionFilter;
+import com.vaadin.data.util.filter.And;
+import com.vaadin.data.util.filter.Between;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.IsNull;
+import com.vaadin.data.util.filter.Like;
+import com.vaadin.data.util.filter.Not;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+import com.vaadin.data.util.filter.UnsupportedFilterException;
+import com.vaadin.data.util.sqlcontainer.query.OrderBy;
+import org.indp.vdbc.services.DatabaseSession;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns container filters and sort orders into SQL with quoted column names and bind parameters.
+ * <p/>
+ * Values are never inlined, so the generated text only depends on the filter structure and the database can reuse
+ * its plans for different values.
+ */
+public class SqlFilterTranslator {
+
+    private final DatabaseSession databaseSession;
+
+    public SqlFilterTranslator(DatabaseSession databaseSession) {
+        this.databaseSession = databaseSession;
+    }
+
+    /**
+     * @return condition for all filters with its parameter values added to the list, null if there are no filters
+     */
+    public String toWhere(List<Container.Filter> filters, List<Object> parameters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Container.Filter filter : filters) {
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            sb.append(translate(filter, parameters));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return comma separated sort expressions, null if there are none
+     */
+    public String toOrderBy(List<OrderBy> orderBys) {
+        return toOrderBy(orderBys, Collections.<String>emptyList());
+    }
+
+    /**
+     * @param keyColumns unquoted columns appended to the sort expressions, so rows with equal sort values keep their
+     *                   order between pages
+     * @return comma separated sort expressions, null if there are none
+     */
+    public String toOrderBy(List<OrderBy> orderBys, List<String> keyColumns) {
+        if (orderBys == null || orderBys.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        Set<String> sorted = new HashSet<>();
+        for (OrderBy orderBy : orderBys) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(column(orderBy.getColumn())).append(orderBy.isAscending() ? " asc" : " desc");
+            sorted.add(orderBy.getColumn().toString());
+        }
+        for (String keyColumn : keyColumns) {
+            if (!sorted.contains(keyColumn)) {
+                sb.append(", ").append(column(keyColumn)).append(" asc");
+            }
+        }
+        return sb.toString();
+    }
+
+    private String translate(Container.Filter filter, List<Object> parameters) {
+        if (filter instanceof Compare) {
+            Compare compare = (Compare) filter;
+            String column = column(compare.getPropertyId());
+            if (compare.getValue() == null) {
+                if (compare.getOperation() == Compare.Operation.EQUAL) {
+                    return column + " is null";
+                }
+                throw new UnsupportedFilterException("Can't compare " + column + " with null");
+            }
+            parameters.add(compare.getValue());
+            return column + " " + operator(compare.getOperation()) + " ?";
+        } else if (filter instanceof Like) {
+            Like like = (Like) filter;
+            String column = column(like.getPropertyId());
+            if (like.isCaseSensitive()) {
+                parameters.add(like.getValue());
+                return column + " like ?";
+            }
+            parameters.add(like.getValue().toUpperCase());
+            return "upper(" + column + ") like ?";
+        } else if (filter instanceof SimpleStringFilter) {
+            SimpleStringFilter stringFilter = (SimpleStringFilter) filter;
+            String column = column(stringFilter.getPropertyId());
+            String text = stringFilter.isIgnoreCase()
+                    ? stringFilter.getFilterString().toUpperCase()
+                    : stringFilter.getFilterString();
+            // the text is matched literally, wildcards in it must not widen the match
+            parameters.add((stringFilter.isOnlyMatchPrefix() ? "" : "%") + escapeLike(text) + "%");
+            return databaseSession.getDialect().getExpressions().likeEscaped(
+                    stringFilter.isIgnoreCase() ? "upper(" + column + ")" : column);
+        } else if (filter instanceof Between) {
+            Between between = (Between) filter;
+            parameters.add(between.getStartValue());
+            parameters.add(between.getEndValue());
+            return column(between.getPropertyId()) + " between ? and ?";
+        } else if (filter instanceof IsNull) {
+            return column(((IsNull) filter).getPropertyId()) + " is null";
+        } else if (filter instanceof Not) {
+            return "not (" + translate(((Not) filter).getFilter(), parameters) + ")";
+        } else if (filter instanceof AbstractJunctionFilter) {
+            boolean and = filter instanceof And;
+            if (((AbstractJunctionFilter) filter).getFilters().isEmpty()) {
+                // an empty conjunction matches every row, an empty disjunction none
+                return and ? "1 = 1" : "1 = 0";
+            }
+            String junction = and ? " and " : " or ";
+            StringBuilder sb = new StringBuilder("(");
+            for (Container.Filter part : ((AbstractJunctionFilter) filter).getFilters()) {
+                if (sb.length() > 1) {
+                    sb.append(junction);
+                }
+                sb.append(translate(part, parameters));
+            }
+            return sb.append(')').toString();
+        }
+        throw new UnsupportedFilterException("Unsupported filter: " + filter.getClass().getSimpleName());
+    }
+
+    private static String escapeLike(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String operator(Compare.Operation operation) {
+        switch (operation) {
+            case EQUAL:
+                return "=";
+            case GREATER:
+                return ">";
+            case LESS:
+                return "<";
+            case GREATER_OR_EQUAL:
+                return ">=";
+            case LESS_OR_EQUAL:
+                return "<=";
+            default:
+                throw new UnsupportedFilterException("Unsupported operation: " + operation);
+        }
+    }
+
+    private String column(Object propertyId) {
+        try {
+            return databaseSession.quoteIdentifier(propertyId.toString());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to quote column name " + propertyId, e);
+        }
+    }
+}
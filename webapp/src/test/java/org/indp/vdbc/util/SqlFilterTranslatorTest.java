@@ -0,0 +1,106 @@
+package org.indp.vdbc.util;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.util.filter.And;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.Or;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+import com.vaadin.data.util.sqlcontainer.query.OrderBy;
+import org.indp.vdbc.ConnectionListener;
+import org.indp.vdbc.model.config.JdbcConnectionProfile;
+import org.indp.vdbc.services.DatabaseSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SqlFilterTranslatorTest {
+
+    private DatabaseSession session;
+    private Connection connection;
+    private SqlFilterTranslator translator;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = "translator" + System.nanoTime();
+        JdbcConnectionProfile profile = new JdbcConnectionProfile(name, "h2", "org.h2.Driver",
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", null);
+        session = new DatabaseSession(profile, new ConnectionListener() {
+            @Override
+            public void connectionEstablished(DatabaseSession databaseSession) {
+            }
+
+            @Override
+            public void connectionClosed(DatabaseSession databaseSession) {
+            }
+        });
+        connection = session.getConnection();
+        connection.createStatement().execute("create table t (id int primary key, name varchar(20))");
+        connection.createStatement().execute("insert into t values (1, '50%'), (2, '500'), (3, 'a_b'), (4, 'axb'), (5, 'c\\d')");
+        translator = new SqlFilterTranslator(session);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        session.close();
+    }
+
+    @Test
+    public void testContainsMatchesWildcardsLiterally() throws Exception {
+        assertEquals(Collections.singletonList(1), select(new SimpleStringFilter("NAME", "50%", false, false)));
+        assertEquals(Collections.singletonList(3), select(new SimpleStringFilter("NAME", "A_", true, false)));
+        assertEquals(Collections.singletonList(5), select(new SimpleStringFilter("NAME", "c\\", false, true)));
+        assertEquals(Arrays.asList(1, 2), select(new SimpleStringFilter("NAME", "50", false, true)));
+    }
+
+    @Test
+    public void testEmptyJunctions() throws Exception {
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), select(new And()));
+        assertEquals(Collections.<Integer>emptyList(), select(new Or()));
+        assertEquals(Collections.singletonList(2), select(new Or(new Or(), new Compare.Equal("ID", 2)),
+                new And(new And(), new Compare.Less("ID", 3))));
+    }
+
+    @Test
+    public void testOrderByAppendsKey() throws Exception {
+        String id = session.quoteIdentifier("ID");
+        String name = session.quoteIdentifier("NAME");
+        assertEquals(name + " desc, " + id + " asc",
+                translator.toOrderBy(Collections.singletonList(new OrderBy("NAME", false)), Collections.singletonList("ID")));
+        assertEquals(id + " desc",
+                translator.toOrderBy(Collections.singletonList(new OrderBy("ID", false)), Collections.singletonList("ID")));
+        assertNull(translator.toOrderBy(Collections.<OrderBy>emptyList(), Collections.singletonList("ID")));
+    }
+
+    private List<Integer> select(Container.Filter... filters) throws Exception {
+        List<Object> parameters = new ArrayList<>();
+        String where = translator.toWhere(Arrays.asList(filters), parameters);
+        PreparedStatement statement = connection.prepareStatement("select id from t where " + where + " order by id");
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            List<Integer> ids = new ArrayList<>();
+            ResultSet rs = statement.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+            return ids;
+        } finally {
+            statement.close();
+        }
+    }
+}